@@ -2,9 +2,14 @@ package api;
 
 import javax.ws.rs.GET;
 import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.core.MediaType;
 
+import org.json.simple.JSONObject;
+
+import qora.BlockPipeline;
+import qora.crypto.SignatureCache;
 import controller.Controller;
 
 @Path("qora")
@@ -36,4 +41,65 @@ public class QoraResource
 	{ 
 		return String.valueOf(Controller.getInstance().isUpToDate());
 	}
+	
+	@SuppressWarnings("unchecked")
+	@GET 
+	@Path("/signaturecache")
+	public String getSignatureCache() 
+	{ 
+		SignatureCache cache = SignatureCache.getInstance();
+		
+		JSONObject json = new JSONObject();
+		json.put("hits", cache.getHits());
+		json.put("misses", cache.getMisses());
+		json.put("size", cache.size());
+		
+		return json.toJSONString();
+	}
+	
+	@SuppressWarnings("unchecked")
+	@GET 
+	@Path("/messages/{type}")
+	public String getMessages(@PathParam("type") int type) 
+	{ 
+		JSONObject json = new JSONObject();
+		json.put("queued", Controller.getInstance().getMessageQueueDepth(type));
+		json.put("latency", Controller.getInstance().getMessageHandlingLatency(type));
+		
+		return json.toJSONString();
+	}
+	
+	@GET 
+	@Path("/duplicaterate")
+	public String getDuplicateRate() 
+	{ 
+		return String.valueOf(Controller.getInstance().getDuplicateMessageRate());
+	}
+	
+	@SuppressWarnings("unchecked")
+	@GET 
+	@Path("/synchronizer")
+	public String getSynchronizer() 
+	{ 
+		JSONObject json = new JSONObject();
+		json.put("fetch", Controller.getInstance().getSynchronizeThroughput(BlockPipeline.FETCH_STAGE));
+		json.put("check", Controller.getInstance().getSynchronizeThroughput(BlockPipeline.CHECK_STAGE));
+		json.put("apply", Controller.getInstance().getSynchronizeThroughput(BlockPipeline.APPLY_STAGE));
+		
+		return json.toJSONString();
+	}
+	
+	@GET 
+	@Path("/expiredtransactions")
+	public String getExpiredTransactions() 
+	{ 
+		return String.valueOf(Controller.getInstance().getExpiredTransactionCount());
+	}
+	
+	@GET 
+	@Path("/blocktemplatebuildtime")
+	public String getBlockTemplateBuildTime() 
+	{ 
+		return String.valueOf(Controller.getInstance().getBlockTemplateBuildTime());
+	}
 }
@@ -7,6 +7,7 @@ import java.util.Collection;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Observable;
 import java.util.Observer;
 import java.util.logging.Logger;
@@ -16,15 +17,20 @@ import org.mapdb.Fun.Tuple2;
 import api.ApiService;
 import qora.BlockChain;
 import qora.BlockGenerator;
+import qora.SignatureVerifier;
+import qora.SynchronizationException;
 import qora.Synchronizer;
 import qora.TransactionCreator;
+import qora.TransactionSweeper;
 import qora.account.Account;
 import qora.account.PrivateKeyAccount;
 import qora.assets.Asset;
 import qora.assets.Order;
 import qora.assets.Trade;
 import qora.block.Block;
+import qora.crypto.Crypto;
 import qora.crypto.Ed25519;
+import qora.crypto.JavaEd25519Engine;
 import qora.naming.Name;
 import qora.naming.NameSale;
 import qora.payment.Payment;
@@ -41,13 +47,14 @@ import network.Network;
 import network.Peer;
 import network.message.BlockMessage;
 import network.message.GetBlockMessage;
+import network.message.GetBlocksMessage;
 import network.message.GetSignaturesMessage;
 import network.message.Message;
 import network.message.MessageFactory;
 import network.message.TransactionMessage;
 import network.message.VersionMessage;
 
-public class Controller extends Observable {
+public class Controller extends Observable implements MessageHandler {
 
 	public static final int STATUS_NO_CONNECTIONS = 0;
 	public static final int STATUS_SYNCHRONIZING = 1;
@@ -61,6 +68,8 @@ public class Controller extends Observable {
 	private Wallet wallet;
 	private Synchronizer synchronizer;
 	private TransactionCreator transactionCreator;
+	private TransactionSweeper transactionSweeper;
+	private MessageDispatcher messageDispatcher;
 	
 	private Map<Peer, Integer> peerHeight;
 	
@@ -103,10 +112,16 @@ public class Controller extends Observable {
     		}
         }
 		
-		//LOAD NATIVE LIBRARIES
-		if(!Ed25519.load())
+		//SELECT ED25519 ENGINE
+		if(Settings.getInstance().getEd25519Engine().equals(JavaEd25519Engine.NAME))
 		{
-			throw new Exception("Failed to load native libraries!");
+			Crypto.getInstance().setEngine(new JavaEd25519Engine());
+		}
+		else if(!Ed25519.load())
+		{
+			//FALL BACK TO PURE JAVA IF NATIVE LIBRARIES ARE MISSING
+			Logger.getGlobal().warning("Failed to load native libraries, using java ed25519 engine");
+			Crypto.getInstance().setEngine(new JavaEd25519Engine());
 		}
 		
 		this.peerHeight = new LinkedHashMap<Peer, Integer>(); //LINKED TO PRESERVE ORDER WHEN SYNCHRONIZING (PRIORITIZE SYNCHRONIZING FROM LONGEST CONNECTION ALIVE)
@@ -141,6 +156,13 @@ public class Controller extends Observable {
         //START BLOCKGENERATOR
         this.blockGenerator.start();
         
+        //START TRANSACTION SWEEPER
+        this.transactionSweeper = new TransactionSweeper();
+        this.transactionSweeper.start();
+        
+        //CREATE MESSAGE DISPATCHER
+        this.messageDispatcher = new MessageDispatcher(this, Settings.getInstance().getServingThreads(), Settings.getInstance().getMaxQueuedMessages());
+        
         //CREATE NETWORK
       	this.network = new Network();
       	
@@ -156,7 +178,6 @@ public class Controller extends Observable {
       	
       	//REGISTER DATABASE OBSERVER
       	this.addObserver(DBSet.getInstance().getTransactionMap());
-      	this.addObserver(DBSet.getInstance());
     }
 	
 	@Override
@@ -218,10 +239,19 @@ public class Controller extends Observable {
 			//STOP MESSAGE PROCESSOR
 			Logger.getGlobal().info("Stopping message processor");
 			this.network.stop();
+			this.messageDispatcher.stop();
 			
 			//STOP BLOCK PROCESSOR
 			Logger.getGlobal().info("Stopping block processor");
 			this.synchronizer.stop();
+			
+			//STOP TRANSACTION SWEEPER
+			Logger.getGlobal().info("Stopping transaction sweeper");
+			this.transactionSweeper.halt();
+			
+			//STOP SIGNATURE VERIFIER
+			Logger.getGlobal().info("Stopping signature verifier");
+			SignatureVerifier.getInstance().shutdown();
 
 			//CLOSE DATABABASE
 			Logger.getGlobal().info("Closing database");
@@ -286,14 +316,23 @@ public class Controller extends Observable {
 		this.onDisconnect(peer);
 	}
 	
-	//SYNCHRONIZED DO NOT PROCESSS MESSAGES SIMULTANEOUSLY
 	public void onMessage(Message message) 
+	{
+		//READ ONLY REQUESTS ARE SERVED CONCURRENTLY, BLOCKS AND TRANSACTIONS ARE HANDLED ONE AT A TIME
+		this.messageDispatcher.dispatch(message);
+	}
+	
+	public void onQueueFull(Message message)
+	{
+		//PEER SENDS FASTER THAN WE CAN HANDLE, DISCONNECT WITHOUT BLACKLISTING
+		this.network.onDisconnect(message.getSender());
+	}
+	
+	public void handleMessage(Message message) 
 	{
 		Message response;
 		Block block;
 		
-		synchronized(this)
-		{
 		switch(message.getType())
 		{
 		case Message.PING_TYPE:
@@ -326,7 +365,16 @@ public class Controller extends Observable {
 			GetSignaturesMessage getHeadersMessage = (GetSignaturesMessage) message;
 			
 			//ASK SIGNATURES FROM BLOCKCHAIN
-			List<byte[]> headers = this.blockChain.getSignatures(getHeadersMessage.getParent());
+			List<byte[]> headers;
+			this.synchronizer.getReadLock().lock();
+			try
+			{
+				headers = this.blockChain.getSignatures(getHeadersMessage.getParent());
+			}
+			finally
+			{
+				this.synchronizer.getReadLock().unlock();
+			}
 			
 			//CREATE RESPONSE WITH SAME ID
 			response = MessageFactory.getInstance().createHeadersMessage(headers);
@@ -342,7 +390,21 @@ public class Controller extends Observable {
 			GetBlockMessage getBlockMessage = (GetBlockMessage) message;
 					
 			//ASK BLOCK FROM BLOCKCHAIN
-			block = this.blockChain.getBlock(getBlockMessage.getSignature());
+			this.synchronizer.getReadLock().lock();
+			try
+			{
+				block = this.blockChain.getBlock(getBlockMessage.getSignature());
+				
+				//LOAD STORED TRANSACTIONS WHILE THE CHAIN CAN NOT CHANGE
+				if(block != null)
+				{
+					block.getDataLength();
+				}
+			}
+			finally
+			{
+				this.synchronizer.getReadLock().unlock();
+			}
 			
 			//CREATE RESPONSE WITH SAME ID
 			response = MessageFactory.getInstance().createBlockMessage(block);
@@ -353,6 +415,31 @@ public class Controller extends Observable {
 				
 			break;		
 			
+		case Message.GET_BLOCKS_TYPE:
+			
+			GetBlocksMessage getBlocksMessage = (GetBlocksMessage) message;
+			
+			//READ BLOCKS FROM STORAGE WHILE THE CHAIN CAN NOT CHANGE
+			List<Block> blocks;
+			this.synchronizer.getReadLock().lock();
+			try
+			{
+				blocks = this.blockChain.getBlocks(getBlocksMessage.getSignature(), getBlocksMessage.getAmount());
+			}
+			finally
+			{
+				this.synchronizer.getReadLock().unlock();
+			}
+			
+			//CREATE RESPONSE WITH SAME ID
+			response = MessageFactory.getInstance().createBlocksMessage(blocks);
+			response.setId(message.getId());
+			
+			//SEND RESPONSE BACK WITH SAME ID
+			message.getSender().sendMessage(response);
+			
+			break;
+			
 		case Message.BLOCK_TYPE:
 			
 			BlockMessage blockMessage = (BlockMessage) message;
@@ -430,7 +517,27 @@ public class Controller extends Observable {
 			
 			break;
 		}
-		}
+	}
+	
+	public long getMessageQueueDepth(int type)
+	{
+		return this.messageDispatcher.getQueueDepth(type);
+	}
+	
+	public double getMessageHandlingLatency(int type)
+	{
+		return this.messageDispatcher.getHandlingLatency(type);
+	}
+	
+	public double getDuplicateMessageRate()
+	{
+		return this.network.getDuplicateRate();
+	}
+	
+	//BLOCKS PER SECOND OF A STAGE OF THE LAST SYNCHRONIZATION, STAGES ARE DEFINED IN BLOCKPIPELINE
+	public double getSynchronizeThroughput(int stage)
+	{
+		return this.synchronizer.getThroughput(stage);
 	}
 	
 	public void addActivePeersObserver(Observer o)
@@ -495,18 +602,36 @@ public class Controller extends Observable {
 				//START UPDATE FROM HIGHEST HEIGHT PEER
 				peer = this.getMaxHeightPeer();
 			
-				//SYNCHRONIZE FROM PEER
-				this.synchronizer.synchronize(peer);
+				//SYNCHRONIZE FROM PEER, DOWNLOAD FROM ALL PEERS AT THE SAME HEIGHT
+				this.synchronizer.synchronize(peer, this.getPeers(this.getMaxPeerHeight()));
 			}
 		} 
+		catch (SynchronizationException e)
+		{
+			e.printStackTrace();
+			
+			if(e.getPeer() != null)
+			{
+				if(e.isDishonest())
+				{
+					//PEER SENT AN INVALID BLOCK
+					this.network.onError(e.getPeer());
+				}
+				else
+				{
+					//PEER DID NOT ANSWER OR IS ON ANOTHER CHAIN
+					this.network.onDisconnect(e.getPeer());
+				}
+			}
+		}
 		catch (Exception e) 
 		{
 			e.printStackTrace();
 			
 			if(peer != null)
 			{
-				//DISHONEST PEER
-				this.network.onError(peer);
+				//NO VALID ANSWER FROM THE PEER WE SYNCHRONIZE WITH
+				this.network.onDisconnect(peer);
 			}
 		}
 		
@@ -575,6 +700,25 @@ public class Controller extends Observable {
 		return highestPeer;
 	}
 	
+	//PEERS WITH AT LEAST HEIGHT IN THE ORDER THEY CONNECTED
+	private List<Peer> getPeers(int height)
+	{
+		List<Peer> peers = new ArrayList<Peer>();
+		
+		synchronized(this.peerHeight)
+		{
+			for(Entry<Peer, Integer> entry: this.peerHeight.entrySet())
+			{
+				if(entry.getKey() != null && entry.getValue() >= height)
+				{
+					peers.add(entry.getKey());
+				}
+			}
+		}
+		
+		return peers;
+	}
+	
 	private int getMaxPeerHeight()
 	{
 		int height = 0;
@@ -835,6 +979,17 @@ public class Controller extends Observable {
 		return this.blockGenerator.getUnconfirmedTransactions();
 	}
 	
+	public long getExpiredTransactionCount()
+	{
+		return DBSet.getInstance().getTransactionMap().getExpiredCount();
+	}
+	
+	//MILLISECONDS IT TOOK TO BUILD THE LAST BLOCK TEMPLATE, -1 IF NONE WAS BUILT
+	public long getBlockTemplateBuildTime()
+	{
+		return this.blockGenerator.getTemplateBuildTime();
+	}
+	
 	//BALANCES
 	
 	public SortableList<Tuple2<String, Long>, BigDecimal> getBalances(long key)
@@ -0,0 +1,247 @@
+package controller;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import network.Peer;
+import network.message.Message;
+
+public class MessageDispatcher
+{
+	private MessageHandler handler;
+	
+	//BLOCKS AND TRANSACTIONS CHANGE STATE AND ARE HANDLED ONE AT A TIME
+	private ExecutorService ingestionExecutor;
+	
+	//READ ONLY REQUESTS ARE SERVED CONCURRENTLY, EVERY TYPE HAS ITS OWN THREADS
+	private ConcurrentHashMap<Integer, ExecutorService> servingExecutors;
+	private int servingThreads;
+	
+	//EVERY EXECUTOR HOLDS AT MOST THIS MANY WAITING MESSAGES, MORE ARE DROPPED
+	private int maxQueued;
+	
+	//WAITING MESSAGES OF EVERY SENDER PER EXECUTOR, TO FIND THE PEER THAT FILLS A QUEUE
+	private Map<ExecutorService, Map<Peer, Integer>> senders;
+	
+	private ConcurrentHashMap<Integer, AtomicLong> queued;
+	private ConcurrentHashMap<Integer, AtomicLong> handled;
+	private ConcurrentHashMap<Integer, AtomicLong> handlingTime;
+	
+	private volatile boolean isStopped = false;
+	
+	public MessageDispatcher(MessageHandler handler, int servingThreads, int maxQueued)
+	{
+		this.handler = handler;
+		this.servingThreads = servingThreads;
+		this.maxQueued = maxQueued;
+		this.ingestionExecutor = this.createExecutor(1);
+		this.senders = new HashMap<ExecutorService, Map<Peer, Integer>>();
+		this.servingExecutors = new ConcurrentHashMap<Integer, ExecutorService>();
+		this.queued = new ConcurrentHashMap<Integer, AtomicLong>();
+		this.handled = new ConcurrentHashMap<Integer, AtomicLong>();
+		this.handlingTime = new ConcurrentHashMap<Integer, AtomicLong>();
+	}
+	
+	public static boolean isReadOnly(int type)
+	{
+		switch(type)
+		{
+		case Message.PING_TYPE:
+		case Message.GET_SIGNATURES_TYPE:
+		case Message.GET_BLOCK_TYPE:
+		case Message.GET_BLOCKS_TYPE:
+			
+			return true;
+		}
+		
+		return false;
+	}
+	
+	public void dispatch(final Message message)
+	{
+		final int type = message.getType();
+		final AtomicLong queued = getCounter(this.queued, type);
+		final Peer sender = message.getSender();
+		final ExecutorService executor;
+		
+		try
+		{
+			executor = this.getExecutor(type);
+		}
+		catch(RejectedExecutionException e)
+		{
+			//STOPPED
+			return;
+		}
+		
+		queued.incrementAndGet();
+		this.addSender(executor, sender);
+		try
+		{
+			executor.execute(new Runnable() {
+				@Override
+				public void run() {
+					queued.decrementAndGet();
+					removeSender(executor, sender);
+					
+					long start = System.nanoTime();
+					try
+					{
+						handler.handleMessage(message);
+					}
+					catch(Exception e)
+					{
+						e.printStackTrace();
+					}
+					
+					getCounter(handlingTime, type).addAndGet(System.nanoTime() - start);
+					getCounter(handled, type).incrementAndGet();
+				}
+			});
+		}
+		catch(RejectedExecutionException e)
+		{
+			queued.decrementAndGet();
+			
+			//QUEUE FULL, ONLY THE SENDER THAT HOLDS MORE THAN ITS SHARE OF IT IS TOLD, OTHERS JUST LOSE THE MESSAGE
+			boolean flooding = this.isOverShare(executor, sender);
+			this.removeSender(executor, sender);
+			if(flooding && !this.isStopped)
+			{
+				this.handler.onQueueFull(message);
+			}
+		}
+	}
+	
+	private synchronized void addSender(ExecutorService executor, Peer sender)
+	{
+		if(sender == null)
+		{
+			return;
+		}
+		
+		Map<Peer, Integer> senders = this.senders.get(executor);
+		if(senders == null)
+		{
+			senders = new HashMap<Peer, Integer>();
+			this.senders.put(executor, senders);
+		}
+		
+		Integer count = senders.get(sender);
+		senders.put(sender, count == null ? 1 : count + 1);
+	}
+	
+	private synchronized void removeSender(ExecutorService executor, Peer sender)
+	{
+		if(sender == null)
+		{
+			return;
+		}
+		
+		Map<Peer, Integer> senders = this.senders.get(executor);
+		int count = senders.get(sender);
+		if(count == 1)
+		{
+			senders.remove(sender);
+		}
+		else
+		{
+			senders.put(sender, count - 1);
+		}
+	}
+	
+	//EVERY SENDER WITH WAITING MESSAGES HAS AN EQUAL SHARE OF THE QUEUE
+	private synchronized boolean isOverShare(ExecutorService executor, Peer sender)
+	{
+		if(sender == null)
+		{
+			return false;
+		}
+		
+		Map<Peer, Integer> senders = this.senders.get(executor);
+		return senders.get(sender) > this.maxQueued / senders.size();
+	}
+	
+	private ExecutorService createExecutor(int threads)
+	{
+		return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<Runnable>(this.maxQueued), new ThreadPoolExecutor.AbortPolicy());
+	}
+	
+	private synchronized ExecutorService getExecutor(int type)
+	{
+		if(this.isStopped)
+		{
+			throw new RejectedExecutionException();
+		}
+		
+		if(!isReadOnly(type))
+		{
+			return this.ingestionExecutor;
+		}
+		
+		ExecutorService executor = this.servingExecutors.get(type);
+		if(executor == null)
+		{
+			executor = this.createExecutor(this.servingThreads);
+			this.servingExecutors.put(type, executor);
+		}
+		
+		return executor;
+	}
+	
+	private static AtomicLong getCounter(ConcurrentHashMap<Integer, AtomicLong> counters, int type)
+	{
+		AtomicLong counter = counters.get(type);
+		if(counter == null)
+		{
+			counters.putIfAbsent(type, new AtomicLong());
+			counter = counters.get(type);
+		}
+		
+		return counter;
+	}
+	
+	//MESSAGES OF TYPE WAITING TO BE HANDLED
+	public long getQueueDepth(int type)
+	{
+		return getCounter(this.queued, type).get();
+	}
+	
+	public long getHandledCount(int type)
+	{
+		return getCounter(this.handled, type).get();
+	}
+	
+	//AVERAGE TIME IN MILLISECONDS SPENT HANDLING A MESSAGE OF TYPE
+	public double getHandlingLatency(int type)
+	{
+		long handled = this.getHandledCount(type);
+		if(handled == 0)
+		{
+			return 0;
+		}
+		
+		return getCounter(this.handlingTime, type).get() / 1000000.0 / handled;
+	}
+	
+	public synchronized void stop()
+	{
+		this.isStopped = true;
+		
+		List<ExecutorService> executors = new ArrayList<ExecutorService>(this.servingExecutors.values());
+		executors.add(this.ingestionExecutor);
+		for(ExecutorService executor: executors)
+		{
+			executor.shutdownNow();
+		}
+	}
+}
@@ -0,0 +1,12 @@
+package controller;
+
+import network.message.Message;
+
+public interface MessageHandler {
+	
+	void handleMessage(Message message);
+	
+	//SENDER OF MESSAGE FILLED MORE THAN ITS SHARE OF A FULL QUEUE, THE MESSAGE IS DROPPED
+	void onQueueFull(Message message);
+	
+}
@@ -2,6 +2,7 @@ package database;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.TreeMap;
 
 import org.mapdb.Atomic;
 import org.mapdb.DB;
@@ -56,7 +57,7 @@ public class AssetMap extends DBMap<Long, Asset>
 	@Override
 	protected Map<Long, Asset> getMemoryMap() 
 	{
-		return new HashMap<Long, Asset>();
+		return new TreeMap<Long, Asset>();
 	}
 
 	@Override
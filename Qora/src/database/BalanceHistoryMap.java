@@ -0,0 +1,151 @@
+package database;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.NavigableSet;
+import java.util.TreeMap;
+
+import org.mapdb.Atomic;
+import org.mapdb.BTreeKeySerializer;
+import org.mapdb.DB;
+import org.mapdb.Fun;
+import org.mapdb.Fun.Tuple2;
+import org.mapdb.Fun.Tuple3;
+
+import utils.ReverseComparator;
+import database.DBSet;
+
+public class BalanceHistoryMap extends DBMap<Tuple3<String, Long, Integer>, BigDecimal>
+{
+	private static final int HEIGHT_INDEX = 1;
+	
+	private Map<Integer, Integer> observableData = new HashMap<Integer, Integer>();
+	
+	private Atomic.Integer startHeightVar;
+	private int startHeight;
+	
+	public BalanceHistoryMap(DBSet databaseSet, DB database)
+	{
+		super(databaseSet, database);
+		
+		this.startHeightVar = database.getAtomicInteger("balances_history_start");
+		this.startHeight = this.startHeightVar.get();
+	}
+	
+	public BalanceHistoryMap(BalanceHistoryMap parent)
+	{
+		super(parent);
+		
+		this.startHeight = parent.getStartHeight();
+	}
+	
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	protected void createIndexes(DB database)
+	{
+		//HEIGHT INDEX
+		NavigableSet<Tuple2<Integer, Tuple3<String, Long, Integer>>> heightIndex = database.createTreeSet("balances_history_index_height")
+				.comparator(Fun.COMPARATOR)
+				.makeOrGet();
+		
+		NavigableSet<Tuple2<Integer, Tuple3<String, Long, Integer>>> descendingHeightIndex = database.createTreeSet("balances_history_index_height_descending")
+				.comparator(new ReverseComparator(Fun.COMPARATOR))
+				.makeOrGet();
+		
+		createIndex(HEIGHT_INDEX, heightIndex, descendingHeightIndex, new Fun.Function2<Integer, Tuple3<String, Long, Integer>, BigDecimal>() {
+			@Override
+			public Integer run(Tuple3<String, Long, Integer> key, BigDecimal value) {
+				return key.c;
+			}
+		});
+	}
+	
+	@Override
+	protected Map<Tuple3<String, Long, Integer>, BigDecimal> getMap(DB database)
+	{
+		//OPEN MAP
+		return database.createTreeMap("balances_history")
+				.keySerializer(BTreeKeySerializer.TUPLE3)
+				.makeOrGet();
+	}
+	
+	@Override
+	protected Map<Tuple3<String, Long, Integer>, BigDecimal> getMemoryMap()
+	{
+		return new TreeMap<Tuple3<String, Long, Integer>, BigDecimal>(Fun.TUPLE3_COMPARATOR);
+	}
+	
+	@Override
+	protected BigDecimal getDefaultValue()
+	{
+		return BigDecimal.ZERO.setScale(8);
+	}
+	
+	@Override
+	protected Map<Integer, Integer> getObservableData()
+	{
+		return this.observableData;
+	}
+	
+	//FIRST HEIGHT WITH HISTORY, DATABASES FROM OLDER VERSIONS HAVE NO HISTORY BEFORE THE UPGRADE
+	public int getStartHeight()
+	{
+		return this.startHeight;
+	}
+	
+	public void setStartHeight(int startHeight)
+	{
+		this.startHeight = startHeight;
+		
+		if(this.startHeightVar != null)
+		{
+			this.startHeightVar.set(startHeight);
+		}
+	}
+	
+	//STORES THE BALANCES BEFORE THEY WERE CHANGED BY THE BLOCK AT HEIGHT
+	public void set(int height, Map<Tuple2<String, Long>, BigDecimal> balances)
+	{
+		for(Entry<Tuple2<String, Long>, BigDecimal> entry: balances.entrySet())
+		{
+			this.set(new Tuple3<String, Long, Integer>(entry.getKey().a, entry.getKey().b, height), entry.getValue());
+		}
+	}
+	
+	public void delete(int height)
+	{
+		//COLLECT KEYS FIRST AS DELETING CHANGES THE MAP
+		List<Tuple3<String, Long, Integer>> keys = new ArrayList<Tuple3<String, Long, Integer>>();
+		Iterator<Tuple3<String, Long, Integer>> iterator = this.getIndexIterator(HEIGHT_INDEX, height, height, false);
+		while(iterator.hasNext())
+		{
+			keys.add(iterator.next());
+		}
+		
+		for(Tuple3<String, Long, Integer> key: keys)
+		{
+			this.delete(key);
+		}
+	}
+	
+	//BALANCE AFTER THE BLOCK AT HEIGHT, NULL IF IT DID NOT CHANGE SINCE
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public BigDecimal get(String address, long key, int height)
+	{
+		//FIRST CHANGE AFTER HEIGHT HOLDS THE BALANCE BEFORE THAT CHANGE
+		Iterator<Tuple3<String, Long, Integer>> iterator = this.getKeyIterator(
+				(Tuple3) Fun.t3(address, key, height + 1),
+				(Tuple3) Fun.t3(address, key, Fun.HI()), false);
+		
+		if(iterator.hasNext())
+		{
+			return this.get(iterator.next());
+		}
+		
+		return null;
+	}
+}
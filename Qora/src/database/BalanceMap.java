@@ -27,6 +27,8 @@ public class BalanceMap extends DBMap<Tuple2<String, Long>, BigDecimal>
 	@SuppressWarnings("rawtypes")
 	private BTreeMap assetKeyMap;
 	
+	private Map<Tuple2<String, Long>, BigDecimal> changes;
+	
 	public BalanceMap(DBSet databaseSet, DB database)
 	{
 		super(databaseSet, database);
@@ -89,6 +91,38 @@ public class BalanceMap extends DBMap<Tuple2<String, Long>, BigDecimal>
 		return this.observableData;
 	}
 	
+	@Override
+	public boolean set(Tuple2<String, Long> key, BigDecimal value)
+	{
+		//REMEMBER BALANCE BEFORE ITS FIRST CHANGE
+		if(this.changes != null && !this.changes.containsKey(key))
+		{
+			this.changes.put(key, this.get(key));
+		}
+		
+		return super.set(key, value);
+	}
+	
+	//STARTS REMEMBERING THE BALANCES BEFORE THEY CHANGE
+	public void recordChanges()
+	{
+		this.changes = new HashMap<Tuple2<String, Long>, BigDecimal>();
+	}
+	
+	//RETURNS THE BALANCES BEFORE THEY CHANGED SINCE RECORDCHANGES AND STOPS RECORDING
+	public Map<Tuple2<String, Long>, BigDecimal> takeChanges()
+	{
+		Map<Tuple2<String, Long>, BigDecimal> changes = this.changes;
+		this.changes = null;
+		
+		if(changes == null)
+		{
+			return new HashMap<Tuple2<String, Long>, BigDecimal>();
+		}
+		
+		return changes;
+	}
+	
 	public void set(String address, BigDecimal value)
 	{
 		this.set(address, QORA_KEY, value);
@@ -1,7 +1,10 @@
 package database;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.NavigableSet;
 import java.util.TreeMap;
 
@@ -11,14 +14,16 @@ import org.mapdb.DB;
 import org.mapdb.Fun;
 import org.mapdb.Fun.Tuple2;
 import org.mapdb.Fun.Tuple2Comparator;
+import org.mapdb.Serializer;
 
 import com.google.common.primitives.UnsignedBytes;
 
 import qora.block.Block;
+import qora.block.GenesisBlock;
 import utils.ObserverMessage;
 import utils.ReverseComparator;
 import database.DBSet;
-import database.serializer.BlockSerializer;
+import database.serializer.BlockHeaderSerializer;
 
 public class BlockMap extends DBMap<byte[], Block> 
 {
@@ -32,6 +37,8 @@ public class BlockMap extends DBMap<byte[], Block>
 	private Var<Boolean> processingVar;
 	private Boolean processing;
 	
+	private Map<byte[], byte[]> transactionsMap;
+	
 	public BlockMap(DBSet databaseSet, DB database)
 	{
 		super(databaseSet, database);
@@ -47,6 +54,14 @@ public class BlockMap extends DBMap<byte[], Block>
 		//PROCESSING
 		this.processingVar = database.getAtomicVar("processingBlock");
 		this.processing = processingVar.get();
+		
+		//TRANSACTIONS ARE STORED APART FROM THE HEADERS
+		this.transactionsMap = database.createTreeMap("blocks_transactions")
+				.keySerializer(BTreeKeySerializer.BASIC)
+				.comparator(UnsignedBytes.lexicographicalComparator())
+				.valueSerializer(Serializer.BYTE_ARRAY)
+				.valuesOutsideNodesEnable()
+				.makeOrGet();
 	}
 
 	public BlockMap(BlockMap parent) 
@@ -82,14 +97,49 @@ public class BlockMap extends DBMap<byte[], Block>
 	protected Map<byte[], Block> getMap(DB database) 
 	{
 		//OPEN MAP
-		return database.createTreeMap("blocks")
+		return database.createTreeMap("blocks_header")
 				.keySerializer(BTreeKeySerializer.BASIC)
 				.comparator(UnsignedBytes.lexicographicalComparator())
-				.valueSerializer(new BlockSerializer())
-				.valuesOutsideNodesEnable()
+				.valueSerializer(new BlockHeaderSerializer())
 				.counterEnable()
 				.makeOrGet();
 	}
+	
+	//MOVES BLOCKS STORED AS A WHOLE BY OLDER VERSIONS INTO THE HEADER AND TRANSACTION STORES
+	public void splitLegacyBlocks(DB database)
+	{
+		if(!database.exists("blocks"))
+		{
+			return;
+		}
+		
+		//MOVED BLOCKS ARE REMOVED FROM THE OLD STORE, AN INTERRUPTED UPGRADE RESUMES WITH THE BLOCKS LEFT
+		Map<byte[], Block> blocks = database.getTreeMap("blocks");
+		while(!blocks.isEmpty())
+		{
+			List<byte[]> moved = new ArrayList<byte[]>();
+			for(Entry<byte[], Block> entry: blocks.entrySet())
+			{
+				this.set(entry.getKey(), entry.getValue());
+				moved.add(entry.getKey());
+				
+				if(moved.size() == DBSet.UPGRADE_BLOCKS_PER_COMMIT)
+				{
+					break;
+				}
+			}
+			
+			for(byte[] signature: moved)
+			{
+				blocks.remove(signature);
+			}
+			
+			database.commit();
+		}
+		
+		database.delete("blocks");
+		database.commit();
+	}
 
 	@Override
 	protected Map<byte[], Block> getMemoryMap() 
@@ -111,12 +161,67 @@ public class BlockMap extends DBMap<byte[], Block>
 	
 	public void setLastBlock(Block block) 
 	{		
+		this.setLastBlockSignature(block.getSignature());
+	}
+	
+	private void setLastBlockSignature(byte[] signature)
+	{
 		if(this.lastBlockVar != null)
 		{
-			this.lastBlockVar.set(block.getSignature());
+			this.lastBlockVar.set(signature);
+		}
+		
+		this.lastBlockSignature = signature;
+	}
+	
+	@Override
+	public Block get(byte[] signature)
+	{
+		Block block = super.get(signature);
+		
+		//LOAD TRANSACTIONS ONLY WHEN NEEDED, THE HEADER SERIALIZER CAN NOT REFERENCE THIS MAP
+		//BECAUSE THE DATABASE RESTORES IT FROM ITS CATALOG, SO THE STORE IS ATTACHED ON THE FIRST READ
+		if(block != null && this.transactionsMap != null && !(block instanceof GenesisBlock))
+		{
+			block.setTransactionStore(this);
 		}
 		
-		this.lastBlockSignature = block.getSignature();
+		return block;
+	}
+	
+	public byte[] getTransactionData(byte[] signature)
+	{
+		byte[] transactionData = this.transactionsMap.get(signature);
+		
+		if(transactionData == null)
+		{
+			return new byte[0];
+		}
+		
+		return transactionData;
+	}
+	
+	@Override
+	public boolean set(byte[] signature, Block block)
+	{
+		//WRITE TRANSACTIONS BEFORE THE HEADER THAT REFERS TO THEM
+		if(this.transactionsMap != null)
+		{
+			this.transactionsMap.put(signature, block.getTransactionData());
+		}
+		
+		return super.set(signature, block);
+	}
+	
+	@Override
+	public void delete(byte[] signature)
+	{
+		super.delete(signature);
+		
+		if(this.transactionsMap != null)
+		{
+			this.transactionsMap.remove(signature);
+		}
 	}
 	
 	public Block getLastBlock()
@@ -149,6 +254,18 @@ public class BlockMap extends DBMap<byte[], Block>
 		this.processing = processing;
 	}
 	
+	@Override
+	public void writeToParent()
+	{
+		super.writeToParent();
+		
+		if(this.parent != null)
+		{
+			((BlockMap) this.parent).setLastBlockSignature(this.lastBlockSignature);
+			((BlockMap) this.parent).setProcessing(this.isProcessing());
+		}
+	}
+	
 	public void add(Block block)
 	{
 		this.set(block.getSignature(), block);
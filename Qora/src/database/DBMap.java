@@ -1,24 +1,35 @@
 package database;
 
-import java.util.ArrayList;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Iterator;
-import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.NavigableMap;
 import java.util.NavigableSet;
 import java.util.Observable;
 import java.util.Observer;
 import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeSet;
 
 import org.mapdb.BTreeMap;
 import org.mapdb.Bind;
 import org.mapdb.DB;
+import org.mapdb.Fun;
 import org.mapdb.Fun.Function2;
 import org.mapdb.Fun.Tuple2;
 
 import utils.ObserverMessage;
+import utils.ReverseComparator;
+
+import com.google.common.base.Predicate;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Ordering;
 
 public abstract class DBMap<T, U> extends Observable {
 	
@@ -29,30 +40,33 @@ public abstract class DBMap<T, U> extends Observable {
 	public static final int DEFAULT_INDEX = 0;
 	
 	protected DBMap<T, U> parent;
+	private DBMap<T, U> root;
 	protected IDB databaseSet;
 	protected Map<T, U> map;
-	protected List<T> deleted;
+	private Map<Object, T> deleted;
 	private Map<Integer, NavigableSet<Tuple2<?, T>>> indexes;
-
+	private Map<Integer, Function2<Object[], T, U>> indexFunctions;
+	
 	public DBMap(IDB databaseSet, DB database)
 	{
 		this.databaseSet = databaseSet;
+		this.root = this;
 		
 		//OPEN MAP
 	    this.map = this.getMap(database);
 	    
 	    //CREATE INDEXES
 	    this.indexes = new HashMap<Integer, NavigableSet<Tuple2<?, T>>>();
+	    this.indexFunctions = new HashMap<Integer, Function2<Object[], T, U>>();
 	    this.createIndexes(database);
 	}
 	
 	public DBMap(DBMap<T, U> parent)
 	{
 		this.parent = parent;
-	    
-	    //OPEN MAP
-	    this.map = this.getMemoryMap();
-	    this.deleted = new ArrayList<T>();
+		this.root = parent.root;
+		
+		//FORK MAPS ARE CREATED ON FIRST CHANGE
 	}
 	
 	protected abstract Map<T, U> getMap(DB database);
@@ -66,8 +80,16 @@ public abstract class DBMap<T, U> extends Observable {
 	protected abstract void createIndexes(DB database);
 	
 	@SuppressWarnings("unchecked")
-	protected <V> void createIndex(int index, NavigableSet<?> indexSet, NavigableSet<?> descendingIndexSet, Function2<V, T, U> function) 
+	protected <V> void createIndex(int index, NavigableSet<?> indexSet, NavigableSet<?> descendingIndexSet, final Function2<V, T, U> function) 
 	{
+		//KEEP FUNCTION SO FORKS CAN INDEX THEIR OWN VALUES
+		this.indexFunctions.put(index, new Function2<Object[], T, U>() {
+			@Override
+			public Object[] run(T key, U value) {
+				return new Object[]{function.run(key, value)};
+			}
+		});
+		
 		Bind.secondaryKey((BTreeMap<T, U>) this.map, (NavigableSet<Tuple2<V, T>>) indexSet, function);
 		this.indexes.put(index, (NavigableSet<Tuple2<?, T>>) indexSet);
 		
@@ -78,6 +100,8 @@ public abstract class DBMap<T, U> extends Observable {
 	@SuppressWarnings("unchecked")
 	protected <V> void createIndexes(int index, NavigableSet<?> indexSet, NavigableSet<?> descendingIndexSet, Function2<V[], T, U> function) 
 	{
+		this.indexFunctions.put(index, (Function2<Object[], T, U>) (Function2<?, T, U>) function);
+		
 		Bind.secondaryKeys((BTreeMap<T, U>) this.map, (NavigableSet<Tuple2<V, T>>) indexSet, function);
 		this.indexes.put(index, (NavigableSet<Tuple2<?, T>>) indexSet);
 		
@@ -85,58 +109,205 @@ public abstract class DBMap<T, U> extends Observable {
 		this.indexes.put(index + 10000, (NavigableSet<Tuple2<?, T>>) descendingIndexSet);
 	}
 	
+	//BYTE ARRAYS HAVE NO VALUE EQUALITY, WRAP THEM FOR HASHED LOOKUPS
+	private static Object getHashKey(Object key)
+	{
+		if(key instanceof byte[])
+		{
+			return ByteBuffer.wrap((byte[]) key);
+		}
+		
+		return key;
+	}
+	
+	//NEAREST FORK FROM THIS ONE UP THAT HOLDS CHANGES, NULL IF NONE DOES
+	//A FORK WITH CHANGES HOLDS ALL CHANGES SINCE THE ROOT, SO IT IS THE ONLY ONE TO CHECK BEFORE THE ROOT
+	private DBMap<T, U> getOverlay()
+	{
+		for(DBMap<T, U> fork = this; fork.parent != null; fork = fork.parent)
+		{
+			if(fork.map != null)
+			{
+				return fork;
+			}
+		}
+		
+		return null;
+	}
+	
+	private Map<T, U> getForkMap()
+	{
+		if(this.map == null)
+		{
+			this.map = this.getMemoryMap();
+			this.deleted = new HashMap<Object, T>();
+			
+			//FORKS KEEP THEIR INDEXES IN MEMORY
+			this.indexes = new HashMap<Integer, NavigableSet<Tuple2<?, T>>>();
+			for(Integer index: this.root.indexFunctions.keySet())
+			{
+				this.indexes.put(index, new TreeSet<Tuple2<?, T>>(this.getIndexComparator(index)));
+			}
+			
+			//START FROM THE CHANGES OF THE PARENT, A FORK IS NOT CHANGED BY ITS PARENT WHILE IT IS IN USE
+			DBMap<T, U> overlay = this.parent.getOverlay();
+			if(overlay != null)
+			{
+				this.map.putAll(overlay.map);
+				this.deleted.putAll(overlay.deleted);
+				
+				for(Entry<Integer, NavigableSet<Tuple2<?, T>>> entry: overlay.indexes.entrySet())
+				{
+					this.indexes.get(entry.getKey()).addAll(entry.getValue());
+				}
+			}
+		}
+		
+		return this.map;
+	}
+	
+	//FORKS SORT INDEX ENTRIES LIKE THE DATABASE DOES
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private Comparator<Tuple2<?, T>> getIndexComparator(int index)
+	{
+		Comparator comparator = this.root.indexes.get(index).comparator();
+		if(comparator == null)
+		{
+			comparator = Fun.COMPARATOR;
+		}
+		
+		return comparator;
+	}
+	
+	private void updateForkIndexes(T key, U oldValue, U newValue)
+	{
+		for(Entry<Integer, Function2<Object[], T, U>> entry: this.root.indexFunctions.entrySet())
+		{
+			NavigableSet<Tuple2<?, T>> set = this.indexes.get(entry.getKey());
+			
+			//REMOVE OLD VALUES
+			if(oldValue != null)
+			{
+				for(Object value: entry.getValue().run(key, oldValue))
+				{
+					set.remove(new Tuple2<Object, T>(value, key));
+				}
+			}
+			
+			//ADD NEW VALUES
+			if(newValue != null)
+			{
+				for(Object value: entry.getValue().run(key, newValue))
+				{
+					set.add(new Tuple2<Object, T>(value, key));
+				}
+			}
+		}
+	}
+	
+	private boolean isChanged(T key)
+	{
+		return this.map.containsKey(key) || this.deleted.containsKey(getHashKey(key));
+	}
+	
 	public int size() {
-		return this.map.size();
+		if(this.parent == null)
+		{
+			return this.map.size();
+		}
+		
+		DBMap<T, U> overlay = this.getOverlay();
+		if(overlay == null)
+		{
+			return 0;
+		}
+		
+		return overlay.map.size();
 	}
 	
 	public U get(T key)
 	{
 		try
 		{
-			if(this.map.containsKey(key))
+			if(this.parent == null)
 			{
-				return this.map.get(key);
+				if(this.map.containsKey(key))
+				{
+					return this.map.get(key);
+				}
+				
+				return this.getDefaultValue();
 			}
-			else
+			
+			//CHECK CHANGES SINCE THE ROOT
+			DBMap<T, U> overlay = this.getOverlay();
+			if(overlay != null)
 			{
-				if(this.deleted == null || !this.deleted.contains(key))
+				if(overlay.map.containsKey(key))
+				{
+					return overlay.map.get(key);
+				}
+				
+				if(overlay.deleted.containsKey(getHashKey(key)))
 				{
-					if(this.parent != null)
-					{
-						return this.parent.get(key);
-					}
+					return this.getDefaultValue();
 				}
 			}
 			
-			return this.getDefaultValue();
+			//NOT CHANGED IN ANY FORK
+			return this.root.get(key);
 		}
 		catch(Exception e)
 		{
 			e.printStackTrace();
 			
 			return this.getDefaultValue();
-		}			
+		}
 	}
 	
 	public Set<T> getKeys()
 	{
-		return this.map.keySet();
+		if(this.parent == null)
+		{
+			return this.map.keySet();
+		}
+		
+		DBMap<T, U> overlay = this.getOverlay();
+		if(overlay == null)
+		{
+			return Collections.emptySet();
+		}
+		
+		return overlay.map.keySet();
 	}
 	
 	public Collection<U> getValues()
 	{
-		return this.map.values();
+		if(this.parent == null)
+		{
+			return this.map.values();
+		}
+		
+		DBMap<T, U> overlay = this.getOverlay();
+		if(overlay == null)
+		{
+			return Collections.emptyList();
+		}
+		
+		return overlay.map.values();
 	}
 	
 	public boolean set(T key, U value)
 	{
 		try
 		{
-			U old = this.map.put(key, value);
+			U old = this.getForkMap().put(key, value);
 			
-			if(this.deleted != null)
+			//UPDATE OVERLAY
+			if(this.parent != null)
 			{
-				this.deleted.remove(key);
+				this.updateForkIndexes(key, old, value);
+				this.deleted.remove(getHashKey(key));
 			}
 			
 			//COMMIT
@@ -169,15 +340,20 @@ public abstract class DBMap<T, U> extends Observable {
 		return false;
 	}
 	
-	public void delete(T key) 
+	public void delete(T key)
 	{
 		try
 		{
 			//REMOVE
-			if(this.map.containsKey(key))
+			if(this.getForkMap().containsKey(key))
 			{
 				U value = this.map.remove(key);
 				
+				if(this.parent != null)
+				{
+					this.updateForkIndexes(key, value, null);
+				}
+				
 				//NOTIFY REMOVE
 				if(this.getObservableData().containsKey(NOTIFY_REMOVE))
 				{
@@ -193,9 +369,10 @@ public abstract class DBMap<T, U> extends Observable {
 				}*/
 			}
 			
-			if(this.deleted != null)
+			//UPDATE OVERLAY
+			if(this.parent != null)
 			{
-				this.deleted.add(key);
+				this.deleted.put(getHashKey(key), key);
 			}
 			
 			//COMMIT
@@ -207,27 +384,63 @@ public abstract class DBMap<T, U> extends Observable {
 		catch(Exception e)
 		{
 			e.printStackTrace();
-		}		
+		}
 	}
 	
 	public boolean contains(T key)
 	{
-		if(this.map.containsKey(key))
+		if(this.parent == null)
 		{
-			return true;
+			return this.map.containsKey(key);
 		}
-		else
+		
+		//CHECK CHANGES SINCE THE ROOT, SEE GET
+		DBMap<T, U> overlay = this.getOverlay();
+		if(overlay != null)
 		{
-			if(this.deleted == null || !this.deleted.contains(key))
+			if(overlay.map.containsKey(key))
 			{
-				if(this.parent != null)
-				{
-					return this.parent.contains(key);
-				}
+				return true;
+			}
+			
+			if(overlay.deleted.containsKey(getHashKey(key)))
+			{
+				return false;
 			}
 		}
 		
-		return false;
+		//NOT CHANGED IN ANY FORK
+		return this.root.contains(key);
+	}
+	
+	//APPLIES THE WRITES AND DELETES OF THIS FORK TO ITS PARENT
+	public void writeToParent()
+	{
+		if(this.parent == null || this.map == null)
+		{
+			return;
+		}
+		
+		//CHANGES COPIED FROM THE PARENT ARE ALREADY THERE
+		DBMap<T, U> overlay = this.parent.getOverlay();
+		
+		//DELETES
+		for(Entry<Object, T> entry: this.deleted.entrySet())
+		{
+			if(overlay == null || !overlay.deleted.containsKey(entry.getKey()))
+			{
+				this.parent.delete(entry.getValue());
+			}
+		}
+		
+		//WRITES
+		for(Entry<T, U> entry: this.map.entrySet())
+		{
+			if(overlay == null || overlay.map.get(entry.getKey()) != entry.getValue())
+			{
+				this.parent.set(entry.getKey(), entry.getValue());
+			}
+		}
 	}
 	
 	@Override
@@ -251,33 +464,164 @@ public abstract class DBMap<T, U> extends Observable {
 	{
 		if(index == DEFAULT_INDEX)
 		{
-			if(descending)
+			return this.getKeyIterator(null, null, descending);
+		}
+		
+		return new IndexIterator<T>(this.getIndexEntries(index, null, null, descending));
+	}
+	
+	//KEYS FROM FROMKEY TO TOKEY INCLUDING CHANGES IN FORKS
+	protected Iterator<T> getKeyIterator(T fromKey, T toKey, boolean descending)
+	{
+		//FORKS ITERATE THE CHANGES SINCE THE ROOT
+		if(this.parent != null && this.map == null)
+		{
+			DBMap<T, U> overlay = this.getOverlay();
+			if(overlay == null)
 			{
-				return ((NavigableMap<T, U>) this.map).descendingKeySet().iterator();
+				return this.root.getKeyIterator(fromKey, toKey, descending);
 			}
 			
-			return ((NavigableMap<T, U>) this.map).keySet().iterator();
+			return overlay.getKeyIterator(fromKey, toKey, descending);
+		}
+		
+		NavigableMap<T, U> map = (NavigableMap<T, U>) this.map;
+		if(fromKey != null)
+		{
+			map = map.subMap(fromKey, true, toKey, true);
+		}
+		
+		if(descending)
+		{
+			map = map.descendingMap();
+		}
+		
+		Iterator<T> keys = map.keySet().iterator();
+		if(this.parent == null)
+		{
+			return keys;
+		}
+		
+		//MERGE WITH KEYS OF ROOT THAT ARE NOT CHANGED IN THIS FORK
+		Iterator<T> rootKeys = Iterators.filter(this.root.getKeyIterator(fromKey, toKey, descending), new Predicate<T>() {
+			@Override
+			public boolean apply(T key) {
+				return !isChanged(key);
+			}
+		});
+		
+		return Iterators.mergeSorted(Arrays.asList(keys, rootKeys), this.getKeyComparator(descending));
+	}
+	
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private Comparator<T> getKeyComparator(boolean descending)
+	{
+		Comparator<T> comparator = (Comparator<T>) ((SortedMap<T, U>) this.map).comparator();
+		if(comparator == null)
+		{
+			comparator = (Comparator) Ordering.natural();
 		}
-		else
+		
+		if(descending)
+		{
+			return new ReverseComparator<T>(comparator);
+		}
+		
+		return comparator;
+	}
+	
+	//INDEX VALUES FROM FROMVALUE TO TOVALUE INCLUDING CHANGES IN FORKS
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	protected Iterator<T> getIndexIterator(int index, Object fromValue, Object toValue, boolean descending)
+	{
+		Tuple2<?, T> from = (Tuple2) Fun.t2(fromValue, null);
+		Tuple2<?, T> to = (Tuple2) Fun.t2(toValue, Fun.HI());
+		
+		return new IndexIterator<T>(this.getIndexEntries(index, from, to, descending));
+	}
+	
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private Iterator<Tuple2<?, T>> getIndexEntries(int index, Tuple2<?, T> from, Tuple2<?, T> to, boolean descending)
+	{
+		if(this.parent == null)
 		{
 			if(descending)
 			{
-				index += 10000;
+				NavigableSet<Tuple2<?, T>> set = this.indexes.get(index + 10000);
+				if(from != null)
+				{
+					set = set.subSet(to, true, from, true);
+				}
+				
+				return set.iterator();
+			}
+			
+			NavigableSet<Tuple2<?, T>> set = this.indexes.get(index);
+			if(from != null)
+			{
+				set = set.subSet(from, true, to, true);
 			}
 			
-			return new IndexIterator<T>(this.indexes.get(index));
+			return set.iterator();
 		}
+		
+		//FORKS ITERATE THE CHANGES SINCE THE ROOT
+		if(this.map == null)
+		{
+			DBMap<T, U> overlay = this.getOverlay();
+			if(overlay == null)
+			{
+				return this.root.getIndexEntries(index, from, to, descending);
+			}
+			
+			return overlay.getIndexEntries(index, from, to, descending);
+		}
+		
+		//MERGE WITH ENTRIES OF ROOT FOR KEYS THAT ARE NOT CHANGED IN THIS FORK
+		Iterator<Tuple2<?, T>> rootEntries = Iterators.filter(this.root.getIndexEntries(index, from, to, descending), new Predicate<Tuple2<?, T>>() {
+			@Override
+			public boolean apply(Tuple2<?, T> entry) {
+				return !isChanged(entry.b);
+			}
+		});
+		
+		NavigableSet<Tuple2<?, T>> set = this.indexes.get(index);
+		if(from != null)
+		{
+			set = set.subSet(from, true, to, true);
+		}
+		
+		Comparator<Tuple2<?, T>> comparator = this.getIndexComparator(index);
+		if(descending)
+		{
+			set = set.descendingSet();
+			comparator = new ReverseComparator<Tuple2<?, T>>(comparator);
+		}
+		
+		return Iterators.mergeSorted(Arrays.asList(set.iterator(), rootEntries), comparator);
 	}
 	
 	public void reset() 
 	{
 		//RESET MAP
-		this.map.clear();
+		if(this.map != null)
+		{
+			this.map.clear();
+		}
+		
+		//RESET OVERLAY
+		if(this.deleted != null)
+		{
+			this.deleted.clear();
+		}
 		
 		//RESET INDEXES
-		for(Set<Tuple2<?, T>> set: this.indexes.values())
+		if(this.indexes != null)
 		{
-			set.clear();
+			for(Set<Tuple2<?, T>> set: this.indexes.values())
+			{
+				set.clear();
+			}
 		}
 		
 		//NOTIFY LIST
@@ -1,31 +1,36 @@
 package database;
 
 import java.io.File;
-import java.util.Observable;
-import java.util.Observer;
 
+import org.mapdb.Atomic.Var;
 import org.mapdb.DB;
 import org.mapdb.DBMaker;
 
+import qora.BlockGenerator;
+import qora.block.Block;
 import controller.Controller;
 import settings.Settings;
-import utils.ObserverMessage;
 
-public class DBSet implements Observer, IDB {
+public class DBSet implements IDB {
 
-	private static final int ACTIONS_BEFORE_COMMIT = 10000;
+	//UPGRADES OF LONG CHAINS COMMIT AFTER THIS MANY BLOCKS
+	public static final int UPGRADE_BLOCKS_PER_COMMIT = 1000;
 	
 	private static DBSet instance;
 	
 	private BalanceMap balanceMap;
+	private BalanceHistoryMap balanceHistoryMap;
 	private BlockMap blockMap;
 	private ChildMap childMap;
 	private HeightMap heightMap;
+	private HeightSignatureMap heightSignatureMap;
+	private RecentIncomingMap recentIncomingMap;
 	private ReferenceMap referenceMap;
 	private PeerMap peerMap;
 	private TransactionMap transactionMap;
 	private NameMap nameMap;
 	private TransactionParentMap transactionParentMap;
+	private TransactionIndexMap transactionIndexMap;
 	private NameExchangeMap nameExchangeMap;
 	private UpdateNameMap updateNameMap;
 	private CancelSellNameMap cancelSellNameMap;
@@ -37,8 +42,10 @@ public class DBSet implements Observer, IDB {
 	private CompletedOrderMap completedOrderMap;
 	private TradeMap tradeMap;
 	
+	private DBSet parent;
 	private DB database;
 	private int actions;
+	private int batches;
 	
 	public static DBSet getInstance()
 	{
@@ -58,6 +65,13 @@ public class DBSet implements Observer, IDB {
 			
 			//CREATE INSTANCE
 			instance = new DBSet(database);
+			
+			//UPGRADE BLOCK STORAGE
+			instance.getBlockMap().splitLegacyBlocks(database);
+			instance.indexBlockHeights();
+			instance.indexRecentIncoming();
+			instance.startBalanceHistory();
+			instance.indexTransactions();
 		}
 		
 		return instance;
@@ -75,16 +89,21 @@ public class DBSet implements Observer, IDB {
 	{
 		this.database = database;
 		this.actions = 0;
+		this.batches = 0;
 		
 		this.balanceMap = new BalanceMap(this, database);
+		this.balanceHistoryMap = new BalanceHistoryMap(this, database);
 		this.blockMap = new BlockMap(this, database);
 		this.childMap = new ChildMap(this, database);
 		this.heightMap = new HeightMap(this, database);
+		this.heightSignatureMap = new HeightSignatureMap(this, database);
+		this.recentIncomingMap = new RecentIncomingMap(this, database);
 		this.referenceMap = new ReferenceMap(this, database);
 		this.peerMap = new PeerMap(this, database);
 		this.transactionMap = new TransactionMap(this, database);
 		this.nameMap = new NameMap(this, database);
 		this.transactionParentMap = new TransactionParentMap(this, database);
+		this.transactionIndexMap = new TransactionIndexMap(this, database);
 		this.nameExchangeMap = new NameExchangeMap(this, database);
 		this.updateNameMap = new UpdateNameMap(this, database);
 		this.cancelSellNameMap = new CancelSellNameMap(this, database);
@@ -99,15 +118,21 @@ public class DBSet implements Observer, IDB {
 	
 	protected DBSet(DBSet parent)
 	{
+		this.parent = parent;
+		
 		this.balanceMap = new BalanceMap(parent.balanceMap);
+		this.balanceHistoryMap = new BalanceHistoryMap(parent.balanceHistoryMap);
 		this.blockMap = new BlockMap(parent.blockMap);
 		this.childMap = new ChildMap(this.blockMap, parent.childMap);
 		this.heightMap = new HeightMap(parent.heightMap);
+		this.heightSignatureMap = new HeightSignatureMap(parent.heightSignatureMap);
+		this.recentIncomingMap = new RecentIncomingMap(parent.recentIncomingMap);
 		this.referenceMap = new ReferenceMap(parent.referenceMap);
 		this.peerMap = new PeerMap(parent.peerMap);
 		this.transactionMap = new TransactionMap(parent.transactionMap);		
 		this.nameMap = new NameMap(parent.nameMap);
 		this.transactionParentMap = new TransactionParentMap(this.blockMap, parent.transactionParentMap);
+		this.transactionIndexMap = new TransactionIndexMap(parent.transactionIndexMap);
 		this.nameExchangeMap = new NameExchangeMap(parent.nameExchangeMap);
 		this.updateNameMap = new UpdateNameMap(parent.updateNameMap);
 		this.cancelSellNameMap = new CancelSellNameMap(parent.cancelSellNameMap);
@@ -123,12 +148,16 @@ public class DBSet implements Observer, IDB {
 	public void reset() {
 		
 		this.balanceMap.reset();
+		this.balanceHistoryMap.reset();
 		this.heightMap.reset();
+		this.heightSignatureMap.reset();
+		this.recentIncomingMap.reset();
 		this.referenceMap.reset();
 		this.peerMap.reset();
 		this.transactionMap.reset();
 		this.nameMap.reset();
 		this.transactionParentMap.reset();
+		this.transactionIndexMap.reset();
 		this.nameExchangeMap.reset();
 		this.updateNameMap.reset();
 		this.cancelSellNameMap.reset();
@@ -145,6 +174,11 @@ public class DBSet implements Observer, IDB {
 	{
 		return this.balanceMap;
 	}
+	
+	public BalanceHistoryMap getBalanceHistoryMap() 
+	{
+		return this.balanceHistoryMap;
+	}
 
 	public BlockMap getBlockMap() 
 	{
@@ -160,6 +194,16 @@ public class DBSet implements Observer, IDB {
 	{
 		return this.heightMap;
 	}
+	
+	public HeightSignatureMap getHeightSignatureMap() 
+	{
+		return this.heightSignatureMap;
+	}
+	
+	public RecentIncomingMap getRecentIncomingMap() 
+	{
+		return this.recentIncomingMap;
+	}
 
 	public ReferenceMap getReferenceMap() 
 	{
@@ -186,6 +230,11 @@ public class DBSet implements Observer, IDB {
 		return this.transactionParentMap;
 	}
 	
+	public TransactionIndexMap getTransactionIndexMap()
+	{
+		return this.transactionIndexMap;
+	}
+	
 	public NameExchangeMap getNameExchangeMap()
 	{
 		return this.nameExchangeMap;
@@ -236,47 +285,213 @@ public class DBSet implements Observer, IDB {
 		return this.tradeMap;
 	}
 	
-	public DBSet fork()
+	//RETURNS THE BLOCK AN INTERRUPTED UPGRADE STOPPED AT, NULL IF THE UPGRADE IS NOT RUNNING
+	private Block getUpgradeProgress(String upgrade)
 	{
-		return new DBSet(this);
+		Var<byte[]> progress = this.database.getAtomicVar(upgrade);
+		if(progress.get() == null)
+		{
+			return null;
+		}
+		
+		return this.blockMap.get(progress.get());
 	}
 	
-	public void close()
+	//COMMITS THE UPGRADE SO FAR TOGETHER WITH THE NEXT BLOCK TO UPGRADE, NULL WHEN THE UPGRADE IS DONE
+	private void commitUpgradeProgress(String upgrade, Block next)
 	{
-		if(this.database != null)
+		Var<byte[]> progress = this.database.getAtomicVar(upgrade);
+		progress.set(next == null ? null : next.getSignature());
+		
+		this.database.commit();
+	}
+	
+	//FILLS THE HEIGHT INDEX FOR CHAINS STORED BY OLDER VERSIONS
+	private void indexBlockHeights()
+	{
+		Block block = this.getUpgradeProgress("upgradeBlockHeights");
+		if(block == null)
 		{
-			if(!this.database.isClosed())
+			block = this.blockMap.getLastBlock();
+			if(block == null || this.heightSignatureMap.contains(block.getHeight(this)))
 			{
-				this.database.commit();
-				this.database.close();
+				return;
 			}
 		}
+		
+		int count = 0;
+		while(block != null)
+		{
+			this.heightSignatureMap.set(block.getHeight(this), block);
+			block = block.getParent(this);
+			
+			if(++count % UPGRADE_BLOCKS_PER_COMMIT == 0 && block != null)
+			{
+				this.commitUpgradeProgress("upgradeBlockHeights", block);
+			}
+		}
+		
+		this.commitUpgradeProgress("upgradeBlockHeights", null);
 	}
 	
-	public void commit()
+	private void indexRecentIncoming()
 	{
-		this.actions++;
+		Block block = this.blockMap.getLastBlock();
+		if(block == null || this.recentIncomingMap.size() > 0)
+		{
+			return;
+		}
+		
+		//ONLY THE BLOCKS USED FOR THE GENERATING BALANCE ARE KEPT
+		for(int i=1; i<BlockGenerator.RETARGET && block != null && block.getHeight(this) > 1; i++)
+		{
+			this.recentIncomingMap.set(block.getHeight(this), block);
+			block = block.getParent(this);
+		}
+		
+		this.database.commit();
+	}
+	
+	private void startBalanceHistory()
+	{
+		if(this.balanceHistoryMap.getStartHeight() > 0)
+		{
+			return;
+		}
+		
+		//HISTORY STARTS WITH THE NEXT BLOCK
+		Block block = this.blockMap.getLastBlock();
+		if(block == null)
+		{
+			this.balanceHistoryMap.setStartHeight(1);
+		}
+		else
+		{
+			this.balanceHistoryMap.setStartHeight(block.getHeight(this) + 1);
+		}
+		
+		this.database.commit();
 	}
 	
-	@Override
-	public void update(Observable o, Object arg) 
+	private void indexTransactions()
 	{
-		ObserverMessage message = (ObserverMessage) arg;
+		Block block = this.getUpgradeProgress("upgradeTransactions");
+		if(block == null)
+		{
+			block = this.blockMap.getLastBlock();
+			if(block == null || !this.transactionIndexMap.isEmpty())
+			{
+				return;
+			}
+		}
 		
-		//CHECK IF NEW BLOCK
-		if(message.getType() == ObserverMessage.LIST_BLOCK_TYPE)
-		{			
+		int count = 0;
+		while(block != null)
+		{
+			this.transactionIndexMap.add(block.getHeight(this), block);
+			block = block.getParent(this);
 			
-			//CHECK IF WE NEED TO COMMIT
-			if(this.actions >= ACTIONS_BEFORE_COMMIT)
+			if(++count % UPGRADE_BLOCKS_PER_COMMIT == 0 && block != null)
+			{
+				this.commitUpgradeProgress("upgradeTransactions", block);
+			}
+		}
+		
+		this.commitUpgradeProgress("upgradeTransactions", null);
+	}
+	
+	public DBSet fork()
+	{
+		return new DBSet(this);
+	}
+	
+	//APPLIES ALL CHANGES MADE IN THIS FORK TO THE DATABASE IT WAS FORKED FROM
+	public void writeToParent()
+	{
+		if(this.parent == null)
+		{
+			return;
+		}
+		
+		this.balanceMap.writeToParent();
+		this.balanceHistoryMap.writeToParent();
+		this.childMap.writeToParent();
+		this.heightMap.writeToParent();
+		this.heightSignatureMap.writeToParent();
+		this.recentIncomingMap.writeToParent();
+		this.referenceMap.writeToParent();
+		this.peerMap.writeToParent();
+		this.transactionMap.writeToParent();
+		this.nameMap.writeToParent();
+		this.transactionParentMap.writeToParent();
+		this.transactionIndexMap.writeToParent();
+		this.nameExchangeMap.writeToParent();
+		this.updateNameMap.writeToParent();
+		this.cancelSellNameMap.writeToParent();
+		this.pollMap.writeToParent();
+		this.voteOnPollMap.writeToParent();
+		this.assetMap.writeToParent();
+		this.issueAssetMap.writeToParent();
+		this.orderMap.writeToParent();
+		this.completedOrderMap.writeToParent();
+		this.tradeMap.writeToParent();
+		
+		//BLOCK LAST SO OBSERVERS OF NEW BLOCKS SEE ALL OTHER CHANGES
+		this.blockMap.writeToParent();
+	}
+	
+	//WRITE BATCHES
+	
+	//CHANGES TO A BATCH ARE ONLY VISIBLE IN THE DATABASE AFTER COMMITBATCH
+	public DBSet createBatch()
+	{
+		return this.fork();
+	}
+	
+	public synchronized void commitBatch(DBSet batch)
+	{
+		//WRITE CHANGES
+		batch.writeToParent();
+		
+		//COMMIT AFTER ENOUGH BATCHES, MAPDB'S WRITE AHEAD LOG REPLAYS OR DISCARDS A COMMIT AS A WHOLE ON RESTART
+		this.batches++;
+		if(this.batches >= Settings.getInstance().getBlocksPerCommit())
+		{
+			this.flush();
+		}
+	}
+	
+	public synchronized void flush()
+	{
+		if(this.database != null && !this.database.isClosed())
+		{
+			this.database.commit();
+			this.actions = 0;
+			this.batches = 0;
+			
+			//NOTIFY CONTROLLER SO HE CAN NOTIFY WALLET
+			if(this == instance)
 			{
-				this.database.commit();
-				this.actions = 0;
-				
-				//NOTIFY CONTROLLER SO HE CAN NOTIFY WALLET
 				Controller.getInstance().onDatabaseCommit();
 			}
 		}
 	}
+	
+	public synchronized void close()
+	{
+		if(this.database != null)
+		{
+			if(!this.database.isClosed())
+			{
+				this.database.commit();
+				this.database.close();
+			}
+		}
+	}
+	
+	public void commit()
+	{
+		this.actions++;
+	}
 
 }
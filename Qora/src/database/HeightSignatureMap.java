@@ -0,0 +1,88 @@
+package database;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.mapdb.BTreeKeySerializer;
+import org.mapdb.DB;
+import org.mapdb.Serializer;
+
+import qora.block.Block;
+import database.DBSet;
+
+public class HeightSignatureMap extends DBMap<Integer, byte[]> 
+{
+	private Map<Integer, Integer> observableData = new HashMap<Integer, Integer>();
+	
+	public HeightSignatureMap(DBSet databaseSet, DB database)
+	{
+		super(databaseSet, database);
+	}
+
+	public HeightSignatureMap(HeightSignatureMap parent) 
+	{
+		super(parent);
+	}
+	
+	protected void createIndexes(DB database){}
+
+	@Override
+	protected Map<Integer, byte[]> getMap(DB database) 
+	{
+		//OPEN MAP
+		return database.createTreeMap("height_signatures")
+			.keySerializer(BTreeKeySerializer.ZERO_OR_POSITIVE_INT)
+			.valueSerializer(Serializer.BYTE_ARRAY)
+			.makeOrGet();
+	}
+
+	@Override
+	protected Map<Integer, byte[]> getMemoryMap() 
+	{
+		return new TreeMap<Integer, byte[]>();
+	}
+
+	@Override
+	protected byte[] getDefaultValue() 
+	{
+		return null;
+	}
+	
+	@Override
+	protected Map<Integer, Integer> getObservableData() 
+	{
+		return this.observableData;
+	}
+	
+	public byte[] get(int height)
+	{
+		return this.get(Integer.valueOf(height));
+	}
+	
+	public void set(int height, Block block)
+	{
+		this.set(height, block.getSignature());
+	}
+	
+	//SIGNATURES OF THE BLOCKS FROM FROMHEIGHT TO TOHEIGHT
+	public List<byte[]> getSignatures(int fromHeight, int toHeight)
+	{
+		List<byte[]> signatures = new ArrayList<byte[]>();
+		if(fromHeight > toHeight)
+		{
+			return signatures;
+		}
+		
+		Iterator<Integer> heights = this.getKeyIterator(fromHeight, toHeight, false);
+		while(heights.hasNext())
+		{
+			signatures.add(this.get(heights.next()));
+		}
+		
+		return signatures;
+	}
+}
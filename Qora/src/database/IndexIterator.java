@@ -12,7 +12,12 @@ public class IndexIterator<T> implements Iterator<T> {
 
 	public IndexIterator(NavigableSet<Tuple2<?, T>> set)
 	{
-		this.iterator = set.iterator();
+		this(set.iterator());
+	}
+	
+	public IndexIterator(Iterator<Tuple2<?, T>> iterator)
+	{
+		this.iterator = iterator;
 		this.index = 0;
 	}
 
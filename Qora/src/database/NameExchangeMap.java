@@ -7,6 +7,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.NavigableSet;
 import java.util.Map.Entry;
+import java.util.TreeMap;
 
 import org.mapdb.DB;
 import org.mapdb.Fun;
@@ -69,7 +70,7 @@ public class NameExchangeMap extends DBMap<String, BigDecimal>
 	@Override
 	protected Map<String, BigDecimal> getMemoryMap() 
 	{
-		return new HashMap<String, BigDecimal>();
+		return new TreeMap<String, BigDecimal>();
 	}
 
 	@Override
@@ -2,6 +2,7 @@ package database;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.TreeMap;
 
 import org.mapdb.DB;
 
@@ -38,7 +39,7 @@ public class NameMap extends DBMap<String, Name>
 	@Override
 	protected Map<String, Name> getMemoryMap() 
 	{
-		return new HashMap<String, Name>();
+		return new TreeMap<String, Name>();
 	}
 
 	@Override
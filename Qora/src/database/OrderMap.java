@@ -4,31 +4,32 @@ import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
-import java.util.TreeSet;
+import java.util.NavigableSet;
 
 import org.mapdb.BTreeMap;
-import org.mapdb.Bind;
 import org.mapdb.DB;
 import org.mapdb.DBMaker;
 import org.mapdb.Fun;
-import org.mapdb.Fun.Tuple4;
+import org.mapdb.Fun.Tuple2;
+import org.mapdb.Fun.Tuple3;
+
+import com.google.common.collect.Lists;
 
 import qora.assets.Order;
 import utils.ObserverMessage;
+import utils.ReverseComparator;
 import database.DBSet;
 import database.serializer.OrderSerializer;
 
 public class OrderMap extends DBMap<BigInteger, Order> 
 {
-	private Map<Integer, Integer> observableData = new HashMap<Integer, Integer>();
+	private static final int HAVE_WANT_INDEX = 1;
 	
-	@SuppressWarnings("rawtypes")
-	private BTreeMap haveWantKeyMap;
+	private Map<Integer, Integer> observableData = new HashMap<Integer, Integer>();
 	
 	public OrderMap(DBSet databaseSet, DB database)
 	{
@@ -45,7 +46,25 @@ public class OrderMap extends DBMap<BigInteger, Order>
 
 	}
 
-	protected void createIndexes(DB database){}
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	protected void createIndexes(DB database)
+	{
+		//HAVE/WANT INDEX
+		NavigableSet<Tuple2<Tuple3<Long, Long, BigDecimal>, BigInteger>> haveWantIndex = database.createTreeSet("orders_index_have_want")
+				.comparator(Fun.COMPARATOR)
+				.makeOrGet();
+		
+		NavigableSet<Tuple2<Tuple3<Long, Long, BigDecimal>, BigInteger>> descendingHaveWantIndex = database.createTreeSet("orders_index_have_want_descending")
+				.comparator(new ReverseComparator(Fun.COMPARATOR))
+				.makeOrGet();
+		
+		createIndex(HAVE_WANT_INDEX, haveWantIndex, descendingHaveWantIndex, new Fun.Function2<Tuple3<Long, Long, BigDecimal>, BigInteger, Order>() {
+			@Override
+			public Tuple3<Long, Long, BigDecimal> run(BigInteger key, Order value) {
+				return new Tuple3<Long, Long, BigDecimal>(value.getHave(), value.getWant(), value.getPrice());
+			}
+		});
+	}
 
 	@Override
 	protected Map<BigInteger, Order> getMap(DB database) 
@@ -71,18 +90,11 @@ public class OrderMap extends DBMap<BigInteger, Order>
 				.valueSerializer(new OrderSerializer())
 				.makeOrGet();
 		
-		//HAVE/WANT KEY
-		this.haveWantKeyMap = database.createTreeMap("orders_key_have_want")
-				.comparator(Fun.COMPARATOR)
-				.makeOrGet();
-		
-		//BIND HAVE/WANT KEY
-		Bind.secondaryKey(map, this.haveWantKeyMap, new Fun.Function2<Tuple4<Long, Long, BigDecimal, BigInteger>, BigInteger, Order>() {
-			@Override
-			public Tuple4<Long, Long, BigDecimal, BigInteger> run(BigInteger key, Order value) {
-				return new Tuple4<Long, Long, BigDecimal, BigInteger>(value.getHave(), value.getWant(), value.getPrice(), key);
-			}	
-		});
+		//THE HAVE/WANT KEYS OF OLDER VERSIONS ARE REPLACED BY THE HAVE/WANT INDEX
+		if(database.exists("orders_key_have_want"))
+		{
+			database.delete("orders_key_have_want");
+		}
 		
 		//RETURN
 		return map;
@@ -104,67 +116,34 @@ public class OrderMap extends DBMap<BigInteger, Order>
 		this.set(order.getId(), order);
 	}
 	
-	@SuppressWarnings({ "unchecked", "rawtypes" })
-	private Collection<BigInteger> getKeys(long have, long want) {
-		
-		//FILTER ALL KEYS
-		Collection<BigInteger> keys = ((BTreeMap<Tuple4, BigInteger>) this.haveWantKeyMap).subMap(
-				Fun.t4(have, want, null, null),
-				Fun.t4(have, want, Fun.HI(), Fun.HI())).values();
+	private Iterator<BigInteger> getKeys(long have, long want) {
 		
-		//IF THIS IS A FORK
-		if(this.parent != null)
-		{
-			//GET ALL KEYS FOR FORK
-			Collection<BigInteger> forkKeys = ((OrderMap) this.parent).getKeys(have, want);
-			
-			//COMBINE LISTS
-			Set<BigInteger> combinedKeys = new TreeSet<BigInteger>(keys);
-			combinedKeys.addAll(forkKeys);
-			
-			//DELETE DELETED
-			for(BigInteger deleted: this.deleted)
-			{
-				combinedKeys.remove(deleted);
-			}
-			
-			//CONVERT SET BACK TO COLLECTION
-			keys = combinedKeys;
-		}
-		
-		return keys;
+		//FILTER ALL KEYS, FORKS MERGE THEIR CHANGES WITH THE PARENT KEYS
+		return this.getIndexIterator(HAVE_WANT_INDEX, 
+				Fun.t3(have, want, null), 
+				Fun.t3(have, want, Fun.HI()), false);
 	}
 
 	public List<Order> getOrders(long have, long want) 
 	{
 		//FILTER ALL KEYS
-		Collection<BigInteger> keys = this.getKeys(have, want);
+		Iterator<BigInteger> keys = this.getKeys(have, want);
 				
-		//GET ALL ORDERS FOR KEYS
+		//GET ALL ORDERS FOR KEYS, SORTED BY PRICE
 		List<Order> orders = new ArrayList<Order>();
-		for(BigInteger key: keys)
+		while(keys.hasNext())
 		{
-			orders.add(this.get(key));
-		}
-		
-		//IF THIS IS A FORK
-		if(this.parent != null)
-		{
-			//RESORT ORDERS
-			Collections.sort(orders);
+			orders.add(this.get(keys.next()));
 		}
 		
 		//RETURN
 		return orders;
 	}
 	
-	@SuppressWarnings({ "unchecked", "rawtypes" })
 	public SortableList<BigInteger, Order> getOrdersSortableList(long have, long want)
 	{
 		//FILTER ALL KEYS
-		Collection<BigInteger> keys = ((BTreeMap<Tuple4, BigInteger>) this.haveWantKeyMap).subMap(
-				Fun.t4(have, want, null, null),
-				Fun.t4(have, want, Fun.HI(), Fun.HI())).values();
+		Collection<BigInteger> keys = Lists.newArrayList(this.getKeys(have, want));
 		
 		//RETURN
 		return new SortableList<BigInteger, Order>(this, keys);
@@ -2,6 +2,7 @@ package database;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.TreeMap;
 
 import org.mapdb.DB;
 
@@ -77,7 +78,7 @@ public class PollMap extends DBMap<String, Poll>
 	@Override
 	protected Map<String, Poll> getMemoryMap() 
 	{
-		return new HashMap<String, Poll>();
+		return new TreeMap<String, Poll>();
 	}
 
 	@Override
@@ -0,0 +1,122 @@
+package database;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.mapdb.BTreeKeySerializer;
+import org.mapdb.DB;
+import org.mapdb.Fun;
+import org.mapdb.Fun.Tuple2;
+
+import qora.account.Account;
+import qora.block.Block;
+import qora.transaction.Transaction;
+import database.DBSet;
+
+public class RecentIncomingMap extends DBMap<Tuple2<Integer, String>, BigDecimal>
+{
+	private Map<Integer, Integer> observableData = new HashMap<Integer, Integer>();
+	
+	public RecentIncomingMap(DBSet databaseSet, DB database)
+	{
+		super(databaseSet, database);
+	}
+	
+	public RecentIncomingMap(RecentIncomingMap parent)
+	{
+		super(parent);
+	}
+	
+	protected void createIndexes(DB database){}
+	
+	@Override
+	protected Map<Tuple2<Integer, String>, BigDecimal> getMap(DB database)
+	{
+		//OPEN MAP
+		return database.createTreeMap("recent_incoming")
+			.keySerializer(BTreeKeySerializer.TUPLE2)
+			.makeOrGet();
+	}
+	
+	@Override
+	protected Map<Tuple2<Integer, String>, BigDecimal> getMemoryMap()
+	{
+		return new TreeMap<Tuple2<Integer, String>, BigDecimal>(Fun.TUPLE2_COMPARATOR);
+	}
+	
+	@Override
+	protected BigDecimal getDefaultValue()
+	{
+		return BigDecimal.ZERO.setScale(8);
+	}
+	
+	@Override
+	protected Map<Integer, Integer> getObservableData()
+	{
+		return this.observableData;
+	}
+	
+	//STORES THE SUM OF ALL POSITIVE AMOUNTS EVERY ACCOUNT RECEIVED IN BLOCK
+	public void set(int height, Block block)
+	{
+		for(Transaction transaction: block.getTransactions())
+		{
+			//ACCOUNTS CAN BE LISTED MORE THAN ONCE
+			Set<String> addresses = new HashSet<String>();
+			for(Account account: transaction.getInvolvedAccounts())
+			{
+				if(addresses.add(account.getAddress()))
+				{
+					BigDecimal amount = transaction.getAmount(account);
+					if(amount.compareTo(BigDecimal.ZERO) == 1)
+					{
+						Tuple2<Integer, String> key = new Tuple2<Integer, String>(height, account.getAddress());
+						this.set(key, this.get(key).add(amount));
+					}
+				}
+			}
+		}
+	}
+	
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public void delete(int height)
+	{
+		//COLLECT KEYS FIRST AS DELETING CHANGES THE MAP
+		List<Tuple2<Integer, String>> keys = new ArrayList<Tuple2<Integer, String>>();
+		Iterator<Tuple2<Integer, String>> iterator = this.getKeyIterator((Tuple2) Fun.t2(height, null), (Tuple2) Fun.t2(height, Fun.HI()), false);
+		while(iterator.hasNext())
+		{
+			keys.add(iterator.next());
+		}
+		
+		for(Tuple2<Integer, String> key: keys)
+		{
+			this.delete(key);
+		}
+	}
+	
+	public BigDecimal get(int height, String address)
+	{
+		return this.get(new Tuple2<Integer, String>(height, address));
+	}
+	
+	//SUM OF THE AMOUNTS ADDRESS RECEIVED FROM FROMHEIGHT TO TOHEIGHT
+	public BigDecimal getIncoming(String address, int fromHeight, int toHeight)
+	{
+		BigDecimal incoming = BigDecimal.ZERO.setScale(8);
+		
+		for(int height=fromHeight; height<=toHeight; height++)
+		{
+			incoming = incoming.add(this.get(height, address));
+		}
+		
+		return incoming;
+	}
+}
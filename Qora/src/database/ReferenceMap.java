@@ -2,6 +2,7 @@ package database;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.TreeMap;
 
 import org.mapdb.DB;
 
@@ -34,7 +35,7 @@ public class ReferenceMap extends DBMap<String, byte[]>
 	@Override
 	protected Map<String, byte[]> getMemoryMap() 
 	{
-		return new HashMap<String, byte[]>();
+		return new TreeMap<String, byte[]>();
 	}
 
 	@Override
@@ -4,10 +4,9 @@ import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
-import java.util.TreeSet;
 
 import org.mapdb.BTreeMap;
 import org.mapdb.Bind;
@@ -151,49 +150,24 @@ public class TradeMap extends DBMap<Tuple2<BigInteger, BigInteger>, Trade>
 	}
 	
 	@SuppressWarnings({ "unchecked", "rawtypes" })
-	private Collection<Tuple2> getKeys(Order order) {
+	private Iterator<Tuple2<BigInteger, BigInteger>> getKeys(Order order) {
 		
-		Map uncastedMap = this.map;
-		
-		//FILTER ALL KEYS
-		Collection<Tuple2> keys = ((BTreeMap<Tuple2, Order>) uncastedMap).subMap(
-				Fun.t2(order.getId(), null),
-				Fun.t2(order.getId(), Fun.HI())).keySet();
-		
-		//IF THIS IS A FORK
-		if(this.parent != null)
-		{
-			//GET ALL KEYS FOR FORK
-			Collection<Tuple2> forkKeys = ((TradeMap) this.parent).getKeys(order);
-			
-			//COMBINE LISTS
-			Set<Tuple2> combinedKeys = new TreeSet<Tuple2>(keys);
-			combinedKeys.addAll(forkKeys);
-			
-			//DELETE DELETED
-			for(Tuple2 deleted: this.deleted)
-			{
-				combinedKeys.remove(deleted);
-			}
-			
-			//CONVERT SET BACK TO COLLECTION
-			keys = combinedKeys;
-		}
-		
-		return keys;
+		//FILTER ALL KEYS, FORKS MERGE THEIR CHANGES WITH THE PARENT KEYS
+		return this.getKeyIterator(
+				(Tuple2) Fun.t2(order.getId(), null),
+				(Tuple2) Fun.t2(order.getId(), Fun.HI()), false);
 	}
 
-	@SuppressWarnings({ "unchecked", "rawtypes" })
 	public List<Trade> getInitiatedTrades(Order order) 
 	{
 		//FILTER ALL TRADES
-		Collection<Tuple2> keys = this.getKeys(order);
+		Iterator<Tuple2<BigInteger, BigInteger>> keys = this.getKeys(order);
 		
 		//GET ALL TRADES FOR KEYS
 		List<Trade> trades = new ArrayList<Trade>();
-		for(Tuple2 key: keys)
+		while(keys.hasNext())
 		{
-			trades.add(this.get(key));
+			trades.add(this.get(keys.next()));
 		}
 		
 		//RETURN
@@ -0,0 +1,150 @@
+package database;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.mapdb.BTreeKeySerializer;
+import org.mapdb.DB;
+import org.mapdb.Fun;
+import org.mapdb.Fun.Tuple2;
+import org.mapdb.Fun.Tuple3;
+
+import com.google.common.base.Function;
+import com.google.common.collect.Iterators;
+
+import qora.account.Account;
+import qora.block.Block;
+import qora.transaction.ArbitraryTransaction;
+import qora.transaction.Transaction;
+import database.DBSet;
+
+public class TransactionIndexMap extends DBMap<Tuple3<String, Integer, Integer>, Boolean>
+{
+	private Map<Integer, Integer> observableData = new HashMap<Integer, Integer>();
+	
+	public TransactionIndexMap(DBSet databaseSet, DB database)
+	{
+		super(databaseSet, database);
+	}
+	
+	public TransactionIndexMap(TransactionIndexMap parent)
+	{
+		super(parent);
+	}
+	
+	protected void createIndexes(DB database){}
+	
+	@Override
+	protected Map<Tuple3<String, Integer, Integer>, Boolean> getMap(DB database)
+	{
+		//OPEN MAP
+		return database.createTreeMap("transactions_index")
+				.keySerializer(BTreeKeySerializer.TUPLE3)
+				.makeOrGet();
+	}
+	
+	@Override
+	protected Map<Tuple3<String, Integer, Integer>, Boolean> getMemoryMap()
+	{
+		return new TreeMap<Tuple3<String, Integer, Integer>, Boolean>(Fun.TUPLE3_COMPARATOR);
+	}
+	
+	@Override
+	protected Boolean getDefaultValue()
+	{
+		return null;
+	}
+	
+	@Override
+	protected Map<Integer, Integer> getObservableData()
+	{
+		return this.observableData;
+	}
+	
+	//TERMS
+	
+	public static String getAddressTerm(String address)
+	{
+		return address;
+	}
+	
+	public static String getTypeTerm(int type)
+	{
+		return "type_" + type;
+	}
+	
+	public static String getServiceTerm(int service)
+	{
+		return "service_" + service;
+	}
+	
+	private static Set<String> getTerms(Transaction transaction)
+	{
+		Set<String> terms = new HashSet<String>();
+		
+		for(Account account: transaction.getInvolvedAccounts())
+		{
+			terms.add(getAddressTerm(account.getAddress()));
+		}
+		
+		terms.add(getTypeTerm(transaction.getType()));
+		
+		if(transaction.getType() == Transaction.ARBITRARY_TRANSACTION)
+		{
+			terms.add(getServiceTerm(((ArbitraryTransaction) transaction).getService()));
+		}
+		
+		return terms;
+	}
+	
+	//INDEXES ALL TRANSACTIONS OF BLOCK BY ADDRESS, TYPE AND SERVICE
+	public void add(int height, Block block)
+	{
+		List<Transaction> transactions = block.getTransactions();
+		for(int i=0; i<transactions.size(); i++)
+		{
+			for(String term: getTerms(transactions.get(i)))
+			{
+				this.set(new Tuple3<String, Integer, Integer>(term, height, i), true);
+			}
+		}
+	}
+	
+	public void delete(int height, Block block)
+	{
+		List<Transaction> transactions = block.getTransactions();
+		for(int i=0; i<transactions.size(); i++)
+		{
+			for(String term: getTerms(transactions.get(i)))
+			{
+				this.delete(new Tuple3<String, Integer, Integer>(term, height, i));
+			}
+		}
+	}
+	
+	//POSITIONS OF THE TRANSACTIONS MATCHING TERM FROM FROMHEIGHT TO TOHEIGHT AS HEIGHT AND INDEX IN BLOCK
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public Iterator<Tuple2<Integer, Integer>> getPositions(String term, int fromHeight, int toHeight)
+	{
+		Iterator<Tuple3<String, Integer, Integer>> keys = this.getKeyIterator(
+				(Tuple3) Fun.t3(term, fromHeight, null),
+				(Tuple3) Fun.t3(term, toHeight, Fun.HI()), false);
+		
+		return Iterators.transform(keys, new Function<Tuple3<String, Integer, Integer>, Tuple2<Integer, Integer>>() {
+			@Override
+			public Tuple2<Integer, Integer> apply(Tuple3<String, Integer, Integer> key) {
+				return new Tuple2<Integer, Integer>(key.b, key.c);
+			}
+		});
+	}
+	
+	public boolean isEmpty()
+	{
+		return !this.getKeyIterator(null, null, false).hasNext();
+	}
+}
@@ -1,7 +1,9 @@
 package database;
 
+import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.NavigableSet;
@@ -17,9 +19,13 @@ import org.mapdb.Fun;
 import org.mapdb.Fun.Tuple2;
 import org.mapdb.Fun.Tuple2Comparator;
 
+import com.google.common.base.Function;
+import com.google.common.collect.Iterators;
 import com.google.common.primitives.UnsignedBytes;
 
 import qora.transaction.Transaction;
+import settings.Settings;
+import utils.BoundedComparator;
 import utils.ObserverMessage;
 import utils.ReverseComparator;
 import database.DBSet;
@@ -28,9 +34,14 @@ import database.serializer.TransactionSerializer;
 public class TransactionMap extends DBMap<byte[], Transaction> implements Observer
 {
 	public static final int TIMESTAMP_INDEX = 1;
+	public static final int FEE_INDEX = 2;
+	private static final int REFERENCE_INDEX = 3;
+	private static final int DEADLINE_INDEX = 4;
 	
 	private Map<Integer, Integer> observableData = new HashMap<Integer, Integer>();
 	
+	private long expiredCount = 0;
+	
 	public TransactionMap(DBSet databaseSet, DB database)
 	{
 		super(databaseSet, database);
@@ -64,6 +75,57 @@ public class TransactionMap extends DBMap<byte[], Transaction> implements Observ
 		   		return value.getTimestamp();
 		    }
 		});
+		
+		//FEE PER BYTE INDEX
+		Tuple2Comparator<BigDecimal, byte[]> feeComparator = new Fun.Tuple2Comparator<BigDecimal, byte[]>(Fun.COMPARATOR, UnsignedBytes.lexicographicalComparator());
+		NavigableSet<Tuple2<BigDecimal, byte[]>> feeIndex = database.createTreeSet("transactions_index_fee")
+				.comparator(feeComparator)
+				.makeOrGet();
+				
+		NavigableSet<Tuple2<BigDecimal, byte[]>> descendingFeeIndex = database.createTreeSet("transactions_index_fee_descending")
+				.comparator(new ReverseComparator(feeComparator))
+				.makeOrGet();
+				
+		createIndex(FEE_INDEX, feeIndex, descendingFeeIndex, new Fun.Function2<BigDecimal, byte[], Transaction>() {
+		   	@Override
+		    public BigDecimal run(byte[] key, Transaction value) {
+		   		return value.feePerByte();
+		    }
+		});
+		
+		//REFERENCE INDEX TO FOLLOW THE TRANSACTIONS OF A SENDER
+		Tuple2Comparator<byte[], byte[]> referenceComparator = new Fun.Tuple2Comparator<byte[], byte[]>(UnsignedBytes.lexicographicalComparator(), new BoundedComparator<byte[]>(UnsignedBytes.lexicographicalComparator()));
+		NavigableSet<Tuple2<byte[], byte[]>> referenceIndex = database.createTreeSet("transactions_index_reference")
+				.comparator(referenceComparator)
+				.makeOrGet();
+				
+		NavigableSet<Tuple2<byte[], byte[]>> descendingReferenceIndex = database.createTreeSet("transactions_index_reference_descending")
+				.comparator(new ReverseComparator(referenceComparator))
+				.makeOrGet();
+				
+		createIndex(REFERENCE_INDEX, referenceIndex, descendingReferenceIndex, new Fun.Function2<byte[], byte[], Transaction>() {
+		   	@Override
+		    public byte[] run(byte[] key, Transaction value) {
+		   		return value.getReference();
+		    }
+		});
+		
+		//DEADLINE INDEX TO EXPIRE ONLY THE TRANSACTIONS THAT ARE DUE
+		Tuple2Comparator<Long, byte[]> deadlineComparator = new Fun.Tuple2Comparator<Long, byte[]>(Fun.COMPARATOR, new BoundedComparator<byte[]>(UnsignedBytes.lexicographicalComparator()));
+		NavigableSet<Tuple2<Long, byte[]>> deadlineIndex = database.createTreeSet("transactions_index_deadline")
+				.comparator(deadlineComparator)
+				.makeOrGet();
+				
+		NavigableSet<Tuple2<Long, byte[]>> descendingDeadlineIndex = database.createTreeSet("transactions_index_deadline_descending")
+				.comparator(new ReverseComparator(deadlineComparator))
+				.makeOrGet();
+				
+		createIndex(DEADLINE_INDEX, deadlineIndex, descendingDeadlineIndex, new Fun.Function2<Long, byte[], Transaction>() {
+		   	@Override
+		    public Long run(byte[] key, Transaction value) {
+		   		return value.getDeadline();
+		    }
+		});
 	}
 
 	@Override
@@ -105,23 +167,74 @@ public class TransactionMap extends DBMap<byte[], Transaction> implements Observ
 		if(message.getType() == ObserverMessage.ADD_BLOCK_TYPE)
 		{			
 			//CLEAN UP
-			for(Transaction transaction: this.getValues())
-			{
-				//CHECK IF DEADLINE PASSED
-				if(transaction.getDeadline() < NTP.getTime())
-				{
-					this.delete(transaction.getSignature());
-					
-					//NOTIFY
-					/*this.setChanged();
-					this.notifyObservers(new ObserverMessage(ObserverMessage.REMOVE_TRANSACTION_TYPE, transaction));*/
-				}
-			}
+			this.deleteExpired(NTP.getTime());
+		}
+	}
+	
+	//DELETES THE TRANSACTIONS WITH A DEADLINE BEFORE TIME, RETURNS HOW MANY WERE DELETED
+	public synchronized int deleteExpired(long time)
+	{
+		//COLLECT KEYS FIRST AS DELETING CHANGES THE MAP
+		List<byte[]> signatures = new ArrayList<byte[]>();
+		Iterator<byte[]> iterator = this.getIndexIterator(DEADLINE_INDEX, Long.MIN_VALUE, time - 1, false);
+		while(iterator.hasNext())
+		{
+			signatures.add(iterator.next());
+		}
+		
+		for(byte[] signature: signatures)
+		{
+			this.delete(signature);
 		}
+		
+		this.expiredCount += signatures.size();
+		
+		return signatures.size();
+	}
+	
+	//NUMBER OF TRANSACTIONS DELETED BECAUSE THEIR DEADLINE PASSED
+	public synchronized long getExpiredCount()
+	{
+		return this.expiredCount;
 	}
 
 	public void add(Transaction transaction) {
 		this.set(transaction.getSignature(), transaction);
+		
+		//EVICT LOWEST FEE PER BYTE WHEN FULL
+		if(this.parent == null)
+		{
+			int maxSize = Settings.getInstance().getMaxUnconfirmedTransactions();
+			while(this.size() > maxSize)
+			{
+				this.delete(this.getIterator(FEE_INDEX, false).next());
+			}
+		}
+	}
+	
+	//UNCONFIRMED TRANSACTIONS FROM HIGHEST TO LOWEST FEE PER BYTE
+	public Iterator<Transaction> getTransactionsByFee()
+	{
+		return Iterators.transform(this.getIterator(FEE_INDEX, true), new Function<byte[], Transaction>() {
+			@Override
+			public Transaction apply(byte[] signature) {
+				return get(signature);
+			}
+		});
+	}
+	
+	//UNCONFIRMED TRANSACTIONS REFERENCING SIGNATURE, THE NEXT TRANSACTIONS OF THE SAME SENDER
+	public List<Transaction> getByReference(byte[] signature)
+	{
+		List<Transaction> transactions = new ArrayList<Transaction>();
+		
+		Iterator<byte[]> signatures = this.getIndexIterator(REFERENCE_INDEX, signature, signature, false);
+		while(signatures.hasNext())
+		{
+			transactions.add(this.get(signatures.next()));
+		}
+		
+		return transactions;
 	}
 
 	public List<Transaction> getTransactions() {
@@ -4,11 +4,14 @@ import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
 import java.io.Serializable;
+import java.nio.ByteBuffer;
 
 import org.mapdb.Serializer;
 
 import qora.assets.Asset;
 
+import utils.Codec;
+
 public class AssetSerializer implements Serializer<Asset>, Serializable
 {
 	private static final long serialVersionUID = -6538913048331349777L;
@@ -16,8 +19,11 @@ public class AssetSerializer implements Serializer<Asset>, Serializable
 	@Override
 	public void serialize(DataOutput out, Asset value) throws IOException 
 	{
-		out.writeInt(value.getDataLength());
-        out.write(value.toBytes(true));
+		ByteBuffer buffer = Codec.borrow(value.getDataLength());
+		value.toBytes(buffer, true);
+		
+		out.writeInt(buffer.position());
+        out.write(buffer.array(), 0, buffer.position());
     }
 
     @Override
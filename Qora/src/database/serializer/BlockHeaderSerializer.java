@@ -0,0 +1,50 @@
+package database.serializer;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+
+import org.mapdb.Serializer;
+
+import qora.block.Block;
+import qora.block.BlockFactory;
+
+import utils.Codec;
+
+public class BlockHeaderSerializer implements Serializer<Block>, Serializable
+{
+	private static final long serialVersionUID = 4315201629873245590L;
+
+	@Override
+	public void serialize(DataOutput out, Block value) throws IOException 
+	{
+		ByteBuffer buffer = Codec.borrow(Block.BASE_LENGTH);
+		value.toHeaderBytes(buffer);
+		
+		out.write(buffer.array(), 0, buffer.position());
+	}
+
+	@Override
+	public Block deserialize(DataInput in, int available) throws IOException 
+	{
+		byte[] bytes = new byte[Block.BASE_LENGTH];
+		in.readFully(bytes);
+		try 
+		{
+			return BlockFactory.getInstance().parseHeader(bytes);
+		} 
+		catch (Exception e) 
+		{
+			e.printStackTrace();
+		}
+		return null;
+	}
+
+	@Override
+	public int fixedSize() 
+	{
+		return Block.BASE_LENGTH;
+	}
+}
@@ -4,12 +4,15 @@ import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
 import java.io.Serializable;
+import java.nio.ByteBuffer;
 
 import org.mapdb.Serializer;
 
 import qora.block.Block;
 import qora.block.BlockFactory;
 
+import utils.Codec;
+
 public class BlockSerializer implements Serializer<Block>, Serializable
 {
 	private static final long serialVersionUID = -6538913048331349777L;
@@ -17,8 +20,11 @@ public class BlockSerializer implements Serializer<Block>, Serializable
 	@Override
 	public void serialize(DataOutput out, Block value) throws IOException 
 	{
-		out.writeInt(value.getDataLength());
-        out.write(value.toBytes());
+		ByteBuffer buffer = Codec.borrow(value.getDataLength());
+		value.toBytes(buffer);
+		
+		out.writeInt(buffer.position());
+        out.write(buffer.array(), 0, buffer.position());
     }
 
     @Override
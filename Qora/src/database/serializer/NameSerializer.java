@@ -4,11 +4,14 @@ import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
 import java.io.Serializable;
+import java.nio.ByteBuffer;
 
 import org.mapdb.Serializer;
 
 import qora.naming.Name;
 
+import utils.Codec;
+
 public class NameSerializer implements Serializer<Name>, Serializable
 {
 	private static final long serialVersionUID = -6538913048331349777L;
@@ -16,8 +19,11 @@ public class NameSerializer implements Serializer<Name>, Serializable
 	@Override
 	public void serialize(DataOutput out, Name value) throws IOException 
 	{
-		out.writeInt(value.getDataLength());
-        out.write(value.toBytes());
+		ByteBuffer buffer = Codec.borrow(value.getDataLength());
+		value.toBytes(buffer);
+		
+		out.writeInt(buffer.position());
+        out.write(buffer.array(), 0, buffer.position());
     }
 
     @Override
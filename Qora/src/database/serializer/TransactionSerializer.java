@@ -4,12 +4,15 @@ import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
 import java.io.Serializable;
+import java.nio.ByteBuffer;
 
 import org.mapdb.Serializer;
 
 import qora.transaction.Transaction;
 import qora.transaction.TransactionFactory;
 
+import utils.Codec;
+
 public class TransactionSerializer implements Serializer<Transaction>, Serializable
 {
 	private static final long serialVersionUID = -6538913048331349777L;
@@ -17,8 +20,11 @@ public class TransactionSerializer implements Serializer<Transaction>, Serializa
 	@Override
 	public void serialize(DataOutput out, Transaction value) throws IOException 
 	{
-		out.writeInt(value.getDataLength());
-        out.write(value.toBytes());
+		ByteBuffer buffer = Codec.borrow(value.getDataLength());
+		value.toBytes(buffer);
+		
+		out.writeInt(buffer.position());
+        out.write(buffer.array(), 0, buffer.position());
     }
 
     @Override
@@ -0,0 +1,90 @@
+package network;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class DuplicateFilter
+{
+	private int maxSize;
+	
+	//HASHES IN THE ORDER THEY WERE ADDED SO THE OLDEST ARE REMOVED FIRST
+	private ConcurrentHashMap<ByteBuffer, Boolean> hashes;
+	private Queue<ByteBuffer> order;
+	private AtomicInteger size;
+	
+	private AtomicLong checked;
+	private AtomicLong duplicates;
+	
+	public DuplicateFilter(int maxSize)
+	{
+		this.maxSize = maxSize;
+		this.hashes = new ConcurrentHashMap<ByteBuffer, Boolean>();
+		this.order = new ConcurrentLinkedQueue<ByteBuffer>();
+		this.size = new AtomicInteger();
+		this.checked = new AtomicLong();
+		this.duplicates = new AtomicLong();
+	}
+	
+	//ADDS HASH, RETURNS FALSE IF IT WAS ALREADY SEEN
+	public boolean add(byte[] hash)
+	{
+		this.checked.incrementAndGet();
+		
+		ByteBuffer key = ByteBuffer.wrap(hash);
+		if(this.hashes.putIfAbsent(key, true) != null)
+		{
+			this.duplicates.incrementAndGet();
+			return false;
+		}
+		
+		//REMOVE OLDEST WHEN FULL
+		this.order.add(key);
+		if(this.size.incrementAndGet() > this.maxSize)
+		{
+			ByteBuffer oldest = this.order.poll();
+			if(oldest != null)
+			{
+				this.hashes.remove(oldest);
+				this.size.decrementAndGet();
+			}
+		}
+		
+		return true;
+	}
+	
+	public boolean contains(byte[] hash)
+	{
+		return this.hashes.containsKey(ByteBuffer.wrap(hash));
+	}
+	
+	public int size()
+	{
+		return this.size.get();
+	}
+	
+	public long getCheckedCount()
+	{
+		return this.checked.get();
+	}
+	
+	public long getDuplicateCount()
+	{
+		return this.duplicates.get();
+	}
+	
+	//SHARE OF THE CHECKED HASHES THAT WERE ALREADY SEEN
+	public double getDuplicateRate()
+	{
+		long checked = this.getCheckedCount();
+		if(checked == 0)
+		{
+			return 0;
+		}
+		
+		return (double) this.getDuplicateCount() / checked;
+	}
+}
@@ -0,0 +1,185 @@
+package network;
+
+import java.io.IOException;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.logging.Logger;
+
+import settings.Settings;
+
+public class IOThread extends Thread
+{
+	private static final int SELECT_TIMEOUT = 1000;
+	
+	private Transport transport;
+	private Selector selector;
+	private Queue<Runnable> tasks;
+	
+	private boolean run;
+	
+	public IOThread(Transport transport) throws IOException
+	{
+		this.transport = transport;
+		this.selector = Selector.open();
+		this.tasks = new ConcurrentLinkedQueue<Runnable>();
+		this.run = true;
+		
+		this.setName("IOThread");
+		this.setDaemon(true);
+	}
+	
+	//RUNS TASK ON THIS THREAD, CHANNELS ARE ONLY REGISTERED AND CHANGED FROM HERE
+	public void execute(Runnable task)
+	{
+		this.tasks.add(task);
+		this.selector.wakeup();
+	}
+	
+	public void register(final SelectableChannel channel, final int operations, final Object attachment)
+	{
+		this.execute(new Runnable() {
+			@Override
+			public void run() {
+				try
+				{
+					SelectionKey key = channel.register(selector, operations, attachment);
+					
+					if(attachment instanceof Peer)
+					{
+						((Peer) attachment).onRegister(IOThread.this, key);
+					}
+				}
+				catch(IOException e)
+				{
+					Logger.getGlobal().warning("Failed to register channel");
+					
+					try
+					{
+						channel.close();
+					}
+					catch(IOException e2)
+					{
+						
+					}
+				}
+			}
+		});
+	}
+	
+	public void run()
+	{
+		while(this.run)
+		{
+			try
+			{
+				this.selector.select(SELECT_TIMEOUT);
+				
+				//RUN TASKS FROM OTHER THREADS
+				Runnable task;
+				while((task = this.tasks.poll()) != null)
+				{
+					task.run();
+				}
+				
+				//HANDLE READY CHANNELS
+				Iterator<SelectionKey> keys = this.selector.selectedKeys().iterator();
+				while(keys.hasNext())
+				{
+					SelectionKey key = keys.next();
+					keys.remove();
+					
+					if(!key.isValid())
+					{
+						continue;
+					}
+					
+					if(key.isAcceptable())
+					{
+						this.accept(key);
+						continue;
+					}
+					
+					Peer peer = (Peer) key.attachment();
+					
+					if(key.isConnectable())
+					{
+						peer.onConnectable();
+					}
+					
+					if(key.isValid() && key.isReadable())
+					{
+						peer.onReadable();
+					}
+					
+					if(key.isValid() && key.isWritable())
+					{
+						peer.onWritable();
+					}
+				}
+				
+				//GIVE UP ON CONNECTIONS THAT TAKE TOO LONG
+				this.checkConnectTimeouts();
+			}
+			catch(Exception e)
+			{
+				e.printStackTrace();
+			}
+		}
+	}
+	
+	private void accept(SelectionKey key)
+	{
+		ConnectionCallback callback = (ConnectionCallback) key.attachment();
+		
+		try
+		{
+			SocketChannel channel = ((ServerSocketChannel) key.channel()).accept();
+			if(channel == null)
+			{
+				return;
+			}
+			
+			//CHECK IF WE HAVE MAX CONNECTIONS, ARE ALREADY CONNECTED TO THAT ADDRESS OR IT IS BLACKLISTED
+			if(Settings.getInstance().getMaxConnections() <= callback.getActiveConnections().size() || callback.isConnectedTo(channel.socket().getInetAddress()) || PeerManager.getInstance().isBlacklisted(channel.socket().getInetAddress()))
+			{
+				//DO NOT CONNECT TO OURSELF/EXISTING CONNECTION
+				channel.close();
+				return;
+			}
+			
+			//CREATE PEER
+			channel.configureBlocking(false);
+			Peer peer = new Peer(callback, channel);
+			this.transport.getThread().register(channel, SelectionKey.OP_READ, peer);
+		}
+		catch(Exception e)
+		{
+			e.printStackTrace();
+			Logger.getGlobal().warning("Error accepting new connection");
+		}
+	}
+	
+	private void checkConnectTimeouts()
+	{
+		for(SelectionKey key: new ArrayList<SelectionKey>(this.selector.keys()))
+		{
+			if(key.isValid() && key.attachment() instanceof Peer && (key.interestOps() & SelectionKey.OP_CONNECT) != 0)
+			{
+				((Peer) key.attachment()).checkConnectTimeout();
+			}
+		}
+	}
+	
+	public void halt()
+	{
+		this.run = false;
+		this.selector.wakeup();
+	}
+}
@@ -0,0 +1,116 @@
+package network;
+
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.Map.Entry;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import network.message.Message;
+
+public class Inventory
+{
+	private long maxBytes;
+	private int maxRequests;
+	private long requestTimeout;
+	
+	//RELAYED MESSAGES IN THE ORDER THEY WERE ADDED SO THE OLDEST ARE REMOVED FIRST
+	private ConcurrentHashMap<ByteBuffer, Message> messages;
+	private Queue<ByteBuffer> order;
+	private AtomicLong bytes;
+	
+	//HASHES WE ASKED A PEER FOR AND THE TIME WE ASKED
+	private ConcurrentHashMap<ByteBuffer, Long> requested;
+	
+	public Inventory(long maxBytes, int maxRequests, long requestTimeout)
+	{
+		this.maxBytes = maxBytes;
+		this.maxRequests = maxRequests;
+		this.requestTimeout = requestTimeout;
+		this.messages = new ConcurrentHashMap<ByteBuffer, Message>();
+		this.order = new ConcurrentLinkedQueue<ByteBuffer>();
+		this.bytes = new AtomicLong();
+		this.requested = new ConcurrentHashMap<ByteBuffer, Long>();
+	}
+	
+	//KEEPS MESSAGE FOR PEERS THAT ASK FOR IT AFTER THE INV
+	public void add(Message message)
+	{
+		ByteBuffer key = ByteBuffer.wrap(message.getHash());
+		if(this.messages.putIfAbsent(key, message) != null)
+		{
+			return;
+		}
+		
+		this.requested.remove(key);
+		
+		//REMOVE OLDEST WHEN FULL
+		this.order.add(key);
+		long bytes = this.bytes.addAndGet(message.getBuffer().remaining());
+		while(bytes > this.maxBytes)
+		{
+			ByteBuffer oldest = this.order.poll();
+			if(oldest == null)
+			{
+				break;
+			}
+			
+			Message removed = this.messages.remove(oldest);
+			if(removed != null)
+			{
+				bytes = this.bytes.addAndGet(-removed.getBuffer().remaining());
+			}
+		}
+	}
+	
+	public Message get(byte[] hash)
+	{
+		return this.messages.get(ByteBuffer.wrap(hash));
+	}
+	
+	public int size()
+	{
+		return this.messages.size();
+	}
+	
+	public long getBytes()
+	{
+		return this.bytes.get();
+	}
+	
+	//RETURNS FALSE IF HASH WAS ALREADY REQUESTED WITHIN THE REQUEST TIMEOUT
+	public boolean request(byte[] hash)
+	{
+		long now = System.currentTimeMillis();
+		
+		//FORGET REQUESTS THAT TIMED OUT WHEN FULL
+		if(this.requested.size() >= this.maxRequests)
+		{
+			Iterator<Entry<ByteBuffer, Long>> iterator = this.requested.entrySet().iterator();
+			while(iterator.hasNext())
+			{
+				if(now - iterator.next().getValue() >= this.requestTimeout)
+				{
+					iterator.remove();
+				}
+			}
+			
+			if(this.requested.size() >= this.maxRequests)
+			{
+				return false;
+			}
+		}
+		
+		ByteBuffer key = ByteBuffer.wrap(hash);
+		Long previous = this.requested.putIfAbsent(key, now);
+		if(previous == null)
+		{
+			return true;
+		}
+		
+		//ASK AGAIN IF THE PEER DID NOT ANSWER IN TIME
+		return now - previous >= this.requestTimeout && this.requested.replace(key, previous, now);
+	}
+}
@@ -3,18 +3,19 @@ package network;
 import java.net.InetAddress;
 import java.net.ServerSocket;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Observable;
 import java.util.Observer;
-import java.util.SortedSet;
-import java.util.TreeSet;
 import java.util.logging.Logger;
 
+import settings.Settings;
 import utils.ObserverMessage;
 import controller.Controller;
+import network.message.InventoryMessage;
 import network.message.Message;
 import network.message.MessageFactory;
+import network.message.VersionMessage;
 
 public class Network extends Observable implements ConnectionCallback {
 
@@ -23,12 +24,17 @@ public class Network extends Observable implements ConnectionCallback {
 	
 	private static final int MAX_HANDLED_MESSAGES_SIZE = 10000;
 	
+	//RELAYED BLOCKS AND TRANSACTIONS KEPT TO ANSWER GETDATA
+	private static final long MAX_INVENTORY_BYTES = 16 * 1024 * 1024;
+	private static final int MAX_REQUESTED_SIZE = 10000;
+	
 	private ConnectionCreator creator;
-	private ConnectionAcceptor acceptor;
+	private Pinger pinger;
 	
 	private List<Peer> connectedPeers;
 	
-	private SortedSet<String> handledMessages;
+	private DuplicateFilter handledMessages;
+	private Inventory inventory;
 	
 	private boolean run;
 	
@@ -42,15 +48,26 @@ public class Network extends Observable implements ConnectionCallback {
 	
 	private void start()
 	{
-		this.handledMessages = Collections.synchronizedSortedSet(new TreeSet<String>());
+		this.handledMessages = new DuplicateFilter(MAX_HANDLED_MESSAGES_SIZE);
+		this.inventory = new Inventory(MAX_INVENTORY_BYTES, MAX_REQUESTED_SIZE, Settings.getInstance().getConnectionTimeout());
 		
 		//START ConnectionCreator THREAD
 		creator = new ConnectionCreator(this);
 		creator.start();
 		
-		//START ConnectionAcceptor THREAD
-		acceptor = new ConnectionAcceptor(this);
-		acceptor.start();
+		//START ACCEPTING CONNECTIONS
+		try
+		{
+			Transport.getInstance().listen(PORT, this);
+		}
+		catch(Exception e)
+		{
+			e.printStackTrace();
+			Logger.getGlobal().warning("Error accepting new connections");
+		}
+		
+		//START PINGER THREAD
+		pinger = new Pinger(this);
 	}
 
 	@Override
@@ -94,7 +111,6 @@ public class Network extends Observable implements ConnectionCallback {
 		
 		//CLOSE CONNECTION IF STILL ACTIVE
 		peer.close();
-		peer.interrupt();
 		
 		//NOTIFY OBSERVERS
 		this.setChanged();
@@ -123,7 +139,6 @@ public class Network extends Observable implements ConnectionCallback {
 		
 		//CLOSE CONNECTION IF STILL ACTIVE
 		peer.close();
-		peer.interrupt();
 					
 		//NOTIFY OBSERVERS
 		this.setChanged();
@@ -171,25 +186,10 @@ public class Network extends Observable implements ConnectionCallback {
 		return this.connectedPeers;
 	}
 	
-	private void addHandledMessage(byte[] hash)
+	//SHARE OF THE BLOCK AND TRANSACTION MESSAGES THAT WERE ALREADY HANDLED
+	public double getDuplicateRate()
 	{
-		try
-		{
-			synchronized(this.handledMessages)
-			{
-				//CHECK IF LIST IS FULL
-				if(this.handledMessages.size() > MAX_HANDLED_MESSAGES_SIZE)
-				{
-					this.handledMessages.remove(this.handledMessages.first());
-				}
-				
-				this.handledMessages.add(new String(hash));
-			}
-		}
-		catch(Exception e)
-		{
-			e.printStackTrace();
-		}
+		return this.handledMessages.getDuplicateRate();
 	}
 
 	@Override
@@ -201,19 +201,35 @@ public class Network extends Observable implements ConnectionCallback {
 			return;
 		}
 		
+		//PEERS THAT SEND INV OR ADVERTISE INVENTORY RELAY CAN FETCH WHAT WE RELAY THEMSELVES
+		if(message.getType() == Message.INV_TYPE)
+		{
+			message.getSender().setInventorySupported(true);
+		}
+		
+		//CAPABILITIES ARE ADVERTISED IN THE VERSION MESSAGE
+		if(message.getType() == Message.VERSION_TYPE)
+		{
+			VersionMessage version = (VersionMessage) message;
+			
+			if(version.hasCapability(VersionMessage.INVENTORY_CAPABILITY))
+			{
+				message.getSender().setInventorySupported(true);
+			}
+			
+			if(version.hasCapability(VersionMessage.BLOCKS_CAPABILITY))
+			{
+				message.getSender().setBlocksSupported(true);
+			}
+		}
+		
 		//ONLY HANDLE BLOCK AND TRANSACTION MESSAGES ONCE
 		if(message.getType() == Message.TRANSACTION_TYPE || message.getType() == Message.BLOCK_TYPE)
 		{
-			synchronized(this.handledMessages)
+			//ADD TO HANDLED MESSAGES IF NOT HANDLED ALREADY
+			if(!this.handledMessages.add(message.getHash()))
 			{
-				//CHECK IF NOT HANDLED ALREADY
-				if(this.handledMessages.contains(new String(message.getHash())))
-				{
-					return;
-				}
-				
-				//ADD TO HANDLED MESSAGES
-				this.addHandledMessage(message.getHash());
+				return;
 			}
 		}		
 		
@@ -244,6 +260,39 @@ public class Network extends Observable implements ConnectionCallback {
 			message.getSender().sendMessage(answer);
 			break;
 			
+		//INV
+		case Message.INV_TYPE:
+			
+			//ASK FOR THE MESSAGES WE DID NOT HANDLE OR ASK ANOTHER PEER FOR YET
+			List<byte[]> missing = new ArrayList<byte[]>();
+			for(byte[] hash: ((InventoryMessage) message).getHashes())
+			{
+				if(!this.handledMessages.contains(hash) && this.inventory.request(hash))
+				{
+					missing.add(hash);
+				}
+			}
+			
+			if(!missing.isEmpty())
+			{
+				message.getSender().sendMessage(MessageFactory.getInstance().createGetDataMessage(missing));
+			}
+			break;
+			
+		//GETDATA
+		case Message.GET_DATA_TYPE:
+			
+			//SEND THE MESSAGES WE STILL HAVE, THE SENDER HANDLES THEM AS IF THEY WERE BROADCAST
+			for(byte[] hash: ((InventoryMessage) message).getHashes())
+			{
+				Message data = this.inventory.get(hash);
+				if(data != null)
+				{
+					message.getSender().sendMessage(data);
+				}
+			}
+			break;
+			
 		//SEND TO CONTROLLER
 		default:
 			
@@ -256,6 +305,22 @@ public class Network extends Observable implements ConnectionCallback {
 	{		
 		Logger.getGlobal().info("Broadcasting");
 		
+		//ANNOUNCE BLOCKS AND TRANSACTIONS BY HASH TO PEERS THAT SUPPORT IT
+		Message announcement = null;
+		if(Settings.getInstance().isInventoryRelayEnabled() && (message.getType() == Message.TRANSACTION_TYPE || message.getType() == Message.BLOCK_TYPE))
+		{
+			byte[] hash = message.getHash();
+			this.inventory.add(message);
+			
+			//DO NOT FETCH OUR OWN MESSAGES BACK
+			if(!this.handledMessages.contains(hash))
+			{
+				this.handledMessages.add(hash);
+			}
+			
+			announcement = MessageFactory.getInstance().createInvMessage(Arrays.asList(hash));
+		}
+		
 		try
 		{
 			for(int i=0; i < this.connectedPeers.size() ; i++)
@@ -265,7 +330,14 @@ public class Network extends Observable implements ConnectionCallback {
 				//EXCLUDE PEERS
 				if(peer != null && !exclude.contains(peer))
 				{
-					peer.sendMessage(message);
+					if(announcement != null && peer.isInventorySupported())
+					{
+						peer.sendMessage(announcement);
+					}
+					else
+					{
+						peer.sendMessage(message);
+					}
 				}
 			}	
 		}
@@ -304,6 +376,8 @@ public class Network extends Observable implements ConnectionCallback {
 	public void stop() 
 	{
 		this.run = false;
+		this.pinger.stopPing();
+		Transport.getInstance().stop();
 		this.onMessage(null);
 	}
 }
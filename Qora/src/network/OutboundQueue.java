@@ -0,0 +1,154 @@
+package network;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import network.message.Message;
+
+public class OutboundQueue
+{
+	public static final int QUEUED = 0;
+	public static final int DROPPED = 1;
+	public static final int OVERFLOW = 2;
+	
+	//LANES IN THE ORDER THEY ARE WRITTEN, LOWER LANES ONLY GET WRITTEN WHEN THE HIGHER ONES ARE EMPTY
+	public static final int CONTROL_LANE = 0;
+	public static final int BLOCK_LANE = 1;
+	public static final int TRANSACTION_LANE = 2;
+	public static final int PEERS_LANE = 3;
+	
+	private static final int LANES = 4;
+	
+	private long maxBytes;
+	
+	private Deque<ByteBuffer>[] lanes;
+	private ByteBuffer current;
+	private int currentLength;
+	private long bytes;
+	private boolean overflowed;
+	
+	private long dropped;
+	
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public OutboundQueue(long maxBytes)
+	{
+		this.maxBytes = maxBytes;
+		this.lanes = new Deque[LANES];
+		for(int i=0; i<LANES; i++)
+		{
+			this.lanes[i] = new ArrayDeque<ByteBuffer>();
+		}
+	}
+	
+	public static int getLane(int type)
+	{
+		switch(type)
+		{
+		case Message.BLOCK_TYPE:
+		case Message.BLOCKS_TYPE:
+			
+			return BLOCK_LANE;
+			
+		case Message.TRANSACTION_TYPE:
+			
+			return TRANSACTION_LANE;
+			
+		case Message.PEERS_TYPE:
+			
+			return PEERS_LANE;
+		}
+		
+		//PINGS, VERSIONS, REQUESTS, SIGNATURES AND INVENTORIES ARE SMALL AND NEEDED TO STAY CONNECTED AND IN SYNC
+		return CONTROL_LANE;
+	}
+	
+	//TRANSACTIONS AND PEER LISTS ARE DROPPED WHEN THE PEER DOES NOT KEEP UP, PEERS ASK FOR THEM AGAIN OR GET NEWER ONES
+	private static boolean isDroppable(int lane)
+	{
+		return lane >= TRANSACTION_LANE;
+	}
+	
+	//QUEUES MESSAGE, DROPS QUEUED MESSAGES OF LOWER LANES FIRST WHEN FULL, RETURNS OVERFLOW ONCE IF A MESSAGE THAT CAN NOT BE DROPPED DOES NOT FIT
+	public synchronized int offer(Message message)
+	{
+		if(this.overflowed)
+		{
+			this.dropped++;
+			return DROPPED;
+		}
+		
+		ByteBuffer buffer = message.getBuffer();
+		int lane = getLane(message.getType());
+		
+		//MAKE ROOM BY DROPPING THE NEWEST MESSAGES OF THE LOWEST LANES
+		for(int i=LANES-1; i>lane && isDroppable(i) && this.bytes + buffer.remaining() > this.maxBytes; i--)
+		{
+			while(!this.lanes[i].isEmpty() && this.bytes + buffer.remaining() > this.maxBytes)
+			{
+				this.bytes -= this.lanes[i].pollLast().remaining();
+				this.dropped++;
+			}
+		}
+		
+		if(this.bytes + buffer.remaining() > this.maxBytes)
+		{
+			if(isDroppable(lane))
+			{
+				this.dropped++;
+				return DROPPED;
+			}
+			
+			this.overflowed = true;
+			return OVERFLOW;
+		}
+		
+		this.lanes[lane].add(buffer);
+		this.bytes += buffer.remaining();
+		return QUEUED;
+	}
+	
+	//BUFFER TO WRITE NEXT, A BUFFER THAT IS PARTLY WRITTEN IS FINISHED BEFORE ANY OTHER
+	public synchronized ByteBuffer peek()
+	{
+		if(this.current == null)
+		{
+			for(Deque<ByteBuffer> lane: this.lanes)
+			{
+				if(!lane.isEmpty())
+				{
+					this.current = lane.poll();
+					this.currentLength = this.current.remaining();
+					break;
+				}
+			}
+		}
+		
+		return this.current;
+	}
+	
+	//REMOVES THE BUFFER RETURNED BY PEEK ONCE IT IS WRITTEN
+	public synchronized void remove()
+	{
+		if(this.current != null)
+		{
+			this.bytes -= this.currentLength;
+			this.current = null;
+		}
+	}
+	
+	public synchronized boolean isEmpty()
+	{
+		return this.bytes == 0;
+	}
+	
+	public synchronized long getBytes()
+	{
+		return this.bytes;
+	}
+	
+	public synchronized long getDroppedCount()
+	{
+		return this.dropped;
+	}
+}
@@ -1,10 +1,10 @@
 package network;
 
-import java.io.DataInputStream;
-import java.io.OutputStream;
+import java.io.IOException;
 import java.net.InetAddress;
-import java.net.Socket;
-import java.util.Arrays;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
@@ -17,54 +17,55 @@ import settings.Settings;
 import network.message.Message;
 import network.message.MessageFactory;
 
-public class Peer extends Thread{
-
+public class Peer {
+	
+	private static final int READ_BUFFER_SIZE = 65536;
+	
 	private InetAddress address;
 	private ConnectionCallback callback;
-	private Socket socket;
-	private OutputStream out;
-	private Pinger pinger;
+	private SocketChannel channel;
+	private volatile IOThread thread;
+	private SelectionKey key;
+	
+	private volatile boolean connected;
+	private volatile boolean closed;
+	private long connectStart;
+	
+	private ByteBuffer readBuffer;
+	private OutboundQueue writeQueue;
+	private Runnable interestTask;
 	
 	private Map<Integer, BlockingQueue<Message>> messages;
 	
+	private long ping;
+	private Message pingMessage;
+	private long pingSent;
+	
+	private volatile boolean inventorySupported;
+	private volatile boolean blocksSupported;
+	
 	public Peer(InetAddress address)
 	{
 		this.address = address;
 		this.messages = Collections.synchronizedMap(new HashMap<Integer, BlockingQueue<Message>>());
+		this.readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+		this.writeQueue = new OutboundQueue(Settings.getInstance().getMaxOutboundBytes());
+		this.ping = Long.MAX_VALUE;
+		
+		this.interestTask = new Runnable() {
+			@Override
+			public void run() {
+				updateInterest();
+			}
+		};
 	}
 	
-	public Peer(ConnectionCallback callback, Socket socket)
+	public Peer(ConnectionCallback callback, SocketChannel channel)
 	{
-		try
-		{	
-			this.callback = callback;
-			this.socket = socket;
-			this.address = socket.getInetAddress();
-			this.messages = Collections.synchronizedMap(new HashMap<Integer, BlockingQueue<Message>>());
-			
-			//ENABLE KEEPALIVE
-			//this.socket.setKeepAlive(true);
-			
-			//TIMEOUT
-			this.socket.setSoTimeout(1000*60*60);
-			
-			//CREATE STRINGWRITER
-			this.out = socket.getOutputStream();
-			
-			//START COMMUNICATON THREAD
-			this.start();
-			
-			//START PINGER
-			this.pinger = new Pinger(this);
-			
-			//ON SOCKET CONNECT
-			this.callback.onConnect(this);			
-		}
-		catch(Exception e)
-		{
-			//FAILED TO CONNECT NO NEED TO BLACKLIST
-			Logger.getGlobal().info("Failed to connect to : " + address);
-		}
+		this(channel.socket().getInetAddress());
+		
+		this.callback = callback;
+		this.setChannel(channel, true);
 	}
 	
 	public InetAddress getAddress()
@@ -74,128 +75,356 @@ public class Peer extends Thread{
 	
 	public long getPing()
 	{
-		return this.pinger.getPing();
+		return this.ping;
+	}
+	
+	//PEERS THAT SUPPORT INV AND GETDATA ONLY GET THE HASHES OF BLOCKS AND TRANSACTIONS WE RELAY
+	public boolean isInventorySupported()
+	{
+		return this.inventorySupported;
+	}
+	
+	public void setInventorySupported(boolean inventorySupported)
+	{
+		this.inventorySupported = inventorySupported;
+	}
+	
+	//PEERS THAT SUPPORT GETBLOCKS SEND MANY BLOCKS IN ONE RESPONSE
+	public boolean isBlocksSupported()
+	{
+		return this.blocksSupported;
+	}
+	
+	public void setBlocksSupported(boolean blocksSupported)
+	{
+		this.blocksSupported = blocksSupported;
+	}
+	
+	//BYTES WAITING TO BE WRITTEN
+	public long getQueuedBytes()
+	{
+		return this.writeQueue.getBytes();
+	}
+	
+	//MESSAGES NOT SENT BECAUSE THE PEER DID NOT KEEP UP
+	public long getDroppedCount()
+	{
+		return this.writeQueue.getDroppedCount();
 	}
 	
 	public void connect(ConnectionCallback callback)
+	{
+		this.connect(callback, Network.PORT);
+	}
+	
+	public void connect(ConnectionCallback callback, int port)
 	{
 		this.callback = callback;
 		
 		try
 		{
-			//OPEN SOCKET
-			this.socket = new Socket(address, Network.PORT);
-			
-			//ENABLE KEEPALIVE
-			//this.socket.setKeepAlive(true);
-			
-			//TIMEOUT
-			this.socket.setSoTimeout(1000*60*60);
-			
-			//CREATE STRINGWRITER
-			this.out = socket.getOutputStream();
-			
-			//START COMMUNICATON THREAD
-			this.start();
-			
-			//START PINGER
-			this.pinger = new Pinger(this);
+			//START CONNECTING, THE CALLBACK IS CALLED ONCE CONNECTED
+			this.connectStart = System.currentTimeMillis();
+			Transport.getInstance().connect(this, port);
+		}
+		catch(Exception e)
+		{
+			//FAILED TO CONNECT NO NEED TO BLACKLIST
+			Logger.getGlobal().info("Failed to connect to : " + address);
+		}
+	}
+	
+	void setChannel(SocketChannel channel, boolean connected)
+	{
+		this.channel = channel;
+		this.connected = connected;
+	}
+	
+	//CALLED BY THE IO THREAD THAT HANDLES THIS PEER ONCE ITS CHANNEL IS REGISTERED
+	void onRegister(IOThread thread, SelectionKey key)
+	{
+		this.key = key;
+		this.thread = thread;
+		
+		if(this.closed)
+		{
+			this.close();
+			return;
+		}
+		
+		if(this.connected)
+		{
+			this.updateInterest();
 			
 			//ON SOCKET CONNECT
-			this.callback.onConnect(this);			
+			this.callback.onConnect(this);
 		}
-		catch(Exception e)
+	}
+	
+	void onConnectable()
+	{
+		try
+		{
+			this.channel.finishConnect();
+		}
+		catch(IOException e)
 		{
 			//FAILED TO CONNECT NO NEED TO BLACKLIST
 			Logger.getGlobal().info("Failed to connect to : " + address);
+			this.close();
+			return;
+		}
+		
+		//CHECK IF WE STILL NEED THIS CONNECTION AS CONNECTIONS ARE OPENED IN PARALLEL
+		if(Settings.getInstance().getMaxConnections() <= this.callback.getActiveConnections().size() || this.callback.isConnectedTo(this.address))
+		{
+			this.close();
+			return;
 		}
+		
+		this.connected = true;
+		this.updateInterest();
+		
+		//ON SOCKET CONNECT
+		this.callback.onConnect(this);
 	}
 	
-	public void run()
+	void checkConnectTimeout()
 	{
-		try 
+		if(!this.connected && System.currentTimeMillis() - this.connectStart > Settings.getInstance().getConnectionTimeout())
+		{
+			//FAILED TO CONNECT NO NEED TO BLACKLIST
+			Logger.getGlobal().info("Failed to connect to : " + address);
+			this.close();
+		}
+	}
+	
+	void onReadable()
+	{
+		try
 		{
-			DataInputStream in = new DataInputStream(socket.getInputStream());
+			if(this.channel.read(this.readBuffer) == -1)
+			{
+				//DISCONNECT
+				this.callback.onDisconnect(this);
+				return;
+			}
 			
-			while(true)
+			//HANDLE ALL COMPLETE MESSAGES
+			int length = -1;
+			this.readBuffer.flip();
+			while(this.readBuffer.remaining() >= Message.MAGIC_LENGTH)
 			{
-				//READ FIRST 4 BYTES
-				byte[] messageMagic = new byte[Message.MAGIC_LENGTH];
-				in.readFully(messageMagic);
-				
-				if(Arrays.equals(messageMagic, Message.MAGIC))
+				//CHECK MAGIC
+				for(int i=0; i<Message.MAGIC_LENGTH; i++)
 				{
-					//PROCESS NEW MESSAGE
-					Message message = MessageFactory.getInstance().parse(this, in);
-					
-					//Logger.getGlobal().info("received message " + message.getType() + " from " + this.address.toString());
-					
-					//CHECK IF WE ARE WAITING FOR A MESSAGE WITH THAT ID
-					if(message.hasId() && this.messages.containsKey(message.getId()))
-					{
-						//ADD TO OUR OWN LIST
-						this.messages.get(message.getId()).add(message);
-					}
-					else
+					if(this.readBuffer.get(this.readBuffer.position() + i) != Message.MAGIC[i])
 					{
-						//CALLBACK
-						this.callback.onMessage(message);
+						Logger.getGlobal().warning("received message with wrong magic");
+						
+						//ERROR
+						this.callback.onError(this);
+						return;
 					}
 				}
-				else
+				
+				//WAIT UNTIL THE WHOLE MESSAGE IS RECEIVED
+				length = getMessageLength(this.readBuffer);
+				if(length == -1 || this.readBuffer.remaining() < length)
 				{
-					Logger.getGlobal().warning("received message with wrong magic");
-					
-					//ERROR
-					callback.onError(this);
-					return;
+					break;
 				}
+				
+				//PROCESS NEW MESSAGE STRAIGHT FROM THE READ BUFFER
+				ByteBuffer messageBuffer = this.readBuffer.duplicate();
+				messageBuffer.position(this.readBuffer.position() + Message.MAGIC_LENGTH);
+				messageBuffer.limit(this.readBuffer.position() + length);
+				Message message = MessageFactory.getInstance().parse(this, messageBuffer);
+				this.readBuffer.position(this.readBuffer.position() + length);
+				
+				this.onMessage(message);
+				length = -1;
 			}
-		} 
-		catch (Exception e) 
-		{
-			//e.printStackTrace();
+			this.readBuffer.compact();
 			
+			//MAKE ROOM FOR A MESSAGE LARGER THAN THE BUFFER, ITS LENGTH IS ALREADY CHECKED
+			if(length > this.readBuffer.capacity())
+			{
+				ByteBuffer buffer = ByteBuffer.allocate(length);
+				this.readBuffer.flip();
+				buffer.put(this.readBuffer);
+				this.readBuffer = buffer;
+			}
+			else if(this.readBuffer.position() == 0 && this.readBuffer.capacity() > READ_BUFFER_SIZE)
+			{
+				this.readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+			}
+		}
+		catch(Exception e)
+		{
 			//DISCONNECT
-			callback.onDisconnect(this);
-			return;
+			this.callback.onDisconnect(this);
 		}
 	}
 	
-	public boolean sendMessage(Message message)
+	//LENGTH OF THE MESSAGE AT THE POSITION OF BUFFER, -1 IF ITS HEADER IS NOT COMPLETE YET
+	private static int getMessageLength(ByteBuffer buffer) throws Exception
 	{
-		try 
+		int position = buffer.position();
+		
+		int length = Message.MAGIC_LENGTH + Message.TYPE_LENGTH + 1;
+		if(buffer.remaining() < length)
+		{
+			return -1;
+		}
+		
+		//CHECK HAS ID
+		if(buffer.get(position + length - 1) == 1)
+		{
+			length += Message.ID_LENGTH;
+		}
+		
+		length += Message.MESSAGE_LENGTH;
+		if(buffer.remaining() < length)
 		{
-			//CHECK IF SOCKET IS STILL ALIVE
-			if(!this.socket.isConnected())
+			return -1;
+		}
+		
+		//CHECK LENGTH FOR TYPE BEFORE WAITING FOR THE DATA
+		int type = buffer.getInt(position + Message.MAGIC_LENGTH);
+		int dataLength = buffer.getInt(position + length - Message.MESSAGE_LENGTH);
+		if(dataLength < 0 || dataLength > MessageFactory.getInstance().getMaxDataLength(type))
+		{
+			throw new Exception("Invalid data length=" + dataLength + " for type=" + type);
+		}
+		
+		//DATA IS PRECEDED BY ITS CHECKSUM
+		
+		if(dataLength > 0)
+		{
+			length += Message.CHECKSUM_LENGTH + dataLength;
+		}
+		
+		return length;
+	}
+	
+	private void onMessage(Message message)
+	{
+		//Logger.getGlobal().info("received message " + message.getType() + " from " + this.address.toString());
+		
+		if(message.hasId())
+		{
+			//CHECK IF IT ANSWERS OUR PING
+			if(this.onPingResponse(message))
 			{
-				//ERROR
-				callback.onError(this);
-				
-				return false;
+				return;
 			}
 			
-			//SEND MESSAGE
-			synchronized(this.out)
+			//CHECK IF WE ARE WAITING FOR A MESSAGE WITH THAT ID
+			BlockingQueue<Message> blockingQueue = this.messages.remove(message.getId());
+			if(blockingQueue != null)
 			{
-				this.out.write(message.toBytes());
-				this.out.flush();
+				//ADD TO OUR OWN LIST
+				blockingQueue.add(message);
+				return;
+			}
+		}
+		
+		//CALLBACK
+		this.callback.onMessage(message);
+	}
+	
+	void onWritable()
+	{
+		try
+		{
+			ByteBuffer buffer;
+			while((buffer = this.writeQueue.peek()) != null)
+			{
+				this.channel.write(buffer);
+				
+				//WAIT UNTIL THE SOCKET CAN TAKE MORE
+				if(buffer.hasRemaining())
+				{
+					return;
+				}
+				
+				this.writeQueue.remove();
 			}
 			
-			//RETURN
-			return true;
+			this.updateInterest();
 		}
-		catch (Exception e) 
+		catch(IOException e)
 		{
 			//ERROR
-			callback.onError(this);
+			this.callback.onError(this);
+		}
+	}
+	
+	private void updateInterest()
+	{
+		if(this.key == null || !this.key.isValid() || !this.connected)
+		{
+			return;
+		}
+		
+		int operations = SelectionKey.OP_READ;
+		if(!this.writeQueue.isEmpty())
+		{
+			operations |= SelectionKey.OP_WRITE;
+		}
+		
+		this.key.interestOps(operations);
+	}
+	
+	public boolean sendMessage(Message message)
+	{
+		//CHECK IF CONNECTION IS STILL OPEN
+		if(this.closed)
+		{
+			return false;
+		}
+		
+		//QUEUE MESSAGE, THE SERIALIZED MESSAGE IS SHARED WITH THE OTHER PEERS IT IS SENT TO
+		switch(this.writeQueue.offer(message))
+		{
+		case OutboundQueue.DROPPED:
 			
-			//RETURN
+			return false;
+			
+		case OutboundQueue.OVERFLOW:
+			
+			//PEER DOES NOT KEEP UP WITH THE BLOCKS AND REQUESTS IT MUST GET
+			Logger.getGlobal().info("Outbound queue full : " + this.address);
+			this.callback.onDisconnect(this);
 			return false;
 		}
+		
+		//LET THE IO THREAD WRITE IT
+		IOThread thread = this.thread;
+		if(thread != null)
+		{
+			thread.execute(this.interestTask);
+		}
+		
+		//RETURN
+		return true;
 	}
 	
-	public Message getResponse(Message message)
+	//SENDS MESSAGE WITH A NEW ID, THE RESPONSE WITH THAT ID IS ADDED TO THE RETURNED QUEUE, NULL IF SENDING FAILED
+	public BlockingQueue<Message> sendRequest(Message message)
+	{
+		BlockingQueue<Message> blockingQueue = new ArrayBlockingQueue<Message>(1);
+		if(!this.sendRequest(message, blockingQueue))
+		{
+			return null;
+		}
+		
+		return blockingQueue;
+	}
+	
+	//SENDS MESSAGE WITH A NEW ID, THE RESPONSE IS ADDED TO BLOCKINGQUEUE WHICH CAN BE SHARED BY MANY REQUESTS TO MANY PEERS
+	public boolean sendRequest(Message message, BlockingQueue<Message> blockingQueue)
 	{
 		//GENERATE ID
 		int id = (int) ((Math.random() * 1000000) + 1);
@@ -204,11 +433,27 @@ public class Peer extends Thread{
 		message.setId(id);
 		
 		//PUT QUEUE INTO MAP SO WE KNOW WE ARE WAITING FOR A RESPONSE
-		BlockingQueue<Message> blockingQueue = new ArrayBlockingQueue<Message>(1);
 		this.messages.put(id, blockingQueue);
 		
 		//WHEN FAILED TO SEND MESSAGE
 		if(!this.sendMessage(message))
+		{
+			this.messages.remove(id);
+			return false;
+		}
+		
+		return true;
+	}
+	
+	public void cancelRequest(Message message)
+	{
+		this.messages.remove(message.getId());
+	}
+	
+	public Message getResponse(Message message)
+	{
+		BlockingQueue<Message> blockingQueue = this.sendRequest(message);
+		if(blockingQueue == null)
 		{
 			return null;
 		}
@@ -216,7 +461,7 @@ public class Peer extends Thread{
 		try 
 		{
 			Message response = blockingQueue.poll(Settings.getInstance().getConnectionTimeout(), TimeUnit.MILLISECONDS);
-			this.messages.remove(id);
+			this.cancelRequest(message);
 			
 			return response;
 		} 
@@ -227,31 +472,81 @@ public class Peer extends Thread{
 		}
 	}
 	
+	//CALLED REGULARLY BY THE PINGER, PINGS EVERY PING INTERVAL AND FAILS IF A PING IS NOT ANSWERED IN TIME
+	public void ping()
+	{
+		Message pingMessage = null;
+		
+		synchronized(this)
+		{
+			long now = System.currentTimeMillis();
+			
+			if(this.pingMessage != null)
+			{
+				if(now - this.pingSent <= Settings.getInstance().getConnectionTimeout())
+				{
+					return;
+				}
+				
+				this.pingMessage = null;
+			}
+			else
+			{
+				if(now - this.pingSent < Settings.getInstance().getPingInterval())
+				{
+					return;
+				}
+				
+				//CREATE PING
+				pingMessage = MessageFactory.getInstance().createPingMessage();
+				pingMessage.setId((int) ((Math.random() * 1000000) + 1));
+				
+				this.pingMessage = pingMessage;
+				this.pingSent = now;
+			}
+		}
+		
+		if(pingMessage == null)
+		{
+			//PING FAILED
+			this.onPingFail();
+			return;
+		}
+		
+		this.sendMessage(pingMessage);
+	}
+	
+	private synchronized boolean onPingResponse(Message message)
+	{
+		if(this.pingMessage == null || this.pingMessage.getId() != message.getId() || message.getType() != Message.PING_TYPE)
+		{
+			return false;
+		}
+		
+		//UPDATE PING
+		this.ping = System.currentTimeMillis() - this.pingSent;
+		this.pingMessage = null;
+		
+		return true;
+	}
+	
 	public void onPingFail()
 	{
 		//DISCONNECTED
 		this.callback.onDisconnect(this);
 	}
-
+	
 	public void close() 
 	{
+		this.closed = true;
+		
 		try
 		{
-			//STOP PINGER
-			if(this.pinger != null)
+			//CHECK IS CHANNEL EXISTS
+			if(this.channel != null)
 			{
-				this.pinger.stopPing();
-			}
-			
-			//CHECK IS SOCKET EXISTS
-			if(socket != null)
-			{
-				//CHECK IF SOCKET IS CONNECTED
-				if(socket.isConnected())
-				{
-					//CLOSE SOCKET
-					socket.close();
-				}
+				//CLOSE CHANNEL
+				this.channel.close();
 			}
 		}
 		catch(Exception e)
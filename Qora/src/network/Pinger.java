@@ -1,58 +1,45 @@
 package network;
 
-import settings.Settings;
-import network.message.Message;
-import network.message.MessageFactory;
+import java.util.ArrayList;
+import java.util.List;
 
 public class Pinger extends Thread
 {
-	private Peer peer;
+	private static final int CHECK_INTERVAL = 1000;
+	
+	private ConnectionCallback callback;
 	private boolean run;
-	private long ping;
 	
-	public Pinger(Peer peer)
+	public Pinger(ConnectionCallback callback)
 	{
-		this.peer = peer;
+		this.callback = callback;
 		this.run = true;
-		this.ping = Long.MAX_VALUE;
 		
+		this.setName("Pinger");
+		this.setDaemon(true);
 		this.start();
 	}
 	
-	public long getPing()
-	{
-		return this.ping;
-	}
-	
 	public void run()
 	{
 		while(this.run)
 		{
-			//CREATE PING
-			Message pingMessage = MessageFactory.getInstance().createPingMessage();
-			
-			//GET RESPONSE
-			long start = System.currentTimeMillis();
-			Message response = this.peer.getResponse(pingMessage);
-			
-			//CHECK IF VALID PING
-			if(response == null || response.getType() != Message.PING_TYPE)
+			//PING ALL CONNECTED PEERS THAT ARE DUE
+			List<Peer> peers;
+			synchronized(this.callback.getActiveConnections())
 			{
-				//PING FAILES
-				this.peer.onPingFail();
-				
-				//STOP PINGER
-				this.run = false;
-				return;
+				peers = new ArrayList<Peer>(this.callback.getActiveConnections());
 			}
 			
-			//UPDATE PING
-			this.ping = System.currentTimeMillis() - start;
+			for(Peer peer: peers)
+			{
+				peer.ping();
+			}
 			
 			//SLEEP
 			try 
 			{
-				Thread.sleep(Settings.getInstance().getPingInterval());
+				Thread.sleep(CHECK_INTERVAL);
 			} 
 			catch (InterruptedException e)
 			{
@@ -60,7 +47,7 @@ public class Pinger extends Thread
 			}
 		}
 	}
-
+	
 	public void stopPing() 
 	{
 		try
@@ -0,0 +1,83 @@
+package network;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import settings.Settings;
+
+public class Transport
+{
+	private static Transport instance;
+	
+	private IOThread[] threads;
+	private AtomicInteger next;
+	
+	public static synchronized Transport getInstance()
+	{
+		if(instance == null)
+		{
+			try
+			{
+				instance = new Transport(Settings.getInstance().getNetworkThreads());
+			}
+			catch(IOException e)
+			{
+				throw new IllegalStateException("Failed to open selectors", e);
+			}
+		}
+		
+		return instance;
+	}
+	
+	public Transport(int threads) throws IOException
+	{
+		this.threads = new IOThread[Math.max(1, threads)];
+		this.next = new AtomicInteger();
+		
+		for(int i=0; i<this.threads.length; i++)
+		{
+			this.threads[i] = new IOThread(this);
+			this.threads[i].start();
+		}
+	}
+	
+	//SPREADS CONNECTIONS OVER THE IO THREADS
+	public IOThread getThread()
+	{
+		return this.threads[Math.abs(this.next.getAndIncrement() % this.threads.length)];
+	}
+	
+	public void listen(int port, ConnectionCallback callback) throws IOException
+	{
+		ServerSocketChannel server = ServerSocketChannel.open();
+		server.socket().setReuseAddress(true);
+		server.socket().bind(new InetSocketAddress(port));
+		server.configureBlocking(false);
+		
+		this.threads[0].register(server, SelectionKey.OP_ACCEPT, callback);
+	}
+	
+	//STARTS CONNECTING TO PEER, THE CALLBACK OF PEER IS CALLED WHEN CONNECTED
+	public void connect(Peer peer, int port) throws IOException
+	{
+		SocketChannel channel = SocketChannel.open();
+		channel.configureBlocking(false);
+		
+		boolean connected = channel.connect(new InetSocketAddress(peer.getAddress(), port));
+		peer.setChannel(channel, connected);
+		
+		this.getThread().register(channel, connected ? SelectionKey.OP_READ : SelectionKey.OP_CONNECT, peer);
+	}
+	
+	public void stop()
+	{
+		for(IOThread thread: this.threads)
+		{
+			thread.halt();
+		}
+	}
+}
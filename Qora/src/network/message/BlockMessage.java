@@ -1,16 +1,12 @@
 package network.message;
 
-
-import java.util.Arrays;
+import java.nio.ByteBuffer;
 
 import qora.block.Block;
 
-import com.google.common.primitives.Bytes;
-import com.google.common.primitives.Ints;
-
 public class BlockMessage extends Message{
 
-	private static final int HEIGHT_LENGTH = 4;
+	static final int HEIGHT_LENGTH = 4;
 	
 	private Block block;
 	private int height;
@@ -32,14 +28,13 @@ public class BlockMessage extends Message{
 		return this.height;
 	}
 	
-	public static BlockMessage parse(byte[] data) throws Exception
+	public static BlockMessage parse(ByteBuffer buffer) throws Exception
 	{
 		//PARSE HEIGHT
-		byte[] heightBytes =  Arrays.copyOfRange(data, 0, HEIGHT_LENGTH);
-		int height = Ints.fromByteArray(heightBytes);
+		int height = buffer.getInt();
 		
-		//PARSE BLOCK
-		Block block = Block.parse(Arrays.copyOfRange(data, HEIGHT_LENGTH, data.length + 1));
+		//PARSE BLOCK FROM THE REST OF THE MESSAGE
+		Block block = Block.parse(buffer);
 		
 		//CREATE MESSAGE
 		BlockMessage message = new BlockMessage(block);
@@ -47,22 +42,14 @@ public class BlockMessage extends Message{
 		return message;
 	}
 	
-	public byte[] toBytes() 
+	@Override
+	protected void writeData(ByteBuffer buffer)
 	{
-		byte[] data = new byte[0];
-		
 		//WRITE BLOCK HEIGHT
-		byte[] heightBytes = Ints.toByteArray(this.block.getHeight());
-		data = Bytes.concat(data, heightBytes);
+		buffer.putInt(this.block.getHeight());
 		
 		//WRITE BLOCK
-		byte[] blockBytes = this.block.toBytes();
-		data = Bytes.concat(data, blockBytes);
-		
-		//ADD CHECKSUM
-		data = Bytes.concat(super.toBytes(), this.generateChecksum(data), data);
-		
-		return data;
+		this.block.toBytes(buffer);
 	}	
 	
 	protected int getDataLength()
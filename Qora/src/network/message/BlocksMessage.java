@@ -0,0 +1,93 @@
+package network.message;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import qora.block.Block;
+
+public class BlocksMessage extends Message{
+	
+	static final int DATA_LENGTH = 4;
+	static final int BLOCK_LENGTH_LENGTH = 4;
+	
+	private List<Block> blocks;
+	
+	public BlocksMessage(List<Block> blocks)
+	{
+		super(BLOCKS_TYPE);
+		
+		this.blocks = blocks;
+	}
+	
+	public List<Block> getBlocks()
+	{
+		return this.blocks;
+	}
+	
+	public static BlocksMessage parse(ByteBuffer buffer) throws Exception
+	{
+		//READ COUNT
+		int count = buffer.getInt();
+		
+		//EVERY BLOCK NEEDS AT LEAST ITS LENGTH
+		if(count < 0 || count > buffer.remaining() / BLOCK_LENGTH_LENGTH)
+		{
+			throw new Exception("Data does not match length");
+		}
+		
+		List<Block> blocks = new ArrayList<Block>();
+		for(int i=0; i<count; i++)
+		{
+			//READ BLOCK LENGTH
+			int length = buffer.getInt();
+			if(length < 0 || length > buffer.remaining())
+			{
+				throw new Exception("Data does not match length");
+			}
+			
+			//PARSE BLOCK FROM ITS PART OF THE BUFFER
+			ByteBuffer data = buffer.slice();
+			data.limit(length);
+			blocks.add(Block.parse(data));
+			
+			buffer.position(buffer.position() + length);
+		}
+		
+		//CHECK IF ALL DATA IS READ
+		if(buffer.hasRemaining())
+		{
+			throw new Exception("Data does not match length");
+		}
+		
+		return new BlocksMessage(blocks);
+	}
+	
+	@Override
+	protected void writeData(ByteBuffer buffer)
+	{
+		//WRITE COUNT
+		buffer.putInt(this.blocks.size());
+		
+		//WRITE BLOCKS BACK TO BACK, STORED BLOCKS WRITE THEIR TRANSACTIONS AS STORED
+		for(Block block: this.blocks)
+		{
+			buffer.putInt(block.getDataLength());
+			block.toBytes(buffer);
+		}
+	}
+	
+	@Override
+	public int getDataLength()
+	{
+		int length = DATA_LENGTH;
+		
+		for(Block block: this.blocks)
+		{
+			length += BLOCK_LENGTH_LENGTH + block.getDataLength();
+		}
+		
+		return length;
+	}
+
+}
@@ -1,12 +1,15 @@
 package network.message;
 
-import com.google.common.primitives.Bytes;
+import java.nio.ByteBuffer;
+
+import utils.Codec;
+
 
 public class GetBlockMessage extends Message{
 
 	private byte[] signature;
 	
-	private static final int GET_BLOCK_LENGTH = 128;
+	static final int GET_BLOCK_LENGTH = 128;
 	
 	public GetBlockMessage(byte[] signature)
 	{
@@ -20,29 +23,22 @@ public class GetBlockMessage extends Message{
 		return this.signature;
 	}
 	
-	public static GetBlockMessage parse(byte[] data) throws Exception 
+	public static GetBlockMessage parse(ByteBuffer data) throws Exception 
 	{
 		//CHECK IF DATA MATCHES LENGTH
-		if(data.length != GET_BLOCK_LENGTH)
+		if(data.remaining() != GET_BLOCK_LENGTH)
 		{
 			throw new Exception("Data does not match length");
 		}
 				
-		return new GetBlockMessage(data);
+		return new GetBlockMessage(Codec.getBytes(data, GET_BLOCK_LENGTH));
 	}
 	
 	@Override
-	public byte[] toBytes()
+	protected void writeData(ByteBuffer buffer)
 	{
-		byte[] data = new byte[0];
-		
 		//WRITE SIGNATURE
-		data = Bytes.concat(data, this.signature);
-		
-		//ADD CHECKSUM
-		data = Bytes.concat(super.toBytes(), this.generateChecksum(data), data);
-		
-		return data;
+		buffer.put(this.signature);
 	}
 	
 	@Override
@@ -0,0 +1,68 @@
+package network.message;
+
+import java.nio.ByteBuffer;
+
+import utils.Codec;
+
+public class GetBlocksMessage extends Message{
+	
+	private byte[] signature;
+	private int amount;
+	
+	static final int SIGNATURE_LENGTH = 128;
+	static final int AMOUNT_LENGTH = 4;
+	static final int GET_BLOCKS_LENGTH = SIGNATURE_LENGTH + AMOUNT_LENGTH;
+	
+	//ASKS FOR THE BLOCK WITH SIGNATURE AND THE BLOCKS AFTER IT, AT MOST AMOUNT BLOCKS
+	public GetBlocksMessage(byte[] signature, int amount)
+	{
+		super(GET_BLOCKS_TYPE);
+		
+		this.signature = signature;
+		this.amount = amount;
+	}
+	
+	public byte[] getSignature()
+	{
+		return this.signature;
+	}
+	
+	public int getAmount()
+	{
+		return this.amount;
+	}
+	
+	public static GetBlocksMessage parse(ByteBuffer data) throws Exception
+	{
+		//CHECK IF DATA MATCHES LENGTH
+		if(data.remaining() != GET_BLOCKS_LENGTH)
+		{
+			throw new Exception("Data does not match length");
+		}
+		
+		//READ SIGNATURE
+		byte[] signature = Codec.getBytes(data, SIGNATURE_LENGTH);
+		
+		//READ AMOUNT
+		int amount = data.getInt();
+		
+		return new GetBlocksMessage(signature, amount);
+	}
+	
+	@Override
+	protected void writeData(ByteBuffer buffer)
+	{
+		//WRITE SIGNATURE
+		buffer.put(this.signature);
+		
+		//WRITE AMOUNT
+		buffer.putInt(this.amount);
+	}
+	
+	@Override
+	public int getDataLength()
+	{
+		return GET_BLOCKS_LENGTH;
+	}
+
+}
@@ -0,0 +1,18 @@
+package network.message;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+public class GetDataMessage extends InventoryMessage{
+	
+	public GetDataMessage(List<byte[]> hashes)
+	{
+		super(GET_DATA_TYPE, hashes);
+	}
+	
+	public static GetDataMessage parse(ByteBuffer buffer) throws Exception
+	{
+		return new GetDataMessage(parseHashes(buffer));
+	}
+
+}
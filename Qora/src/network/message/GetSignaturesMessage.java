@@ -1,12 +1,15 @@
 package network.message;
 
-import com.google.common.primitives.Bytes;
+import java.nio.ByteBuffer;
+
+import utils.Codec;
+
 
 public class GetSignaturesMessage extends Message{
 
 	private byte[] parent;
 	
-	private static final int GET_HEADERS_LENGTH = 128;
+	static final int GET_HEADERS_LENGTH = 128;
 	
 	public GetSignaturesMessage(byte[] parent)
 	{
@@ -20,29 +23,22 @@ public class GetSignaturesMessage extends Message{
 		return this.parent;
 	}
 
-	public static Message parse(byte[] data) throws Exception 
+	public static Message parse(ByteBuffer data) throws Exception 
 	{
 		//CHECK IF DATA MATCHES LENGTH
-		if(data.length != GET_HEADERS_LENGTH)
+		if(data.remaining() != GET_HEADERS_LENGTH)
 		{
 			throw new Exception("Data does not match length");
 		}
 				
-		return new GetSignaturesMessage(data);
+		return new GetSignaturesMessage(Codec.getBytes(data, GET_HEADERS_LENGTH));
 	}
 	
 	@Override
-	public byte[] toBytes()
+	protected void writeData(ByteBuffer buffer)
 	{
-		byte[] data = new byte[0];
-		
 		//WRITE PARENT
-		data = Bytes.concat(data, this.parent);
-		
-		//ADD CHECKSUM
-		data = Bytes.concat(super.toBytes(), this.generateChecksum(data), data);
-		
-		return data;
+		buffer.put(this.parent);
 	}
 	
 	@Override
@@ -0,0 +1,82 @@
+package network.message;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import utils.Codec;
+
+public class InventoryMessage extends Message{
+	
+	static final int HASH_LENGTH = 32;
+	static final int DATA_LENGTH = 4;
+	
+	private List<byte[]> hashes;
+	
+	public InventoryMessage(List<byte[]> hashes)
+	{
+		this(INV_TYPE, hashes);
+	}
+	
+	protected InventoryMessage(int type, List<byte[]> hashes)
+	{
+		super(type);
+		
+		this.hashes = hashes;
+	}
+	
+	public List<byte[]> getHashes()
+	{
+		return this.hashes;
+	}
+	
+	static List<byte[]> parseHashes(ByteBuffer buffer) throws Exception
+	{
+		int dataLength = buffer.remaining();
+		
+		//READ LENGTH
+		int length = buffer.getInt();
+		
+		//CHECK IF DATA MATCHES LENGTH
+		if(dataLength != DATA_LENGTH + (length * HASH_LENGTH))
+		{
+			throw new Exception("Data does not match length");
+		}
+		
+		//CREATE HASHES LIST
+		List<byte[]> hashes = new ArrayList<byte[]>();
+		
+		for(int i=0; i<length; i++)
+		{
+			//READ HASH
+			hashes.add(Codec.getBytes(buffer, HASH_LENGTH));
+		}
+		
+		return hashes;
+	}
+	
+	public static InventoryMessage parse(ByteBuffer buffer) throws Exception
+	{
+		return new InventoryMessage(parseHashes(buffer));
+	}
+	
+	@Override
+	protected void writeData(ByteBuffer buffer)
+	{
+		//WRITE LENGTH
+		buffer.putInt(this.hashes.size());
+		
+		//WRITE HASHES
+		for(byte[] hash: this.hashes)
+		{
+			buffer.put(hash);
+		}
+	}
+	
+	@Override
+	public int getDataLength()
+	{
+		return DATA_LENGTH + (this.hashes.size() * HASH_LENGTH);
+	}
+
+}
@@ -1,11 +1,10 @@
 package network.message;
 
-import java.util.Arrays;
+import java.nio.ByteBuffer;
 
 import qora.crypto.Crypto;
-
-import com.google.common.primitives.Bytes;
-import com.google.common.primitives.Ints;
+import settings.Settings;
+import utils.Codec;
 
 import network.Peer;
 
@@ -29,10 +28,19 @@ public class Message {
 	public static final int BLOCK_TYPE = 7;
 	public static final int TRANSACTION_TYPE = 8;
 	public static final int PING_TYPE = 9;
+	public static final int INV_TYPE = 10;
+	public static final int GET_DATA_TYPE = 11;
+	public static final int GET_BLOCKS_TYPE = 12;
+	public static final int BLOCKS_TYPE = 13;
+	
+	//MESSAGES FROM THIS LENGTH ARE KEPT IN DIRECT BUFFERS
+	private static final int DIRECT_BUFFER_LENGTH = 8192;
 	
 	private int type;
 	private Peer sender;
 	private int id;
+	private ByteBuffer buffer;
+	private volatile byte[] hash;
 	
 	public Message(int type)
 	{
@@ -45,9 +53,10 @@ public class Message {
 		return id;
 	}
 	
-	public void setId(int id)
+	public synchronized void setId(int id)
 	{
 		this.id = id;
+		this.buffer = null;
 	}
 	
 	public boolean hasId()
@@ -70,52 +79,129 @@ public class Message {
 		return this.sender;
 	}
 	
-	public byte[] getHash()
+	//DIGEST OF THE DATA, KEPT FROM THE CHECKSUM CALCULATION WHEN THE MESSAGE IS PARSED OR SERIALIZED
+	public synchronized byte[] getHash()
 	{
-		return Crypto.getInstance().digest(this.toBytes());
+		if(this.hash == null)
+		{
+			if(this.getDataLength() > 0)
+			{
+				this.getBuffer();
+			}
+			else
+			{
+				this.hash = Crypto.getInstance().digest(new byte[0]);
+			}
+		}
+		
+		return this.hash;
+	}
+	
+	void setHash(byte[] hash)
+	{
+		this.hash = hash;
 	}
 	
 	public byte[] toBytes() 
 	{
-		byte[] data = new byte[0];
+		ByteBuffer buffer = ByteBuffer.allocate(this.getLength());
+		this.toBytes(buffer);
+		return buffer.array();
+	}
+	
+	//SERIALIZED ONCE AND SHARED BY ALL PEERS THE MESSAGE IS SENT TO
+	public synchronized ByteBuffer getBuffer()
+	{
+		if(this.buffer == null)
+		{
+			int length = this.getLength();
+			
+			if(length >= DIRECT_BUFFER_LENGTH && Settings.getInstance().isDirectBuffersEnabled())
+			{
+				//SERIALIZE IN POOLED BUFFER AND COPY OUTSIDE THE HEAP SO IT IS WRITTEN TO EVERY PEER WITHOUT COPYING
+				ByteBuffer serialized = Codec.borrow(length);
+				this.toBytes(serialized);
+				serialized.flip();
+				
+				this.buffer = ByteBuffer.allocateDirect(length);
+				this.buffer.put(serialized);
+			}
+			else
+			{
+				this.buffer = ByteBuffer.allocate(length);
+				this.toBytes(this.buffer);
+			}
+			
+			this.buffer.flip();
+		}
 		
+		return this.buffer.asReadOnlyBuffer();
+	}
+	
+	public void toBytes(ByteBuffer buffer)
+	{
 		//WRITE MAGIC
-		data = Bytes.concat(data, MAGIC);
+		buffer.put(MAGIC);
 		
 		//WRITE MESSAGE TYPE
-		byte[] typeBytes = Ints.toByteArray(this.type);
-		typeBytes = Bytes.ensureCapacity(typeBytes, TYPE_LENGTH, 0);
-		data = Bytes.concat(data, typeBytes);
+		buffer.putInt(this.type);
 		
 		//WRITE HASID
 		if(this.hasId())
 		{
-			byte[] hasIdBytes = new byte[]{1}; 
-			data = Bytes.concat(data, hasIdBytes);
+			buffer.put((byte) 1);
 			
 			//WRITE ID
-			byte[] idBytes = Ints.toByteArray(this.id);
-			idBytes = Bytes.ensureCapacity(idBytes, ID_LENGTH, 0);
-			data = Bytes.concat(data, idBytes);
+			buffer.putInt(this.id);
 		}
 		else
 		{
-			byte[] hasIdBytes = new byte[]{0}; 
-			data = Bytes.concat(data, hasIdBytes);
+			buffer.put((byte) 0);
 		}
 		
 		//WRITE LENGTH
-		byte[] lengthBytes = Ints.toByteArray(this.getDataLength());
-		data = Bytes.concat(data, lengthBytes);
+		int dataLength = this.getDataLength();
+		buffer.putInt(dataLength);
+		
+		if(dataLength > 0)
+		{
+			//SKIP CHECKSUM UNTIL DATA IS WRITTEN
+			int checksumPosition = buffer.position();
+			buffer.position(checksumPosition + CHECKSUM_LENGTH);
+			
+			//WRITE DATA
+			this.writeData(buffer);
+			
+			//WRITE CHECKSUM, THE WHOLE DIGEST IS KEPT AS HASH
+			byte[] digest = Crypto.getInstance().digest(buffer.array(), buffer.arrayOffset() + checksumPosition + CHECKSUM_LENGTH, dataLength);
+			for(int i=0; i<CHECKSUM_LENGTH; i++)
+			{
+				buffer.put(checksumPosition + i, digest[i]);
+			}
+			this.hash = digest;
+		}
+	}
+	
+	protected void writeData(ByteBuffer buffer)
+	{
 		
-		return data;
 	}
 	
-	protected byte[] generateChecksum(byte[] data)
+	public int getLength()
 	{
-		byte[] checksum = Crypto.getInstance().digest(data);
-		checksum = Arrays.copyOfRange(checksum, 0, CHECKSUM_LENGTH);
-		return checksum;
+		int length = MAGIC_LENGTH + TYPE_LENGTH + 1 + MESSAGE_LENGTH;
+		
+		if(this.hasId())
+		{
+			length += ID_LENGTH;
+		}
+		
+		if(this.getDataLength() > 0)
+		{
+			length += CHECKSUM_LENGTH + this.getDataLength();
+		}
+		
+		return length;
 	}
 	
 	protected int getDataLength()
@@ -1,19 +1,27 @@
 package network.message;
 
 import java.io.DataInputStream;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.List;
 
+import qora.BlockChain;
 import qora.block.Block;
 import qora.crypto.Crypto;
 import qora.transaction.Transaction;
-
-import com.google.common.primitives.Ints;
+import settings.Settings;
+import utils.Codec;
 
 import network.Peer;
 
 public class MessageFactory {
 
+	//MOST PEERS ACCEPTED IN ONE PEERS MESSAGE
+	private static final int MAX_PEERS = 1000;
+	
+	//MOST HASHES ACCEPTED IN ONE INV OR GETDATA MESSAGE
+	public static final int MAX_INVENTORY = 1000;
+	
 	private static MessageFactory instance;
 	
 	public static MessageFactory getInstance()
@@ -40,12 +48,25 @@ public class MessageFactory {
 	
 	public Message createPeersMessage(List<Peer> peers)
 	{
+		//PEERS ONLY ACCEPT A LIMITED NUMBER OF PEERS
+		if(peers.size() > MAX_PEERS)
+		{
+			peers = peers.subList(0, MAX_PEERS);
+		}
+		
 		return new PeersMessage(peers);
 	}
 	
 	public Message createVersionMessage(int height)
 	{
-		return new VersionMessage(height);
+		//LET PEERS KNOW WE SERVE BLOCK RANGES AND CAN RELAY BY INVENTORY
+		int capabilities = VersionMessage.BLOCKS_CAPABILITY;
+		if(Settings.getInstance().isInventoryRelayEnabled())
+		{
+			capabilities |= VersionMessage.INVENTORY_CAPABILITY;
+		}
+		
+		return new VersionMessage(height, capabilities);
 	}
 	
 	public Message createGetHeadersMessage(byte[] parent)
@@ -68,17 +89,98 @@ public class MessageFactory {
 		return new BlockMessage(block);
 	}
 	
+	public Message createGetBlocksMessage(byte[] signature, int amount)
+	{
+		return new GetBlocksMessage(signature, amount);
+	}
+	
+	public Message createBlocksMessage(List<Block> blocks)
+	{
+		return new BlocksMessage(blocks);
+	}
+	
 	public Message createTransactionMessage(Transaction transaction)
 	{
 		return new TransactionMessage(transaction);
 	}
 	
+	public Message createInvMessage(List<byte[]> hashes)
+	{
+		return new InventoryMessage(hashes);
+	}
+	
+	public Message createGetDataMessage(List<byte[]> hashes)
+	{
+		return new GetDataMessage(hashes);
+	}
+	
+	//LARGEST DATA A PEER MAY SEND WITH TYPE, -1 FOR UNKNOWN TYPES
+	public int getMaxDataLength(int type)
+	{
+		switch(type)
+		{
+		case Message.PING_TYPE:
+		case Message.GET_PEERS_TYPE:
+			
+			return 0;
+			
+		case Message.PEERS_TYPE:
+			
+			return PeersMessage.DATA_LENGTH + (MAX_PEERS * PeersMessage.ADDRESS_LENGTH);
+			
+		case Message.VERSION_TYPE:
+			
+			return VersionMessage.MAX_DATA_LENGTH;
+			
+		case Message.GET_SIGNATURES_TYPE:
+			
+			return GetSignaturesMessage.GET_HEADERS_LENGTH;
+			
+		case Message.SIGNATURES_TYPE:
+			
+			return SignaturesMessage.DATA_LENGTH + (BlockChain.MAX_SIGNATURES * SignaturesMessage.SIGNATURE_LENGTH);
+			
+		case Message.GET_BLOCK_TYPE:
+			
+			return GetBlockMessage.GET_BLOCK_LENGTH;
+			
+		case Message.BLOCK_TYPE:
+			
+			return BlockMessage.HEIGHT_LENGTH + Block.MAX_BLOCK_BYTES;
+			
+		case Message.TRANSACTION_TYPE:
+			
+			return Block.MAX_TRANSACTION_BYTES;
+			
+		case Message.INV_TYPE:
+		case Message.GET_DATA_TYPE:
+			
+			return InventoryMessage.DATA_LENGTH + (MAX_INVENTORY * InventoryMessage.HASH_LENGTH);
+			
+		case Message.GET_BLOCKS_TYPE:
+			
+			return GetBlocksMessage.GET_BLOCKS_LENGTH;
+			
+		case Message.BLOCKS_TYPE:
+			
+			return BlocksMessage.DATA_LENGTH + (BlockChain.MAX_BLOCKS * BlocksMessage.BLOCK_LENGTH_LENGTH) + BlockChain.MAX_BLOCKS_BYTES;
+		}
+		
+		return -1;
+	}
+	
+	private void checkDataLength(int type, int length) throws Exception
+	{
+		if(length < 0 || length > this.getMaxDataLength(type))
+		{
+			throw new Exception("Invalid data length=" + length + " for type=" + type);
+		}
+	}
+	
 	public Message parse(Peer sender, DataInputStream inputStream) throws Exception
 	{
 		//READ MESSAGE TYPE
-		byte[] typeBytes = new byte[Message.TYPE_LENGTH];
-		inputStream.readFully(typeBytes);
-		int type = Ints.fromByteArray(typeBytes);
+		int type = inputStream.readInt();
 		
 		//READ HAS ID
 		int hasId = inputStream.read();
@@ -87,55 +189,92 @@ public class MessageFactory {
 		if(hasId == 1)
 		{
 			//READ ID
-			byte[] idBytes = new byte[Message.ID_LENGTH];
-			inputStream.readFully(idBytes);
-			id = Ints.fromByteArray(idBytes);
+			id = inputStream.readInt();
 		}
 		
-		//READ LENGTH
-		//byte[] lengthBytes = new byte[Message.MESSAGE_LENGTH];
-		//inputStream.readFully(lengthBytes);
-		int length = inputStream.readInt();//Ints.fromByteArray(lengthBytes);		
+		//READ LENGTH AND CHECK IT BEFORE ALLOCATING
+		int length = inputStream.readInt();
+		this.checkDataLength(type, length);
 		
-		//IF MESSAGE CONTAINS DATA READ DATA AND VALIDATE CHECKSUM
+		//IF MESSAGE CONTAINS DATA READ DATA AND CHECKSUM
+		byte[] checksum = null;
 		byte[] data = new byte[length];
 		if(length > 0)
 		{
 			//READ CHECKSUM
-			byte[] checksum = new byte[Message.CHECKSUM_LENGTH];
+			checksum = new byte[Message.CHECKSUM_LENGTH];
 			inputStream.readFully(checksum);
 			
 			//READ DATA
 			inputStream.readFully(data);
-			
-			/*int position = 0;
-			while(position < length)
+		}
+		
+		return this.parse(sender, type, id, checksum, ByteBuffer.wrap(data));
+	}
+	
+	//PARSES THE MESSAGE AFTER THE MAGIC AT THE POSITION OF BUFFER, THE DATA IS PARSED FROM THE BUFFER WITHOUT COPYING IT FIRST
+	public Message parse(Peer sender, ByteBuffer buffer) throws Exception
+	{
+		//READ MESSAGE TYPE
+		int type = buffer.getInt();
+		
+		//READ HAS ID
+		int hasId = buffer.get();
+		int id = -1;
+		
+		if(hasId == 1)
+		{
+			//READ ID
+			id = buffer.getInt();
+		}
+		
+		//READ LENGTH AND CHECK IT
+		int length = buffer.getInt();
+		this.checkDataLength(type, length);
+		
+		//IF MESSAGE CONTAINS DATA READ CHECKSUM
+		byte[] checksum = null;
+		if(length > 0)
+		{
+			checksum = Codec.getBytes(buffer, Message.CHECKSUM_LENGTH);
+		}
+		
+		//SLICE DATA
+		if(buffer.remaining() < length)
+		{
+			throw new Exception("Incomplete message length=" + length);
+		}
+		ByteBuffer data = buffer.slice();
+		data.limit(length);
+		buffer.position(buffer.position() + length);
+		
+		return this.parse(sender, type, id, checksum, data);
+	}
+	
+	private Message parse(Peer sender, int type, int id, byte[] checksum, ByteBuffer data) throws Exception
+	{
+		//VALIDATE CHECKSUM
+		byte[] hash = null;
+		if(checksum != null)
+		{
+			byte[] digest;
+			if(data.hasArray())
 			{
-				//READ MULTIPLE TIMES BECAUSE OF MAX READ OF 65536 BYTES
-				
-				//TODO CHECK THIS FIXES PROBLEM
-				//position += inputStream.read(data, position, length - position);
-				int temp = inputStream.read(data, position, length - position);
-				position += temp;
-				
-				if(temp == -1)
-				{
-					boolean tempa = true;
-					tempa = false;
-					if(tempa);
-				}
-			}*/
-			
-			//VALIDATE CHECKSUM
-			byte[] digest = Crypto.getInstance().digest(data);
-			
-			//TAKE FOR FIRST BYTES
+				digest = Crypto.getInstance().digest(data.array(), data.arrayOffset() + data.position(), data.remaining());
+			}
+			else
+			{
+				digest = Crypto.getInstance().digest(Codec.getBytes(data.duplicate(), data.remaining()));
+			}
+			
+			//KEEP DIGEST AS HASH AND TAKE FOR FIRST BYTES
+			hash = digest;
 			digest = Arrays.copyOfRange(digest, 0, Message.CHECKSUM_LENGTH);
 			
 			//CHECK IF CHECKSUM MATCHES
 			if(!Arrays.equals(checksum, digest))
 			{
-				throw new Exception("Invalid data checksum length="+length);
+				throw new Exception("Invalid data checksum length=" + data.remaining());
 			}
 		}
 		
@@ -203,13 +342,47 @@ public class MessageFactory {
 			//CREATE MESSAGE FRO MDATA
 			message = TransactionMessage.parse(data);
 			break;
+			
+		//INV
+		case Message.INV_TYPE:
+			
+			//CREATE MESSAGE FROM DATA
+			message = InventoryMessage.parse(data);
+			break;
+			
+		//GETDATA
+		case Message.GET_DATA_TYPE:
+			
+			//CREATE MESSAGE FROM DATA
+			message = GetDataMessage.parse(data);
+			break;
+			
+		//GETBLOCKS
+		case Message.GET_BLOCKS_TYPE:
+			
+			//CREATE MESSAGE FROM DATA
+			message = GetBlocksMessage.parse(data);
+			break;
+			
+		//BLOCKS
+		case Message.BLOCKS_TYPE:
+			
+			//CREATE MESSAGE FROM DATA
+			message = BlocksMessage.parse(data);
+			break;
 		}
 			
 		//SET SENDER
 		message.setSender(sender);	
+		
+		//SET HASH
+		if(hash != null)
+		{
+			message.setHash(hash);
+		}
 			
 		//SET ID
-		if(hasId == 1)
+		if(id != -1)
 		{
 			message.setId(id);
 		}
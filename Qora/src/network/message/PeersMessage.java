@@ -1,19 +1,18 @@
 package network.message;
 
 import java.net.InetAddress;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 
-import com.google.common.primitives.Bytes;
-import com.google.common.primitives.Ints;
-
 import network.Peer;
 
+import utils.Codec;
+
 public class PeersMessage extends Message {
 
-	private static final int ADDRESS_LENGTH = 4;
-	private static final int DATA_LENGTH = 4;
+	static final int ADDRESS_LENGTH = 4;
+	static final int DATA_LENGTH = 4;
 	
 	private List<Peer> peers;
 	
@@ -28,14 +27,15 @@ public class PeersMessage extends Message {
 		return this.peers;
 	}
 
-	public static PeersMessage parse(byte[] data) throws Exception
+	public static PeersMessage parse(ByteBuffer buffer) throws Exception
 	{
+		int dataLength = buffer.remaining();
+		
 		//READ LENGTH
-		byte[] lengthBytes =  Arrays.copyOfRange(data, 0, DATA_LENGTH);
-		int length = Ints.fromByteArray(lengthBytes);
+		int length = buffer.getInt();
 		
 		//CHECK IF DATA MATCHES LENGTH
-		if(data.length != DATA_LENGTH + (length * ADDRESS_LENGTH))
+		if(dataLength != DATA_LENGTH + (length * ADDRESS_LENGTH))
 		{
 			throw new Exception("Data does not match length");
 		}
@@ -45,12 +45,8 @@ public class PeersMessage extends Message {
 		
 		for(int i=0; i<length; i++)
 		{
-			//CALCULATE POSITION
-			int position = lengthBytes.length + (i * ADDRESS_LENGTH);
-			
 			//READ ADDRESS
-			byte[] addressBytes = Arrays.copyOfRange(data, position, position + ADDRESS_LENGTH);
-			InetAddress address = InetAddress.getByAddress(addressBytes);
+			InetAddress address = InetAddress.getByAddress(Codec.getBytes(buffer, ADDRESS_LENGTH));
 			
 			//CREATE PEER
 			Peer peer = new Peer(address);
@@ -63,28 +59,17 @@ public class PeersMessage extends Message {
 	}	
 	
 	@Override
-	public byte[] toBytes()
+	protected void writeData(ByteBuffer buffer)
 	{
-		byte[] data = new byte[0];
-		
 		//WRITE LENGTH
-		int length = this.peers.size();
-		byte[] lengthBytes = Ints.toByteArray(length);
-		lengthBytes = Bytes.ensureCapacity(lengthBytes, DATA_LENGTH, 0);
-		data = Bytes.concat(data, lengthBytes);
+		buffer.putInt(this.peers.size());
 		
 		//WRITE PEERS
 		for(Peer peer: this.peers)
 		{
 			//WRITE ADDRESS
-			byte[] addressBytes = peer.getAddress().getAddress();
-			data = Bytes.concat(data, addressBytes);
+			buffer.put(peer.getAddress().getAddress());
 		}
-		
-		//ADD CHECKSUM
-		data = Bytes.concat(super.toBytes(), this.generateChecksum(data), data);
-		
-		return data;
 	}
 	
 	@Override
@@ -1,16 +1,15 @@
 package network.message;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
+import java.nio.ByteBuffer;
 
-import com.google.common.primitives.Bytes;
-import com.google.common.primitives.Ints;
+import utils.Codec;
 
 public class SignaturesMessage extends Message{
 
-	private static final int SIGNATURE_LENGTH = 128;
-	private static final int DATA_LENGTH = 4;
+	static final int SIGNATURE_LENGTH = 128;
+	static final int DATA_LENGTH = 4;
 	
 	private List<byte[]> signatures;
 	
@@ -26,14 +25,15 @@ public class SignaturesMessage extends Message{
 		return this.signatures;
 	}
 	
-	public static SignaturesMessage parse(byte[] data) throws Exception
+	public static SignaturesMessage parse(ByteBuffer buffer) throws Exception
 	{
+		int dataLength = buffer.remaining();
+		
 		//READ LENGTH
-		byte[] lengthBytes =  Arrays.copyOfRange(data, 0, DATA_LENGTH);
-		int length = Ints.fromByteArray(lengthBytes);
+		int length = buffer.getInt();
 		
 		//CHECK IF DATA MATCHES LENGTH
-		if(data.length != DATA_LENGTH + (length * SIGNATURE_LENGTH))
+		if(dataLength != DATA_LENGTH + (length * SIGNATURE_LENGTH))
 		{
 			throw new Exception("Data does not match length");
 		}
@@ -43,11 +43,8 @@ public class SignaturesMessage extends Message{
 		
 		for(int i=0; i<length; i++)
 		{
-			//CALCULATE POSITION
-			int position = DATA_LENGTH + (i * SIGNATURE_LENGTH);
-			
 			//READ HEADER
-			byte[] header = Arrays.copyOfRange(data, position, position + SIGNATURE_LENGTH);
+			byte[] header = Codec.getBytes(buffer, SIGNATURE_LENGTH);
 			
 			//ADD TO LIST
 			headers.add(header);
@@ -57,27 +54,17 @@ public class SignaturesMessage extends Message{
 	}
 	
 	@Override
-	public byte[] toBytes()
+	protected void writeData(ByteBuffer buffer)
 	{
-		byte[] data = new byte[0];
-		
 		//WRITE LENGTH
-		int length = this.signatures.size();
-		byte[] lengthBytes = Ints.toByteArray(length);
-		lengthBytes = Bytes.ensureCapacity(lengthBytes, DATA_LENGTH, 0);
-		data = Bytes.concat(data, lengthBytes);
+		buffer.putInt(this.signatures.size());
 		
 		//WRITE SIGNATURES
 		for(byte[] header: this.signatures)
 		{
 			//WRITE SIGNATURE
-			data = Bytes.concat(data, header);
+			buffer.put(header);
 		}
-		
-		//ADD CHECKSUM
-		data = Bytes.concat(super.toBytes(), this.generateChecksum(data), data);
-		
-		return data;
 	}
 	
 	@Override
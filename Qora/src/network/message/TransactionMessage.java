@@ -1,9 +1,11 @@
 package network.message;
 
+import java.nio.ByteBuffer;
+
 import qora.transaction.Transaction;
 import qora.transaction.TransactionFactory;
+import utils.Codec;
 
-import com.google.common.primitives.Bytes;
 
 public class TransactionMessage extends Message{
 
@@ -21,26 +23,19 @@ public class TransactionMessage extends Message{
 		return this.transaction;
 	}
 	
-	public static TransactionMessage parse(byte[] data) throws Exception
+	public static TransactionMessage parse(ByteBuffer data) throws Exception
 	{
 		//PARSE TRANSACTION
-		Transaction transaction = TransactionFactory.getInstance().parse(data);
+		Transaction transaction = TransactionFactory.getInstance().parse(Codec.getBytes(data, data.remaining()));
 		
 		return new TransactionMessage(transaction);
 	}
 	
-	public byte[] toBytes() 
+	@Override
+	protected void writeData(ByteBuffer buffer)
 	{
-		byte[] data = new byte[0];
-		
-		//WRITE BLOCK
-		byte[] blockBytes = this.transaction.toBytes();
-		data = Bytes.concat(data, blockBytes);
-		
-		//ADD CHECKSUM
-		data = Bytes.concat(super.toBytes(), this.generateChecksum(data), data);
-		
-		return data;
+		//WRITE TRANSACTION
+		this.transaction.toBytes(buffer);
 	}	
 	
 	protected int getDataLength()
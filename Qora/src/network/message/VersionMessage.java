@@ -1,60 +1,85 @@
 package network.message;
 
-import com.google.common.primitives.Bytes;
-import com.google.common.primitives.Ints;
+import java.nio.ByteBuffer;
+
 
 public class VersionMessage extends Message{
 
-	private static final int HEIGHT_LENGTH = 4;
+	static final int HEIGHT_LENGTH = 4;
+	static final int CAPABILITIES_LENGTH = 4;
+	
+	//OLDER PEERS ONLY SEND THE HEIGHT, LATER VERSIONS CAN APPEND FIELDS UP TO THIS LENGTH
+	static final int MAX_DATA_LENGTH = 64;
+	
+	public static final int INVENTORY_CAPABILITY = 1;
+	public static final int BLOCKS_CAPABILITY = 2;
 	
 	private int height;
+	private int capabilities;
 	
 	public VersionMessage(int height)
+	{
+		this(height, 0);
+	}
+	
+	public VersionMessage(int height, int capabilities)
 	{
 		super(VERSION_TYPE);	
 		
 		this.height = height;
+		this.capabilities = capabilities;
 	}
 	
 	public int getHeight()
 	{
 		return this.height;
 	}
+	
+	public int getCapabilities()
+	{
+		return this.capabilities;
+	}
+	
+	public boolean hasCapability(int capability)
+	{
+		return (this.capabilities & capability) != 0;
+	}
 
-	public static Message parse(byte[] data) throws Exception {
+	public static Message parse(ByteBuffer data) throws Exception {
 		
-		//CHECK IF DATA MATCHES LENGTH
-		if(data.length != HEIGHT_LENGTH)
+		//CHECK IF DATA CONTAINS HEIGHT
+		if(data.remaining() < HEIGHT_LENGTH)
 		{
 			throw new Exception("Data does not match length");
 		}
 		
 		//READ HEIGHT
-		int height = Ints.fromByteArray(data);
+		int height = data.getInt();
+		
+		//READ CAPABILITIES IF SENT, FIELDS AFTER THEM ARE SKIPPED
+		int capabilities = 0;
+		if(data.remaining() >= CAPABILITIES_LENGTH)
+		{
+			capabilities = data.getInt();
+		}
 		
-		return new VersionMessage(height);
+		return new VersionMessage(height, capabilities);
 	}
 	
 	@Override
-	public byte[] toBytes()
+	protected void writeData(ByteBuffer buffer)
 	{
-		byte[] data = new byte[0];
-		
 		//WRITE HEIGHT
-		byte[] heightBytes = Ints.toByteArray(this.height);
-		heightBytes = Bytes.ensureCapacity(heightBytes, HEIGHT_LENGTH, 0);
-		data = Bytes.concat(data, heightBytes);
-		
-		//ADD CHECKSUM
-		data = Bytes.concat(super.toBytes(), this.generateChecksum(data), data);
+		buffer.putInt(this.height);
 		
-		return data;
+		//WRITE CAPABILITIES
+		buffer.putInt(this.capabilities);
 	}
 	
 	@Override
 	public int getDataLength()
 	{
-		return HEIGHT_LENGTH;
+		return HEIGHT_LENGTH + CAPABILITIES_LENGTH;
 	}
 
 }
@@ -1,138 +1,504 @@
 package qora;
 
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ArrayBlockingQueue;
+import java.util.Set;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
 
+import ntp.NTP;
 import qora.block.Block;
 import settings.Settings;
 import network.Peer;
 import network.message.BlockMessage;
+import network.message.BlocksMessage;
 import network.message.Message;
 import network.message.MessageFactory;
 
-public class BlockBuffer extends Thread
+public class BlockBuffer
 {
-	private static final int BUFFER_SIZE = 20;
+	//MOST BLOCKS ASKED IN ONE GETBLOCKS REQUEST
+	private static final int BATCH_SIZE = 10;
 	
-	private List<byte[]> signatures;
-	private Peer peer;
+	//MOST BLOCKS REQUESTED OR RECEIVED AHEAD OF THE BLOCK THAT IS PROCESSED
+	private static final int MAX_AHEAD = 100;
+	
+	private static class Download
+	{
+		private byte[] signature;
+		private Peer peer;
+		private Message request;
+		private long reserved;
+		private long deadline;
+		private Block block;
+		private Peer sender;
+		private Future<Boolean> check;
+		private boolean delivered;
+		private Set<Peer> failed = new HashSet<Peer>();
+		
+		//PEER THAT FAILED LAST, INVALID IF IT SENT A BLOCK THAT FAILED ITS CHECKS
+		private Peer lastFailed;
+		private boolean invalid;
+	}
+	
+	private List<Peer> peers;
+	private Map<Peer, Long> inFlight;
+	private long peerWindow;
+	private Map<ByteBuffer, Integer> positions;
+	private Download[] downloads;
 	private int counter;
-	private boolean error;
-	private Map<byte[], BlockingQueue<Block>> blocks;
+	private int timeout;
+	
+	//RESPONSES OF ALL PEERS
+	private BlockingQueue<Message> responses;
 	
-	private boolean run = true;
+	//RUNS THE CHECKS OF RECEIVED BLOCKS IN PARALLEL, NULL TO CHECK EVERY BLOCK WHEN IT IS DELIVERED
+	private ExecutorService checker;
+	private AtomicLong checked;
+	private AtomicLong checkTime;
 	
-	public BlockBuffer(List<byte[]> signatures, Peer peer)
+	public BlockBuffer(List<byte[]> signatures, List<Peer> peers)
 	{
-		this.signatures = signatures;
-		this.peer = peer;
+		this(signatures, peers, Settings.getInstance().getConnectionTimeout(), null);
+	}
+	
+	//DOWNLOADS THE BLOCKS OF SIGNATURES FROM PEERS, A BLOCK THAT IS NOT RECEIVED WITHIN TIMEOUT OR FAILS ITS CHECKS IS ASKED FROM ANOTHER PEER
+	public BlockBuffer(List<byte[]> signatures, List<Peer> peers, int timeout, ExecutorService checker)
+	{
+		this.peers = new ArrayList<Peer>(new LinkedHashSet<Peer>(peers));
+		this.inFlight = new HashMap<Peer, Long>();
+		for(Peer peer: this.peers)
+		{
+			this.inFlight.put(peer, 0L);
+		}
+		
+		//BYTES OF RESPONSES ONE PEER MAY OWE US AT THE SAME TIME, HALF OF ITS OUTBOUND QUEUE
+		//SO THE BLOCKS IT RELAYS AND ITS CONTROL MESSAGES STILL FIT AND IT DOES NOT OVERFLOW
+		this.peerWindow = Settings.getInstance().getMaxOutboundBytes() / 2;
+		
+		this.positions = new HashMap<ByteBuffer, Integer>();
+		this.downloads = new Download[signatures.size()];
+		for(int i=0; i<signatures.size(); i++)
+		{
+			this.positions.put(ByteBuffer.wrap(signatures.get(i)), i);
+			this.downloads[i] = new Download();
+			this.downloads[i].signature = signatures.get(i);
+		}
+		
 		this.counter = 0;
-		this.error = false;
+		this.timeout = timeout;
+		this.responses = new LinkedBlockingQueue<Message>();
+		this.checker = checker;
+		this.checked = new AtomicLong();
+		this.checkTime = new AtomicLong();
 		
-		this.blocks = new HashMap<byte[], BlockingQueue<Block>>();
-		this.start();
+		this.schedule(System.currentTimeMillis());
+	}
+	
+	//MOST BYTES OF THE RESPONSE TO A REQUEST FOR BLOCKS
+	private static long getResponseLength(int blocks)
+	{
+		return Math.min((long) blocks * Block.MAX_BLOCK_BYTES, BlockChain.MAX_BLOCKS_BYTES);
+	}
+	
+	//A PEER WITH NOTHING IN FLIGHT IS ALWAYS ASKED FOR ONE BLOCK SO DOWNLOADS CONTINUE WITH A SMALL WINDOW
+	private boolean fits(Peer peer, int blocks)
+	{
+		long inFlight = this.inFlight.get(peer);
+		return (inFlight == 0 && blocks == 1) || inFlight + getResponseLength(blocks) <= this.peerWindow;
 	}
 	
-	public void run() 
+	private boolean isPending(Download download)
 	{
-		while(this.run)
+		return !download.delivered && download.block == null && download.peer == null;
+	}
+	
+	//REQUESTS THE NEXT BLOCKS FROM THE PEERS WITH THE FEWEST BLOCKS IN FLIGHT
+	private void schedule(long now)
+	{
+		for(int i=this.counter; i<this.downloads.length && i<this.counter + MAX_AHEAD; i++)
 		{
-			for(int i=0; i<this.signatures.size() && i<this.counter + BUFFER_SIZE; i++)
+			if(!this.isPending(this.downloads[i]))
 			{
-				byte[] signature = this.signatures.get(i);
-				
-				//CHECK IF WE HAVE ALREADY LOADED THIS BLOCK
-				if(!this.blocks.containsKey(signature))
+				continue;
+			}
+			
+			Peer peer = this.getFreePeer(this.downloads[i]);
+			while(peer != null && !this.request(this.getBatch(i, peer), peer, now))
+			{
+				peer = this.getFreePeer(this.downloads[i]);
+			}
+		}
+	}
+	
+	//PENDING BLOCKS FROM POSITION THAT ARE ASKED FROM PEER IN ONE REQUEST
+	private List<Download> getBatch(int position, Peer peer)
+	{
+		List<Download> batch = new ArrayList<Download>();
+		batch.add(this.downloads[position]);
+		
+		if(peer.isBlocksSupported())
+		{
+			for(int i=position+1; batch.size()<BATCH_SIZE && this.fits(peer, batch.size() + 1) && i<this.downloads.length && i<this.counter + MAX_AHEAD; i++)
+			{
+				Download download = this.downloads[i];
+				if(!this.isPending(download) || download.failed.contains(peer))
 				{
-					//LOAD BLOCK
-					this.loadBlock(signature);
+					break;
 				}
+				
+				batch.add(download);
 			}
-			
-			try 
+		}
+		
+		return batch;
+	}
+	
+	private Peer getFreePeer(Download download)
+	{
+		Peer free = null;
+		for(Peer peer: this.peers)
+		{
+			long inFlight = this.inFlight.get(peer);
+			if(this.fits(peer, 1) && !download.failed.contains(peer) && (free == null || inFlight < this.inFlight.get(free)))
 			{
-				Thread.sleep(10);
-			} 
-			catch (InterruptedException e) 
+				free = peer;
+			}
+		}
+		
+		return free;
+	}
+	
+	private boolean hasCandidate(Download download)
+	{
+		for(Peer peer: this.peers)
+		{
+			if(!download.failed.contains(peer))
 			{
-				//ERROR SLEEPING
+				return true;
 			}
 		}
+		
+		return false;
+	}
+	
+	private boolean request(List<Download> batch, Peer peer, long now)
+	{
+		Message message;
+		if(peer.isBlocksSupported())
+		{
+			message = MessageFactory.getInstance().createGetBlocksMessage(batch.get(0).signature, batch.size());
+		}
+		else
+		{
+			message = MessageFactory.getInstance().createGetBlockMessage(batch.get(0).signature);
+		}
+		
+		//CHECK IF WE COULD SEND REQUEST
+		if(!peer.sendRequest(message, this.responses))
+		{
+			this.removePeer(peer);
+			return false;
+		}
+		
+		//RESERVE THE LARGEST POSSIBLE RESPONSE, SHARED BY THE BLOCKS OF THE BATCH
+		long length = getResponseLength(batch.size());
+		for(Download download: batch)
+		{
+			download.peer = peer;
+			download.request = message;
+			download.deadline = now + this.timeout;
+			download.reserved = length / batch.size();
+		}
+		batch.get(0).reserved += length % batch.size();
+		this.inFlight.put(peer, this.inFlight.get(peer) + length);
+		return true;
 	}
 	
-	private void loadBlock(final byte[] signature)
+	private void release(Download download)
 	{
-		//CREATE QUEUE
-		final BlockingQueue<Block> blockingQueue = new ArrayBlockingQueue<Block>(1);
-		this.blocks.put(signature, blockingQueue);
+		this.inFlight.put(download.peer, this.inFlight.get(download.peer) - download.reserved);
+		download.peer = null;
+		download.request = null;
+		download.reserved = 0;
+	}
+	
+	private void fail(Download download)
+	{
+		download.peer.cancelRequest(download.request);
+		download.failed.add(download.peer);
+		download.lastFailed = download.peer;
+		download.invalid = false;
+		this.release(download);
+	}
+	
+	//STOPS DOWNLOADING FROM PEER, ITS BLOCKS IN FLIGHT ARE ASKED FROM THE OTHER PEERS
+	private void removePeer(Peer peer)
+	{
+		for(Download download: this.downloads)
+		{
+			if(download.peer == peer)
+			{
+				this.fail(download);
+			}
+		}
 		
-		//LOAD BLOCK IN THREAD
-		new Thread(){
-			public void run()
+		this.peers.remove(peer);
+	}
+	
+	//FAILS THE REQUESTS THAT TIMED OUT AND RETURNS THE FIRST DEADLINE OF THE OTHERS
+	private long expire(long now)
+	{
+		long next = now + this.timeout;
+		for(int i=this.counter; i<this.downloads.length && i<this.counter + MAX_AHEAD; i++)
+		{
+			Download download = this.downloads[i];
+			if(download.peer != null)
 			{
-				//CREATE MESSAGE
-				Message message = MessageFactory.getInstance().createGetBlockMessage(signature);
-				
-				//SEND MESSAGE TO PEER
-				BlockMessage response = (BlockMessage) peer.getResponse(message);
-				
-				//CHECK IF WE GOT RESPONSE
-				if(response == null)
+				if(download.deadline <= now)
 				{
-					//ERROR
-					error = true;
-					return;
+					Logger.getGlobal().info("Block request timed out : " + download.peer.getAddress());
+					this.fail(download);
 				}
-				
-				//CHECK BLOCK SIGNATURE
-				if(!response.getBlock().isSignatureValid())
+				else if(download.deadline < next)
 				{
-					error = true;
-					return;
+					next = download.deadline;
 				}
+			}
+		}
+		
+		return next;
+	}
+	
+	private void onResponse(Message message)
+	{
+		if(message.getType() == Message.BLOCK_TYPE)
+		{
+			this.onBlock(((BlockMessage) message).getBlock(), message.getSender());
+			return;
+		}
+		
+		int received = 0;
+		for(Block block: ((BlocksMessage) message).getBlocks())
+		{
+			if(this.onBlock(block, message.getSender()))
+			{
+				received++;
+			}
+		}
+		
+		//BLOCKS LEFT OUT OF A PARTIAL RESPONSE ARE ASKED AGAIN, A PEER THAT SENT NONE DOES NOT HAVE THEM
+		for(int i=this.counter; i<this.downloads.length && i<this.counter + MAX_AHEAD; i++)
+		{
+			Download download = this.downloads[i];
+			if(download.peer == message.getSender() && download.request.getId() == message.getId())
+			{
+				if(received == 0)
+				{
+					this.fail(download);
+				}
+				else
+				{
+					this.release(download);
+				}
+			}
+		}
+	}
+	
+	private boolean onBlock(Block block, Peer sender)
+	{
+		//CHECK IF IT IS A BLOCK WE ASKED THE SENDER FOR
+		Integer position = this.positions.get(ByteBuffer.wrap(block.getSignature()));
+		if(position == null)
+		{
+			return false;
+		}
+		
+		Download download = this.downloads[position];
+		if(download.peer != sender || download.block != null)
+		{
+			return false;
+		}
+		
+		this.release(download);
+		download.block = block;
+		download.sender = sender;
+		
+		//START CHECKING WHILE THE BLOCKS BEFORE IT ARE DELIVERED
+		if(this.checker != null)
+		{
+			download.check = this.checker.submit(this.createCheck(block));
+		}
+		
+		return true;
+	}
+	
+	private Callable<Boolean> createCheck(final Block block)
+	{
+		return new Callable<Boolean>() {
+			@Override
+			public Boolean call() {
+				long start = System.nanoTime();
+				boolean valid = check(block);
 				
-				//ADD TO LIST
-				blockingQueue.add(response.getBlock());
+				checkTime.addAndGet(System.nanoTime() - start);
+				checked.incrementAndGet();
+				return valid;
 			}
-		}.start();
+		};
 	}
 	
-	public Block getBlock(byte[] signature) throws Exception
+	//CHECKS THAT NEED NO CHAIN STATE, THE TRANSACTIONS ARE PARSED WHILE CHECKING THEIR SIGNATURES
+	private static boolean check(Block block)
 	{
-		//CHECK ERROR
-		if(this.error)
+		try
 		{
-			throw new Exception("Block buffer error");
+			//CHECK SIZE
+			if(block.getDataLength() > Block.MAX_BLOCK_BYTES)
+			{
+				return false;
+			}
+			
+			//CHECK IF TIMESTAMP IS NOT IN THE FUTURE -500 MS ERROR MARGIN TIME
+			if(block.getTimestamp() - 500 > NTP.getTime())
+			{
+				return false;
+			}
+			
+			//CHECK BLOCK SIGNATURE (TRANSACTION SIGNATURES ARE VERIFIED IN THE SHARED VERIFIER POOL)
+			return block.isSignatureValid();
+		}
+		catch(Exception e)
+		{
+			//INVALID TRANSACTION DATA
+			return false;
+		}
+	}
+	
+	//WAITS FOR THE CHECKS OF THE DELIVERED BLOCK, AN INVALID BLOCK IS ASKED FROM THE OTHER PEERS
+	private boolean isChecked(Download download) throws Exception
+	{
+		boolean valid;
+		if(download.check != null)
+		{
+			valid = download.check.get();
+		}
+		else
+		{
+			valid = this.createCheck(download.block).call();
 		}
 		
+		if(!valid)
+		{
+			Logger.getGlobal().info("Invalid block from : " + download.sender.getAddress());
+			download.failed.add(download.sender);
+			download.lastFailed = download.sender;
+			download.invalid = true;
+			download.block = null;
+			download.check = null;
+			this.removePeer(download.sender);
+		}
+		
+		return valid;
+	}
+	
+	public long getCheckedCount()
+	{
+		return this.checked.get();
+	}
+	
+	//NANOSECONDS SPENT CHECKING BLOCKS SUMMED OVER ALL CHECKING THREADS
+	public long getCheckTime()
+	{
+		return this.checkTime.get();
+	}
+	
+	public Block getBlock(byte[] signature) throws Exception
+	{
 		//UPDATE COUNTER
-		this.counter = this.signatures.indexOf(signature);
+		Integer position = this.positions.get(ByteBuffer.wrap(signature));
+		if(position == null)
+		{
+			throw new Exception("Block buffer error");
+		}
+		this.counter = position;
 		
-		//CHECK IF ALREADY LOADED BLOCK
-		if(!this.blocks.containsKey(signature))
+		Download download = this.downloads[position];
+		while(download.block == null || !this.isChecked(download))
 		{
-			//LOAD BLOCK
-			this.loadBlock(signature);
+			//ASK BLOCKS THAT TIMED OUT FROM OTHER PEERS AND FILL THE WINDOWS
+			long now = System.currentTimeMillis();
+			long next = this.expire(now);
+			this.schedule(now);
+			
+			//CHECK IF A PEER IS LEFT TO ASK
+			if(download.peer == null && !this.hasCandidate(download))
+			{
+				if(download.invalid)
+				{
+					throw new SynchronizationException("Invalid block", download.lastFailed, true);
+				}
+				
+				throw new SynchronizationException("Peer timed out", download.lastFailed, false);
+			}
+			
+			//WAIT FOR RESPONSE OF ANY PEER UNTIL THE FIRST REQUEST TIMES OUT
+			Message response = this.responses.poll(Math.max(1, next - now), TimeUnit.MILLISECONDS);
+			while(response != null)
+			{
+				this.onResponse(response);
+				response = this.responses.poll();
+			}
 		}
 		
-		//GET BLOCK
-		return this.blocks.get(signature).poll(Settings.getInstance().getConnectionTimeout(), TimeUnit.MILLISECONDS);
+		//DELIVER IN ORDER
+		Block block = download.block;
+		download.block = null;
+		download.check = null;
+		download.delivered = true;
+		this.counter = position + 1;
+		this.schedule(System.currentTimeMillis());
+		
+		return block;
 	}
 	
-	public void stopThread()
+	//PEER THAT SENT THE BLOCK OF SIGNATURE
+	public Peer getSender(byte[] signature)
 	{
-		try
+		Integer position = this.positions.get(ByteBuffer.wrap(signature));
+		if(position == null)
 		{
-			this.run = false;
-			this.join();
+			return null;
 		}
-		catch (InterruptedException e) 
+		
+		return this.downloads[position].sender;
+	}
+	
+	public void stop()
+	{
+		//STOP WAITING FOR BLOCKS THAT WERE NOT RECEIVED OR CHECKED
+		for(Download download: this.downloads)
 		{
-			//INTERRUPTED
+			if(download.peer != null)
+			{
+				download.peer.cancelRequest(download.request);
+			}
+			
+			if(download.check != null)
+			{
+				download.check.cancel(false);
+			}
 		}
 	}
 	
@@ -2,8 +2,11 @@ package qora;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
 
+import org.mapdb.Fun.Tuple2;
+
 import qora.account.Account;
 import qora.assets.Asset;
 import qora.block.Block;
@@ -12,11 +15,16 @@ import qora.transaction.ArbitraryTransaction;
 import qora.transaction.Transaction;
 import utils.Pair;
 import database.DBSet;
+import database.TransactionIndexMap;
 
 public class BlockChain
 {
 	public static final int MAX_SIGNATURES = 500;
 	
+	//MOST BLOCKS AND BLOCK BYTES IN ONE BLOCKS MESSAGE, A SINGLE BLOCK ALWAYS FITS
+	public static final int MAX_BLOCKS = 50;
+	public static final int MAX_BLOCKS_BYTES = 4 * Block.MAX_BLOCK_BYTES;
+	
 	public BlockChain()
 	{	
 		//CREATE GENESIS BLOCK
@@ -49,17 +57,9 @@ public class BlockChain
 		//CHECK IF BLOCK EXISTS
 		if(DBSet.getInstance().getBlockMap().contains(parent))
 		{
-			Block parentBlock = DBSet.getInstance().getBlockMap().get(parent).getChild();
-			
-			int counter = 0;
-			while(parentBlock != null && counter < MAX_SIGNATURES)
-			{
-				headers.add(parentBlock.getSignature());
-				
-				parentBlock = parentBlock.getChild();
-				
-				counter ++;
-			}
+			//READ NEXT SIGNATURES FROM HEIGHT INDEX
+			int height = DBSet.getInstance().getHeightMap().get(parent);
+			headers = DBSet.getInstance().getHeightSignatureMap().getSignatures(height + 1, height + MAX_SIGNATURES);
 		}
 		
 		return headers;		
@@ -69,6 +69,37 @@ public class BlockChain
 
 		return DBSet.getInstance().getBlockMap().get(header);
 	}
+	
+	//BLOCK WITH SIGNATURE AND THE BLOCKS AFTER IT UNTIL AMOUNT BLOCKS OR MAX_BLOCKS_BYTES
+	public List<Block> getBlocks(byte[] signature, int amount)
+	{
+		List<Block> blocks = new ArrayList<Block>();
+		
+		//CHECK IF BLOCK EXISTS
+		if(!DBSet.getInstance().getBlockMap().contains(signature))
+		{
+			return blocks;
+		}
+		
+		int height = DBSet.getInstance().getHeightMap().get(signature);
+		int bytes = 0;
+		for(byte[] next: DBSet.getInstance().getHeightSignatureMap().getSignatures(height, height + Math.min(amount, MAX_BLOCKS) - 1))
+		{
+			Block block = DBSet.getInstance().getBlockMap().get(next);
+			
+			//LOADS THE STORED TRANSACTIONS WITHOUT PARSING THEM
+			int length = block.getDataLength();
+			if(!blocks.isEmpty() && bytes + length > MAX_BLOCKS_BYTES)
+			{
+				break;
+			}
+			
+			bytes += length;
+			blocks.add(block);
+		}
+		
+		return blocks;
+	}
 
 	public boolean isNewBlockValid(Block block) {
 		
@@ -111,64 +142,122 @@ public class BlockChain
 		List<Transaction> transactions = new ArrayList<Transaction>();
 		
 		//IF NO BLOCK START FROM GENESIS
-		if(block == null)
+		int fromHeight = 1;
+		if(block != null)
 		{
-			block = new GenesisBlock();
+			fromHeight = block.getHeight();
 		}
 		
-		//START FROM BLOCK
-		int scannedBlocks = 0;
-		do
-		{		
-			//FOR ALL TRANSACTIONS IN BLOCK
-			for(Transaction transaction: block.getTransactions())
+		//SCAN UNTIL LAST BLOCK OR BLOCK LIMIT
+		int toHeight = this.getHeight();
+		if(blockLimit != -1)
+		{
+			toHeight = Math.min(toHeight, fromHeight + blockLimit - 1);
+		}
+		
+		//PICK MOST SELECTIVE INDEX
+		String term = null;
+		if(account != null)
+		{
+			term = TransactionIndexMap.getAddressTerm(account.getAddress());
+		}
+		else if(type == Transaction.ARBITRARY_TRANSACTION && service != -1)
+		{
+			term = TransactionIndexMap.getServiceTerm(service);
+		}
+		else if(type != -1)
+		{
+			term = TransactionIndexMap.getTypeTerm(type);
+		}
+		
+		int lastHeight = toHeight;
+		if(term == null)
+		{
+			//NO INDEX FOR FILTER, SCAN ALL BLOCKS
+			for(int height=fromHeight; height<=toHeight; height++)
 			{
-				//CHECK IF ACCOUNT INVOLVED
-				if(account != null && !transaction.isInvolved(account))
+				for(Transaction transaction: this.getBlock(height).getTransactions())
 				{
-					continue;
+					if(this.isMatch(transaction, type, service, account))
+					{
+						transactions.add(transaction);
+					}
 				}
 				
-				//CHECK IF TYPE OKE
-				if(type != -1 && transaction.getType() != type)
+				//STOP AFTER BLOCK THAT REACHED TRANSACTIONLIMIT
+				if(transactionLimit != -1 && transactions.size() >= transactionLimit)
 				{
-					continue;
+					lastHeight = height;
+					break;
 				}
+			}
+		}
+		else
+		{
+			//ONLY READ INDEXED TRANSACTIONS
+			Iterator<Tuple2<Integer, Integer>> positions = DBSet.getInstance().getTransactionIndexMap().getPositions(term, fromHeight, toHeight);
+			Block current = null;
+			int currentHeight = -1;
+			while(positions.hasNext())
+			{
+				Tuple2<Integer, Integer> position = positions.next();
 				
-				//CHECK IF SERVICE OKE
-				if(service != -1 && transaction.getType() == Transaction.ARBITRARY_TRANSACTION)
+				if(position.a != currentHeight)
 				{
-					ArbitraryTransaction arbitraryTransaction = (ArbitraryTransaction) transaction;
-					
-					if(arbitraryTransaction.getService() != service)
+					//STOP AFTER BLOCK THAT REACHED TRANSACTIONLIMIT
+					if(transactionLimit != -1 && transactions.size() >= transactionLimit)
 					{
-						continue;
+						lastHeight = currentHeight;
+						break;
 					}
+					
+					current = this.getBlock(position.a);
+					currentHeight = position.a;
 				}
 				
-				//ADD TO LIST
-				transactions.add(transaction);
+				Transaction transaction = current.getTransactions().get(position.b);
+				if(this.isMatch(transaction, type, service, account))
+				{
+					transactions.add(transaction);
+				}
 			}
-			
-			//SET BLOCK TO CHILD
-			block = block.getChild();
-			scannedBlocks++;
 		}
-		//WHILE BLOCKS EXIST && NOT REACHED TRANSACTIONLIMIT && NOT REACHED BLOCK LIMIT
-		while(block != null && (transactions.size() < transactionLimit || transactionLimit == -1) && (scannedBlocks < blockLimit || blockLimit == -1)); 
 		
-		//CHECK IF WE REACHED THE END
-		if(block == null)
+		//RETURN LAST SCANNED BLOCK, SCANNING CONTINUES FROM ITS CHILD
+		return new Pair<Block, List<Transaction>>(this.getBlock(lastHeight), transactions);
+	}
+	
+	private boolean isMatch(Transaction transaction, int type, int service, Account account)
+	{
+		//CHECK IF ACCOUNT INVOLVED
+		if(account != null && !transaction.isInvolved(account))
 		{
-			block = this.getLastBlock();
+			return false;
 		}
-		else
+		
+		//CHECK IF TYPE OKE
+		if(type != -1 && transaction.getType() != type)
+		{
+			return false;
+		}
+		
+		//CHECK IF SERVICE OKE
+		if(service != -1 && transaction.getType() == Transaction.ARBITRARY_TRANSACTION)
 		{
-			block = block.getParent();
+			ArbitraryTransaction arbitraryTransaction = (ArbitraryTransaction) transaction;
+			
+			if(arbitraryTransaction.getService() != service)
+			{
+				return false;
+			}
 		}
 		
-		//RETURN PARENT BLOCK AS WE GET CHILD RIGHT BEFORE END OF WHILE
-		return new Pair<Block, List<Transaction>>(block, transactions);
+		return true;
+	}
+	
+	private Block getBlock(int height)
+	{
+		return DBSet.getInstance().getBlockMap().get(DBSet.getInstance().getHeightSignatureMap().get(height));
 	}
 	
 	public Block getLastBlock() 
@@ -4,7 +4,6 @@ import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -15,7 +14,6 @@ import qora.block.BlockFactory;
 import qora.crypto.Crypto;
 import qora.transaction.Transaction;
 import settings.Settings;
-import utils.TransactionFeeComparator;
 
 import com.google.common.primitives.Bytes;
 import com.google.common.primitives.Longs;
@@ -34,6 +32,8 @@ public class BlockGenerator extends Thread
 	private Map<PrivateKeyAccount, Block> blocks;
 	private Block solvingBlock;
 	private List<PrivateKeyAccount> cachedAccounts;
+	private volatile BlockTemplate template;
+	private volatile long templateBuildTime = -1;
 	
 	public BlockGenerator()
 	{
@@ -52,6 +52,19 @@ public class BlockGenerator extends Thread
 	{
 		//ADD TO TRANSACTION DATABASE 
 		db.getTransactionMap().add(transaction);
+		
+		//ADD TO BLOCK TEMPLATE
+		BlockTemplate template = this.template;
+		if(template != null && template.isBasedOn(db))
+		{
+			template.add(transaction);
+		}
+	}
+	
+	//MILLISECONDS IT TOOK TO BUILD THE LAST BLOCK TEMPLATE, -1 IF NONE WAS BUILT
+	public long getTemplateBuildTime()
+	{
+		return this.templateBuildTime;
 	}
 	
 	public List<Transaction> getUnconfirmedTransactions()
@@ -107,6 +120,9 @@ public class BlockGenerator extends Thread
 					
 					//RESET BLOCKS
 					this.blocks = new HashMap<PrivateKeyAccount, Block>();
+					
+					//BLOCK TEMPLATE OF THE OLD LAST BLOCK
+					this.template = null;
 				}
 				
 				//GENERATE NEW BLOCKS
@@ -131,6 +147,13 @@ public class BlockGenerator extends Thread
 					}
 				}
 				
+				//BUILD BLOCK TEMPLATE ONLY WHEN ONE OF OUR ACCOUNTS CAN GENERATE
+				if(!this.blocks.isEmpty() && this.template == null)
+				{
+					this.template = new BlockTemplate(DBSet.getInstance());
+					this.templateBuildTime = this.template.getBuildTime();
+				}
+				
 				//VALID BLOCK FOUND
 				boolean validBlockFound = false;
 						
@@ -146,8 +169,20 @@ public class BlockGenerator extends Thread
 					//CHECK IF BLACK TIMESTAMP IS VALID
 					if(block.getTimestamp() <= NTP.getTime() && !validBlockFound)
 					{
-						//ADD TRANSACTIONS
-						this.addUnconfirmedTransactions(DBSet.getInstance(), block);
+						//ADD TRANSACTIONS FROM TEMPLATE
+						List<Transaction> transactions = this.template.getTransactions(block);
+						if(transactions != null)
+						{
+							for(Transaction transaction: transactions)
+							{
+								block.addTransaction(transaction);
+							}
+						}
+						else
+						{
+							//TEMPLATE DOES NOT FIT BLOCK
+							this.addUnconfirmedTransactions(DBSet.getInstance(), block);
+						}
 						
 						//ADD TRANSACTION SIGNATURE
 						block.setTransactionsSignature(this.calculateTransactionsSignature(block, account));
@@ -277,51 +312,12 @@ public class BlockGenerator extends Thread
 	
 	public void addUnconfirmedTransactions(DBSet db, Block block)
 	{
-		long totalBytes = 0;
-		boolean transactionProcessed;
-			
-		//CREATE FORK OF GIVEN DATABASE
-		DBSet newBlockDb = db.fork();
-					
-		//ORDER TRANSACTIONS BY FEE PER BYTE
-		List<Transaction> orderedTransactions = new ArrayList<Transaction>(db.getTransactionMap().getValues());
-		Collections.sort(orderedTransactions, new TransactionFeeComparator());
-		//Collections.sort(orderedTransactions, Collections.reverseOrder());
-					
-		do
+		//SELECT TRANSACTIONS FOR BLOCK TIMESTAMP
+		BlockTemplate template = new BlockTemplate(db, block.getTimestamp());
+		for(Transaction transaction: template.getTransactions())
 		{
-			transactionProcessed = false;
-						
-			for(Transaction transaction: orderedTransactions)
-			{
-				//CHECK TRANSACTION TIMESTAMP AND DEADLINE
-				if(transaction.getTimestamp() <= block.getTimestamp() && transaction.getDeadline() > block.getTimestamp())
-				{
-					//CHECK IF VALID
-					if(transaction.isValid(newBlockDb) == Transaction.VALIDATE_OKE)
-					{
-						//CHECK IF ENOUGH ROOM
-						if(totalBytes + transaction.getDataLength() <= Block.MAX_TRANSACTION_BYTES)
-						{
-							//ADD INTO BLOCK
-							block.addTransaction(transaction);
-										
-							//REMOVE FROM LIST
-							orderedTransactions.remove(transaction);
-										
-							//PROCESS IN NEWBLOCKDB
-							transaction.process(newBlockDb);
-										
-							//TRANSACTION PROCESSES
-							transactionProcessed = true;
-							break;
-						}
-					}
-				}
-						
-			}
+			block.addTransaction(transaction);
 		}
-		while(transactionProcessed == true);
 	}
 	
 	/*public void addObserver(Observer o)
@@ -338,10 +334,21 @@ public class BlockGenerator extends Thread
 			long generatingTime = block.getTimestamp();
 				
 			//GET FIRST BLOCK OF TARGET
-			Block firstBlock = block;
-			for(int i=1; i<RETARGET; i++)
+			Block firstBlock = null;
+			byte[] firstSignature = db.getHeightSignatureMap().get(height - RETARGET + 1);
+			if(firstSignature != null)
+			{
+				firstBlock = db.getBlockMap().get(firstSignature);
+			}
+			
+			//WALK BACK IF BLOCK IS NOT IN HEIGHT INDEX
+			if(firstBlock == null)
 			{
-				firstBlock = firstBlock.getParent(db);
+				firstBlock = block;
+				for(int i=1; i<RETARGET; i++)
+				{
+					firstBlock = firstBlock.getParent(db);
+				}
 			}
 					
 			generatingTime -= firstBlock.getTimestamp();
@@ -0,0 +1,192 @@
+package qora;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import qora.block.Block;
+import settings.Settings;
+import utils.Pair;
+import network.Peer;
+
+public class BlockPipeline
+{
+	public static final int FETCH_STAGE = 0;
+	public static final int CHECK_STAGE = 1;
+	public static final int APPLY_STAGE = 2;
+	
+	//CHECKED BLOCKS WAITING TO BE APPLIED
+	private static final int QUEUE_SIZE = 32;
+	
+	private int size;
+	private int taken;
+	private BlockBuffer blockBuffer;
+	private ExecutorService checker;
+	private Thread fetcher;
+	
+	//BLOCKS IN ORDER, OR THE ERROR THAT STOPPED FETCHING
+	private BlockingQueue<Pair<Block, Exception>> queue;
+	
+	private AtomicLong fetched;
+	private AtomicLong fetchTime;
+	private AtomicLong applied;
+	private AtomicLong applyTime;
+	
+	public BlockPipeline(List<byte[]> signatures, List<Peer> peers)
+	{
+		this(signatures, peers, Settings.getInstance().getConnectionTimeout(), Settings.getInstance().getVerificationThreads());
+	}
+	
+	//FETCHES THE BLOCKS OF SIGNATURES AND CHECKS THEM IN PARALLEL WHILE THE BLOCKS BEFORE THEM ARE APPLIED
+	public BlockPipeline(final List<byte[]> signatures, List<Peer> peers, int timeout, int checkingThreads)
+	{
+		this.size = signatures.size();
+		this.taken = 0;
+		this.checker = Executors.newFixedThreadPool(checkingThreads);
+		this.blockBuffer = new BlockBuffer(signatures, peers, timeout, this.checker);
+		this.queue = new ArrayBlockingQueue<Pair<Block, Exception>>(QUEUE_SIZE);
+		this.fetched = new AtomicLong();
+		this.fetchTime = new AtomicLong();
+		this.applied = new AtomicLong();
+		this.applyTime = new AtomicLong();
+		
+		this.fetcher = new Thread("Block fetcher") {
+			@Override
+			public void run() {
+				try
+				{
+					for(byte[] signature: signatures)
+					{
+						//GET BLOCK WHEN IT IS RECEIVED AND CHECKED
+						long start = System.nanoTime();
+						Block block = blockBuffer.getBlock(signature);
+						fetchTime.addAndGet(System.nanoTime() - start);
+						fetched.incrementAndGet();
+						
+						//WAIT WHEN THE APPLY STAGE IS BEHIND
+						queue.put(new Pair<Block, Exception>(block, null));
+					}
+				}
+				catch(InterruptedException e)
+				{
+					//STOPPED
+				}
+				catch(Exception e)
+				{
+					//PASS ERROR TO THE APPLY STAGE
+					try
+					{
+						queue.put(new Pair<Block, Exception>(null, e));
+					}
+					catch(InterruptedException stopped)
+					{
+						//STOPPED
+					}
+				}
+			}
+		};
+		this.fetcher.setDaemon(true);
+		this.fetcher.start();
+	}
+	
+	//NEXT BLOCK IN ORDER, NULL WHEN ALL BLOCKS ARE TAKEN
+	public Block take() throws Exception
+	{
+		if(this.taken == this.size)
+		{
+			return null;
+		}
+		
+		Pair<Block, Exception> next = this.queue.take();
+		if(next.getB() != null)
+		{
+			throw next.getB();
+		}
+		
+		this.taken++;
+		return next.getA();
+	}
+	
+	//PEER THAT SENT A BLOCK RETURNED BY TAKE
+	public Peer getSender(Block block)
+	{
+		return this.blockBuffer.getSender(block.getSignature());
+	}
+	
+	//CALLED BY THE APPLY STAGE FOR EVERY BLOCK IT APPLIED
+	public void onApplied(long nanos)
+	{
+		this.applyTime.addAndGet(nanos);
+		this.applied.incrementAndGet();
+	}
+	
+	public long getCount(int stage)
+	{
+		switch(stage)
+		{
+		case FETCH_STAGE:
+			
+			return this.fetched.get();
+			
+		case CHECK_STAGE:
+			
+			return this.blockBuffer.getCheckedCount();
+			
+		case APPLY_STAGE:
+			
+			return this.applied.get();
+		}
+		
+		return 0;
+	}
+	
+	//BLOCKS PER SECOND OF TIME SPENT IN STAGE, THE CHECK STAGE IS MEASURED PER CHECKING THREAD
+	public double getThroughput(int stage)
+	{
+		long nanos = 0;
+		switch(stage)
+		{
+		case FETCH_STAGE:
+			
+			nanos = this.fetchTime.get();
+			break;
+			
+		case CHECK_STAGE:
+			
+			nanos = this.blockBuffer.getCheckTime();
+			break;
+			
+		case APPLY_STAGE:
+			
+			nanos = this.applyTime.get();
+			break;
+		}
+		
+		if(nanos == 0)
+		{
+			return 0;
+		}
+		
+		return this.getCount(stage) * 1000000000.0 / nanos;
+	}
+	
+	public void stop()
+	{
+		//STOP FETCHING BEFORE THE BLOCK BUFFER IS STOPPED
+		this.fetcher.interrupt();
+		try
+		{
+			this.fetcher.join();
+		}
+		catch(InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+		
+		this.blockBuffer.stop();
+		this.checker.shutdownNow();
+	}
+}
@@ -0,0 +1,191 @@
+package qora;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import ntp.NTP;
+import qora.block.Block;
+import qora.transaction.Transaction;
+import database.DBSet;
+
+public class BlockTemplate
+{
+	//TIMES THE SKIPPED TRANSACTIONS ARE RETRIED AFTER OTHERS WERE ADDED
+	private static final int RETRY_PASSES = 3;
+	
+	private DBSet db;
+	private DBSet fork;
+	private byte[] parentSignature;
+	private long timestamp;
+	private boolean live;
+	
+	private List<Transaction> transactions;
+	private Map<ByteBuffer, Transaction> skipped;
+	private long totalBytes;
+	
+	private long buildTime;
+	
+	//TEMPLATE THAT IS KEPT UP TO DATE, TRANSACTIONS ARE CHECKED AGAINST THE TIME THEY ARE ADDED
+	public BlockTemplate(DBSet db)
+	{
+		this(db, 0, true);
+	}
+	
+	//SELECTS THE UNCONFIRMED TRANSACTIONS OF DB THAT ARE VALID ON TOP OF ITS LAST BLOCK AT TIMESTAMP
+	public BlockTemplate(DBSet db, long timestamp)
+	{
+		this(db, timestamp, false);
+	}
+	
+	private BlockTemplate(DBSet db, long timestamp, boolean live)
+	{
+		long start = System.currentTimeMillis();
+		
+		this.db = db;
+		this.live = live;
+		this.fork = db.fork();
+		this.parentSignature = db.getBlockMap().getLastBlockSignature();
+		this.timestamp = timestamp;
+		this.transactions = new ArrayList<Transaction>();
+		this.skipped = new LinkedHashMap<ByteBuffer, Transaction>();
+		this.totalBytes = 0;
+		
+		//SINGLE PASS FROM HIGHEST TO LOWEST FEE PER BYTE
+		Iterator<Transaction> orderedTransactions = db.getTransactionMap().getTransactionsByFee();
+		while(orderedTransactions.hasNext())
+		{
+			this.include(orderedTransactions.next());
+		}
+		
+		this.retrySkipped();
+		
+		this.buildTime = System.currentTimeMillis() - start;
+	}
+	
+	public boolean isBasedOn(DBSet db)
+	{
+		return this.db == db;
+	}
+	
+	public long getBuildTime()
+	{
+		return this.buildTime;
+	}
+	
+	private static boolean isInTime(Transaction transaction, long timestamp)
+	{
+		//CHECK TRANSACTION TIMESTAMP AND DEADLINE
+		return transaction.getTimestamp() <= timestamp && transaction.getDeadline() > timestamp;
+	}
+	
+	//ADDS TRANSACTION IF IT IS VALID AFTER THE TRANSACTIONS ALREADY IN THE TEMPLATE
+	public synchronized void add(Transaction transaction)
+	{
+		if(this.include(transaction))
+		{
+			this.retrySkipped();
+		}
+	}
+	
+	//RETURNS TRUE IF TRANSACTION OR ONE OF THE SKIPPED TRANSACTIONS OF THE SAME SENDER WAS ADDED
+	private boolean include(Transaction transaction)
+	{
+		long timestamp = this.timestamp;
+		if(this.live)
+		{
+			timestamp = NTP.getTime();
+		}
+		
+		if(!isInTime(transaction, timestamp))
+		{
+			return false;
+		}
+		
+		//ADD AND FOLLOW THE REFERENCE CHAIN OF THE SENDER
+		boolean included = false;
+		List<Transaction> chain = new ArrayList<Transaction>();
+		chain.add(transaction);
+		while(!chain.isEmpty())
+		{
+			Transaction next = chain.remove(chain.size() - 1);
+			
+			//CHECK IF VALID AND ENOUGH ROOM
+			if(next.isValid(this.fork) != Transaction.VALIDATE_OKE || this.totalBytes + next.getDataLength() > Block.MAX_TRANSACTION_BYTES)
+			{
+				this.skipped.put(ByteBuffer.wrap(next.getSignature()), next);
+				continue;
+			}
+			
+			//ADD TO TEMPLATE
+			included = true;
+			this.transactions.add(next);
+			this.totalBytes += next.getDataLength();
+			
+			//PROCESS IN FORK
+			next.process(this.fork);
+			
+			//RETRY TRANSACTIONS OF THE SAME SENDER THAT WERE SKIPPED BECAUSE THEY WAITED FOR THIS ONE
+			for(Transaction child: this.db.getTransactionMap().getByReference(next.getSignature()))
+			{
+				if(this.skipped.remove(ByteBuffer.wrap(child.getSignature())) != null)
+				{
+					chain.add(child);
+				}
+			}
+		}
+		
+		return included;
+	}
+	
+	//SKIPPED TRANSACTIONS CAN DEPEND ON ADDED TRANSACTIONS OF OTHER SENDERS, LIKE SPENDING FUNDS JUST RECEIVED
+	private void retrySkipped()
+	{
+		for(int pass=0; pass<RETRY_PASSES; pass++)
+		{
+			boolean included = false;
+			for(Transaction transaction: new ArrayList<Transaction>(this.skipped.values()))
+			{
+				//ONLY RETRY IF NOT ALREADY ADDED AS PART OF A REFERENCE CHAIN IN THIS PASS
+				if(this.skipped.remove(ByteBuffer.wrap(transaction.getSignature())) != null && this.include(transaction))
+				{
+					included = true;
+				}
+			}
+			
+			//STOP WHEN A PASS ADDED NOTHING
+			if(!included)
+			{
+				return;
+			}
+		}
+	}
+	
+	//RETURNS THE TRANSACTIONS FOR BLOCK, NULL IF THE TEMPLATE DOES NOT FIT THE BLOCK
+	public synchronized List<Transaction> getTransactions(Block block)
+	{
+		if(!Arrays.equals(this.parentSignature, block.getReference()))
+		{
+			return null;
+		}
+		
+		for(Transaction transaction: this.transactions)
+		{
+			if(!isInTime(transaction, block.getTimestamp()))
+			{
+				return null;
+			}
+		}
+		
+		return this.getTransactions();
+	}
+	
+	public synchronized List<Transaction> getTransactions()
+	{
+		return new ArrayList<Transaction>(this.transactions);
+	}
+}
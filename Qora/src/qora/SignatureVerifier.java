@@ -0,0 +1,116 @@
+package qora;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import qora.transaction.Transaction;
+import settings.Settings;
+
+public class SignatureVerifier {
+	
+	//TRANSACTIONS VERIFIED BY ONE TASK BEFORE SPLITTING
+	private static final int TASK_SIZE = 8;
+	
+	private static SignatureVerifier instance;
+	
+	private ForkJoinPool pool;
+	
+	public static synchronized SignatureVerifier getInstance()
+	{
+		if(instance == null)
+		{
+			instance = new SignatureVerifier(Settings.getInstance().getVerificationThreads());
+		}
+		
+		return instance;
+	}
+	
+	public SignatureVerifier(int threads)
+	{
+		this.pool = new ForkJoinPool(threads);
+	}
+	
+	public int getThreads()
+	{
+		return this.pool.getParallelism();
+	}
+	
+	public boolean verify(List<Transaction> transactions)
+	{
+		//NOT WORTH SPLITTING
+		if(transactions.size() <= TASK_SIZE)
+		{
+			for(Transaction transaction: transactions)
+			{
+				if(!transaction.isSignatureValid())
+				{
+					return false;
+				}
+			}
+			
+			return true;
+		}
+		
+		//VERIFY IN POOL, STOPPING ALL TASKS AT THE FIRST INVALID SIGNATURE
+		return this.pool.invoke(new VerifyTask(transactions, 0, transactions.size(), new AtomicBoolean(false)));
+	}
+	
+	public void shutdown()
+	{
+		this.pool.shutdown();
+	}
+	
+	@SuppressWarnings("serial")
+	private static class VerifyTask extends RecursiveTask<Boolean>
+	{
+		private List<Transaction> transactions;
+		private int start;
+		private int end;
+		private AtomicBoolean invalid;
+		
+		public VerifyTask(List<Transaction> transactions, int start, int end, AtomicBoolean invalid)
+		{
+			this.transactions = transactions;
+			this.start = start;
+			this.end = end;
+			this.invalid = invalid;
+		}
+		
+		@Override
+		protected Boolean compute()
+		{
+			//SPLIT IN HALF
+			if(this.end - this.start > TASK_SIZE)
+			{
+				int middle = (this.start + this.end) >>> 1;
+				VerifyTask left = new VerifyTask(this.transactions, this.start, middle, this.invalid);
+				VerifyTask right = new VerifyTask(this.transactions, middle, this.end, this.invalid);
+				
+				left.fork();
+				boolean rightValid = right.compute();
+				boolean leftValid = left.join();
+				
+				return leftValid && rightValid;
+			}
+			
+			for(int i=this.start; i<this.end; i++)
+			{
+				//OTHER TASK ALREADY FOUND AN INVALID SIGNATURE
+				if(this.invalid.get())
+				{
+					return false;
+				}
+				
+				if(!this.transactions.get(i).isSignatureValid())
+				{
+					this.invalid.set(true);
+					return false;
+				}
+			}
+			
+			return true;
+		}
+	}
+}
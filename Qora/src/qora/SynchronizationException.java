@@ -0,0 +1,30 @@
+package qora;
+
+import network.Peer;
+
+public class SynchronizationException extends Exception
+{
+	private static final long serialVersionUID = -4386537164938245720L;
+	
+	private Peer peer;
+	private boolean dishonest;
+	
+	//PEER IS THE PEER AT FAULT, DISHONEST IF IT SENT A BLOCK THAT IS PROVEN INVALID
+	public SynchronizationException(String message, Peer peer, boolean dishonest)
+	{
+		super(message);
+		
+		this.peer = peer;
+		this.dishonest = dishonest;
+	}
+	
+	public Peer getPeer()
+	{
+		return this.peer;
+	}
+	
+	public boolean isDishonest()
+	{
+		return this.dishonest;
+	}
+}
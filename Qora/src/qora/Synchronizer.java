@@ -2,11 +2,14 @@ package qora;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.logging.Logger;
 
 import network.Peer;
-import network.message.BlockMessage;
 import network.message.Message;
 import network.message.MessageFactory;
 import network.message.SignaturesMessage;
@@ -19,12 +22,34 @@ public class Synchronizer
 {
 	private boolean run = true;
 	
+	//READERS HOLDING THE READ LOCK SEE NO BLOCKS BEING PROCESSED OR ORPHANED
+	private ReentrantReadWriteLock chainLock = new ReentrantReadWriteLock();
+	
+	//BLOCKS PER SECOND OF THE STAGES OF THE LAST PIPELINE
+	private double[] throughput = new double[BlockPipeline.APPLY_STAGE + 1];
+	
 	public Synchronizer()
 	{
 		this.run = true;
 	}
 	
+	public Lock getReadLock()
+	{
+		return this.chainLock.readLock();
+	}
+	
+	public double getThroughput(int stage)
+	{
+		return this.throughput[stage];
+	}
+	
 	public List<Transaction> synchronize(DBSet db, Block lastCommonBlock, List<Block> newBlocks) throws Exception
+	{
+		return this.synchronize(db, lastCommonBlock, newBlocks, new IdentityHashMap<Block, Peer>());
+	}
+	
+	//SENDERS HOLDS THE PEER THAT SENT EVERY NEW BLOCK
+	private List<Transaction> synchronize(DBSet db, Block lastCommonBlock, List<Block> newBlocks, Map<Block, Peer> senders) throws Exception
 	{
 		List<Transaction> orphanedTransactions = new ArrayList<Transaction>();
 		
@@ -57,7 +82,7 @@ public class Synchronizer
 			else
 			{
 				//INVALID BLOCK THROW EXCEPTION
-				throw new Exception("Dishonest peer");
+				throw new SynchronizationException("Dishonest peer", senders.get(block), true);
 			}
 		}
 		
@@ -73,7 +98,19 @@ public class Synchronizer
 				//ADD ORPHANED TRANSACTIONS
 				orphanedTransactions.addAll(lastBlock.getTransactions());
 				
-				lastBlock.orphan(db);
+				//ORPHAN AS ONE BATCH
+				this.chainLock.writeLock().lock();
+				try
+				{
+					DBSet batch = db.createBatch();
+					lastBlock.orphan(batch);
+					db.commitBatch(batch);
+				}
+				finally
+				{
+					this.chainLock.writeLock().unlock();
+				}
+				
 				lastBlock = db.getBlockMap().getLastBlock();
 			}
 		}
@@ -88,9 +125,15 @@ public class Synchronizer
 		return orphanedTransactions;
 	}
 	
-	public void synchronize(Peer peer) throws Exception
+	//SYNCHRONIZES WITH THE CHAIN OF PEER, THE BLOCKS ARE DOWNLOADED FROM PEER AND PEERS
+	public void synchronize(Peer peer, List<Peer> peers) throws Exception
 	{
-		Logger.getGlobal().info("Synchronizing: " + peer.getAddress().getHostAddress() + " - " + peer.getPing());
+		Logger.getGlobal().info("Synchronizing: " + peer.getAddress().getHostAddress() + " - " + peer.getPing() + " - " + peers.size() + " peers");
+		
+		//DOWNLOAD FROM PEER FIRST
+		List<Peer> downloadPeers = new ArrayList<Peer>();
+		downloadPeers.add(peer);
+		downloadPeers.addAll(peers);
 		
 		//FIND LAST COMMON BLOCK
 		Block common =  this.findLastCommonBlock(peer);
@@ -102,25 +145,39 @@ public class Synchronizer
 			//GET NEXT 500 SIGNATURES
 			signatures = this.getBlockSignatures(common, BlockChain.MAX_SIGNATURES, peer);
 			
-			//CREATE BLOCK BUFFER
-			BlockBuffer blockBuffer = new BlockBuffer(signatures, peer);
+			//FETCH AND CHECK AHEAD OF THE BLOCK THAT IS PROCESSED
+			BlockPipeline pipeline = new BlockPipeline(signatures, downloadPeers);
 			
-			//GET AND PROCESS BLOCK BY BLOCK
-			for(byte[] signature: signatures)
+			try
 			{
-				//GET BLOCK
-				Block block = blockBuffer.getBlock(signature);
+				//PROCESS BLOCK BY BLOCK IN ORDER
+				Block block;
+				while((block = pipeline.take()) != null)
+				{
+					long start = System.nanoTime();
+					
+					//PROCESS BLOCK
+					if(!this.process(block))
+					{
+						//INVALID BLOCK THROW EXCEPTION
+						throw new SynchronizationException("Dishonest peer", pipeline.getSender(block), true);
+					}
+					
+					pipeline.onApplied(System.nanoTime() - start);
+				}
+			}
+			finally
+			{
+				//STOP PIPELINE
+				pipeline.stop();
 				
-				//PROCESS BLOCK
-				if(!this.process(block))
+				for(int stage=BlockPipeline.FETCH_STAGE; stage<=BlockPipeline.APPLY_STAGE; stage++)
 				{
-					//INVALID BLOCK THROW EXCEPTION
-					throw new Exception("Dishonest peer");
+					this.throughput[stage] = pipeline.getThroughput(stage);
 				}
+				
+				Logger.getGlobal().info("Synchronized " + pipeline.getCount(BlockPipeline.APPLY_STAGE) + " blocks - fetch " + (int) this.throughput[BlockPipeline.FETCH_STAGE] + " check " + (int) this.throughput[BlockPipeline.CHECK_STAGE] + " apply " + (int) this.throughput[BlockPipeline.APPLY_STAGE] + " blocks/s");
 			}
-			
-			//STOP BLOCKBUFFER
-			blockBuffer.stopThread();
 		}
 		else
 		{
@@ -128,10 +185,11 @@ public class Synchronizer
 			signatures = this.getBlockSignatures(common, DBSet.getInstance().getBlockMap().getLastBlock().getHeight() - common.getHeight(), peer);	
 			
 			//GET THE BLOCKS FROM SIGNATURES
-			List<Block> blocks = this.getBlocks(signatures, peer);
+			Map<Block, Peer> senders = new IdentityHashMap<Block, Peer>();
+			List<Block> blocks = this.getBlocks(signatures, downloadPeers, senders);
 							
 			//SYNCHRONIZE BLOCKS
-			List<Transaction> orphanedTransactions = this.synchronize(DBSet.getInstance(), common, blocks);
+			List<Transaction> orphanedTransactions = this.synchronize(DBSet.getInstance(), common, blocks, senders);
 			
 			//SEND ORPHANED TRANSACTIONS TO PEER
 			for(Transaction transaction: orphanedTransactions)
@@ -180,10 +238,8 @@ public class Synchronizer
 		while(headers.size() == 0 && block.getHeight() > 1)
 		{
 			//GO 500 BLOCKS BACK
-			for(int i=0; i<BlockChain.MAX_SIGNATURES && block.getHeight() > 1; i++)
-			{
-				block = block.getParent();
-			}
+			int height = Math.max(1, block.getHeight() - BlockChain.MAX_SIGNATURES);
+			block = DBSet.getInstance().getBlockMap().get(DBSet.getInstance().getHeightSignatureMap().get(height));
 			
 			headers = this.getBlockSignatures(block.getSignature(), peer);
 		}
@@ -191,7 +247,7 @@ public class Synchronizer
 		//CHECK IF NO HEADERS FOUND EVEN AFTER CHECKING WITH THE GENESISBLOCK
 		if(headers.size() == 0)
 		{
-			throw new Exception("Dishonest peer");
+			throw new SynchronizationException("No common block", peer, false);
 		}
 		
 		//FIND LAST COMMON BLOCK IN HEADERS
@@ -207,42 +263,27 @@ public class Synchronizer
 		return block;
 	}
 
-	private List<Block> getBlocks(List<byte[]> signatures, Peer peer) throws Exception {
+	private List<Block> getBlocks(List<byte[]> signatures, List<Peer> peers, Map<Block, Peer> senders) throws Exception {
 		
 		List<Block> blocks = new ArrayList<Block>();
 		
-		for(byte[] signature: signatures)
+		BlockBuffer blockBuffer = new BlockBuffer(signatures, peers);
+		try
 		{
-			//ADD TO LIST
-			blocks.add(this.getBlock(signature, peer));	
-		}
-		
-		return blocks;
-	}
-	
-	private Block getBlock(byte[] signature, Peer peer) throws Exception
-	{
-		//CREATE MESSAGE
-		Message message = MessageFactory.getInstance().createGetBlockMessage(signature);
-		
-		//SEND MESSAGE TO PEER
-		BlockMessage response = (BlockMessage) peer.getResponse(message);
-		
-		//CHECK IF WE GOT RESPONSE
-		if(response == null)
-		{
-			//ERROR
-			throw new Exception("Peer timed out");
+			for(byte[] signature: signatures)
+			{
+				//ADD TO LIST
+				Block block = blockBuffer.getBlock(signature);
+				blocks.add(block);
+				senders.put(block, blockBuffer.getSender(signature));
+			}
 		}
-		
-		//CHECK BLOCK SIGNATURE
-		if(!response.getBlock().isSignatureValid())
+		finally
 		{
-			throw new Exception("Invalid block");
+			blockBuffer.stop();
 		}
 		
-		//ADD TO LIST
-		return response.getBlock();
+		return blocks;
 	}
 	
 	
@@ -256,9 +297,15 @@ public class Synchronizer
 			if(block.isValid())
 			{
 				//PROCESS
-				DBSet.getInstance().getBlockMap().setProcessing(true);
-				block.process();		
-				DBSet.getInstance().getBlockMap().setProcessing(false);
+				this.chainLock.writeLock().lock();
+				try
+				{
+					block.process();
+				}
+				finally
+				{
+					this.chainLock.writeLock().unlock();
+				}
 				
 				return true;
 			}
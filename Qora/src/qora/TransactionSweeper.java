@@ -0,0 +1,47 @@
+package qora;
+
+import java.util.logging.Logger;
+
+import ntp.NTP;
+import settings.Settings;
+import database.DBSet;
+
+public class TransactionSweeper extends Thread
+{
+	private volatile boolean isStopped = false;
+	
+	public TransactionSweeper()
+	{
+		this.setName("TransactionSweeper");
+		this.setDaemon(true);
+	}
+	
+	public void run()
+	{
+		while(!this.isStopped)
+		{
+			//DELETE UNCONFIRMED TRANSACTIONS THAT PASSED THEIR DEADLINE
+			int expired = DBSet.getInstance().getTransactionMap().deleteExpired(NTP.getTime());
+			if(expired > 0)
+			{
+				Logger.getGlobal().info("Expired " + expired + " unconfirmed transactions");
+			}
+			
+			//SLEEP
+			try 
+			{
+				Thread.sleep(Settings.getInstance().getExpiryInterval() * 1000);
+			} 
+			catch (InterruptedException e) 
+			{
+				
+			}
+		}
+	}
+	
+	public void halt()
+	{
+		this.isStopped = true;
+		this.interrupt();
+	}
+}
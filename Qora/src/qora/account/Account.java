@@ -1,12 +1,12 @@
 package qora.account;
 
 import java.math.BigDecimal;
-import java.util.Arrays;
 
 import controller.Controller;
 import qora.BlockGenerator;
 import qora.block.Block;
 import qora.transaction.Transaction;
+import database.BalanceMap;
 import database.DBSet;
 
 public class Account {
@@ -15,12 +15,9 @@ public class Account {
 
 	protected String address;
 	
-	private byte[] lastBlockSignature;
-	private BigDecimal generatingBalance;
-	
 	protected Account()
 	{
-		this.generatingBalance = BigDecimal.ZERO.setScale(8);
+		
 	}
 	
 	public Account(String address)
@@ -106,6 +103,17 @@ public class Account {
 			return this.getConfirmedBalance(db);
 		}
 		
+		//READ FROM BALANCE HISTORY IF IT GOES BACK FAR ENOUGH
+		byte[] lastBlockSignature = db.getBlockMap().getLastBlockSignature();
+		if(lastBlockSignature != null)
+		{
+			int height = db.getHeightMap().get(lastBlockSignature) - confirmations + 1;
+			if(height + 1 >= db.getBalanceHistoryMap().getStartHeight())
+			{
+				return this.getBalance(BalanceMap.QORA_KEY, confirmations, db);
+			}
+		}
+		
 		//GO TO PARENT BLOCK 10
 		BigDecimal balance = this.getConfirmedBalance(db);
 		Block block = db.getBlockMap().getLastBlock();
@@ -127,55 +135,30 @@ public class Account {
 		return balance;
 	}
 	
-	private void updateGeneratingBalance(DBSet db)
+	public BigDecimal getBalance(long key, int confirmations)
 	{
-		//CHECK IF WE NEED TO RECALCULATE
-		if(this.lastBlockSignature == null)
-		{
-			this.lastBlockSignature = db.getBlockMap().getLastBlockSignature();
-			calculateGeneratingBalance(db);
-		}
-		else
-		{
-			//CHECK IF WE NEED TO RECALCULATE
-			if(!Arrays.equals(this.lastBlockSignature, db.getBlockMap().getLastBlockSignature()))
-			{
-				this.lastBlockSignature = db.getBlockMap().getLastBlockSignature();
-				calculateGeneratingBalance(db);
-			}
-		}
+		return this.getBalance(key, confirmations, DBSet.getInstance());
 	}
 	
-	public void calculateGeneratingBalance(DBSet db)
+	public BigDecimal getBalance(long key, int confirmations, DBSet db)
 	{
-		//CONFIRMED BALANCE + ALL NEGATIVE AMOUNTS IN LAST 9 BLOCKS
-		BigDecimal balance = this.getConfirmedBalance(db);
-		
-		Block block = db.getBlockMap().getLastBlock();
-		
-		for(int i=1; i<BlockGenerator.RETARGET && block != null && block.getHeight(db) > 1; i++)
+		byte[] lastBlockSignature = db.getBlockMap().getLastBlockSignature();
+		if(confirmations <= 1 || lastBlockSignature == null)
 		{
-			for(Transaction transaction: block.getTransactions())
-			{
-				if(transaction.isInvolved(this))
-				{
-					if(transaction.getAmount(this).compareTo(BigDecimal.ZERO) == 1)
-					{
-						balance = balance.subtract(transaction.getAmount(this));
-					}
-				}
-			}
-				
-			block = block.getParent(db);
+			return this.getConfirmedBalance(key, db);
 		}
 		
-		//DO NOT GO BELOW 0
-		if(balance.compareTo(BigDecimal.ZERO) == -1)
+		//BALANCE AFTER THE BLOCK CONFIRMATIONS - 1 BLOCKS BELOW THE LAST BLOCK
+		int height = db.getHeightMap().get(lastBlockSignature) - confirmations + 1;
+		BigDecimal balance = db.getBalanceHistoryMap().get(this.getAddress(), key, height);
+		
+		//NOT CHANGED SINCE
+		if(balance == null)
 		{
-			balance = BigDecimal.ZERO.setScale(8);
+			return this.getConfirmedBalance(key, db);
 		}
 		
-		this.generatingBalance = balance;
+		return balance;
 	}
 	
 	public BigDecimal getGeneratingBalance()
@@ -185,11 +168,24 @@ public class Account {
 	
 	public BigDecimal getGeneratingBalance(DBSet db)
 	{	
-		//UPDATE
-		updateGeneratingBalance(db);
+		//CONFIRMED BALANCE - ALL INCOMING AMOUNTS IN LAST 9 BLOCKS
+		BigDecimal balance = this.getConfirmedBalance(db);
 		
-		//RETURN
-		return this.generatingBalance;
+		byte[] lastBlockSignature = db.getBlockMap().getLastBlockSignature();
+		if(lastBlockSignature != null)
+		{
+			int height = db.getHeightMap().get(lastBlockSignature);
+			int fromHeight = Math.max(2, height - BlockGenerator.RETARGET + 2);
+			balance = balance.subtract(db.getRecentIncomingMap().getIncoming(this.getAddress(), fromHeight, height));
+		}
+		
+		//DO NOT GO BELOW 0
+		if(balance.compareTo(BigDecimal.ZERO) == -1)
+		{
+			balance = BigDecimal.ZERO.setScale(8);
+		}
+		
+		return balance;
 	}
 	
 	//REFERENCE
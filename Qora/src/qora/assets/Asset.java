@@ -1,15 +1,12 @@
 package qora.assets;
 
 import java.nio.charset.StandardCharsets;
-import java.util.Arrays;
-
-import com.google.common.primitives.Bytes;
-import com.google.common.primitives.Ints;
-import com.google.common.primitives.Longs;
+import java.nio.ByteBuffer;
 
 import database.DBSet;
 import qora.account.Account;
-import qora.crypto.Base58;
+
+import utils.Codec;
 
 public class Asset {
 
@@ -76,53 +73,42 @@ public class Asset {
 	
 	public static Asset parse(byte[] data) throws Exception
 	{	
-		int position = 0;
-		
+		return parse(ByteBuffer.wrap(data));
+	}
+	
+	public static Asset parse(ByteBuffer buffer) throws Exception
+	{	
 		//READ OWNER
-		byte[] ownerBytes = Arrays.copyOfRange(data, position, position + OWNER_LENGTH);
-		Account owner = new Account(Base58.encode(ownerBytes));
-		position += OWNER_LENGTH;
+		Account owner = new Account(Codec.getAddress(buffer));
 		
 		//READ NAME
-		byte[] nameLengthBytes = Arrays.copyOfRange(data, position, position + NAME_SIZE_LENGTH);
-		int nameLength = Ints.fromByteArray(nameLengthBytes);
-		position += NAME_SIZE_LENGTH;
+		int nameLength = buffer.getInt();
 		
 		if(nameLength < 1 || nameLength > 400)
 		{
 			throw new Exception("Invalid name length");
 		}
 		
-		byte[] nameBytes = Arrays.copyOfRange(data, position, position + nameLength);
-		String name = new String(nameBytes, StandardCharsets.UTF_8);
-		position += nameLength;
+		String name = Codec.getString(buffer, nameLength);
 		
 		//READ DESCRIPTION
-		byte[] descriptionLengthBytes = Arrays.copyOfRange(data, position, position + DESCRIPTION_SIZE_LENGTH);
-		int descriptionLength = Ints.fromByteArray(descriptionLengthBytes);
-		position += DESCRIPTION_SIZE_LENGTH;
+		int descriptionLength = buffer.getInt();
 		
 		if(descriptionLength < 1 || descriptionLength > 4000)
 		{
 			throw new Exception("Invalid description length");
 		}
 		
-		byte[] descriptionBytes = Arrays.copyOfRange(data, position, position + descriptionLength);
-		String description = new String(descriptionBytes, StandardCharsets.UTF_8);
-		position += descriptionLength;
+		String description = Codec.getString(buffer, descriptionLength);
 		
 		//READ QUANTITY
-		byte[] quantityBytes = Arrays.copyOfRange(data, position, position + QUANTITY_LENGTH);
-		long quantity = Longs.fromByteArray(quantityBytes);	
-		position += QUANTITY_LENGTH;
+		long quantity = buffer.getLong();
 		
 		//READ DIVISABLE
-		byte[] divisibleBytes = Arrays.copyOfRange(data, position, position + DIVISIBLE_LENGTH);
-		boolean divisable = divisibleBytes[0] == 1;
-		position += DIVISIBLE_LENGTH;
+		boolean divisable = buffer.get() == 1;
 		
 		//READ REFERENCE
-		byte[] reference = Arrays.copyOfRange(data, position, position + REFERENCE_LENGTH);
+		byte[] reference = Codec.getBytes(buffer, REFERENCE_LENGTH);
 		
 		//RETURN
 		return new Asset(owner, name, description, quantity, divisable, reference);
@@ -144,57 +130,38 @@ public class Asset {
 	
 	public byte[] toBytes(boolean includeReference)
 	{
-		byte[] data = new byte[0];
-		
+		ByteBuffer buffer = ByteBuffer.allocate(this.getDataLength());
+		this.toBytes(buffer, includeReference);
+		return Codec.toArray(buffer);
+	}
+	
+	public void toBytes(ByteBuffer buffer, boolean includeReference)
+	{
 		//WRITE OWNER
-		try
-		{
-			data = Bytes.concat(data , Base58.decode(this.owner.getAddress()));
-		}
-		catch(Exception e)
-		{
-			//DECODE EXCEPTION
-		}
+		Codec.putAddress(buffer, this.owner.getAddress());
 		
-		//WRITE NAME SIZE
-		byte[] nameBytes = this.name.getBytes(StandardCharsets.UTF_8);
-		int nameLength = nameBytes.length;
-		byte[] nameLengthBytes = Ints.toByteArray(nameLength);
-		data = Bytes.concat(data, nameLengthBytes);
+		//WRITE NAME SIZE + NAME
+		Codec.putString(buffer, this.name);
 		
-		//WRITE NAME
-		data = Bytes.concat(data, nameBytes);
-		
-		//WRITE DESCRIPTION SIZE
-		byte[] descriptionBytes = this.description.getBytes(StandardCharsets.UTF_8);
-		int descriptionLength = descriptionBytes.length;
-		byte[] descriptionLengthBytes = Ints.toByteArray(descriptionLength);
-		data = Bytes.concat(data, descriptionLengthBytes);
-				
-		//WRITE DESCRIPTION
-		data = Bytes.concat(data, descriptionBytes);
+		//WRITE DESCRIPTION SIZE + DESCRIPTION
+		Codec.putString(buffer, this.description);
 		
 		//WRITE QUANTITY
-		byte[] quantityBytes = Longs.toByteArray(this.quantity);
-		data = Bytes.concat(data, quantityBytes);
+		buffer.putLong(this.quantity);
 		
 		//WRITE DIVISIBLE
-		byte[] divisibleBytes = new byte[1];
-		divisibleBytes[0] = (byte) (this.divisible == true ? 1 : 0);
-		data = Bytes.concat(data, divisibleBytes);
+		buffer.put((byte) (this.divisible == true ? 1 : 0));
 		
 		if(includeReference)
 		{
 			//WRITE REFERENCE
-			data = Bytes.concat(data, this.reference);
+			buffer.put(this.reference);
 		}
 		else
 		{
 			//WRITE EMPTY REFERENCE
-			data = Bytes.concat(data, new byte[64]);
+			buffer.put(new byte[REFERENCE_LENGTH]);
 		}
-		
-		return data;
 	}
 
 	public int getDataLength() 
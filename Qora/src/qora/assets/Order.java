@@ -3,17 +3,15 @@ package qora.assets;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.math.RoundingMode;
-import java.util.Arrays;
+import java.nio.ByteBuffer;
 import java.util.List;
 
-import com.google.common.primitives.Bytes;
-import com.google.common.primitives.Longs;
-
 import database.DBSet;
 import qora.account.Account;
-import qora.crypto.Base58;
 import qora.transaction.Transaction;
 
+import utils.Codec;
+
 public class Order implements Comparable<Order> {
 	
 	private static final int ID_LENGTH = 64;
@@ -161,105 +159,67 @@ public class Order implements Comparable<Order> {
 			throw new Exception("Data does not match order length");
 		}
 		
-		int position = 0;
+		ByteBuffer buffer = ByteBuffer.wrap(data);
 		
 		//READ ID
-		byte[] idBytes = Arrays.copyOfRange(data, position, position + ID_LENGTH);
-		BigInteger id = new BigInteger(idBytes);
-		position += ID_LENGTH;
+		BigInteger id = Codec.getInteger(buffer, ID_LENGTH);
 		
 		//READ CREATOR
-		byte[] creatorBytes = Arrays.copyOfRange(data, position, position + CREATOR_LENGTH);
-		Account creator = new Account(Base58.encode(creatorBytes));
-		position += CREATOR_LENGTH;
+		Account creator = new Account(Codec.getAddress(buffer));
 		
 		//READ HAVE
-		byte[] haveBytes = Arrays.copyOfRange(data, position, position + HAVE_LENGTH);
-		long have = Longs.fromByteArray(haveBytes);	
-		position += HAVE_LENGTH;
+		long have = buffer.getLong();
 		
 		//READ HAVE
-		byte[] wantBytes = Arrays.copyOfRange(data, position, position + WANT_LENGTH);
-		long want = Longs.fromByteArray(wantBytes);	
-		position += WANT_LENGTH;
+		long want = buffer.getLong();
 		
 		//READ AMOUNT
-		byte[] amountBytes = Arrays.copyOfRange(data, position, position + AMOUNT_LENGTH);
-		BigDecimal amount = new BigDecimal(new BigInteger(amountBytes), 8);
-		position += AMOUNT_LENGTH;		
+		BigDecimal amount = Codec.getAmount(buffer, AMOUNT_LENGTH);
 		
 		//READ FULFILLED
-		byte[] fulfilledBytes = Arrays.copyOfRange(data, position, position + FULFILLED_LENGTH);
-		BigDecimal fulfilled = new BigDecimal(new BigInteger(fulfilledBytes), 8);
-		position += FULFILLED_LENGTH;		
+		BigDecimal fulfilled = Codec.getAmount(buffer, FULFILLED_LENGTH);
 		
 		//READ PRICE
-		byte[] priceBytes = Arrays.copyOfRange(data, position, position + PRICE_LENGTH);
-		BigDecimal price = new BigDecimal(new BigInteger(priceBytes), 8);
-		position += PRICE_LENGTH;	
+		BigDecimal price = Codec.getAmount(buffer, PRICE_LENGTH);
 		
 		//READ TIMESTAMP
-		byte[] timestampBytes = Arrays.copyOfRange(data, position, position + TIMESTAMP_LENGTH);
-		long timestamp = Longs.fromByteArray(timestampBytes);	
-		position += TIMESTAMP_LENGTH;
+		long timestamp = buffer.getLong();
 		
 		return new Order(id, creator, have, want, amount, fulfilled, price, timestamp);
 	}
 	
 	public byte[] toBytes()
 	{
-		byte[] data = new byte[0];
-		
+		ByteBuffer buffer = ByteBuffer.allocate(this.getDataLength());
+		this.toBytes(buffer);
+		return Codec.toArray(buffer);
+	}
+	
+	public void toBytes(ByteBuffer buffer)
+	{
 		//WRITE ID
-		byte[] idBytes = this.id.toByteArray();
-		byte[] fill = new byte[ID_LENGTH - idBytes.length];
-		idBytes = Bytes.concat(fill, idBytes);
-		data = Bytes.concat(data, idBytes);
+		Codec.putInteger(buffer, this.id, ID_LENGTH);
 		
 		//WRITE CREATOR
-		try
-		{
-			data = Bytes.concat(data , Base58.decode(this.creator.getAddress()));
-		}
-		catch(Exception e)
-		{
-			//DECODE EXCEPTION
-		}
+		Codec.putAddress(buffer, this.creator.getAddress());
 		
 		//WRITE HAVE
-		byte[] haveBytes = Longs.toByteArray(this.have);
-		haveBytes = Bytes.ensureCapacity(haveBytes, HAVE_LENGTH, 0);
-		data = Bytes.concat(data, haveBytes);
+		buffer.putLong(this.have);
 		
 		//WRITE WANT
-		byte[] wantBytes = Longs.toByteArray(this.want);
-		wantBytes = Bytes.ensureCapacity(wantBytes, WANT_LENGTH, 0);
-		data = Bytes.concat(data, wantBytes);
+		buffer.putLong(this.want);
 		
 		//WRITE AMOUNT
-		byte[] amountBytes = this.amount.unscaledValue().toByteArray();
-		fill = new byte[AMOUNT_LENGTH - amountBytes.length];
-		amountBytes = Bytes.concat(fill, amountBytes);
-		data = Bytes.concat(data, amountBytes);
+		Codec.putAmount(buffer, this.amount, AMOUNT_LENGTH);
 		
 		//WRITE FULFILLED
-		byte[] fulfilledBytes = this.fulfilled.unscaledValue().toByteArray();
-		fill = new byte[FULFILLED_LENGTH - fulfilledBytes.length];
-		fulfilledBytes = Bytes.concat(fill, fulfilledBytes);
-		data = Bytes.concat(data, fulfilledBytes);
+		Codec.putAmount(buffer, this.fulfilled, FULFILLED_LENGTH);
 		
 		//WRITE PRICE
-		byte[] priceBytes = this.price.unscaledValue().toByteArray();
-		fill = new byte[PRICE_LENGTH - priceBytes.length];
-		priceBytes = Bytes.concat(fill, priceBytes);
-		data = Bytes.concat(data, priceBytes);
+		Codec.putAmount(buffer, this.price, PRICE_LENGTH);
 		
 		//WRITE TIMESTAMP
-		byte[] timestampBytes = Longs.toByteArray(this.timestamp);
-		timestampBytes = Bytes.ensureCapacity(timestampBytes, TIMESTAMP_LENGTH, 0);
-		data = Bytes.concat(data, timestampBytes);
-		
-		return data;
+		buffer.putLong(this.timestamp);
 	}
 	
 	public int getDataLength() 
@@ -2,13 +2,12 @@ package qora.assets;
 
 import java.math.BigDecimal;
 import java.math.BigInteger;
-import java.util.Arrays;
-
-import com.google.common.primitives.Bytes;
-import com.google.common.primitives.Longs;
+import java.nio.ByteBuffer;
 
 import database.DBSet;
 
+import utils.Codec;
+
 public class Trade {
 	
 	private static final int ORDER_LENGTH = 64;
@@ -87,69 +86,49 @@ public class Trade {
 			throw new Exception("Data does not match trade length");
 		}
 		
-		int position = 0;
+		ByteBuffer buffer = ByteBuffer.wrap(data);
 		
 		//READ INITIATOR
-		byte[] initiatorBytes = Arrays.copyOfRange(data, position, position + ORDER_LENGTH);
-		BigInteger initiator = new BigInteger(initiatorBytes);
-		position += ORDER_LENGTH;
+		BigInteger initiator = Codec.getInteger(buffer, ORDER_LENGTH);
 		
 		//READ TARGET
-		byte[] targetBytes = Arrays.copyOfRange(data, position, position + ORDER_LENGTH);
-		BigInteger target = new BigInteger(targetBytes);
-		position += ORDER_LENGTH;
+		BigInteger target = Codec.getInteger(buffer, ORDER_LENGTH);
 		
 		//READ AMOUNT
-		byte[] amountBytes = Arrays.copyOfRange(data, position, position + AMOUNT_LENGTH);
-		BigDecimal amount = new BigDecimal(new BigInteger(amountBytes), 8);
-		position += AMOUNT_LENGTH;		
+		BigDecimal amount = Codec.getAmount(buffer, AMOUNT_LENGTH);
 		
 		//READ PRICE
-		byte[] priceBytes = Arrays.copyOfRange(data, position, position + PRICE_LENGTH);
-		BigDecimal price = new BigDecimal(new BigInteger(priceBytes), 8);
-		position += PRICE_LENGTH;		
+		BigDecimal price = Codec.getAmount(buffer, PRICE_LENGTH);
 		
 		//READ TIMESTAMP
-		byte[] timestampBytes = Arrays.copyOfRange(data, position, position + TIMESTAMP_LENGTH);
-		long timestamp = Longs.fromByteArray(timestampBytes);
-		position += TIMESTAMP_LENGTH;	
+		long timestamp = buffer.getLong();
 		
 		return new Trade(initiator, target, amount, price, timestamp);
 	}	
 	
 	public byte[] toBytes()
 	{
-		byte[] data = new byte[0];
-		
+		ByteBuffer buffer = ByteBuffer.allocate(this.getDataLength());
+		this.toBytes(buffer);
+		return Codec.toArray(buffer);
+	}
+	
+	public void toBytes(ByteBuffer buffer)
+	{
 		//WRITE INITIATOR
-		byte[] initiatorBytes = this.initiator.toByteArray();
-		byte[] fill = new byte[ORDER_LENGTH - initiatorBytes.length];
-		initiatorBytes = Bytes.concat(fill, initiatorBytes);
-		data = Bytes.concat(data, initiatorBytes);
+		Codec.putInteger(buffer, this.initiator, ORDER_LENGTH);
 		
 		//WRITE TARGET
-		byte[] targetBytes = this.target.toByteArray();
-		fill = new byte[ORDER_LENGTH - targetBytes.length];
-		targetBytes = Bytes.concat(fill, targetBytes);
-		data = Bytes.concat(data, targetBytes);
+		Codec.putInteger(buffer, this.target, ORDER_LENGTH);
 		
 		//WRITE AMOUNT
-		byte[] amountBytes = this.amount.unscaledValue().toByteArray();
-		fill = new byte[AMOUNT_LENGTH - amountBytes.length];
-		amountBytes = Bytes.concat(fill, amountBytes);
-		data = Bytes.concat(data, amountBytes);
+		Codec.putAmount(buffer, this.amount, AMOUNT_LENGTH);
 		
 		//WRITE PRICE
-		byte[] priceBytes = this.price.unscaledValue().toByteArray();
-		fill = new byte[PRICE_LENGTH - priceBytes.length];
-		priceBytes = Bytes.concat(fill, priceBytes);
-		data = Bytes.concat(data, priceBytes);
+		Codec.putAmount(buffer, this.price, PRICE_LENGTH);
 		
 		//WRITE TIMESTAMP
-		byte[] timestampBytes = Longs.toByteArray(this.timestamp);
-		data = Bytes.concat(data, timestampBytes);
-		
-		return data;
+		buffer.putLong(this.timestamp);
 	}
 	
 	public int getDataLength() 
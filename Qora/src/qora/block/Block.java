@@ -2,6 +2,9 @@ package qora.block;
 
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.lang.ref.SoftReference;
+import java.nio.ByteBuffer;
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -12,6 +15,7 @@ import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
 
 import qora.BlockGenerator;
+import qora.SignatureVerifier;
 import qora.account.PublicKeyAccount;
 import qora.crypto.Base58;
 import qora.crypto.Crypto;
@@ -20,11 +24,13 @@ import qora.transaction.Transaction;
 import qora.transaction.TransactionFactory;
 
 import com.google.common.primitives.Bytes;
-import com.google.common.primitives.Ints;
 import com.google.common.primitives.Longs;
 
+import database.BlockMap;
 import database.DBSet;
 
+import utils.Codec;
+
 public class Block {
 	
 	public static final int MAX_BLOCK_BYTES = 1048576;
@@ -37,7 +43,9 @@ public class Block {
 	private static final int TRANSACTIONS_SIGNATURE_LENGTH = 64;
 	private static final int TRANSACTIONS_COUNT_LENGTH = 4;
 	private static final int TRANSACTION_SIZE_LENGTH = 4;
-	private static final int BASE_LENGTH = VERSION_LENGTH + REFERENCE_LENGTH + TIMESTAMP_LENGTH + GENERATING_BALANCE_LENGTH + GENERATOR_LENGTH + TRANSACTIONS_SIGNATURE_LENGTH + GENERATOR_SIGNATURE_LENGTH + TRANSACTIONS_COUNT_LENGTH;
+	private static final int TRANSACTION_TYPE_LENGTH = 4;
+	private static final int TRANSACTION_SIGNATURE_LENGTH = 64;
+	public static final int BASE_LENGTH = VERSION_LENGTH + REFERENCE_LENGTH + TIMESTAMP_LENGTH + GENERATING_BALANCE_LENGTH + GENERATOR_LENGTH + TRANSACTIONS_SIGNATURE_LENGTH + GENERATOR_SIGNATURE_LENGTH + TRANSACTIONS_COUNT_LENGTH;
 	public static final int MAX_TRANSACTION_BYTES = MAX_BLOCK_BYTES - BASE_LENGTH;
 	
 	protected int version;
@@ -50,6 +58,10 @@ public class Block {
 	private List<Transaction> transactions;	
 	private int transactionCount;
 	private byte[] rawTransactions;
+	private int[] transactionOffsets;
+	private int rawTransactionsLength;
+	private SoftReference<Transaction>[] parsedTransactions;
+	private BlockMap transactionStore;
 		
 	protected byte[] transactionsSignature;
 	
@@ -109,10 +121,24 @@ public class Block {
 		return fee;
 	}
 	
-	public void setTransactionData(int transactionCount, byte[] rawTransactions)
+	public synchronized void setTransactionData(int transactionCount, byte[] rawTransactions)
 	{
 		this.transactionCount = transactionCount;
 		this.rawTransactions = rawTransactions;
+		this.transactions = null;
+		this.transactionOffsets = null;
+	}
+	
+	//HEADERS READ FROM THE DATABASE LOAD THEIR TRANSACTIONS FROM THE STORE ON FIRST ACCESS
+	//THE DATABASE SHARES THE SAME INSTANCE BETWEEN READERS SO TRANSACTIONS THAT ARE ALREADY THERE ARE KEPT
+	public synchronized void setTransactionStore(BlockMap transactionStore)
+	{
+		if(this.transactionStore != null || this.rawTransactions != null || this.transactions != null)
+		{
+			return;
+		}
+		
+		this.transactionStore = transactionStore;
 	}
 	
 	public int getTransactionCount() 
@@ -120,56 +146,208 @@ public class Block {
 		return this.transactionCount;		
 	}
 	
-	public synchronized List<Transaction> getTransactions() 
+	//RAW TRANSACTIONS ARE ONLY INDEXED, EACH TRANSACTION IS PARSED WHEN IT IS FIRST ACCESSED
+	private void indexTransactions()
 	{
-		if(this.transactions == null)
+		if(this.transactions != null || this.transactionOffsets != null)
+		{
+			return;
+		}
+		
+		//LOAD TRANSACTIONS OF STORED HEADER
+		if(this.transactionStore != null)
+		{
+			this.rawTransactions = this.transactionStore.getTransactionData(this.getSignature());
+			this.transactionStore = null;
+		}
+		
+		//NEW BLOCK
+		if(this.rawTransactions == null)
 		{
-			//LOAD TRANSACTIONS
 			this.transactions = new ArrayList<Transaction>();
-					
-			try
+			return;
+		}
+		
+		//EVERY TRANSACTION NEEDS AT LEAST ITS SIZE
+		if(this.transactionCount < 0 || this.transactionCount > this.rawTransactions.length / TRANSACTION_SIZE_LENGTH)
+		{
+			throw new IllegalStateException("Invalid transaction count");
+		}
+		
+		ByteBuffer buffer = ByteBuffer.wrap(this.rawTransactions);
+		int[] offsets = new int[this.transactionCount];
+		for(int i=0; i<this.transactionCount; i++)
+		{
+			//GET TRANSACTION SIZE
+			if(buffer.remaining() < TRANSACTION_SIZE_LENGTH)
 			{
-				int position = 0;
-				for(int i=0; i<transactionCount; i++)
-				{
-					//GET TRANSACTION SIZE
-					byte[] transactionLengthBytes = Arrays.copyOfRange(this.rawTransactions, position, position + TRANSACTION_SIZE_LENGTH);
-					int transactionLength = Ints.fromByteArray(transactionLengthBytes);
-					
-					//PARSE TRANSACTION
-					byte[] transactionBytes = Arrays.copyOfRange(this.rawTransactions, position + TRANSACTION_SIZE_LENGTH, position + TRANSACTION_SIZE_LENGTH + transactionLength);
-					Transaction transaction = TransactionFactory.getInstance().parse(transactionBytes);
-					
-					//ADD TO TRANSACTIONS
-					this.transactions.add(transaction);
-					
-					//ADD TO POSITION
-					position += TRANSACTION_SIZE_LENGTH + transactionLength;
-				}
+				throw new IllegalStateException("Invalid transaction data");
 			}
-			catch(Exception e)
+			int transactionLength = buffer.getInt();
+			
+			if(transactionLength < TRANSACTION_TYPE_LENGTH || transactionLength > buffer.remaining())
 			{
-				//FAILED TO LOAD TRANSACTIONS
+				throw new IllegalStateException("Invalid transaction data");
+			}
+			
+			//SKIP TRANSACTION
+			offsets[i] = buffer.position();
+			buffer.position(buffer.position() + transactionLength);
+		}
+		
+		this.transactionOffsets = offsets;
+		this.rawTransactionsLength = buffer.position();
+		this.parsedTransactions = this.createReferences(this.transactionCount);
+	}
+	
+	private synchronized boolean hasRawTransactions()
+	{
+		this.indexTransactions();
+		
+		return this.transactionOffsets != null;
+	}
+	
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private SoftReference<Transaction>[] createReferences(int length)
+	{
+		return new SoftReference[length];
+	}
+	
+	private static int getTransactionLength(byte[] rawTransactions, int[] transactionOffsets, int index)
+	{
+		int offset = transactionOffsets[index];
+		return ByteBuffer.wrap(rawTransactions, offset - TRANSACTION_SIZE_LENGTH, TRANSACTION_SIZE_LENGTH).getInt();
+	}
+	
+	//PARSES THE TRANSACTION AT INDEX OF THE GIVEN DATA, THE DATA ITSELF IS NEVER CHANGED
+	private static Transaction getTransaction(byte[] rawTransactions, int[] transactionOffsets, SoftReference<Transaction>[] parsedTransactions, int index)
+	{
+		synchronized(parsedTransactions)
+		{
+			//CHECK IF ALREADY PARSED
+			SoftReference<Transaction> reference = parsedTransactions[index];
+			Transaction transaction = reference == null ? null : reference.get();
+			
+			if(transaction == null)
+			{
+				//PARSE TRANSACTION
+				try
+				{
+					int offset = transactionOffsets[index];
+					byte[] transactionBytes = Arrays.copyOfRange(rawTransactions, offset, offset + getTransactionLength(rawTransactions, transactionOffsets, index));
+					transaction = TransactionFactory.getInstance().parse(transactionBytes);
+				}
+				catch(Exception e)
+				{
+					throw new IllegalStateException("Invalid transaction data", e);
+				}
+				
+				//KEEP UNTIL MEMORY IS NEEDED
+				parsedTransactions[index] = new SoftReference<Transaction>(transaction);
 			}
+			
+			return transaction;
+		}
+	}
+	
+	public synchronized Transaction getTransaction(int index)
+	{
+		this.indexTransactions();
+		
+		if(this.transactions != null)
+		{
+			return this.transactions.get(index);
 		}
 		
-		return this.transactions;
+		return getTransaction(this.rawTransactions, this.transactionOffsets, this.parsedTransactions, index);
+	}
+	
+	public synchronized List<Transaction> getTransactions() 
+	{
+		this.indexTransactions();
+		
+		if(this.transactions != null)
+		{
+			return this.transactions;
+		}
+		
+		//VIEW THAT PARSES ON ACCESS, IT KEEPS THE DATA IT WAS CREATED FOR SO OTHER THREADS CANNOT CHANGE IT
+		final byte[] rawTransactions = this.rawTransactions;
+		final int[] transactionOffsets = this.transactionOffsets;
+		final SoftReference<Transaction>[] parsedTransactions = this.parsedTransactions;
+		return new AbstractList<Transaction>()
+		{
+			@Override
+			public Transaction get(int index) 
+			{
+				return getTransaction(rawTransactions, transactionOffsets, parsedTransactions, index);
+			}
+
+			@Override
+			public int size() 
+			{
+				return transactionOffsets.length;
+			}
+		};
 	}
 	
-	public void addTransaction(Transaction transaction)
+	public synchronized void addTransaction(Transaction transaction)
 	{
-		this.getTransactions().add(transaction);
+		this.indexTransactions();
+		
+		//PARSE ALL TRANSACTIONS BEFORE CHANGING THE LIST
+		if(this.transactions == null)
+		{
+			this.transactions = new ArrayList<Transaction>(this.getTransactions());
+			this.transactionOffsets = null;
+			this.parsedTransactions = null;
+			this.rawTransactions = null;
+		}
+		
+		this.transactions.add(transaction);
 		
 		this.transactionCount++;
 	}
 	
-	public Transaction getTransaction(byte[] signature) {
+	public synchronized Transaction getTransaction(byte[] signature) {
 		
-		for(Transaction transaction: this.getTransactions())
+		this.indexTransactions();
+		
+		if(this.transactions != null)
 		{
-			if(Arrays.equals(transaction.getSignature(), signature))
+			for(Transaction transaction: this.transactions)
+			{
+				if(Arrays.equals(transaction.getSignature(), signature))
+				{
+					return transaction;
+				}
+			}
+			
+			return null;
+		}
+		
+		for(int i=0; i<this.transactionOffsets.length; i++)
+		{
+			int offset = this.transactionOffsets[i];
+			int length = getTransactionLength(this.rawTransactions, this.transactionOffsets, i);
+			int type = ByteBuffer.wrap(this.rawTransactions, offset, TRANSACTION_TYPE_LENGTH).getInt();
+			
+			//GENESIS TRANSACTIONS DO NOT CARRY THEIR SIGNATURE
+			if(type == Transaction.GENESIS_TRANSACTION || length < TRANSACTION_SIGNATURE_LENGTH)
+			{
+				if(Arrays.equals(this.getTransaction(i).getSignature(), signature))
+				{
+					return this.getTransaction(i);
+				}
+				
+				continue;
+			}
+			
+			//COMPARE SIGNATURE AT THE END OF THE RAW TRANSACTION
+			int signatureOffset = offset + length - TRANSACTION_SIGNATURE_LENGTH;
+			if(signature != null && signature.length == TRANSACTION_SIGNATURE_LENGTH && ByteBuffer.wrap(this.rawTransactions, signatureOffset, TRANSACTION_SIGNATURE_LENGTH).equals(ByteBuffer.wrap(signature)))
 			{
-				return transaction;
+				return this.getTransaction(i);
 			}
 		}
 		
@@ -219,63 +397,71 @@ public class Block {
 	//PARSE/CONVERT
 	
 	public static Block parse(byte[] data) throws Exception
+	{
+		return parse(ByteBuffer.wrap(data));
+	}
+	
+	//PARSES THE BLOCK FROM THE POSITION TO THE LIMIT OF BUFFER
+	public static Block parse(ByteBuffer buffer) throws Exception
+	{
+		Block block = parseHeader(buffer);
+		
+		//SET TRANSACTIONDATA
+		byte[] rawTransactions = Codec.getBytes(buffer, buffer.remaining());
+		block.setTransactionData(block.getTransactionCount(), rawTransactions);
+		
+		//CHECK IF THE TRANSACTIONS CAN BE FOUND IN THE DATA
+		try
+		{
+			block.hasRawTransactions();
+		}
+		catch(IllegalStateException e)
+		{
+			throw new Exception(e.getMessage());
+		}
+		
+		return block;
+	}
+	
+	//PARSES THE FIXED PART OF THE BLOCK, THE TRANSACTIONS ARE LOADED FROM A TRANSACTION STORE
+	public static Block parseHeader(ByteBuffer buffer) throws Exception
 	{
 		//CHECK IF WE HAVE MINIMUM BLOCK LENGTH
-		if(data.length < BASE_LENGTH)
+		if(buffer.remaining() < BASE_LENGTH)
 		{
 			throw new Exception("Data is less then minimum block length");
 		}
 		
-		int position = 0;
-		
 		//READ VERSION
-		byte[] versionBytes = Arrays.copyOfRange(data, position, position + VERSION_LENGTH);
-		int version = Ints.fromByteArray(versionBytes);
-		position += VERSION_LENGTH;
-
+		int version = buffer.getInt();
+		
 		//READ TIMESTAMP
-		byte[] timestampBytes = Arrays.copyOfRange(data, position, position + TIMESTAMP_LENGTH);
-		long timestamp = Longs.fromByteArray(timestampBytes);
-		position += TIMESTAMP_LENGTH;		
+		long timestamp = buffer.getLong();
 		
 		//READ REFERENCE
-		byte[] reference = Arrays.copyOfRange(data, position, position + REFERENCE_LENGTH);
-		position += REFERENCE_LENGTH;
+		byte[] reference = Codec.getBytes(buffer, REFERENCE_LENGTH);
 		
 		//READ GENERATING BALANCE
-		byte[] generatingBalanceBytes = Arrays.copyOfRange(data, position, position + GENERATING_BALANCE_LENGTH);
-		long generatingBalance = Longs.fromByteArray(generatingBalanceBytes);
-		position += GENERATING_BALANCE_LENGTH;
+		long generatingBalance = buffer.getLong();
 		
 		//READ GENERATOR
-		byte[] generatorBytes = Arrays.copyOfRange(data, position, position + GENERATOR_LENGTH);
-		PublicKeyAccount generator = new PublicKeyAccount(generatorBytes);
-		position += GENERATOR_LENGTH;
+		PublicKeyAccount generator = new PublicKeyAccount(Codec.getBytes(buffer, GENERATOR_LENGTH));
 		
 		//READ TRANSACTION SIGNATURE
-		byte[] transactionsSignature =  Arrays.copyOfRange(data, position, position + TRANSACTIONS_SIGNATURE_LENGTH);
-		position += TRANSACTIONS_SIGNATURE_LENGTH;
-				
+		byte[] transactionsSignature = Codec.getBytes(buffer, TRANSACTIONS_SIGNATURE_LENGTH);
 		
 		//READ GENERATOR SIGNATURE
-		byte[] generatorSignature =  Arrays.copyOfRange(data, position, position + GENERATOR_SIGNATURE_LENGTH);
-		position += GENERATOR_SIGNATURE_LENGTH;
+		byte[] generatorSignature = Codec.getBytes(buffer, GENERATOR_SIGNATURE_LENGTH);
 		
 		//CREATE BLOCK
 		Block block = new Block(version, reference, timestamp, generatingBalance, generator, generatorSignature);
 		
 		//READ TRANSACTIONS COUNT
-		byte[] transactionCountBytes = Arrays.copyOfRange(data, position, position + TRANSACTIONS_COUNT_LENGTH);
-		int transactionCount = Ints.fromByteArray(transactionCountBytes);
-		position += TRANSACTIONS_COUNT_LENGTH;
-		
-		//SET TRANSACTIONDATA
-		byte[] rawTransactions = Arrays.copyOfRange(data, position, data.length);
-		block.setTransactionData(transactionCount, rawTransactions);
+		block.transactionCount = buffer.getInt();
 		
 		//SET TRANSACTIONS SIGNATURE
 		block.setTransactionsSignature(transactionsSignature);
-				
+		
 		return block;
 	}
 	
@@ -309,62 +495,83 @@ public class Block {
 		return block;
 	}
 
-	public byte[] toBytes() 
+	//LENGTH AND DATA ARE READ UNDER ONE LOCK SO ADDTRANSACTION CAN NOT CHANGE THEM IN BETWEEN
+	public synchronized byte[] toBytes() 
+	{
+		ByteBuffer buffer = ByteBuffer.allocate(this.getDataLength());
+		this.toBytes(buffer);
+		return Codec.toArray(buffer);
+	}
+	
+	public synchronized void toBytes(ByteBuffer buffer)
+	{
+		this.toHeaderBytes(buffer);
+		this.toTransactionBytes(buffer);
+	}
+	
+	//WRITES THE FIXED SIZE PART OF THE BLOCK
+	public void toHeaderBytes(ByteBuffer buffer)
 	{
-		byte[] data = new byte[0];
-		
 		//WRITE VERSION
-		byte[] versionBytes = Ints.toByteArray(this.version);
-		//versionBytes = Bytes.ensureCapacity(versionBytes, 4, 0);
-		data = Bytes.concat(data, versionBytes);
-
+		buffer.putInt(this.version);
+		
 		//WRITE TIMESTAMP
-		byte[] timestampBytes = Longs.toByteArray(this.timestamp);
-		timestampBytes = Bytes.ensureCapacity(timestampBytes, 8, 0);
-		data = Bytes.concat(data, timestampBytes);
-					
+		buffer.putLong(this.timestamp);
+		
 		//WRITE REFERENCE
-		byte[] referenceBytes = Bytes.ensureCapacity(this.reference, REFERENCE_LENGTH, 0);
-		data = Bytes.concat(data, referenceBytes);
+		Codec.putPadded(buffer, this.reference, REFERENCE_LENGTH);
 		
 		//WRITE GENERATING BALANCE
-		byte[] baseTargetBytes = Longs.toByteArray(this.generatingBalance);
-		//baseTargetBytes = Bytes.ensureCapacity(baseTargetBytes, 8, 0);
-		data = Bytes.concat(data,baseTargetBytes);
+		buffer.putLong(this.generatingBalance);
 		
 		//WRITE GENERATOR
-		byte[] generatorBytes = Bytes.ensureCapacity(this.generator.getPublicKey(), GENERATOR_LENGTH, 0);
-		data = Bytes.concat(data, generatorBytes);
+		Codec.putPadded(buffer, this.generator.getPublicKey(), GENERATOR_LENGTH);
 		
 		//WRITE TRANSACTIONS SIGNATURE
-		data = Bytes.concat(data, this.transactionsSignature);
+		buffer.put(this.transactionsSignature);
 		
 		//WRITE GENERATOR SIGNATURE
-		data = Bytes.concat(data, this.generatorSignature);
+		buffer.put(this.generatorSignature);
+		
 		//WRITE TRANSACTION COUNT
-		byte[] transactionCountBytes = Ints.toByteArray(this.getTransactionCount());
-		//transactionCountBytes = Bytes.ensureCapacity(transactionCountBytes, 4, 0);
-		data = Bytes.concat(data, transactionCountBytes);
+		buffer.putInt(this.getTransactionCount());
+	}
+	
+	public synchronized byte[] getTransactionData()
+	{
+		ByteBuffer buffer = ByteBuffer.allocate(this.getDataLength() - BASE_LENGTH);
+		this.toTransactionBytes(buffer);
+		return Codec.toArray(buffer);
+	}
+	
+	private synchronized void toTransactionBytes(ByteBuffer buffer)
+	{
+		//WRITE RAW TRANSACTIONS AS RECEIVED
+		if(this.hasRawTransactions())
+		{
+			buffer.put(this.rawTransactions, 0, this.rawTransactionsLength);
+			return;
+		}
 		
 		for(Transaction transaction: this.getTransactions())
 		{
 			//WRITE TRANSACTION LENGTH
-			int transactionLength = transaction.getDataLength();
-			byte[] transactionLengthBytes = Ints.toByteArray(transactionLength);
-			//transactionLengthBytes = Bytes.ensureCapacity(transactionLengthBytes, 4, 0);
-			data = Bytes.concat(data, transactionLengthBytes);
+			buffer.putInt(transaction.getDataLength());
 			
 			//WRITE TRANSACTION
-			data = Bytes.concat(data, transaction.toBytes());
+			transaction.toBytes(buffer);
 		}
-		
-		return data;
 	}
 	
-	public int getDataLength() {
+	public synchronized int getDataLength() {
 		
 		int length = BASE_LENGTH;
 		
+		if(this.hasRawTransactions())
+		{
+			return length + this.rawTransactionsLength;
+		}
+		
 		for(Transaction transaction: this.getTransactions())
 		{
 			length += 4 + transaction.getDataLength();
@@ -397,22 +604,30 @@ public class Block {
 			return false;
 		}
 		
-		//VALIDATE TRANSACTIONS SIGNATURE
-		data = this.generatorSignature;		
-		for(Transaction transaction: this.getTransactions())
+		try
 		{
-			//CHECK IF TRANSACTION SIGNATURE IS VALID
-			if(!transaction.isSignatureValid())
+			//VALIDATE TRANSACTIONS SIGNATURE
+			data = this.generatorSignature;		
+			for(Transaction transaction: this.getTransactions())
+			{
+				//ADD SIGNATURE TO DATA
+				data = Bytes.concat(data, transaction.getSignature());
+			}
+			
+			if(!Crypto.getInstance().verify(this.generator.getPublicKey(), this.transactionsSignature, data))
 			{
 				return false;
 			}
 			
-			//ADD SIGNATURE TO DATA
-			data = Bytes.concat(data, transaction.getSignature());
+			//CHECK IF ALL TRANSACTION SIGNATURES ARE VALID
+			if(!SignatureVerifier.getInstance().verify(this.getTransactions()))
+			{
+				return false;
+			}
 		}
-		
-		if(!Crypto.getInstance().verify(this.generator.getPublicKey(), this.transactionsSignature, data))
+		catch(IllegalStateException e)
 		{
+			//INVALID TRANSACTION DATA
 			return false;
 		}
 		
@@ -487,28 +702,36 @@ public class Block {
 		
 		//CHECK TRANSACTIONS
 		DBSet fork = db.fork();
-		for(Transaction transaction: this.getTransactions())
+		try
 		{
-			//CHECK IF NOT GENESISTRANSACTION
-			if(transaction instanceof GenesisTransaction)
-			{
-				return false;
-			}
-			
-			//CHECK IF VALID
-			if(transaction.isValid(fork) != Transaction.VALIDATE_OKE)
+			for(Transaction transaction: this.getTransactions())
 			{
-				return false;
-			}
-			
-			//CHECK TIMESTAMP AND DEADLINE
-			if(transaction.getTimestamp() > this.timestamp || transaction.getDeadline() <= this.timestamp)
-			{
-				return false;
+				//CHECK IF NOT GENESISTRANSACTION
+				if(transaction instanceof GenesisTransaction)
+				{
+					return false;
+				}
+				
+				//CHECK IF VALID
+				if(transaction.isValid(fork) != Transaction.VALIDATE_OKE)
+				{
+					return false;
+				}
+				
+				//CHECK TIMESTAMP AND DEADLINE
+				if(transaction.getTimestamp() > this.timestamp || transaction.getDeadline() <= this.timestamp)
+				{
+					return false;
+				}
+				
+				//PROCESS TRANSACTION IN MEMORYDB TO MAKE SURE OTHER TRANSACTIONS VALIDATE PROPERLY
+				transaction.process(fork);		
 			}
-			
-			//PROCESS TRANSACTION IN MEMORYDB TO MAKE SURE OTHER TRANSACTIONS VALIDATE PROPERLY
-			transaction.process(fork);		
+		}
+		catch(IllegalStateException e)
+		{
+			//INVALID TRANSACTION DATA
+			return false;
 		}
 		
 		//BLOCK IS VALID
@@ -519,11 +742,17 @@ public class Block {
 	
 	public void process()
 	{
-		this.process(DBSet.getInstance());
+		//WRITE BLOCK AS ONE BATCH
+		DBSet batch = DBSet.getInstance().createBatch();
+		this.process(batch);
+		DBSet.getInstance().commitBatch(batch);
 	}
 	
 	public void process(DBSet db)
 	{	
+		//REMEMBER BALANCES BEFORE THIS BLOCK CHANGES THEM
+		db.getBalanceMap().recordChanges();
+		
 		//PROCESS TRANSACTIONS
 		for(Transaction transaction: this.getTransactions())
 		{
@@ -554,11 +783,27 @@ public class Block {
 			//SET BLOCK HEIGHT
 			int height = parent.getHeight(db) + 1;
 			db.getHeightMap().set(this, height);
+			db.getHeightSignatureMap().set(height, this);
 		}
 		else
 		{
 			//IF NO PARENT HEIGHT IS 1
 			db.getHeightMap().set(this, 1);
+			db.getHeightSignatureMap().set(1, this);
+		}
+		
+		//STORE BALANCE HISTORY
+		int height = this.getHeight(db);
+		db.getBalanceHistoryMap().set(height, db.getBalanceMap().takeChanges());
+		
+		//INDEX TRANSACTIONS BY ADDRESS, TYPE AND SERVICE
+		db.getTransactionIndexMap().add(height, this);
+		
+		//TRACK INCOMING AMOUNTS FOR THE GENERATING BALANCE
+		if(height > 1)
+		{
+			db.getRecentIncomingMap().set(height, this);
+			db.getRecentIncomingMap().delete(height - BlockGenerator.RETARGET + 1);
 		}
 		
 		//ADD TO DB
@@ -570,7 +815,10 @@ public class Block {
 	
 	public void orphan()
 	{	
-		this.orphan(DBSet.getInstance());
+		//WRITE ORPHAN AS ONE BATCH
+		DBSet batch = DBSet.getInstance().createBatch();
+		this.orphan(batch);
+		DBSet.getInstance().commitBatch(batch);
 	}
 	
 	public void orphan(DBSet db)
@@ -586,7 +834,23 @@ public class Block {
 			this.generator.setConfirmedBalance(this.generator.getConfirmedBalance(db).subtract(blockFee), db);
 		}
 				
+		//TRUNCATE BALANCE HISTORY
+		int height = this.getHeight(db);
+		db.getBalanceHistoryMap().delete(height);
+		
+		//REMOVE TRANSACTIONS FROM INDEX
+		db.getTransactionIndexMap().delete(height, this);
+		
+		//RESTORE INCOMING AMOUNTS OF THE BLOCK THAT IS BACK IN THE GENERATING BALANCE
+		db.getRecentIncomingMap().delete(height);
+		if(height - BlockGenerator.RETARGET + 1 > 1)
+		{
+			Block block = db.getBlockMap().get(db.getHeightSignatureMap().get(height - BlockGenerator.RETARGET + 1));
+			db.getRecentIncomingMap().set(height - BlockGenerator.RETARGET + 1, block);
+		}
+		
 		//DELETE BLOCK FROM DB
+		db.getHeightSignatureMap().delete(height);
 		db.getBlockMap().delete(this);
 				
 		//SET PARENT AS LAST BLOCK
@@ -1,5 +1,6 @@
 package qora.block;
 
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 
 import qora.account.PublicKeyAccount;
@@ -25,12 +26,8 @@ public class BlockFactory {
 	
 	public Block parse(byte[] data) throws Exception
 	{
-		//GET HASH
-		int position = Block.VERSION_LENGTH + Block.REFERENCE_LENGTH + Block.TIMESTAMP_LENGTH + Block.GENERATING_BALANCE_LENGTH + Block.GENERATOR_LENGTH;
-		byte[] signature =  Arrays.copyOfRange(data, position, position + Block.GENERATOR_SIGNATURE_LENGTH);
-		
 		//CHECK IF GENESISBLOCK
-		if(Arrays.equals(GenesisBlock.generateHash(), signature))
+		if(isGenesisBlock(data))
 		{
 			//PARSE GENESISBLOCK
 			return new GenesisBlock();
@@ -42,6 +39,30 @@ public class BlockFactory {
 		}
 	}
 	
+	public Block parseHeader(byte[] data) throws Exception
+	{
+		//CHECK IF GENESISBLOCK
+		if(isGenesisBlock(data))
+		{
+			//PARSE GENESISBLOCK
+			return new GenesisBlock();
+		}
+		else
+		{
+			//PARSE NORMAL BLOCK HEADER
+			return Block.parseHeader(ByteBuffer.wrap(data));
+		}
+	}
+	
+	private boolean isGenesisBlock(byte[] data)
+	{
+		//GET HASH
+		int position = Block.VERSION_LENGTH + Block.REFERENCE_LENGTH + Block.TIMESTAMP_LENGTH + Block.GENERATING_BALANCE_LENGTH + Block.GENERATOR_LENGTH;
+		byte[] signature =  Arrays.copyOfRange(data, position, position + Block.GENERATOR_SIGNATURE_LENGTH);
+		
+		return Arrays.equals(GenesisBlock.generateHash(), signature);
+	}
+	
 	public Block create(int version, byte[] reference, long timestamp, long baseTarget, PublicKeyAccount generator, byte[] signature) 
 	{		
 		return new Block(version, reference, timestamp, baseTarget, generator, signature);		
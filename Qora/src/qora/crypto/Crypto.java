@@ -18,6 +18,8 @@ public class Crypto {
 	
 	private static Crypto instance;
 	
+	private Ed25519Engine engine;
+	
 	public static Crypto getInstance()
 	{
 		if(instance == null)
@@ -30,7 +32,17 @@ public class Crypto {
 	
 	private Crypto()
 	{
-		
+		this.engine = new NativeEd25519Engine();
+	}
+	
+	public Ed25519Engine getEngine()
+	{
+		return this.engine;
+	}
+	
+	public void setEngine(Ed25519Engine engine)
+	{
+		this.engine = engine;
 	}
 	
 	public byte[] digest(byte[] input)
@@ -47,6 +59,21 @@ public class Crypto {
 		}
 	}
 	
+	public byte[] digest(byte[] input, int offset, int length)
+	{
+		try 
+		{
+			//SHA256
+			MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+			sha256.update(input, offset, length);
+			return sha256.digest();
+		}
+		catch (NoSuchAlgorithmException e)
+		{
+			return null;
+		}
+	}
+	
 	public byte[] doubleDigest(byte[] input)
 	{
 		//DOUBLE SHA256
@@ -58,7 +85,7 @@ public class Crypto {
 		try
 		{
 			//GENERATE PUBLIC KEY
-			return Ed25519.createKeyPair(seed);
+			return this.engine.createKeyPair(seed);
 		} 
 		catch (Exception e) 
 		{
@@ -153,7 +180,7 @@ public class Crypto {
 		try
 		{
 			//GET SIGNATURE
-			return Ed25519.sign(account.getKeyPair(), message);
+			return this.engine.sign(account.getKeyPair(), message);
 		}
 		catch (Exception e) 
 		{
@@ -167,7 +194,7 @@ public class Crypto {
 		try 
 		{
 			//VERIFY SIGNATURE
-			return Ed25519.verify(signature, message, publicKey);	
+			return this.engine.verify(signature, message, publicKey);	
 		}
 		catch(Exception e)
 		{
@@ -54,8 +54,9 @@ public class Ed25519 {
 				System.loadLibrary("Qora25519.mac");
 			}
 		}
-		catch(Exception e)
+		catch(Throwable e)
 		{
+			//UNSATISFIEDLINKERROR IS NOT AN EXCEPTION
 			return false;
 		}
 		
@@ -0,0 +1,15 @@
+package qora.crypto;
+
+import utils.Pair;
+
+public interface Ed25519Engine {
+	
+	public String getName();
+	
+	public Pair<byte[], byte[]> createKeyPair(byte[] seed);
+	
+	public byte[] sign(Pair<byte[], byte[]> keyPair, byte[] message);
+	
+	public boolean verify(byte[] signature, byte[] message, byte[] publicKey);
+	
+}
@@ -0,0 +1,340 @@
+package qora.crypto;
+
+//FIELD ARITHMETIC MODULO 2^255 - 19, ELEMENTS ARE 10 SIGNED LIMBS OF ALTERNATING 26 AND 25 BITS
+class Ed25519Field {
+	
+	private static final int[] LIMB_BITS = {26, 25, 26, 25, 26, 25, 26, 25, 26, 25};
+	
+	static long[] create()
+	{
+		return new long[10];
+	}
+	
+	static long[] create(long value)
+	{
+		long[] h = new long[10];
+		h[0] = value;
+		return h;
+	}
+	
+	static long[] copy(long[] f)
+	{
+		return f.clone();
+	}
+	
+	static void copy(long[] h, long[] f)
+	{
+		System.arraycopy(f, 0, h, 0, 10);
+	}
+	
+	static void zero(long[] h)
+	{
+		for(int i=0; i<10; i++)
+		{
+			h[i] = 0;
+		}
+	}
+	
+	static void one(long[] h)
+	{
+		zero(h);
+		h[0] = 1;
+	}
+	
+	static void add(long[] h, long[] f, long[] g)
+	{
+		for(int i=0; i<10; i++)
+		{
+			h[i] = f[i] + g[i];
+		}
+	}
+	
+	static void sub(long[] h, long[] f, long[] g)
+	{
+		for(int i=0; i<10; i++)
+		{
+			h[i] = f[i] - g[i];
+		}
+	}
+	
+	static void neg(long[] h, long[] f)
+	{
+		for(int i=0; i<10; i++)
+		{
+			h[i] = -f[i];
+		}
+	}
+	
+	//REPLACE H WITH F IF B == 1, WITHOUT BRANCHING ON B
+	static void cmov(long[] h, long[] f, int b)
+	{
+		long mask = -b;
+		for(int i=0; i<10; i++)
+		{
+			h[i] ^= (h[i] ^ f[i]) & mask;
+		}
+	}
+	
+	static void mul(long[] h, long[] f, long[] g)
+	{
+		long f0 = f[0], f1 = f[1], f2 = f[2], f3 = f[3], f4 = f[4], f5 = f[5], f6 = f[6], f7 = f[7], f8 = f[8], f9 = f[9];
+		long g0 = g[0], g1 = g[1], g2 = g[2], g3 = g[3], g4 = g[4], g5 = g[5], g6 = g[6], g7 = g[7], g8 = g[8], g9 = g[9];
+		long g1_19 = 19 * g1, g2_19 = 19 * g2, g3_19 = 19 * g3, g4_19 = 19 * g4, g5_19 = 19 * g5, g6_19 = 19 * g6, g7_19 = 19 * g7, g8_19 = 19 * g8, g9_19 = 19 * g9;
+		long f1_2 = 2 * f1, f3_2 = 2 * f3, f5_2 = 2 * f5, f7_2 = 2 * f7, f9_2 = 2 * f9;
+		
+		long h0 = f0 * g0 + f1_2 * g9_19 + f2 * g8_19 + f3_2 * g7_19 + f4 * g6_19 + f5_2 * g5_19 + f6 * g4_19 + f7_2 * g3_19 + f8 * g2_19 + f9_2 * g1_19;
+		long h1 = f0 * g1 + f1 * g0 + f2 * g9_19 + f3 * g8_19 + f4 * g7_19 + f5 * g6_19 + f6 * g5_19 + f7 * g4_19 + f8 * g3_19 + f9 * g2_19;
+		long h2 = f0 * g2 + f1_2 * g1 + f2 * g0 + f3_2 * g9_19 + f4 * g8_19 + f5_2 * g7_19 + f6 * g6_19 + f7_2 * g5_19 + f8 * g4_19 + f9_2 * g3_19;
+		long h3 = f0 * g3 + f1 * g2 + f2 * g1 + f3 * g0 + f4 * g9_19 + f5 * g8_19 + f6 * g7_19 + f7 * g6_19 + f8 * g5_19 + f9 * g4_19;
+		long h4 = f0 * g4 + f1_2 * g3 + f2 * g2 + f3_2 * g1 + f4 * g0 + f5_2 * g9_19 + f6 * g8_19 + f7_2 * g7_19 + f8 * g6_19 + f9_2 * g5_19;
+		long h5 = f0 * g5 + f1 * g4 + f2 * g3 + f3 * g2 + f4 * g1 + f5 * g0 + f6 * g9_19 + f7 * g8_19 + f8 * g7_19 + f9 * g6_19;
+		long h6 = f0 * g6 + f1_2 * g5 + f2 * g4 + f3_2 * g3 + f4 * g2 + f5_2 * g1 + f6 * g0 + f7_2 * g9_19 + f8 * g8_19 + f9_2 * g7_19;
+		long h7 = f0 * g7 + f1 * g6 + f2 * g5 + f3 * g4 + f4 * g3 + f5 * g2 + f6 * g1 + f7 * g0 + f8 * g9_19 + f9 * g8_19;
+		long h8 = f0 * g8 + f1_2 * g7 + f2 * g6 + f3_2 * g5 + f4 * g4 + f5_2 * g3 + f6 * g2 + f7_2 * g1 + f8 * g0 + f9_2 * g9_19;
+		long h9 = f0 * g9 + f1 * g8 + f2 * g7 + f3 * g6 + f4 * g5 + f5 * g4 + f6 * g3 + f7 * g2 + f8 * g1 + f9 * g0;
+		
+		//CARRY
+		long carry0 = (h0 + (1L << 25)) >> 26; h1 += carry0; h0 -= carry0 << 26;
+		long carry4 = (h4 + (1L << 25)) >> 26; h5 += carry4; h4 -= carry4 << 26;
+		long carry1 = (h1 + (1L << 24)) >> 25; h2 += carry1; h1 -= carry1 << 25;
+		long carry5 = (h5 + (1L << 24)) >> 25; h6 += carry5; h5 -= carry5 << 25;
+		long carry2 = (h2 + (1L << 25)) >> 26; h3 += carry2; h2 -= carry2 << 26;
+		long carry6 = (h6 + (1L << 25)) >> 26; h7 += carry6; h6 -= carry6 << 26;
+		long carry3 = (h3 + (1L << 24)) >> 25; h4 += carry3; h3 -= carry3 << 25;
+		long carry7 = (h7 + (1L << 24)) >> 25; h8 += carry7; h7 -= carry7 << 25;
+		carry4 = (h4 + (1L << 25)) >> 26; h5 += carry4; h4 -= carry4 << 26;
+		long carry8 = (h8 + (1L << 25)) >> 26; h9 += carry8; h8 -= carry8 << 26;
+		long carry9 = (h9 + (1L << 24)) >> 25; h0 += carry9 * 19; h9 -= carry9 << 25;
+		carry0 = (h0 + (1L << 25)) >> 26; h1 += carry0; h0 -= carry0 << 26;
+		
+		h[0] = h0; h[1] = h1; h[2] = h2; h[3] = h3; h[4] = h4; h[5] = h5; h[6] = h6; h[7] = h7; h[8] = h8; h[9] = h9;
+	}
+	
+	static void sq(long[] h, long[] f)
+	{
+		long f0 = f[0], f1 = f[1], f2 = f[2], f3 = f[3], f4 = f[4], f5 = f[5], f6 = f[6], f7 = f[7], f8 = f[8], f9 = f[9];
+		
+		long h0 = f0 * f0 + f1 * f9 * 76 + f2 * f8 * 38 + f3 * f7 * 76 + f4 * f6 * 38 + f5 * f5 * 38;
+		long h1 = f0 * f1 * 2 + f2 * f9 * 38 + f3 * f8 * 38 + f4 * f7 * 38 + f5 * f6 * 38;
+		long h2 = f0 * f2 * 2 + f1 * f1 * 2 + f3 * f9 * 76 + f4 * f8 * 38 + f5 * f7 * 76 + f6 * f6 * 19;
+		long h3 = f0 * f3 * 2 + f1 * f2 * 2 + f4 * f9 * 38 + f5 * f8 * 38 + f6 * f7 * 38;
+		long h4 = f0 * f4 * 2 + f1 * f3 * 4 + f2 * f2 + f5 * f9 * 76 + f6 * f8 * 38 + f7 * f7 * 38;
+		long h5 = f0 * f5 * 2 + f1 * f4 * 2 + f2 * f3 * 2 + f6 * f9 * 38 + f7 * f8 * 38;
+		long h6 = f0 * f6 * 2 + f1 * f5 * 4 + f2 * f4 * 2 + f3 * f3 * 2 + f7 * f9 * 76 + f8 * f8 * 19;
+		long h7 = f0 * f7 * 2 + f1 * f6 * 2 + f2 * f5 * 2 + f3 * f4 * 2 + f8 * f9 * 38;
+		long h8 = f0 * f8 * 2 + f1 * f7 * 4 + f2 * f6 * 2 + f3 * f5 * 4 + f4 * f4 + f9 * f9 * 38;
+		long h9 = f0 * f9 * 2 + f1 * f8 * 2 + f2 * f7 * 2 + f3 * f6 * 2 + f4 * f5 * 2;
+		
+		//CARRY
+		long carry0 = (h0 + (1L << 25)) >> 26; h1 += carry0; h0 -= carry0 << 26;
+		long carry4 = (h4 + (1L << 25)) >> 26; h5 += carry4; h4 -= carry4 << 26;
+		long carry1 = (h1 + (1L << 24)) >> 25; h2 += carry1; h1 -= carry1 << 25;
+		long carry5 = (h5 + (1L << 24)) >> 25; h6 += carry5; h5 -= carry5 << 25;
+		long carry2 = (h2 + (1L << 25)) >> 26; h3 += carry2; h2 -= carry2 << 26;
+		long carry6 = (h6 + (1L << 25)) >> 26; h7 += carry6; h6 -= carry6 << 26;
+		long carry3 = (h3 + (1L << 24)) >> 25; h4 += carry3; h3 -= carry3 << 25;
+		long carry7 = (h7 + (1L << 24)) >> 25; h8 += carry7; h7 -= carry7 << 25;
+		carry4 = (h4 + (1L << 25)) >> 26; h5 += carry4; h4 -= carry4 << 26;
+		long carry8 = (h8 + (1L << 25)) >> 26; h9 += carry8; h8 -= carry8 << 26;
+		long carry9 = (h9 + (1L << 24)) >> 25; h0 += carry9 * 19; h9 -= carry9 << 25;
+		carry0 = (h0 + (1L << 25)) >> 26; h1 += carry0; h0 -= carry0 << 26;
+		
+		h[0] = h0; h[1] = h1; h[2] = h2; h[3] = h3; h[4] = h4; h[5] = h5; h[6] = h6; h[7] = h7; h[8] = h8; h[9] = h9;
+	}
+	
+	//H = 2 * F * F
+	static void sq2(long[] h, long[] f)
+	{
+		long f0 = f[0], f1 = f[1], f2 = f[2], f3 = f[3], f4 = f[4], f5 = f[5], f6 = f[6], f7 = f[7], f8 = f[8], f9 = f[9];
+		
+		long h0 = f0 * f0 + f1 * f9 * 76 + f2 * f8 * 38 + f3 * f7 * 76 + f4 * f6 * 38 + f5 * f5 * 38;
+		long h1 = f0 * f1 * 2 + f2 * f9 * 38 + f3 * f8 * 38 + f4 * f7 * 38 + f5 * f6 * 38;
+		long h2 = f0 * f2 * 2 + f1 * f1 * 2 + f3 * f9 * 76 + f4 * f8 * 38 + f5 * f7 * 76 + f6 * f6 * 19;
+		long h3 = f0 * f3 * 2 + f1 * f2 * 2 + f4 * f9 * 38 + f5 * f8 * 38 + f6 * f7 * 38;
+		long h4 = f0 * f4 * 2 + f1 * f3 * 4 + f2 * f2 + f5 * f9 * 76 + f6 * f8 * 38 + f7 * f7 * 38;
+		long h5 = f0 * f5 * 2 + f1 * f4 * 2 + f2 * f3 * 2 + f6 * f9 * 38 + f7 * f8 * 38;
+		long h6 = f0 * f6 * 2 + f1 * f5 * 4 + f2 * f4 * 2 + f3 * f3 * 2 + f7 * f9 * 76 + f8 * f8 * 19;
+		long h7 = f0 * f7 * 2 + f1 * f6 * 2 + f2 * f5 * 2 + f3 * f4 * 2 + f8 * f9 * 38;
+		long h8 = f0 * f8 * 2 + f1 * f7 * 4 + f2 * f6 * 2 + f3 * f5 * 4 + f4 * f4 + f9 * f9 * 38;
+		long h9 = f0 * f9 * 2 + f1 * f8 * 2 + f2 * f7 * 2 + f3 * f6 * 2 + f4 * f5 * 2;
+		
+		//DOUBLE
+		h0 += h0; h1 += h1; h2 += h2; h3 += h3; h4 += h4; h5 += h5; h6 += h6; h7 += h7; h8 += h8; h9 += h9;
+		
+		//CARRY
+		long carry0 = (h0 + (1L << 25)) >> 26; h1 += carry0; h0 -= carry0 << 26;
+		long carry4 = (h4 + (1L << 25)) >> 26; h5 += carry4; h4 -= carry4 << 26;
+		long carry1 = (h1 + (1L << 24)) >> 25; h2 += carry1; h1 -= carry1 << 25;
+		long carry5 = (h5 + (1L << 24)) >> 25; h6 += carry5; h5 -= carry5 << 25;
+		long carry2 = (h2 + (1L << 25)) >> 26; h3 += carry2; h2 -= carry2 << 26;
+		long carry6 = (h6 + (1L << 25)) >> 26; h7 += carry6; h6 -= carry6 << 26;
+		long carry3 = (h3 + (1L << 24)) >> 25; h4 += carry3; h3 -= carry3 << 25;
+		long carry7 = (h7 + (1L << 24)) >> 25; h8 += carry7; h7 -= carry7 << 25;
+		carry4 = (h4 + (1L << 25)) >> 26; h5 += carry4; h4 -= carry4 << 26;
+		long carry8 = (h8 + (1L << 25)) >> 26; h9 += carry8; h8 -= carry8 << 26;
+		long carry9 = (h9 + (1L << 24)) >> 25; h0 += carry9 * 19; h9 -= carry9 << 25;
+		carry0 = (h0 + (1L << 25)) >> 26; h1 += carry0; h0 -= carry0 << 26;
+		
+		h[0] = h0; h[1] = h1; h[2] = h2; h[3] = h3; h[4] = h4; h[5] = h5; h[6] = h6; h[7] = h7; h[8] = h8; h[9] = h9;
+	}
+	
+	//H = Z ^ (P - 2) = 1 / Z
+	static void invert(long[] out, long[] z)
+	{
+		long[] t0 = create();
+		long[] t1 = create();
+		long[] t2 = create();
+		long[] t3 = create();
+		
+		sq(t0, z);
+		sq(t1, t0);
+		sq(t1, t1);
+		mul(t1, z, t1);
+		mul(t0, t0, t1);
+		sq(t2, t0);
+		mul(t1, t1, t2);
+		sqn(t2, t1, 5);
+		mul(t1, t2, t1);
+		sqn(t2, t1, 10);
+		mul(t2, t2, t1);
+		sqn(t3, t2, 20);
+		mul(t2, t3, t2);
+		sqn(t2, t2, 10);
+		mul(t1, t2, t1);
+		sqn(t2, t1, 50);
+		mul(t2, t2, t1);
+		sqn(t3, t2, 100);
+		mul(t2, t3, t2);
+		sqn(t2, t2, 50);
+		mul(t1, t2, t1);
+		sqn(t1, t1, 5);
+		mul(out, t1, t0);
+	}
+	
+	//H = Z ^ ((P - 5) / 8), USED FOR SQUARE ROOTS WHEN DECODING POINTS
+	static void pow22523(long[] out, long[] z)
+	{
+		long[] t0 = create();
+		long[] t1 = create();
+		long[] t2 = create();
+		
+		sq(t0, z);
+		sq(t1, t0);
+		sq(t1, t1);
+		mul(t1, z, t1);
+		mul(t0, t0, t1);
+		sq(t0, t0);
+		mul(t0, t1, t0);
+		sqn(t1, t0, 5);
+		mul(t0, t1, t0);
+		sqn(t1, t0, 10);
+		mul(t1, t1, t0);
+		sqn(t2, t1, 20);
+		mul(t1, t2, t1);
+		sqn(t1, t1, 10);
+		mul(t0, t1, t0);
+		sqn(t1, t0, 50);
+		mul(t1, t1, t0);
+		sqn(t2, t1, 100);
+		mul(t1, t2, t1);
+		sqn(t1, t1, 50);
+		mul(t0, t1, t0);
+		sqn(t0, t0, 2);
+		mul(out, t0, z);
+	}
+	
+	private static void sqn(long[] h, long[] f, int n)
+	{
+		sq(h, f);
+		for(int i=1; i<n; i++)
+		{
+			sq(h, h);
+		}
+	}
+	
+	//DECODE 32 LITTLE ENDIAN BYTES, THE HIGHEST BIT IS IGNORED
+	static void fromBytes(long[] h, byte[] s, int offset)
+	{
+		int position = 0;
+		for(int i=0; i<10; i++)
+		{
+			long value = 0;
+			for(int bit=0; bit<LIMB_BITS[i]; )
+			{
+				int index = (position + bit) >> 3;
+				int shift = (position + bit) & 7;
+				int take = Math.min(8 - shift, LIMB_BITS[i] - bit);
+				
+				long part = ((s[offset + index] & 0xff) >> shift) & ((1 << take) - 1);
+				value |= part << bit;
+				bit += take;
+			}
+			
+			h[i] = value;
+			position += LIMB_BITS[i];
+		}
+	}
+	
+	//ENCODE THE CANONICAL (FULLY REDUCED) VALUE AS 32 LITTLE ENDIAN BYTES
+	static void toBytes(byte[] s, int offset, long[] f)
+	{
+		long[] h = copy(f);
+		
+		//FIND THE MULTIPLE OF P TO SUBTRACT
+		long q = (19 * h[9] + (1L << 24)) >> 25;
+		for(int i=0; i<10; i++)
+		{
+			q = (h[i] + q) >> LIMB_BITS[i];
+		}
+		h[0] += 19 * q;
+		
+		//CARRY, DROPPING THE FINAL 2^255
+		for(int i=0; i<9; i++)
+		{
+			long carry = h[i] >> LIMB_BITS[i];
+			h[i + 1] += carry;
+			h[i] -= carry << LIMB_BITS[i];
+		}
+		h[9] &= (1L << 25) - 1;
+		
+		//PACK BITS
+		long accumulator = 0;
+		int bits = 0;
+		int index = offset;
+		for(int i=0; i<10; i++)
+		{
+			accumulator |= h[i] << bits;
+			bits += LIMB_BITS[i];
+			while(bits >= 8)
+			{
+				s[index++] = (byte) accumulator;
+				accumulator >>>= 8;
+				bits -= 8;
+			}
+		}
+		s[index] = (byte) accumulator;
+	}
+	
+	static byte[] toBytes(long[] f)
+	{
+		byte[] s = new byte[32];
+		toBytes(s, 0, f);
+		return s;
+	}
+	
+	static boolean isNonZero(long[] f)
+	{
+		byte[] s = toBytes(f);
+		int result = 0;
+		for(int i=0; i<32; i++)
+		{
+			result |= s[i];
+		}
+		return result != 0;
+	}
+	
+	static boolean isNegative(long[] f)
+	{
+		return (toBytes(f)[0] & 1) == 1;
+	}
+}
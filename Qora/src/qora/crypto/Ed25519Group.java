@@ -0,0 +1,692 @@
+package qora.crypto;
+
+import java.math.BigInteger;
+
+//POINT AND SCALAR ARITHMETIC ON THE ED25519 CURVE, FOLLOWING THE REF10 REPRESENTATIONS
+class Ed25519Group {
+	
+	private static final BigInteger P = BigInteger.ONE.shiftLeft(255).subtract(BigInteger.valueOf(19));
+	
+	static final long[] D;
+	static final long[] D2;
+	static final long[] SQRTM1;
+	
+	static final P3 BASE;
+	
+	//ODD MULTIPLES B, 3B, 5B .. 15B FOR VARIABLE TIME MULTIPLICATION
+	private static final Precomp[] BASE_ODD_MULTIPLES;
+	
+	//(J+1) * 256^I * B FOR CONSTANT TIME MULTIPLICATION
+	private static final Precomp[][] BASE_TABLE;
+	
+	//GROUP ORDER L = 2^252 + 27742317777372353535851937790883648493 IN LITTLE ENDIAN
+	private static final long[] L = {
+		0xed, 0xd3, 0xf5, 0x5c, 0x1a, 0x63, 0x12, 0x58, 0xd6, 0x9c, 0xf7, 0xa2, 0xde, 0xf9, 0xde, 0x14,
+		0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0x10
+	};
+	
+	static
+	{
+		//D = -121665 / 121666
+		BigInteger d = BigInteger.valueOf(-121665).multiply(BigInteger.valueOf(121666).modInverse(P)).mod(P);
+		D = fieldElement(d);
+		D2 = fieldElement(d.shiftLeft(1).mod(P));
+		
+		//SQRT(-1) = 2^((P - 1) / 4)
+		SQRTM1 = fieldElement(BigInteger.valueOf(2).modPow(P.subtract(BigInteger.ONE).shiftRight(2), P));
+		
+		//BASE POINT HAS Y = 4/5 AND A POSITIVE X
+		byte[] baseBytes = new byte[32];
+		baseBytes[0] = 0x58;
+		for(int i=1; i<32; i++)
+		{
+			baseBytes[i] = 0x66;
+		}
+		BASE = decode(baseBytes, 0);
+		
+		//ODD MULTIPLES OF BASE
+		BASE_ODD_MULTIPLES = new Precomp[8];
+		P1P1 sum = new P1P1();
+		P3 multiple = BASE;
+		P3 doubleBase = new P3();
+		dbl(sum, BASE);
+		toP3(doubleBase, sum);
+		Cached doubleBaseCached = new Cached();
+		toCached(doubleBaseCached, doubleBase);
+		for(int i=0; i<8; i++)
+		{
+			BASE_ODD_MULTIPLES[i] = toPrecomp(multiple);
+			
+			add(sum, multiple, doubleBaseCached);
+			multiple = new P3();
+			toP3(multiple, sum);
+		}
+		
+		//RADIX 256 TABLE OF BASE
+		BASE_TABLE = new Precomp[32][8];
+		P3 row = BASE;
+		for(int i=0; i<32; i++)
+		{
+			Cached rowCached = new Cached();
+			toCached(rowCached, row);
+			
+			multiple = row;
+			for(int j=0; j<8; j++)
+			{
+				BASE_TABLE[i][j] = toPrecomp(multiple);
+				
+				add(sum, multiple, rowCached);
+				multiple = new P3();
+				toP3(multiple, sum);
+			}
+			
+			//MULTIPLY ROW BY 256
+			P2 shifted = new P2();
+			toP2(shifted, row);
+			for(int j=0; j<7; j++)
+			{
+				dbl(sum, shifted);
+				toP2(shifted, sum);
+			}
+			dbl(sum, shifted);
+			row = new P3();
+			toP3(row, sum);
+		}
+	}
+	
+	//POINT REPRESENTATIONS
+	
+	//PROJECTIVE (X:Y:Z)
+	static class P2
+	{
+		final long[] x = Ed25519Field.create();
+		final long[] y = Ed25519Field.create();
+		final long[] z = Ed25519Field.create();
+	}
+	
+	//EXTENDED (X:Y:Z:T) WITH XY = ZT
+	static class P3 extends P2
+	{
+		final long[] t = Ed25519Field.create();
+	}
+	
+	//COMPLETED ((X:Z),(Y:T))
+	static class P1P1
+	{
+		final long[] x = Ed25519Field.create();
+		final long[] y = Ed25519Field.create();
+		final long[] z = Ed25519Field.create();
+		final long[] t = Ed25519Field.create();
+	}
+	
+	//AFFINE (Y+X, Y-X, 2DXY)
+	static class Precomp
+	{
+		final long[] yPlusX = Ed25519Field.create();
+		final long[] yMinusX = Ed25519Field.create();
+		final long[] xy2d = Ed25519Field.create();
+	}
+	
+	//(Y+X, Y-X, Z, 2DT)
+	static class Cached
+	{
+		final long[] yPlusX = Ed25519Field.create();
+		final long[] yMinusX = Ed25519Field.create();
+		final long[] z = Ed25519Field.create();
+		final long[] t2d = Ed25519Field.create();
+	}
+	
+	//ENCODE/DECODE
+	
+	static P3 decode(byte[] s, int offset)
+	{
+		P3 h = new P3();
+		long[] u = Ed25519Field.create();
+		long[] v = Ed25519Field.create();
+		long[] v3 = Ed25519Field.create();
+		long[] vxx = Ed25519Field.create();
+		long[] check = Ed25519Field.create();
+		
+		Ed25519Field.fromBytes(h.y, s, offset);
+		Ed25519Field.one(h.z);
+		
+		//U = Y^2 - 1, V = DY^2 + 1
+		Ed25519Field.sq(u, h.y);
+		Ed25519Field.mul(v, u, D);
+		Ed25519Field.sub(u, u, h.z);
+		Ed25519Field.add(v, v, h.z);
+		
+		//X = UV^3 (UV^7)^((P - 5) / 8)
+		Ed25519Field.sq(v3, v);
+		Ed25519Field.mul(v3, v3, v);
+		Ed25519Field.sq(h.x, v3);
+		Ed25519Field.mul(h.x, h.x, v);
+		Ed25519Field.mul(h.x, h.x, u);
+		Ed25519Field.pow22523(h.x, h.x);
+		Ed25519Field.mul(h.x, h.x, v3);
+		Ed25519Field.mul(h.x, h.x, u);
+		
+		//CHECK VX^2 = +-U
+		Ed25519Field.sq(vxx, h.x);
+		Ed25519Field.mul(vxx, vxx, v);
+		Ed25519Field.sub(check, vxx, u);
+		if(Ed25519Field.isNonZero(check))
+		{
+			Ed25519Field.add(check, vxx, u);
+			if(Ed25519Field.isNonZero(check))
+			{
+				//NOT ON CURVE
+				return null;
+			}
+			Ed25519Field.mul(h.x, h.x, SQRTM1);
+		}
+		
+		//PICK THE SIGN FROM THE HIGHEST BIT
+		if(Ed25519Field.isNegative(h.x) != ((s[offset + 31] & 0x80) != 0))
+		{
+			Ed25519Field.neg(h.x, h.x);
+		}
+		
+		Ed25519Field.mul(h.t, h.x, h.y);
+		return h;
+	}
+	
+	static byte[] encode(P2 h)
+	{
+		long[] recip = Ed25519Field.create();
+		long[] x = Ed25519Field.create();
+		long[] y = Ed25519Field.create();
+		
+		Ed25519Field.invert(recip, h.z);
+		Ed25519Field.mul(x, h.x, recip);
+		Ed25519Field.mul(y, h.y, recip);
+		
+		byte[] s = Ed25519Field.toBytes(y);
+		if(Ed25519Field.isNegative(x))
+		{
+			s[31] ^= 0x80;
+		}
+		return s;
+	}
+	
+	static P3 negate(P3 p)
+	{
+		P3 r = new P3();
+		Ed25519Field.neg(r.x, p.x);
+		Ed25519Field.copy(r.y, p.y);
+		Ed25519Field.copy(r.z, p.z);
+		Ed25519Field.neg(r.t, p.t);
+		return r;
+	}
+	
+	//CONVERSIONS
+	
+	static void toP2(P2 r, P1P1 p)
+	{
+		Ed25519Field.mul(r.x, p.x, p.t);
+		Ed25519Field.mul(r.y, p.y, p.z);
+		Ed25519Field.mul(r.z, p.z, p.t);
+	}
+	
+	static void toP2(P2 r, P3 p)
+	{
+		Ed25519Field.copy(r.x, p.x);
+		Ed25519Field.copy(r.y, p.y);
+		Ed25519Field.copy(r.z, p.z);
+	}
+	
+	static void toP3(P3 r, P1P1 p)
+	{
+		Ed25519Field.mul(r.x, p.x, p.t);
+		Ed25519Field.mul(r.y, p.y, p.z);
+		Ed25519Field.mul(r.z, p.z, p.t);
+		Ed25519Field.mul(r.t, p.x, p.y);
+	}
+	
+	static void toCached(Cached r, P3 p)
+	{
+		Ed25519Field.add(r.yPlusX, p.y, p.x);
+		Ed25519Field.sub(r.yMinusX, p.y, p.x);
+		Ed25519Field.copy(r.z, p.z);
+		Ed25519Field.mul(r.t2d, p.t, D2);
+	}
+	
+	private static Precomp toPrecomp(P3 p)
+	{
+		Precomp r = new Precomp();
+		long[] recip = Ed25519Field.create();
+		long[] x = Ed25519Field.create();
+		long[] y = Ed25519Field.create();
+		
+		Ed25519Field.invert(recip, p.z);
+		Ed25519Field.mul(x, p.x, recip);
+		Ed25519Field.mul(y, p.y, recip);
+		
+		Ed25519Field.add(r.yPlusX, y, x);
+		Ed25519Field.sub(r.yMinusX, y, x);
+		Ed25519Field.mul(r.xy2d, x, y);
+		Ed25519Field.mul(r.xy2d, r.xy2d, D2);
+		
+		//STORE FULLY REDUCED
+		normalize(r.yPlusX);
+		normalize(r.yMinusX);
+		normalize(r.xy2d);
+		return r;
+	}
+	
+	private static void normalize(long[] f)
+	{
+		Ed25519Field.fromBytes(f, Ed25519Field.toBytes(f), 0);
+	}
+	
+	//ADDITION/DOUBLING
+	
+	static void dbl(P1P1 r, P2 p)
+	{
+		long[] t0 = Ed25519Field.create();
+		
+		Ed25519Field.sq(r.x, p.x);
+		Ed25519Field.sq(r.z, p.y);
+		Ed25519Field.sq2(r.t, p.z);
+		Ed25519Field.add(r.y, p.x, p.y);
+		Ed25519Field.sq(t0, r.y);
+		Ed25519Field.add(r.y, r.z, r.x);
+		Ed25519Field.sub(r.z, r.z, r.x);
+		Ed25519Field.sub(r.x, t0, r.y);
+		Ed25519Field.sub(r.t, r.t, r.z);
+	}
+	
+	static void add(P1P1 r, P3 p, Cached q)
+	{
+		long[] t0 = Ed25519Field.create();
+		
+		Ed25519Field.add(r.x, p.y, p.x);
+		Ed25519Field.sub(r.y, p.y, p.x);
+		Ed25519Field.mul(r.z, r.x, q.yPlusX);
+		Ed25519Field.mul(r.y, r.y, q.yMinusX);
+		Ed25519Field.mul(r.t, q.t2d, p.t);
+		Ed25519Field.mul(r.x, p.z, q.z);
+		Ed25519Field.add(t0, r.x, r.x);
+		Ed25519Field.sub(r.x, r.z, r.y);
+		Ed25519Field.add(r.y, r.z, r.y);
+		Ed25519Field.add(r.z, t0, r.t);
+		Ed25519Field.sub(r.t, t0, r.t);
+	}
+	
+	static void sub(P1P1 r, P3 p, Cached q)
+	{
+		long[] t0 = Ed25519Field.create();
+		
+		Ed25519Field.add(r.x, p.y, p.x);
+		Ed25519Field.sub(r.y, p.y, p.x);
+		Ed25519Field.mul(r.z, r.x, q.yMinusX);
+		Ed25519Field.mul(r.y, r.y, q.yPlusX);
+		Ed25519Field.mul(r.t, q.t2d, p.t);
+		Ed25519Field.mul(r.x, p.z, q.z);
+		Ed25519Field.add(t0, r.x, r.x);
+		Ed25519Field.sub(r.x, r.z, r.y);
+		Ed25519Field.add(r.y, r.z, r.y);
+		Ed25519Field.sub(r.z, t0, r.t);
+		Ed25519Field.add(r.t, t0, r.t);
+	}
+	
+	static void madd(P1P1 r, P3 p, Precomp q)
+	{
+		long[] t0 = Ed25519Field.create();
+		
+		Ed25519Field.add(r.x, p.y, p.x);
+		Ed25519Field.sub(r.y, p.y, p.x);
+		Ed25519Field.mul(r.z, r.x, q.yPlusX);
+		Ed25519Field.mul(r.y, r.y, q.yMinusX);
+		Ed25519Field.mul(r.t, q.xy2d, p.t);
+		Ed25519Field.add(t0, p.z, p.z);
+		Ed25519Field.sub(r.x, r.z, r.y);
+		Ed25519Field.add(r.y, r.z, r.y);
+		Ed25519Field.add(r.z, t0, r.t);
+		Ed25519Field.sub(r.t, t0, r.t);
+	}
+	
+	static void msub(P1P1 r, P3 p, Precomp q)
+	{
+		long[] t0 = Ed25519Field.create();
+		
+		Ed25519Field.add(r.x, p.y, p.x);
+		Ed25519Field.sub(r.y, p.y, p.x);
+		Ed25519Field.mul(r.z, r.x, q.yMinusX);
+		Ed25519Field.mul(r.y, r.y, q.yPlusX);
+		Ed25519Field.mul(r.t, q.xy2d, p.t);
+		Ed25519Field.add(t0, p.z, p.z);
+		Ed25519Field.sub(r.x, r.z, r.y);
+		Ed25519Field.add(r.y, r.z, r.y);
+		Ed25519Field.sub(r.z, t0, r.t);
+		Ed25519Field.add(r.t, t0, r.t);
+	}
+	
+	//SCALAR MULTIPLICATION
+	
+	//A * B IN CONSTANT TIME, A[31] MUST BE <= 127
+	static P3 scalarMultBase(byte[] a)
+	{
+		//SIGNED RADIX 16 DIGITS IN [-8, 8]
+		byte[] e = new byte[64];
+		for(int i=0; i<32; i++)
+		{
+			e[2 * i] = (byte) (a[i] & 15);
+			e[2 * i + 1] = (byte) ((a[i] >> 4) & 15);
+		}
+		int carry = 0;
+		for(int i=0; i<63; i++)
+		{
+			e[i] += carry;
+			carry = (e[i] + 8) >> 4;
+			e[i] -= carry << 4;
+		}
+		e[63] += carry;
+		
+		P3 h = new P3();
+		Ed25519Field.one(h.y);
+		Ed25519Field.one(h.z);
+		
+		P1P1 r = new P1P1();
+		P2 s = new P2();
+		Precomp t = new Precomp();
+		
+		for(int i=1; i<64; i+=2)
+		{
+			select(t, i / 2, e[i]);
+			madd(r, h, t);
+			toP3(h, r);
+		}
+		
+		//MULTIPLY BY 16
+		dbl(r, h);
+		toP2(s, r);
+		dbl(r, s);
+		toP2(s, r);
+		dbl(r, s);
+		toP2(s, r);
+		dbl(r, s);
+		toP3(h, r);
+		
+		for(int i=0; i<64; i+=2)
+		{
+			select(t, i / 2, e[i]);
+			madd(r, h, t);
+			toP3(h, r);
+		}
+		
+		return h;
+	}
+	
+	private static void select(Precomp t, int position, int b)
+	{
+		int negative = (b >> 31) & 1;
+		int absolute = b - (((-negative) & b) << 1);
+		
+		Ed25519Field.one(t.yPlusX);
+		Ed25519Field.one(t.yMinusX);
+		Ed25519Field.zero(t.xy2d);
+		
+		for(int j=0; j<8; j++)
+		{
+			int equal = (((absolute ^ (j + 1)) - 1) >>> 31);
+			Precomp entry = BASE_TABLE[position][j];
+			Ed25519Field.cmov(t.yPlusX, entry.yPlusX, equal);
+			Ed25519Field.cmov(t.yMinusX, entry.yMinusX, equal);
+			Ed25519Field.cmov(t.xy2d, entry.xy2d, equal);
+		}
+		
+		//NEGATE BY SWAPPING Y+X/Y-X AND NEGATING 2DXY
+		long[] yPlusX = Ed25519Field.copy(t.yMinusX);
+		long[] yMinusX = Ed25519Field.copy(t.yPlusX);
+		long[] xy2d = Ed25519Field.create();
+		Ed25519Field.neg(xy2d, t.xy2d);
+		Ed25519Field.cmov(t.yPlusX, yPlusX, negative);
+		Ed25519Field.cmov(t.yMinusX, yMinusX, negative);
+		Ed25519Field.cmov(t.xy2d, xy2d, negative);
+	}
+	
+	//SUM OF SCALARS[I] * POINTS[I] PLUS BASESCALAR * B (OR -B), NOT CONSTANT TIME
+	static P2 multiScalarMultVartime(P3[] points, byte[][] scalars, byte[] baseScalar, boolean negateBase)
+	{
+		int count = points.length;
+		
+		//SLIDING WINDOW DIGITS
+		byte[][] slides = new byte[count][];
+		for(int k=0; k<count; k++)
+		{
+			slides[k] = slide(scalars[k]);
+		}
+		byte[] baseSlide = slide(baseScalar);
+		if(negateBase)
+		{
+			for(int i=0; i<256; i++)
+			{
+				baseSlide[i] = (byte) -baseSlide[i];
+			}
+		}
+		
+		//ODD MULTIPLES OF EVERY POINT
+		P1P1 t = new P1P1();
+		P3 u = new P3();
+		Cached[][] tables = new Cached[count][];
+		for(int k=0; k<count; k++)
+		{
+			Cached[] table = new Cached[8];
+			table[0] = new Cached();
+			toCached(table[0], points[k]);
+			
+			P3 doublePoint = new P3();
+			dbl(t, points[k]);
+			toP3(doublePoint, t);
+			
+			for(int i=0; i<7; i++)
+			{
+				add(t, doublePoint, table[i]);
+				toP3(u, t);
+				table[i + 1] = new Cached();
+				toCached(table[i + 1], u);
+			}
+			
+			tables[k] = table;
+		}
+		
+		P2 r = new P2();
+		Ed25519Field.one(r.y);
+		Ed25519Field.one(r.z);
+		
+		//FIND HIGHEST NONZERO DIGIT
+		int i = 255;
+		for(; i>=0; i--)
+		{
+			if(baseSlide[i] != 0)
+			{
+				break;
+			}
+			
+			boolean found = false;
+			for(int k=0; k<count; k++)
+			{
+				if(slides[k][i] != 0)
+				{
+					found = true;
+					break;
+				}
+			}
+			
+			if(found)
+			{
+				break;
+			}
+		}
+		
+		for(; i>=0; i--)
+		{
+			dbl(t, r);
+			
+			for(int k=0; k<count; k++)
+			{
+				int digit = slides[k][i];
+				if(digit > 0)
+				{
+					toP3(u, t);
+					add(t, u, tables[k][digit / 2]);
+				}
+				else if(digit < 0)
+				{
+					toP3(u, t);
+					sub(t, u, tables[k][(-digit) / 2]);
+				}
+			}
+			
+			int digit = baseSlide[i];
+			if(digit > 0)
+			{
+				toP3(u, t);
+				madd(t, u, BASE_ODD_MULTIPLES[digit / 2]);
+			}
+			else if(digit < 0)
+			{
+				toP3(u, t);
+				msub(t, u, BASE_ODD_MULTIPLES[(-digit) / 2]);
+			}
+			
+			toP2(r, t);
+		}
+		
+		return r;
+	}
+	
+	//SIGNED ODD DIGITS IN [-15, 15] WITH AT LEAST 4 ZEROS BETWEEN NONZERO DIGITS
+	private static byte[] slide(byte[] a)
+	{
+		byte[] r = new byte[256];
+		for(int i=0; i<256; i++)
+		{
+			r[i] = (byte) (1 & (a[i >> 3] >> (i & 7)));
+		}
+		
+		for(int i=0; i<256; i++)
+		{
+			if(r[i] != 0)
+			{
+				for(int b=1; b<=6 && i+b<256; b++)
+				{
+					if(r[i + b] != 0)
+					{
+						if(r[i] + (r[i + b] << b) <= 15)
+						{
+							r[i] += r[i + b] << b;
+							r[i + b] = 0;
+						}
+						else if(r[i] - (r[i + b] << b) >= -15)
+						{
+							r[i] -= r[i + b] << b;
+							for(int k=i+b; k<256; k++)
+							{
+								if(r[k] == 0)
+								{
+									r[k] = 1;
+									break;
+								}
+								r[k] = 0;
+							}
+						}
+						else
+						{
+							break;
+						}
+					}
+				}
+			}
+		}
+		
+		return r;
+	}
+	
+	//SCALARS MODULO L
+	
+	//REDUCE A 64 BYTE LITTLE ENDIAN VALUE
+	static byte[] reduce(byte[] s)
+	{
+		long[] x = new long[64];
+		for(int i=0; i<64; i++)
+		{
+			x[i] = s[i] & 0xff;
+		}
+		
+		byte[] r = new byte[32];
+		modL(r, x);
+		return r;
+	}
+	
+	//A * B + C
+	static byte[] mulAdd(byte[] a, byte[] b, byte[] c)
+	{
+		long[] x = new long[64];
+		for(int i=0; i<32; i++)
+		{
+			x[i] = c[i] & 0xff;
+		}
+		for(int i=0; i<32; i++)
+		{
+			for(int j=0; j<32; j++)
+			{
+				x[i + j] += (a[i] & 0xff) * (long) (b[j] & 0xff);
+			}
+		}
+		
+		byte[] r = new byte[32];
+		modL(r, x);
+		return r;
+	}
+	
+	private static void modL(byte[] r, long[] x)
+	{
+		long carry;
+		int j;
+		for(int i=63; i>=32; i--)
+		{
+			carry = 0;
+			for(j=i-32; j<i-12; j++)
+			{
+				x[j] += carry - 16 * x[i] * L[j - (i - 32)];
+				carry = (x[j] + 128) >> 8;
+				x[j] -= carry << 8;
+			}
+			x[j] += carry;
+			x[i] = 0;
+		}
+		
+		carry = 0;
+		for(j=0; j<32; j++)
+		{
+			x[j] += carry - (x[31] >> 4) * L[j];
+			carry = x[j] >> 8;
+			x[j] &= 255;
+		}
+		for(j=0; j<32; j++)
+		{
+			x[j] -= carry * L[j];
+		}
+		for(int i=0; i<32; i++)
+		{
+			x[i + 1] += x[i] >> 8;
+			r[i] = (byte) (x[i] & 255);
+		}
+	}
+	
+	private static long[] fieldElement(BigInteger value)
+	{
+		byte[] bigEndian = value.toByteArray();
+		byte[] littleEndian = new byte[32];
+		for(int i=0; i<bigEndian.length && i<32; i++)
+		{
+			littleEndian[i] = bigEndian[bigEndian.length - 1 - i];
+		}
+		
+		long[] h = Ed25519Field.create();
+		Ed25519Field.fromBytes(h, littleEndian, 0);
+		return h;
+	}
+}
@@ -0,0 +1,103 @@
+package qora.crypto;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+import qora.crypto.Ed25519Group.P2;
+import qora.crypto.Ed25519Group.P3;
+import utils.Pair;
+
+public class JavaEd25519Engine implements Ed25519Engine {
+	
+	public static final String NAME = "java";
+	
+	@Override
+	public String getName()
+	{
+		return NAME;
+	}
+	
+	@Override
+	public Pair<byte[], byte[]> createKeyPair(byte[] seed)
+	{
+		//EXPAND AND CLAMP SEED
+		byte[] privateKey = sha512(seed);
+		privateKey[0] &= 248;
+		privateKey[31] &= 63;
+		privateKey[31] |= 64;
+		
+		//PUBLIC KEY IS A * B
+		byte[] publicKey = Ed25519Group.encode(Ed25519Group.scalarMultBase(privateKey));
+		
+		return new Pair<byte[], byte[]>(privateKey, publicKey);
+	}
+	
+	@Override
+	public byte[] sign(Pair<byte[], byte[]> keyPair, byte[] message)
+	{
+		byte[] privateKey = keyPair.getA();
+		byte[] publicKey = keyPair.getB();
+		
+		//NONCE FROM SECOND HALF OF PRIVATE KEY
+		byte[] r = Ed25519Group.reduce(sha512(Arrays.copyOfRange(privateKey, 32, 64), message));
+		byte[] encodedR = Ed25519Group.encode(Ed25519Group.scalarMultBase(r));
+		
+		//S = H(R, A, M) * A + R
+		byte[] h = Ed25519Group.reduce(sha512(encodedR, publicKey, message));
+		byte[] s = Ed25519Group.mulAdd(h, Arrays.copyOfRange(privateKey, 0, 32), r);
+		
+		byte[] signature = new byte[64];
+		System.arraycopy(encodedR, 0, signature, 0, 32);
+		System.arraycopy(s, 0, signature, 32, 32);
+		return signature;
+	}
+	
+	@Override
+	public boolean verify(byte[] signature, byte[] message, byte[] publicKey)
+	{
+		if(!isWellFormed(signature, publicKey))
+		{
+			return false;
+		}
+		
+		//DECODE PUBLIC KEY
+		P3 a = Ed25519Group.decode(publicKey, 0);
+		if(a == null)
+		{
+			return false;
+		}
+		
+		//CHECK S * B - H * A == R
+		byte[] encodedR = Arrays.copyOfRange(signature, 0, 32);
+		byte[] h = Ed25519Group.reduce(sha512(encodedR, publicKey, message));
+		byte[] s = Arrays.copyOfRange(signature, 32, 64);
+		
+		P2 check = Ed25519Group.multiScalarMultVartime(new P3[]{Ed25519Group.negate(a)}, new byte[][]{h}, s, false);
+		
+		return Arrays.equals(Ed25519Group.encode(check), encodedR);
+	}
+	
+	private static boolean isWellFormed(byte[] signature, byte[] publicKey)
+	{
+		//SAME RANGE CHECK ON S AS THE NATIVE LIBRARY
+		return signature != null && signature.length == 64 && publicKey != null && publicKey.length == 32 && (signature[63] & 224) == 0;
+	}
+	
+	private static byte[] sha512(byte[]... inputs)
+	{
+		try
+		{
+			MessageDigest sha512 = MessageDigest.getInstance("SHA-512");
+			for(byte[] input: inputs)
+			{
+				sha512.update(input);
+			}
+			return sha512.digest();
+		}
+		catch (NoSuchAlgorithmException e)
+		{
+			return null;
+		}
+	}
+}
@@ -0,0 +1,32 @@
+package qora.crypto;
+
+import utils.Pair;
+
+public class NativeEd25519Engine implements Ed25519Engine {
+	
+	public static final String NAME = "native";
+	
+	@Override
+	public String getName()
+	{
+		return NAME;
+	}
+	
+	@Override
+	public Pair<byte[], byte[]> createKeyPair(byte[] seed)
+	{
+		return Ed25519.createKeyPair(seed);
+	}
+	
+	@Override
+	public byte[] sign(Pair<byte[], byte[]> keyPair, byte[] message)
+	{
+		return Ed25519.sign(keyPair, message);
+	}
+	
+	@Override
+	public boolean verify(byte[] signature, byte[] message, byte[] publicKey)
+	{
+		return Ed25519.verify(signature, message, publicKey);
+	}
+}
@@ -0,0 +1,86 @@
+package qora.crypto;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+
+import settings.Settings;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.primitives.Bytes;
+
+public class SignatureCache {
+	
+	private static SignatureCache instance;
+	
+	private Cache<ByteBuffer, Boolean> verified;
+	private AtomicLong hits;
+	private AtomicLong misses;
+	
+	public static synchronized SignatureCache getInstance()
+	{
+		if(instance == null)
+		{
+			instance = new SignatureCache(Settings.getInstance().getSignatureCacheSize());
+		}
+		
+		return instance;
+	}
+	
+	public SignatureCache(int size)
+	{
+		this.verified = CacheBuilder.newBuilder().maximumSize(size).build();
+		this.hits = new AtomicLong();
+		this.misses = new AtomicLong();
+	}
+	
+	public boolean verify(byte[] publicKey, byte[] signature, byte[] message)
+	{
+		if(publicKey == null || signature == null || message == null)
+		{
+			return Crypto.getInstance().verify(publicKey, signature, message);
+		}
+		
+		//KEY IS SIGNATURE + DIGEST OF PUBLIC KEY AND SIGNED DATA
+		ByteBuffer key = ByteBuffer.wrap(Bytes.concat(signature, Crypto.getInstance().digest(Bytes.concat(publicKey, message))));
+		
+		//CHECK IF ALREADY VERIFIED
+		if(this.verified.getIfPresent(key) != null)
+		{
+			this.hits.incrementAndGet();
+			return true;
+		}
+		
+		this.misses.incrementAndGet();
+		
+		//VERIFY
+		if(!Crypto.getInstance().verify(publicKey, signature, message))
+		{
+			//INVALID SIGNATURES ARE NOT CACHED
+			return false;
+		}
+		
+		this.verified.put(key, true);
+		return true;
+	}
+	
+	public long getHits()
+	{
+		return this.hits.get();
+	}
+	
+	public long getMisses()
+	{
+		return this.misses.get();
+	}
+	
+	public long size()
+	{
+		return this.verified.size();
+	}
+	
+	public void clear()
+	{
+		this.verified.invalidateAll();
+	}
+}
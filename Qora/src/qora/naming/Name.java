@@ -1,16 +1,14 @@
 package qora.naming;
 
 import java.nio.charset.StandardCharsets;
-import java.util.Arrays;
+import java.nio.ByteBuffer;
 
 import org.json.simple.JSONObject;
 
-import com.google.common.primitives.Bytes;
-import com.google.common.primitives.Ints;
-
 import database.DBSet;
 import qora.account.Account;
-import qora.crypto.Base58;
+
+import utils.Codec;
 
 public class Name {
 
@@ -65,40 +63,33 @@ public class Name {
 	
 	public static Name Parse(byte[] data) throws Exception
 	{	
-		int position = 0;
-		
+		return Parse(ByteBuffer.wrap(data));
+	}
+	
+	public static Name Parse(ByteBuffer buffer) throws Exception
+	{	
 		//READ OWNER
-		byte[] ownerBytes = Arrays.copyOfRange(data, position, position + OWNER_LENGTH);
-		Account owner = new Account(Base58.encode(ownerBytes));
-		position += OWNER_LENGTH;
+		Account owner = new Account(Codec.getAddress(buffer));
 		
 		//READ NAME
-		byte[] nameLengthBytes = Arrays.copyOfRange(data, position, position + NAME_SIZE_LENGTH);
-		int nameLength = Ints.fromByteArray(nameLengthBytes);
-		position += NAME_SIZE_LENGTH;
+		int nameLength = buffer.getInt();
 		
 		if(nameLength < 1 || nameLength > 400)
 		{
 			throw new Exception("Invalid name length");
 		}
 		
-		byte[] nameBytes = Arrays.copyOfRange(data, position, position + nameLength);
-		String name = new String(nameBytes, StandardCharsets.UTF_8);
-		position += nameLength;
+		String name = Codec.getString(buffer, nameLength);
 		
 		//READ VALUE
-		byte[] valueLengthBytes = Arrays.copyOfRange(data, position, position + VALUE_SIZE_LENGTH);
-		int valueLength = Ints.fromByteArray(valueLengthBytes);
-		position += VALUE_SIZE_LENGTH;
+		int valueLength = buffer.getInt();
 		
 		if(valueLength < 1 || valueLength > 4000)
 		{
 			throw new Exception("Invalid value length");
 		}
 		
-		byte[] valueBytes = Arrays.copyOfRange(data, position, position + valueLength);
-		String value = new String(valueBytes, StandardCharsets.UTF_8);
-		position += valueLength;
+		String value = Codec.getString(buffer, valueLength);
 		
 		return new Name(owner, name, value);
 	}
@@ -119,37 +110,21 @@ public class Name {
 	
 	public byte[] toBytes()
 	{
-		byte[] data = new byte[0];
-		
+		ByteBuffer buffer = ByteBuffer.allocate(this.getDataLength());
+		this.toBytes(buffer);
+		return Codec.toArray(buffer);
+	}
+	
+	public void toBytes(ByteBuffer buffer)
+	{
 		//WRITE OWNER
-		try
-		{
-			data = Bytes.concat(data , Base58.decode(this.owner.getAddress()));
-		}
-		catch(Exception e)
-		{
-			//DECODE EXCEPTION
-		}
-		
-		//WRITE NAME SIZE
-		byte[] nameBytes = this.name.getBytes(StandardCharsets.UTF_8);
-		int nameLength = nameBytes.length;
-		byte[] nameLengthBytes = Ints.toByteArray(nameLength);
-		data = Bytes.concat(data, nameLengthBytes);
-		
-		//WRITE NAME
-		data = Bytes.concat(data, nameBytes);
+		Codec.putAddress(buffer, this.owner.getAddress());
 		
-		//WRITE VALUE SIZE
-		byte[] valueBytes = this.value.getBytes(StandardCharsets.UTF_8);
-		int valueLength = valueBytes.length;
-		byte[] valueLengthBytes = Ints.toByteArray(valueLength);
-		data = Bytes.concat(data, valueLengthBytes);
-				
-		//WRITE VALUE
-		data = Bytes.concat(data, valueBytes);
+		//WRITE NAME SIZE + NAME
+		Codec.putString(buffer, this.name);
 		
-		return data;
+		//WRITE VALUE SIZE + VALUE
+		Codec.putString(buffer, this.value);
 	}
 
 	public int getDataLength() 
@@ -1,17 +1,15 @@
 package qora.naming;
 
 import java.math.BigDecimal;
-import java.math.BigInteger;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
-import java.util.Arrays;
 
 import org.json.simple.JSONObject;
 
-import com.google.common.primitives.Bytes;
-import com.google.common.primitives.Ints;
-
 import database.DBSet;
 
+import utils.Codec;
+
 public class NameSale 
 {
 	private static final int NAME_SIZE_LENGTH = 4;
@@ -52,26 +50,23 @@ public class NameSale
 	
 	public static NameSale Parse(byte[] data) throws Exception
 	{	
-		int position = 0;
-		
+		return Parse(ByteBuffer.wrap(data));
+	}
+	
+	public static NameSale Parse(ByteBuffer buffer) throws Exception
+	{	
 		//READ NAME
-		byte[] nameLengthBytes = Arrays.copyOfRange(data, position, position + NAME_SIZE_LENGTH);
-		int nameLength = Ints.fromByteArray(nameLengthBytes);
-		position += NAME_SIZE_LENGTH;
-				
+		int nameLength = buffer.getInt();
+		
 		if(nameLength < 1 || nameLength > 400)
 		{
 			throw new Exception("Invalid name length");
 		}
-				
-		byte[] nameBytes = Arrays.copyOfRange(data, position, position + nameLength);
-		String nameName = new String(nameBytes, StandardCharsets.UTF_8);
-		position += nameLength;
+		
+		String nameName = Codec.getString(buffer, nameLength);
 		
 		//READ AMOUNT
-		byte[] amountBytes = Arrays.copyOfRange(data, position, position + AMOUNT_LENGTH);
-		BigDecimal amount = new BigDecimal(new BigInteger(amountBytes), 8);
-		position += AMOUNT_LENGTH;
+		BigDecimal amount = Codec.getAmount(buffer, AMOUNT_LENGTH);
 		
 		return new NameSale(nameName, amount);
 	}
@@ -92,24 +87,18 @@ public class NameSale
 	
 	public byte[] toBytes()
 	{
-		byte[] data = new byte[0];
-		
-		//WRITE NAME SIZE
-		byte[] nameBytes = this.key.getBytes(StandardCharsets.UTF_8);
-		int nameLength = nameBytes.length;
-		byte[] nameLengthBytes = Ints.toByteArray(nameLength);
-		data = Bytes.concat(data, nameLengthBytes);
-		
-		//WRITE NAME
-		data = Bytes.concat(data, nameBytes);
+		ByteBuffer buffer = ByteBuffer.allocate(this.getDataLength());
+		this.toBytes(buffer);
+		return Codec.toArray(buffer);
+	}
+	
+	public void toBytes(ByteBuffer buffer)
+	{
+		//WRITE NAME SIZE + NAME
+		Codec.putString(buffer, this.key);
 		
 		//WRITE AMOUNT
-		byte[] amountBytes = this.amount.unscaledValue().toByteArray();
-		byte[] fill = new byte[AMOUNT_LENGTH - amountBytes.length];
-		amountBytes = Bytes.concat(fill, amountBytes);
-		data = Bytes.concat(data, amountBytes);
-		
-		return data;
+		Codec.putAmount(buffer, this.amount, AMOUNT_LENGTH);
 	}
 	
 	public int getDataLength()
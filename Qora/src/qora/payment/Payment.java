@@ -1,18 +1,15 @@
  package qora.payment;
 
 import java.math.BigDecimal;
-import java.math.BigInteger;
-import java.util.Arrays;
+import java.nio.ByteBuffer;
 
 import org.json.simple.JSONObject;
 
-import com.google.common.primitives.Bytes;
-import com.google.common.primitives.Longs;
-
 import database.DBSet;
 import qora.account.Account;
 import qora.account.PublicKeyAccount;
-import qora.crypto.Base58;
+
+import utils.Codec;
 
 public class Payment {
 
@@ -53,22 +50,19 @@ public class Payment {
 	
 	public static Payment parse(byte[] data) throws Exception
 	{	
-		int position = 0;
-		
+		return parse(ByteBuffer.wrap(data));
+	}
+	
+	public static Payment parse(ByteBuffer buffer) throws Exception
+	{	
 		//READ RECIPIENT
-		byte[] recipientBytes = Arrays.copyOfRange(data, position, position + RECIPIENT_LENGTH);
-		Account recipient = new Account(Base58.encode(recipientBytes));
-		position += RECIPIENT_LENGTH;
+		Account recipient = new Account(Codec.getAddress(buffer));
 		
 		//READ ASSET
-		byte[] assetBytes = Arrays.copyOfRange(data, position, position + ASSET_LENGTH);
-		long asset = Longs.fromByteArray(assetBytes);	
-		position += ASSET_LENGTH;
+		long asset = buffer.getLong();
 		
 		//READ AMOUNT
-		byte[] amountBytes = Arrays.copyOfRange(data, position, position + AMOUNT_LENGTH);
-		BigDecimal amount = new BigDecimal(new BigInteger(amountBytes), 8);
-		position += AMOUNT_LENGTH;
+		BigDecimal amount = Codec.getAmount(buffer, AMOUNT_LENGTH);
 		
 		return new Payment(recipient, asset, amount);
 	}
@@ -89,23 +83,21 @@ public class Payment {
 	
 	public byte[] toBytes()
 	{
-		byte[] data = new byte[0];
-		
+		ByteBuffer buffer = ByteBuffer.allocate(this.getDataLength());
+		this.toBytes(buffer);
+		return Codec.toArray(buffer);
+	}
+	
+	public void toBytes(ByteBuffer buffer)
+	{
 		//WRITE RECIPIENT
-		data = Bytes.concat(data, Base58.decode(this.recipient.getAddress()));
+		Codec.putAddress(buffer, this.recipient.getAddress());
 		
 		//WRITE ASSET
-		byte[] assetBytes = Longs.toByteArray(this.asset);
-		assetBytes = Bytes.ensureCapacity(assetBytes, ASSET_LENGTH, 0);
-		data = Bytes.concat(data, assetBytes);
+		buffer.putLong(this.asset);
 		
 		//WRITE AMOUNT
-		byte[] amountBytes = this.amount.unscaledValue().toByteArray();
-		byte[] fill = new byte[AMOUNT_LENGTH - amountBytes.length];
-		amountBytes = Bytes.concat(fill, amountBytes);
-		data = Bytes.concat(data, amountBytes);
-		
-		return data;
+		Codec.putAmount(buffer, this.amount, AMOUNT_LENGTH);
 	}
 	
 	public int getDataLength() 
@@ -1,7 +1,7 @@
 package qora.transaction;
 
 import java.math.BigDecimal;
-import java.math.BigInteger;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -10,17 +10,16 @@ import ntp.NTP;
 
 import org.json.simple.JSONObject;
 
-import com.google.common.primitives.Bytes;
-import com.google.common.primitives.Ints;
-import com.google.common.primitives.Longs;
-
 import qora.account.Account;
 import qora.account.PrivateKeyAccount;
 import qora.account.PublicKeyAccount;
 import qora.crypto.Base58;
 import qora.crypto.Crypto;
+import qora.crypto.SignatureCache;
 import database.DBSet;
 
+import utils.Codec;
+
 public class ArbitraryTransaction extends Transaction
 {
 	private static final int CREATOR_LENGTH = 32;
@@ -59,50 +58,38 @@ public class ArbitraryTransaction extends Transaction
 	//PARSE CONVERT
 	
 	public static Transaction Parse(byte[] data) throws Exception
-	{	
+	{
 		//CHECK IF WE MATCH BLOCK LENGTH
 		if(data.length < BASE_LENGTH)
 		{
 			throw new Exception("Data does not match block length");
 		}
 		
-		int position = 0;
+		ByteBuffer buffer = ByteBuffer.wrap(data);
 		
 		//READ TIMESTAMP
-		byte[] timestampBytes = Arrays.copyOfRange(data, position, position + TIMESTAMP_LENGTH);
-		long timestamp = Longs.fromByteArray(timestampBytes);	
-		position += TIMESTAMP_LENGTH;
+		long timestamp = buffer.getLong();
 		
 		//READ REFERENCE
-		byte[] reference = Arrays.copyOfRange(data, position, position + REFERENCE_LENGTH);
-		position += REFERENCE_LENGTH;
+		byte[] reference = Codec.getBytes(buffer, REFERENCE_LENGTH);
 		
 		//READ CREATOR
-		byte[] creatorBytes = Arrays.copyOfRange(data, position, position + CREATOR_LENGTH);
-		PublicKeyAccount creator = new PublicKeyAccount(creatorBytes);
-		position += CREATOR_LENGTH;
+		PublicKeyAccount creator = new PublicKeyAccount(Codec.getBytes(buffer, CREATOR_LENGTH));
 		
 		//READ SERVICE
-		byte[] serviceBytes = Arrays.copyOfRange(data, position, position + SERVICE_LENGTH);
-		int service = Ints.fromByteArray(serviceBytes);	
-		position += SERVICE_LENGTH;
+		int service = buffer.getInt();
 		
 		//READ DATA SIZE
-		byte[] dataSizeBytes = Arrays.copyOfRange(data, position, position + DATA_SIZE_LENGTH);
-		int dataSize = Ints.fromByteArray(dataSizeBytes);	
-		position += DATA_SIZE_LENGTH;
+		int dataSize = buffer.getInt();
 		
 		//READ DATA
-		byte[] arbitraryData = Arrays.copyOfRange(data, position, position + dataSize);
-		position += dataSize;
+		byte[] arbitraryData = Codec.getBytes(buffer, dataSize);
 		
 		//READ FEE
-		byte[] feeBytes = Arrays.copyOfRange(data, position, position + FEE_LENGTH);
-		BigDecimal fee = new BigDecimal(new BigInteger(feeBytes), 8);
-		position += FEE_LENGTH;		
+		BigDecimal fee = Codec.getAmount(buffer, FEE_LENGTH);
 		
 		//READ SIGNATURE
-		byte[] signatureBytes = Arrays.copyOfRange(data, position, position + SIGNATURE_LENGTH);
+		byte[] signatureBytes = Codec.getBytes(buffer, SIGNATURE_LENGTH);
 		
 		return new ArbitraryTransaction(creator, service, arbitraryData, fee, timestamp, reference, signatureBytes);
 	}	
@@ -123,47 +110,37 @@ public class ArbitraryTransaction extends Transaction
 	}
 
 	@Override
-	public byte[] toBytes() 
+	protected void toBytes(ByteBuffer buffer, boolean includeSignature) 
 	{
-		byte[] data = new byte[0];
-		
 		//WRITE TYPE
-		byte[] typeBytes = Ints.toByteArray(ARBITRARY_TRANSACTION);
-		typeBytes = Bytes.ensureCapacity(typeBytes, TYPE_LENGTH, 0);
-		data = Bytes.concat(data, typeBytes);
+		buffer.putInt(ARBITRARY_TRANSACTION);
 		
 		//WRITE TIMESTAMP
-		byte[] timestampBytes = Longs.toByteArray(this.timestamp);
-		timestampBytes = Bytes.ensureCapacity(timestampBytes, TIMESTAMP_LENGTH, 0);
-		data = Bytes.concat(data, timestampBytes);
+		buffer.putLong(this.timestamp);
 		
 		//WRITE REFERENCE
-		data = Bytes.concat(data, this.reference);
+		buffer.put(this.reference);
 		
 		//WRITE CREATOR
-		data = Bytes.concat(data, this.creator.getPublicKey());
+		buffer.put(this.creator.getPublicKey());
 		
 		//WRITE SERVICE
-		byte[] serviceBytes = Ints.toByteArray(this.service);
-		data = Bytes.concat(data, serviceBytes);
+		buffer.putInt(this.service);
 		
 		//WRITE DATA SIZE
-		byte[] dataSizeBytes = Ints.toByteArray(this.data.length);
-		data = Bytes.concat(data, dataSizeBytes);
+		buffer.putInt(this.data.length);
 		
 		//WRITE DATA
-		data = Bytes.concat(data, this.data);
+		buffer.put(this.data);
 		
 		//WRITE FEE
-		byte[] feeBytes = this.fee.unscaledValue().toByteArray();
-		byte[] fill = new byte[FEE_LENGTH - feeBytes.length];
-		feeBytes = Bytes.concat(fill, feeBytes);
-		data = Bytes.concat(data, feeBytes);
-
-		//SIGNATURE
-		data = Bytes.concat(data, this.signature);
+		Codec.putAmount(buffer, this.fee, FEE_LENGTH);
 		
-		return data;	
+		//SIGNATURE
+		if(includeSignature)
+		{
+			buffer.put(this.signature);
+		}
 	}
 
 	@Override
@@ -174,45 +151,9 @@ public class ArbitraryTransaction extends Transaction
 	
 	//VALIDATE
 
-	@Override
-	public boolean isSignatureValid() 
+	public boolean isSignatureValid()
 	{
-		byte[] data = new byte[0];
-		
-		//WRITE TYPE
-		byte[] typeBytes = Ints.toByteArray(ARBITRARY_TRANSACTION);
-		typeBytes = Bytes.ensureCapacity(typeBytes, TYPE_LENGTH, 0);
-		data = Bytes.concat(data, typeBytes);
-		
-		//WRITE TIMESTAMP
-		byte[] timestampBytes = Longs.toByteArray(this.timestamp);
-		timestampBytes = Bytes.ensureCapacity(timestampBytes, TIMESTAMP_LENGTH, 0);
-		data = Bytes.concat(data, timestampBytes);
-		
-		//WRITE REFERENCE
-		data = Bytes.concat(data, this.reference);
-		
-		//WRITE CREATOR
-		data = Bytes.concat(data, this.creator.getPublicKey());
-		
-		//WRITE SERVICE
-		byte[] serviceBytes = Ints.toByteArray(this.service);
-		data = Bytes.concat(data, serviceBytes);
-		
-		//WRITE DATA SIZE
-		byte[] dataSizeBytes = Ints.toByteArray(this.data.length);
-		data = Bytes.concat(data, dataSizeBytes);
-		
-		//WRITE DATA
-		data = Bytes.concat(data, this.data);
-		
-		//WRITE FEE
-		byte[] feeBytes = this.fee.unscaledValue().toByteArray();
-		byte[] fill = new byte[FEE_LENGTH - feeBytes.length];
-		feeBytes = Bytes.concat(fill, feeBytes);
-		data = Bytes.concat(data, feeBytes);
-		
-		return Crypto.getInstance().verify(this.creator.getPublicKey(), this.signature, data);
+		return SignatureCache.getInstance().verify(this.creator.getPublicKey(), this.signature, this.getSignatureData());
 	}
 
 	@Override
@@ -317,41 +258,8 @@ public class ArbitraryTransaction extends Transaction
 	
 	public static byte[] generateSignature(DBSet db, PrivateKeyAccount creator, int service, byte[] arbitraryData, BigDecimal fee, long timestamp) 
 	{
-		byte[] data = new byte[0];
-		
-		//WRITE TYPE
-		byte[] typeBytes = Ints.toByteArray(ARBITRARY_TRANSACTION);
-		typeBytes = Bytes.ensureCapacity(typeBytes, TYPE_LENGTH, 0);
-		data = Bytes.concat(data, typeBytes);
-		
-		//WRITE TIMESTAMP
-		byte[] timestampBytes = Longs.toByteArray(timestamp);
-		timestampBytes = Bytes.ensureCapacity(timestampBytes, TIMESTAMP_LENGTH, 0);
-		data = Bytes.concat(data, timestampBytes);
-		
-		//WRITE REFERENCE
-		data = Bytes.concat(data, creator.getLastReference(db));
-		
-		//WRITE CREATOR
-		data = Bytes.concat(data, creator.getPublicKey());
-		
-		//WRITE SERVICE
-		byte[] serviceBytes = Ints.toByteArray(service);
-		data = Bytes.concat(data, serviceBytes);
-		
-		//WRITE DATA SIZE
-		byte[] dataSizeBytes = Ints.toByteArray(arbitraryData.length);
-		data = Bytes.concat(data, dataSizeBytes);
-		
-		//WRITE DATA
-		data = Bytes.concat(data, arbitraryData);
-		
-		//WRITE FEE
-		byte[] feeBytes = fee.unscaledValue().toByteArray();
-		byte[] fill = new byte[FEE_LENGTH - feeBytes.length];
-		feeBytes = Bytes.concat(fill, feeBytes);
-		data = Bytes.concat(data, feeBytes);
+		ArbitraryTransaction transaction = new ArbitraryTransaction(creator, service, arbitraryData, fee, timestamp, creator.getLastReference(db), null);
 		
-		return Crypto.getInstance().sign(creator, data);
+		return Crypto.getInstance().sign(creator, transaction.getSignatureData());
 	}
 }
@@ -1,7 +1,7 @@
 package qora.transaction;
 
 import java.math.BigDecimal;
-import java.math.BigInteger;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -9,19 +9,17 @@ import java.util.List;
 
 import org.json.simple.JSONObject;
 
-import com.google.common.primitives.Bytes;
-import com.google.common.primitives.Ints;
-import com.google.common.primitives.Longs;
-
 import qora.account.Account;
 import qora.account.PrivateKeyAccount;
 import qora.account.PublicKeyAccount;
-import qora.crypto.Base58;
 import qora.crypto.Crypto;
+import qora.crypto.SignatureCache;
 import qora.naming.Name;
 import qora.naming.NameSale;
 import database.DBSet;
 
+import utils.Codec;
+
 public class BuyNameTransaction extends Transaction
 {
 	private static final int BUYER_LENGTH = 32;
@@ -63,45 +61,35 @@ public class BuyNameTransaction extends Transaction
 	//PARSE CONVERT
 	
 	public static Transaction Parse(byte[] data) throws Exception
-	{	
+	{
 		//CHECK IF WE MATCH BLOCK LENGTH
 		if(data.length < BASE_LENGTH)
 		{
 			throw new Exception("Data does not match block length");
 		}
 		
-		int position = 0;
+		ByteBuffer buffer = ByteBuffer.wrap(data);
 		
 		//READ TIMESTAMP
-		byte[] timestampBytes = Arrays.copyOfRange(data, position, position + TIMESTAMP_LENGTH);
-		long timestamp = Longs.fromByteArray(timestampBytes);	
-		position += TIMESTAMP_LENGTH;
+		long timestamp = buffer.getLong();
 		
 		//READ REFERENCE
-		byte[] reference = Arrays.copyOfRange(data, position, position + REFERENCE_LENGTH);
-		position += REFERENCE_LENGTH;
+		byte[] reference = Codec.getBytes(buffer, REFERENCE_LENGTH);
 		
 		//READ BUYER
-		byte[] buyerBytes = Arrays.copyOfRange(data, position, position + BUYER_LENGTH);
-		PublicKeyAccount buyer = new PublicKeyAccount(buyerBytes);
-		position += BUYER_LENGTH;
+		PublicKeyAccount buyer = new PublicKeyAccount(Codec.getBytes(buffer, BUYER_LENGTH));
 		
 		//READ NAMESALE
-		NameSale nameSale = NameSale.Parse(Arrays.copyOfRange(data, position, data.length));
-		position += nameSale.getDataLength();
+		NameSale nameSale = NameSale.Parse(buffer);
 		
 		//READ SELLER
-		byte[] recipientBytes = Arrays.copyOfRange(data, position, position + SELLER_LENGTH);
-		Account seller = new Account(Base58.encode(recipientBytes));
-		position += SELLER_LENGTH;
+		Account seller = new Account(Codec.getAddress(buffer));
 		
 		//READ FEE
-		byte[] feeBytes = Arrays.copyOfRange(data, position, position + FEE_LENGTH);
-		BigDecimal fee = new BigDecimal(new BigInteger(feeBytes), 8);
-		position += FEE_LENGTH;		
+		BigDecimal fee = Codec.getAmount(buffer, FEE_LENGTH);
 		
 		//READ SIGNATURE
-		byte[] signatureBytes = Arrays.copyOfRange(data, position, position + SIGNATURE_LENGTH);
+		byte[] signatureBytes = Codec.getBytes(buffer, SIGNATURE_LENGTH);
 		
 		return new BuyNameTransaction(buyer, nameSale, seller, fee, timestamp, reference, signatureBytes);
 	}	
@@ -123,42 +111,34 @@ public class BuyNameTransaction extends Transaction
 	}
 
 	@Override
-	public byte[] toBytes() 
+	protected void toBytes(ByteBuffer buffer, boolean includeSignature) 
 	{
-		byte[] data = new byte[0];
-		
 		//WRITE TYPE
-		byte[] typeBytes = Ints.toByteArray(BUY_NAME_TRANSACTION);
-		typeBytes = Bytes.ensureCapacity(typeBytes, TYPE_LENGTH, 0);
-		data = Bytes.concat(data, typeBytes);
+		buffer.putInt(BUY_NAME_TRANSACTION);
 		
 		//WRITE TIMESTAMP
-		byte[] timestampBytes = Longs.toByteArray(this.timestamp);
-		timestampBytes = Bytes.ensureCapacity(timestampBytes, TIMESTAMP_LENGTH, 0);
-		data = Bytes.concat(data, timestampBytes);
+		buffer.putLong(this.timestamp);
 		
 		//WRITE REFERENCE
-		data = Bytes.concat(data, this.reference);
+		buffer.put(this.reference);
 		
 		//WRITE BUYER
-		data = Bytes.concat(data, this.buyer.getPublicKey());
+		buffer.put(this.buyer.getPublicKey());
 		
-		//WRITE NAME SALE
-		data = Bytes.concat(data, this.nameSale.toBytes());
+		//WRITE NAMESALE
+		this.nameSale.toBytes(buffer);
 		
 		//WRITE SELLER
-		data = Bytes.concat(data, Base58.decode(this.seller.getAddress()));
+		Codec.putAddress(buffer, this.seller.getAddress());
 		
 		//WRITE FEE
-		byte[] feeBytes = this.fee.unscaledValue().toByteArray();
-		byte[] fill = new byte[FEE_LENGTH - feeBytes.length];
-		feeBytes = Bytes.concat(fill, feeBytes);
-		data = Bytes.concat(data, feeBytes);
-
-		//SIGNATURE
-		data = Bytes.concat(data, this.signature);
+		Codec.putAmount(buffer, this.fee, FEE_LENGTH);
 		
-		return data;	
+		//SIGNATURE
+		if(includeSignature)
+		{
+			buffer.put(this.signature);
+		}
 	}
 
 	@Override
@@ -169,40 +149,9 @@ public class BuyNameTransaction extends Transaction
 	
 	//VALIDATE
 
-	@Override
-	public boolean isSignatureValid() 
+	public boolean isSignatureValid()
 	{
-		byte[] data = new byte[0];
-		
-		//WRITE TYPE
-		byte[] typeBytes = Ints.toByteArray(BUY_NAME_TRANSACTION);
-		typeBytes = Bytes.ensureCapacity(typeBytes, TYPE_LENGTH, 0);
-		data = Bytes.concat(data, typeBytes);
-		
-		//WRITE TIMESTAMP
-		byte[] timestampBytes = Longs.toByteArray(this.timestamp);
-		timestampBytes = Bytes.ensureCapacity(timestampBytes, TIMESTAMP_LENGTH, 0);
-		data = Bytes.concat(data, timestampBytes);
-		
-		//WRITE REFERENCE
-		data = Bytes.concat(data, this.reference);
-		
-		//WRITE BUYER
-		data = Bytes.concat(data, this.buyer.getPublicKey());
-		
-		//WRITE NAME SALE
-		data = Bytes.concat(data, this.nameSale.toBytes());
-		
-		//WRITE SELLER
-		data = Bytes.concat(data, Base58.decode(this.seller.getAddress()));
-		
-		//WRITE FEE
-		byte[] feeBytes = this.fee.unscaledValue().toByteArray();
-		byte[] fill = new byte[FEE_LENGTH - feeBytes.length];
-		feeBytes = Bytes.concat(fill, feeBytes);
-		data = Bytes.concat(data, feeBytes);
-		
-		return Crypto.getInstance().verify(this.buyer.getPublicKey(), this.signature, data);
+		return SignatureCache.getInstance().verify(this.buyer.getPublicKey(), this.signature, this.getSignatureData());
 	}
 
 	@Override
@@ -368,36 +317,8 @@ public class BuyNameTransaction extends Transaction
 	
 	public static byte[] generateSignature(DBSet db, PrivateKeyAccount buyer, NameSale nameSale, Account seller, BigDecimal fee, long timestamp) 
 	{
-		byte[] data = new byte[0];
-		
-		//WRITE TYPE
-		byte[] typeBytes = Ints.toByteArray(BUY_NAME_TRANSACTION);
-		typeBytes = Bytes.ensureCapacity(typeBytes, TYPE_LENGTH, 0);
-		data = Bytes.concat(data, typeBytes);
-		
-		//WRITE TIMESTAMP
-		byte[] timestampBytes = Longs.toByteArray(timestamp);
-		timestampBytes = Bytes.ensureCapacity(timestampBytes, TIMESTAMP_LENGTH, 0);
-		data = Bytes.concat(data, timestampBytes);
-		
-		//WRITE REFERENCE
-		data = Bytes.concat(data, buyer.getLastReference(db));
-		
-		//WRITE BUYER
-		data = Bytes.concat(data, buyer.getPublicKey());
-		
-		//WRITE NAME SALE
-		data = Bytes.concat(data, nameSale.toBytes());
-		
-		//WRITE SELLER
-		data = Bytes.concat(data, Base58.decode(seller.getAddress()));
-		
-		//WRITE FEE
-		byte[] feeBytes = fee.unscaledValue().toByteArray();
-		byte[] fill = new byte[FEE_LENGTH - feeBytes.length];
-		feeBytes = Bytes.concat(fill, feeBytes);
-		data = Bytes.concat(data, feeBytes);
+		BuyNameTransaction transaction = new BuyNameTransaction(buyer, nameSale, seller, fee, timestamp, buyer.getLastReference(db), null);
 		
-		return Crypto.getInstance().sign(buyer, data);
+		return Crypto.getInstance().sign(buyer, transaction.getSignatureData());
 	}
 }
@@ -2,24 +2,24 @@ package qora.transaction;
 
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
 import org.json.simple.JSONObject;
 
-import com.google.common.primitives.Bytes;
-import com.google.common.primitives.Ints;
-import com.google.common.primitives.Longs;
-
 import qora.account.Account;
 import qora.account.PrivateKeyAccount;
 import qora.account.PublicKeyAccount;
 import qora.assets.Order;
 import qora.crypto.Base58;
 import qora.crypto.Crypto;
+import qora.crypto.SignatureCache;
 import database.DBSet;
 
+import utils.Codec;
+
 public class CancelOrderTransaction extends Transaction
 {
 	private static final int CREATOR_LENGTH = 32;
@@ -49,41 +49,32 @@ public class CancelOrderTransaction extends Transaction
 	//PARSE CONVERT
 	
 	public static Transaction Parse(byte[] data) throws Exception
-	{	
+	{
 		//CHECK IF WE MATCH BLOCK LENGTH
 		if(data.length < BASE_LENGTH)
 		{
 			throw new Exception("Data does not match block length");
 		}
 		
-		int position = 0;
+		ByteBuffer buffer = ByteBuffer.wrap(data);
 		
 		//READ TIMESTAMP
-		byte[] timestampBytes = Arrays.copyOfRange(data, position, position + TIMESTAMP_LENGTH);
-		long timestamp = Longs.fromByteArray(timestampBytes);	
-		position += TIMESTAMP_LENGTH;
+		long timestamp = buffer.getLong();
 		
 		//READ REFERENCE
-		byte[] reference = Arrays.copyOfRange(data, position, position + REFERENCE_LENGTH);
-		position += REFERENCE_LENGTH;
+		byte[] reference = Codec.getBytes(buffer, REFERENCE_LENGTH);
 		
 		//READ CREATOR
-		byte[] creatorBytes = Arrays.copyOfRange(data, position, position + CREATOR_LENGTH);
-		PublicKeyAccount creator = new PublicKeyAccount(creatorBytes);
-		position += CREATOR_LENGTH;
+		PublicKeyAccount creator = new PublicKeyAccount(Codec.getBytes(buffer, CREATOR_LENGTH));
 		
 		//READ ORDER
-		byte[] orderBytes = Arrays.copyOfRange(data, position, position + ORDER_LENGTH);
-		BigInteger order = new BigInteger(orderBytes);
-		position += ORDER_LENGTH;
+		BigInteger order = Codec.getInteger(buffer, ORDER_LENGTH);
 		
 		//READ FEE
-		byte[] feeBytes = Arrays.copyOfRange(data, position, position + FEE_LENGTH);
-		BigDecimal fee = new BigDecimal(new BigInteger(feeBytes), 8);
-		position += FEE_LENGTH;		
+		BigDecimal fee = Codec.getAmount(buffer, FEE_LENGTH);
 		
 		//READ SIGNATURE
-		byte[] signatureBytes = Arrays.copyOfRange(data, position, position + SIGNATURE_LENGTH);
+		byte[] signatureBytes = Codec.getBytes(buffer, SIGNATURE_LENGTH);
 		
 		return new CancelOrderTransaction(creator, order, fee, timestamp, reference, signatureBytes);
 	}	
@@ -103,42 +94,31 @@ public class CancelOrderTransaction extends Transaction
 	}
 
 	@Override
-	public byte[] toBytes() 
+	protected void toBytes(ByteBuffer buffer, boolean includeSignature) 
 	{
-		byte[] data = new byte[0];
-		
 		//WRITE TYPE
-		byte[] typeBytes = Ints.toByteArray(CANCEL_ORDER_TRANSACTION);
-		typeBytes = Bytes.ensureCapacity(typeBytes, TYPE_LENGTH, 0);
-		data = Bytes.concat(data, typeBytes);
+		buffer.putInt(CANCEL_ORDER_TRANSACTION);
 		
 		//WRITE TIMESTAMP
-		byte[] timestampBytes = Longs.toByteArray(this.timestamp);
-		timestampBytes = Bytes.ensureCapacity(timestampBytes, TIMESTAMP_LENGTH, 0);
-		data = Bytes.concat(data, timestampBytes);
+		buffer.putLong(this.timestamp);
 		
 		//WRITE REFERENCE
-		data = Bytes.concat(data, this.reference);
+		buffer.put(this.reference);
 		
 		//WRITE CREATOR
-		data = Bytes.concat(data, this.creator.getPublicKey());
+		buffer.put(this.creator.getPublicKey());
 		
 		//WRITE ORDER
-		byte[] orderBytes = this.order.toByteArray();
-		byte[] fill = new byte[ORDER_LENGTH - orderBytes.length];
-		orderBytes = Bytes.concat(fill, orderBytes);
-		data = Bytes.concat(data, orderBytes);
-				
+		Codec.putInteger(buffer, this.order, ORDER_LENGTH);
+		
 		//WRITE FEE
-		byte[] feeBytes = this.fee.unscaledValue().toByteArray();
-		fill = new byte[FEE_LENGTH - feeBytes.length];
-		feeBytes = Bytes.concat(fill, feeBytes);
-		data = Bytes.concat(data, feeBytes);
-
-		//SIGNATURE
-		data = Bytes.concat(data, this.signature);
+		Codec.putAmount(buffer, this.fee, FEE_LENGTH);
 		
-		return data;	
+		//SIGNATURE
+		if(includeSignature)
+		{
+			buffer.put(this.signature);
+		}
 	}
 
 	@Override
@@ -149,40 +129,9 @@ public class CancelOrderTransaction extends Transaction
 	
 	//VALIDATE
 
-	@Override
-	public boolean isSignatureValid() 
+	public boolean isSignatureValid()
 	{
-		byte[] data = new byte[0];
-		
-		//WRITE TYPE
-		byte[] typeBytes = Ints.toByteArray(CANCEL_ORDER_TRANSACTION);
-		typeBytes = Bytes.ensureCapacity(typeBytes, TYPE_LENGTH, 0);
-		data = Bytes.concat(data, typeBytes);
-		
-		//WRITE TIMESTAMP
-		byte[] timestampBytes = Longs.toByteArray(this.timestamp);
-		timestampBytes = Bytes.ensureCapacity(timestampBytes, TIMESTAMP_LENGTH, 0);
-		data = Bytes.concat(data, timestampBytes);
-		
-		//WRITE REFERENCE
-		data = Bytes.concat(data, this.reference);
-		
-		//WRITE CREATOR
-		data = Bytes.concat(data, this.creator.getPublicKey());
-		
-		//WRITE ORDER
-		byte[] orderBytes = this.order.toByteArray();
-		byte[] fill = new byte[ORDER_LENGTH - orderBytes.length];
-		orderBytes = Bytes.concat(fill, orderBytes);
-		data = Bytes.concat(data, orderBytes);
-				
-		//WRITE FEE
-		byte[] feeBytes = this.fee.unscaledValue().toByteArray();
-		fill = new byte[FEE_LENGTH - feeBytes.length];
-		feeBytes = Bytes.concat(fill, feeBytes);
-		data = Bytes.concat(data, feeBytes);
-		
-		return Crypto.getInstance().verify(this.creator.getPublicKey(), this.signature, data);
+		return SignatureCache.getInstance().verify(this.creator.getPublicKey(), this.signature, this.getSignatureData());
 	}
 
 	@Override
@@ -312,36 +261,8 @@ public class CancelOrderTransaction extends Transaction
 	
 	public static byte[] generateSignature(DBSet db, PrivateKeyAccount creator, BigInteger order, BigDecimal fee, long timestamp) 
 	{
-		byte[] data = new byte[0];
-
-		//WRITE TYPE
-		byte[] typeBytes = Ints.toByteArray(CANCEL_ORDER_TRANSACTION);
-		typeBytes = Bytes.ensureCapacity(typeBytes, TYPE_LENGTH, 0);
-		data = Bytes.concat(data, typeBytes);
-		
-		//WRITE TIMESTAMP
-		byte[] timestampBytes = Longs.toByteArray(timestamp);
-		timestampBytes = Bytes.ensureCapacity(timestampBytes, TIMESTAMP_LENGTH, 0);
-		data = Bytes.concat(data, timestampBytes);
-		
-		//WRITE REFERENCE
-		data = Bytes.concat(data, creator.getLastReference(db));
-		
-		//WRITE CREATOR
-		data = Bytes.concat(data, creator.getPublicKey());
-		
-		//WRITE ORDER
-		byte[] orderBytes = order.toByteArray();
-		byte[] fill = new byte[ORDER_LENGTH - orderBytes.length];
-		orderBytes = Bytes.concat(fill, orderBytes);
-		data = Bytes.concat(data, orderBytes);
-				
-		//WRITE FEE
-		byte[] feeBytes = fee.unscaledValue().toByteArray();
-		fill = new byte[FEE_LENGTH - feeBytes.length];
-		feeBytes = Bytes.concat(fill, feeBytes);
-		data = Bytes.concat(data, feeBytes);
+		CancelOrderTransaction transaction = new CancelOrderTransaction(creator, order, fee, timestamp, creator.getLastReference(db), null);
 		
-		return Crypto.getInstance().sign(creator, data);
+		return Crypto.getInstance().sign(creator, transaction.getSignatureData());
 	}
 }
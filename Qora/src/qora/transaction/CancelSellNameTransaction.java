@@ -1,7 +1,7 @@
 package qora.transaction;
 
 import java.math.BigDecimal;
-import java.math.BigInteger;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -9,18 +9,17 @@ import java.util.List;
 
 import org.json.simple.JSONObject;
 
-import com.google.common.primitives.Bytes;
-import com.google.common.primitives.Ints;
-import com.google.common.primitives.Longs;
-
 import qora.account.Account;
 import qora.account.PrivateKeyAccount;
 import qora.account.PublicKeyAccount;
 import qora.crypto.Crypto;
+import qora.crypto.SignatureCache;
 import qora.naming.Name;
 import qora.naming.NameSale;
 import database.DBSet;
 
+import utils.Codec;
+
 public class CancelSellNameTransaction extends Transaction
 {
 	private static final int OWNER_LENGTH = 32;
@@ -55,50 +54,39 @@ public class CancelSellNameTransaction extends Transaction
 	//PARSE CONVERT
 	
 	public static Transaction Parse(byte[] data) throws Exception
-	{	
+	{
 		//CHECK IF WE MATCH BLOCK LENGTH
 		if(data.length < BASE_LENGTH)
 		{
 			throw new Exception("Data does not match block length");
 		}
 		
-		int position = 0;
+		ByteBuffer buffer = ByteBuffer.wrap(data);
 		
 		//READ TIMESTAMP
-		byte[] timestampBytes = Arrays.copyOfRange(data, position, position + TIMESTAMP_LENGTH);
-		long timestamp = Longs.fromByteArray(timestampBytes);	
-		position += TIMESTAMP_LENGTH;
+		long timestamp = buffer.getLong();
 		
 		//READ REFERENCE
-		byte[] reference = Arrays.copyOfRange(data, position, position + REFERENCE_LENGTH);
-		position += REFERENCE_LENGTH;
+		byte[] reference = Codec.getBytes(buffer, REFERENCE_LENGTH);
 		
 		//READ OWNER
-		byte[] registrantBytes = Arrays.copyOfRange(data, position, position + OWNER_LENGTH);
-		PublicKeyAccount owner = new PublicKeyAccount(registrantBytes);
-		position += OWNER_LENGTH;
+		PublicKeyAccount owner = new PublicKeyAccount(Codec.getBytes(buffer, OWNER_LENGTH));
 		
 		//READ NAME
-		byte[] nameLengthBytes = Arrays.copyOfRange(data, position, position + NAME_SIZE_LENGTH);
-		int nameLength = Ints.fromByteArray(nameLengthBytes);
-		position += NAME_SIZE_LENGTH;
-						
+		int nameLength = buffer.getInt();
+		
 		if(nameLength < 1 || nameLength > 400)
 		{
 			throw new Exception("Invalid name length");
 		}
-						
-		byte[] nameBytes = Arrays.copyOfRange(data, position, position + nameLength);
-		String name = new String(nameBytes, StandardCharsets.UTF_8);
-		position += nameLength;
+		
+		String name = Codec.getString(buffer, nameLength);
 		
 		//READ FEE
-		byte[] feeBytes = Arrays.copyOfRange(data, position, position + FEE_LENGTH);
-		BigDecimal fee = new BigDecimal(new BigInteger(feeBytes), 8);
-		position += FEE_LENGTH;		
+		BigDecimal fee = Codec.getAmount(buffer, FEE_LENGTH);
 		
 		//READ SIGNATURE
-		byte[] signatureBytes = Arrays.copyOfRange(data, position, position + SIGNATURE_LENGTH);
+		byte[] signatureBytes = Codec.getBytes(buffer, SIGNATURE_LENGTH);
 		
 		return new CancelSellNameTransaction(owner, name, fee, timestamp, reference, signatureBytes);
 	}	
@@ -118,45 +106,31 @@ public class CancelSellNameTransaction extends Transaction
 	}
 
 	@Override
-	public byte[] toBytes() 
+	protected void toBytes(ByteBuffer buffer, boolean includeSignature) 
 	{
-		byte[] data = new byte[0];
-		
 		//WRITE TYPE
-		byte[] typeBytes = Ints.toByteArray(CANCEL_SELL_NAME_TRANSACTION);
-		typeBytes = Bytes.ensureCapacity(typeBytes, TYPE_LENGTH, 0);
-		data = Bytes.concat(data, typeBytes);
+		buffer.putInt(CANCEL_SELL_NAME_TRANSACTION);
 		
 		//WRITE TIMESTAMP
-		byte[] timestampBytes = Longs.toByteArray(this.timestamp);
-		timestampBytes = Bytes.ensureCapacity(timestampBytes, TIMESTAMP_LENGTH, 0);
-		data = Bytes.concat(data, timestampBytes);
+		buffer.putLong(this.timestamp);
 		
 		//WRITE REFERENCE
-		data = Bytes.concat(data, this.reference);
+		buffer.put(this.reference);
 		
 		//WRITE OWNER
-		data = Bytes.concat(data, this.owner.getPublicKey());
+		buffer.put(this.owner.getPublicKey());
 		
-		//WRITE NAME SIZE
-		byte[] nameBytes = this.name.getBytes(StandardCharsets.UTF_8);
-		int nameLength = nameBytes.length;
-		byte[] nameLengthBytes = Ints.toByteArray(nameLength);
-		data = Bytes.concat(data, nameLengthBytes);
-				
 		//WRITE NAME
-		data = Bytes.concat(data, nameBytes);
+		Codec.putString(buffer, this.name);
 		
 		//WRITE FEE
-		byte[] feeBytes = this.fee.unscaledValue().toByteArray();
-		byte[] fill = new byte[FEE_LENGTH - feeBytes.length];
-		feeBytes = Bytes.concat(fill, feeBytes);
-		data = Bytes.concat(data, feeBytes);
-
-		//SIGNATURE
-		data = Bytes.concat(data, this.signature);
+		Codec.putAmount(buffer, this.fee, FEE_LENGTH);
 		
-		return data;	
+		//SIGNATURE
+		if(includeSignature)
+		{
+			buffer.put(this.signature);
+		}
 	}
 
 	@Override
@@ -170,43 +144,9 @@ public class CancelSellNameTransaction extends Transaction
 	
 	//VALIDATE
 
-	@Override
-	public boolean isSignatureValid() 
+	public boolean isSignatureValid()
 	{
-		byte[] data = new byte[0];
-		
-		//WRITE TYPE
-		byte[] typeBytes = Ints.toByteArray(CANCEL_SELL_NAME_TRANSACTION);
-		typeBytes = Bytes.ensureCapacity(typeBytes, TYPE_LENGTH, 0);
-		data = Bytes.concat(data, typeBytes);
-		
-		//WRITE TIMESTAMP
-		byte[] timestampBytes = Longs.toByteArray(this.timestamp);
-		timestampBytes = Bytes.ensureCapacity(timestampBytes, TIMESTAMP_LENGTH, 0);
-		data = Bytes.concat(data, timestampBytes);
-		
-		//WRITE REFERENCE
-		data = Bytes.concat(data, this.reference);
-		
-		//WRITE OWNER
-		data = Bytes.concat(data, this.owner.getPublicKey());
-		
-		//WRITE NAME SIZE
-		byte[] nameBytes = this.name.getBytes(StandardCharsets.UTF_8);
-		int nameLength = nameBytes.length;
-		byte[] nameLengthBytes = Ints.toByteArray(nameLength);
-		data = Bytes.concat(data, nameLengthBytes);
-				
-		//WRITE NAME
-		data = Bytes.concat(data, nameBytes);
-		
-		//WRITE FEE
-		byte[] feeBytes = this.fee.unscaledValue().toByteArray();
-		byte[] fill = new byte[FEE_LENGTH - feeBytes.length];
-		feeBytes = Bytes.concat(fill, feeBytes);
-		data = Bytes.concat(data, feeBytes);
-		
-		return Crypto.getInstance().verify(this.owner.getPublicKey(), this.signature, data);
+		return SignatureCache.getInstance().verify(this.owner.getPublicKey(), this.signature, this.getSignatureData());
 	}
 
 	@Override
@@ -345,39 +285,8 @@ public class CancelSellNameTransaction extends Transaction
 	
 	public static byte[] generateSignature(DBSet db, PrivateKeyAccount creator, String name, BigDecimal fee, long timestamp) 
 	{
-		byte[] data = new byte[0];
-		
-		//WRITE TYPE
-		byte[] typeBytes = Ints.toByteArray(CANCEL_SELL_NAME_TRANSACTION);
-		typeBytes = Bytes.ensureCapacity(typeBytes, TYPE_LENGTH, 0);
-		data = Bytes.concat(data, typeBytes);
-		
-		//WRITE TIMESTAMP
-		byte[] timestampBytes = Longs.toByteArray(timestamp);
-		timestampBytes = Bytes.ensureCapacity(timestampBytes, TIMESTAMP_LENGTH, 0);
-		data = Bytes.concat(data, timestampBytes);
-		
-		//WRITE REFERENCE
-		data = Bytes.concat(data, creator.getLastReference(db));
-		
-		//WRITE OWNER
-		data = Bytes.concat(data, creator.getPublicKey());
-		
-		//WRITE NAME SIZE
-		byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
-		int nameLength = nameBytes.length;
-		byte[] nameLengthBytes = Ints.toByteArray(nameLength);
-		data = Bytes.concat(data, nameLengthBytes);
-				
-		//WRITE NAME
-		data = Bytes.concat(data, nameBytes);
-		
-		//WRITE FEE
-		byte[] feeBytes = fee.unscaledValue().toByteArray();
-		byte[] fill = new byte[FEE_LENGTH - feeBytes.length];
-		feeBytes = Bytes.concat(fill, feeBytes);
-		data = Bytes.concat(data, feeBytes);
+		CancelSellNameTransaction transaction = new CancelSellNameTransaction(creator, name, fee, timestamp, creator.getLastReference(db), null);
 		
-		return Crypto.getInstance().sign(creator, data);
+		return Crypto.getInstance().sign(creator, transaction.getSignatureData());
 	}
 }
@@ -2,16 +2,13 @@ package qora.transaction;
 
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
 import org.json.simple.JSONObject;
 
-import com.google.common.primitives.Bytes;
-import com.google.common.primitives.Ints;
-import com.google.common.primitives.Longs;
-
 import database.DBSet;
 import qora.account.Account;
 import qora.account.PrivateKeyAccount;
@@ -19,6 +16,9 @@ import qora.account.PublicKeyAccount;
 import qora.assets.Asset;
 import qora.assets.Order;
 import qora.crypto.Crypto;
+import qora.crypto.SignatureCache;
+
+import utils.Codec;
 
 public class CreateOrderTransaction extends Transaction 
 {
@@ -53,56 +53,41 @@ public class CreateOrderTransaction extends Transaction
 	//PARSE CONVERT
 	
 	public static Transaction Parse(byte[] data) throws Exception
-	{	
+	{
 		//CHECK IF WE MATCH BLOCK LENGTH
 		if(data.length < BASE_LENGTH)
 		{
 			throw new Exception("Data does not match block length");
 		}
 		
-		int position = 0;
+		ByteBuffer buffer = ByteBuffer.wrap(data);
 		
 		//READ TIMESTAMP
-		byte[] timestampBytes = Arrays.copyOfRange(data, position, position + TIMESTAMP_LENGTH);
-		long timestamp = Longs.fromByteArray(timestampBytes);	
-		position += TIMESTAMP_LENGTH;
+		long timestamp = buffer.getLong();
 		
 		//READ REFERENCE
-		byte[] reference = Arrays.copyOfRange(data, position, position + REFERENCE_LENGTH);
-		position += REFERENCE_LENGTH;
+		byte[] reference = Codec.getBytes(buffer, REFERENCE_LENGTH);
 		
 		//READ CREATOR
-		byte[] creatorBytes = Arrays.copyOfRange(data, position, position + CREATOR_LENGTH);
-		PublicKeyAccount creator = new PublicKeyAccount(creatorBytes);
-		position += CREATOR_LENGTH;
+		PublicKeyAccount creator = new PublicKeyAccount(Codec.getBytes(buffer, CREATOR_LENGTH));
 		
 		//READ HAVE
-		byte[] haveBytes = Arrays.copyOfRange(data, position, position + HAVE_LENGTH);
-		long have = Longs.fromByteArray(haveBytes);	
-		position += HAVE_LENGTH;
+		long have = buffer.getLong();
 		
 		//READ WANT
-		byte[] wantBytes = Arrays.copyOfRange(data, position, position + WANT_LENGTH);
-		long want = Longs.fromByteArray(wantBytes);	
-		position += WANT_LENGTH;
+		long want = buffer.getLong();
 		
 		//READ AMOUNT
-		byte[] amountBytes = Arrays.copyOfRange(data, position, position + AMOUNT_LENGTH);
-		BigDecimal amount = new BigDecimal(new BigInteger(amountBytes), 8);
-		position += AMOUNT_LENGTH;
+		BigDecimal amount = Codec.getAmount(buffer, AMOUNT_LENGTH);
 		
 		//READ PRICE
-		byte[] priceBytes = Arrays.copyOfRange(data, position, position + PRICE_LENGTH);
-		BigDecimal price = new BigDecimal(new BigInteger(priceBytes), 8);
-		position += PRICE_LENGTH;
+		BigDecimal price = Codec.getAmount(buffer, PRICE_LENGTH);
 		
 		//READ FEE
-		byte[] feeBytes = Arrays.copyOfRange(data, position, position + FEE_LENGTH);
-		BigDecimal fee = new BigDecimal(new BigInteger(feeBytes), 8);
-		position += FEE_LENGTH;		
+		BigDecimal fee = Codec.getAmount(buffer, FEE_LENGTH);
 		
 		//READ SIGNATURE
-		byte[] signatureBytes = Arrays.copyOfRange(data, position, position + SIGNATURE_LENGTH);
+		byte[] signatureBytes = Codec.getBytes(buffer, SIGNATURE_LENGTH);
 		
 		return new CreateOrderTransaction(creator, have, want, amount, price, fee, timestamp, reference, signatureBytes);
 	}	
@@ -129,58 +114,40 @@ public class CreateOrderTransaction extends Transaction
 	}
 	
 	@Override
-	public byte[] toBytes() 
+	protected void toBytes(ByteBuffer buffer, boolean includeSignature) 
 	{
-		byte[] data = new byte[0];
-		
 		//WRITE TYPE
-		byte[] typeBytes = Ints.toByteArray(CREATE_ORDER_TRANSACTION);
-		typeBytes = Bytes.ensureCapacity(typeBytes, TYPE_LENGTH, 0);
-		data = Bytes.concat(data, typeBytes);
+		buffer.putInt(CREATE_ORDER_TRANSACTION);
 		
 		//WRITE TIMESTAMP
-		byte[] timestampBytes = Longs.toByteArray(this.timestamp);
-		timestampBytes = Bytes.ensureCapacity(timestampBytes, TIMESTAMP_LENGTH, 0);
-		data = Bytes.concat(data, timestampBytes);
+		buffer.putLong(this.timestamp);
 		
 		//WRITE REFERENCE
-		data = Bytes.concat(data, this.reference);
+		buffer.put(this.reference);
 		
 		//WRITE CREATOR
-		data = Bytes.concat(data, this.creator.getPublicKey());
+		buffer.put(this.creator.getPublicKey());
 		
 		//WRITE HAVE
-		byte[] haveBytes = Longs.toByteArray(this.order.getHave());
-		haveBytes = Bytes.ensureCapacity(haveBytes, HAVE_LENGTH, 0);
-		data = Bytes.concat(data, haveBytes);
+		buffer.putLong(this.order.getHave());
 		
 		//WRITE WANT
-		byte[] wantBytes = Longs.toByteArray(this.order.getWant());
-		wantBytes = Bytes.ensureCapacity(wantBytes, WANT_LENGTH, 0);
-		data = Bytes.concat(data, wantBytes);
+		buffer.putLong(this.order.getWant());
 		
 		//WRITE AMOUNT
-		byte[] amountBytes = this.order.getAmount().unscaledValue().toByteArray();
-		byte[] fill = new byte[AMOUNT_LENGTH - amountBytes.length];
-		amountBytes = Bytes.concat(fill, amountBytes);
-		data = Bytes.concat(data, amountBytes);
+		Codec.putAmount(buffer, this.order.getAmount(), AMOUNT_LENGTH);
 		
-		//WRITE PRICE
-		byte[] priceBytes = this.order.getPrice().unscaledValue().toByteArray();
-		fill = new byte[PRICE_LENGTH - priceBytes.length];
-		priceBytes = Bytes.concat(fill, priceBytes);
-		data = Bytes.concat(data, priceBytes);
+		//WRITE PRICE (THE SIGNED DATA HAS ALWAYS CARRIED THE PRICE IN 8 BYTES)
+		Codec.putAmount(buffer, this.order.getPrice(), includeSignature ? PRICE_LENGTH : FEE_LENGTH);
 		
 		//WRITE FEE
-		byte[] feeBytes = this.fee.unscaledValue().toByteArray();
-		fill = new byte[FEE_LENGTH - feeBytes.length];
-		feeBytes = Bytes.concat(fill, feeBytes);
-		data = Bytes.concat(data, feeBytes);
-
-		//SIGNATURE
-		data = Bytes.concat(data, this.signature);
+		Codec.putAmount(buffer, this.fee, FEE_LENGTH);
 		
-		return data;
+		//SIGNATURE
+		if(includeSignature)
+		{
+			buffer.put(this.signature);
+		}
 	}
 	
 	@Override
@@ -193,53 +160,7 @@ public class CreateOrderTransaction extends Transaction
 	
 	public boolean isSignatureValid()
 	{
-		byte[] data = new byte[0];
-		
-		//WRITE TYPE
-		byte[] typeBytes = Ints.toByteArray(CREATE_ORDER_TRANSACTION);
-		typeBytes = Bytes.ensureCapacity(typeBytes, TYPE_LENGTH, 0);
-		data = Bytes.concat(data, typeBytes);
-		
-		//WRITE TIMESTAMP
-		byte[] timestampBytes = Longs.toByteArray(this.timestamp);
-		timestampBytes = Bytes.ensureCapacity(timestampBytes, TIMESTAMP_LENGTH, 0);
-		data = Bytes.concat(data, timestampBytes);
-		
-		//WRITE REFERENCE
-		data = Bytes.concat(data, this.reference);
-		
-		//WRITE CREATOR
-		data = Bytes.concat(data, this.creator.getPublicKey());
-		
-		//WRITE HAVE
-		byte[] haveBytes = Longs.toByteArray(this.order.getHave());
-		haveBytes = Bytes.ensureCapacity(haveBytes, HAVE_LENGTH, 0);
-		data = Bytes.concat(data, haveBytes);
-		
-		//WRITE WANT
-		byte[] wantBytes = Longs.toByteArray(this.order.getWant());
-		wantBytes = Bytes.ensureCapacity(wantBytes, WANT_LENGTH, 0);
-		data = Bytes.concat(data, wantBytes);
-		
-		//WRITE AMOUNT
-		byte[] amountBytes = this.order.getAmount().unscaledValue().toByteArray();
-		byte[] fill = new byte[AMOUNT_LENGTH - amountBytes.length];
-		amountBytes = Bytes.concat(fill, amountBytes);
-		data = Bytes.concat(data, amountBytes);
-		
-		//WRITE PRICE
-		byte[] priceBytes = this.order.getPrice().unscaledValue().toByteArray();
-		fill = new byte[FEE_LENGTH - priceBytes.length];
-		priceBytes = Bytes.concat(fill, priceBytes);
-		data = Bytes.concat(data, priceBytes);
-		
-		//WRITE FEE
-		byte[] feeBytes = this.fee.unscaledValue().toByteArray();
-		fill = new byte[FEE_LENGTH - feeBytes.length];
-		feeBytes = Bytes.concat(fill, feeBytes);
-		data = Bytes.concat(data, feeBytes);
-				
-		return Crypto.getInstance().verify(this.creator.getPublicKey(), this.signature, data);
+		return SignatureCache.getInstance().verify(this.creator.getPublicKey(), this.signature, this.getSignatureData());
 	}
 	
 	@Override
@@ -389,54 +310,9 @@ public class CreateOrderTransaction extends Transaction
 
 	public static byte[] generateSignature(DBSet db, PrivateKeyAccount creator, long have, long want, BigDecimal amount, BigDecimal price, BigDecimal fee, long timestamp) 
 	{
-		byte[] data = new byte[0];
-		
-		Order order = new Order(null, creator, have, want, amount, price, timestamp);
-		
-		//WRITE TYPE
-		byte[] typeBytes = Ints.toByteArray(CREATE_ORDER_TRANSACTION);
-		typeBytes = Bytes.ensureCapacity(typeBytes, TYPE_LENGTH, 0);
-		data = Bytes.concat(data, typeBytes);
-		
-		//WRITE TIMESTAMP
-		byte[] timestampBytes = Longs.toByteArray(timestamp);
-		timestampBytes = Bytes.ensureCapacity(timestampBytes, TIMESTAMP_LENGTH, 0);
-		data = Bytes.concat(data, timestampBytes);
-		
-		//WRITE REFERENCE
-		data = Bytes.concat(data, creator.getLastReference(db));
-		
-		//WRITE CREATOR
-		data = Bytes.concat(data, creator.getPublicKey());
-		
-		//WRITE HAVE
-		byte[] haveBytes = Longs.toByteArray(order.getHave());
-		haveBytes = Bytes.ensureCapacity(haveBytes, HAVE_LENGTH, 0);
-		data = Bytes.concat(data, haveBytes);
-		
-		//WRITE WANT
-		byte[] wantBytes = Longs.toByteArray(order.getWant());
-		wantBytes = Bytes.ensureCapacity(wantBytes, WANT_LENGTH, 0);
-		data = Bytes.concat(data, wantBytes);
-		
-		//WRITE AMOUNT
-		byte[] amountBytes = order.getAmount().unscaledValue().toByteArray();
-		byte[] fill = new byte[AMOUNT_LENGTH - amountBytes.length];
-		amountBytes = Bytes.concat(fill, amountBytes);
-		data = Bytes.concat(data, amountBytes);
-		
-		//WRITE PRICE
-		byte[] priceBytes = order.getPrice().unscaledValue().toByteArray();
-		fill = new byte[FEE_LENGTH - priceBytes.length];
-		priceBytes = Bytes.concat(fill, priceBytes);
-		data = Bytes.concat(data, priceBytes);
-		
-		//WRITE FEE
-		byte[] feeBytes = fee.unscaledValue().toByteArray();
-		fill = new byte[FEE_LENGTH - feeBytes.length];
-		feeBytes = Bytes.concat(fill, feeBytes);
-		data = Bytes.concat(data, feeBytes);
+		//EMPTY SIGNATURE AS THE ORDER ID IS DERIVED FROM IT, IT IS NOT PART OF THE SIGNED DATA
+		CreateOrderTransaction transaction = new CreateOrderTransaction(creator, have, want, amount, price, fee, timestamp, creator.getLastReference(db), new byte[SIGNATURE_LENGTH]);
 		
-		return Crypto.getInstance().sign(creator, data);
+		return Crypto.getInstance().sign(creator, transaction.getSignatureData());
 	}
 }
@@ -1,22 +1,21 @@
 package qora.transaction;
 
 import java.math.BigDecimal;
-import java.math.BigInteger;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.List;
 
 import org.json.simple.JSONObject;
 
 import qora.account.Account;
-import qora.crypto.Base58;
 import qora.crypto.Crypto;
 
 import com.google.common.primitives.Bytes;
-import com.google.common.primitives.Ints;
-import com.google.common.primitives.Longs;
 
 import database.DBSet;
 
+import utils.Codec;
+
 public class GenesisTransaction extends Transaction {
 
 	private static final int RECIPIENT_LENGTH = Account.ADDRESS_LENGTH;
@@ -62,21 +61,16 @@ public class GenesisTransaction extends Transaction {
 			throw new Exception("Data does not match block length");
 		}
 		
-		int position = 0;
+		ByteBuffer buffer = ByteBuffer.wrap(data);
 		
 		//READ TIMESTAMP
-		byte[] timestampBytes = Arrays.copyOfRange(data, position, position + TIMESTAMP_LENGTH);
-		long timestamp = Longs.fromByteArray(timestampBytes);	
-		position += TIMESTAMP_LENGTH;
+		long timestamp = buffer.getLong();
 		
 		//READ RECIPIENT
-		byte[] recipientBytes = Arrays.copyOfRange(data, position, position + RECIPIENT_LENGTH);
-		Account recipient = new Account(Base58.encode(recipientBytes));
-		position += RECIPIENT_LENGTH;
+		Account recipient = new Account(Codec.getAddress(buffer));
 		
 		//READ AMOUNT
-		byte[] amountBytes = Arrays.copyOfRange(data, position, position + AMOUNT_LENGTH);
-		BigDecimal amount = new BigDecimal(new BigInteger(amountBytes), 8);
+		BigDecimal amount = Codec.getAmount(buffer, AMOUNT_LENGTH);
 		
 		return new GenesisTransaction(recipient, amount, timestamp);	
 	}	
@@ -96,30 +90,25 @@ public class GenesisTransaction extends Transaction {
 	}
 	
 	@Override
-	public byte[] toBytes() 
+	protected void toBytes(ByteBuffer buffer, boolean includeSignature) 
+	{
+		//SIGNATURE IS NOT PART OF THE DATA
+		write(buffer, this.recipient, this.amount, this.timestamp);
+	}
+	
+	private static void write(ByteBuffer buffer, Account recipient, BigDecimal amount, long timestamp)
 	{
-		byte[] data = new byte[0];
-		
 		//WRITE TYPE
-		byte[] typeBytes = Ints.toByteArray(GENESIS_TRANSACTION);
-		typeBytes = Bytes.ensureCapacity(typeBytes, TYPE_LENGTH, 0);
-		data = Bytes.concat(data, typeBytes);
+		buffer.putInt(GENESIS_TRANSACTION);
 		
 		//WRITE TIMESTAMP
-		byte[] timestampBytes = Longs.toByteArray(this.timestamp);
-		timestampBytes = Bytes.ensureCapacity(timestampBytes, TIMESTAMP_LENGTH, 0);
-		data = Bytes.concat(data, timestampBytes);
+		buffer.putLong(timestamp);
 		
 		//WRITE RECIPIENT
-		data = Bytes.concat(data, Base58.decode(this.recipient.getAddress()));
+		Codec.putAddress(buffer, recipient.getAddress());
 		
 		//WRITE AMOUNT
-		byte[] amountBytes = this.amount.unscaledValue().toByteArray();
-		byte[] fill = new byte[AMOUNT_LENGTH - amountBytes.length];
-		amountBytes = Bytes.concat(fill, amountBytes);
-		data = Bytes.concat(data, amountBytes);
-		
-		return data;
+		Codec.putAmount(buffer, amount, AMOUNT_LENGTH);
 	}
 
 	@Override
@@ -132,33 +121,8 @@ public class GenesisTransaction extends Transaction {
 	
 	public boolean isSignatureValid()
 	{
-		byte[] data = new byte[0];
-		
-		//WRITE TYPE
-		byte[] typeBytes = Ints.toByteArray(GENESIS_TRANSACTION);
-		typeBytes = Bytes.ensureCapacity(typeBytes, TYPE_LENGTH, 0);
-		data = Bytes.concat(data, typeBytes);
-		
-		//WRITE TIMESTAMP
-		byte[] timestampBytes = Longs.toByteArray(this.timestamp);
-		timestampBytes = Bytes.ensureCapacity(timestampBytes, TIMESTAMP_LENGTH, 0);
-		data = Bytes.concat(data, timestampBytes);
-		
-		//WRITE RECIPIENT
-		data = Bytes.concat(data, Base58.decode(this.recipient.getAddress()));
-				
-		//WRITE AMOUNT
-		byte[] amountBytes = this.amount.unscaledValue().toByteArray();
-		byte[] fill = new byte[AMOUNT_LENGTH - amountBytes.length];
-		amountBytes = Bytes.concat(fill, amountBytes);
-		data = Bytes.concat(data, amountBytes);
-		
-		//DIGEST
-		byte[] digest = Crypto.getInstance().digest(data);
-		digest = Bytes.concat(digest, digest);
-				
 		//CHECK IF EQUAL
-		return Arrays.equals(digest, this.signature);
+		return Arrays.equals(generateSignature(this.recipient, this.amount, this.timestamp), this.signature);
 	}
 	
 	@Override
@@ -206,31 +170,13 @@ public class GenesisTransaction extends Transaction {
 
 	private static byte[] generateSignature(Account recipient, BigDecimal amount, long timestamp)
 	{
-		byte[] data = new byte[0];
-		
-		//WRITE TYPE
-		byte[] typeBytes = Ints.toByteArray(GENESIS_TRANSACTION);
-		typeBytes = Bytes.ensureCapacity(typeBytes, TYPE_LENGTH, 0);
-		data = Bytes.concat(data, typeBytes);
-				
-		//WRITE TIMESTAMP
-		byte[] timestampBytes = Longs.toByteArray(timestamp);
-		timestampBytes = Bytes.ensureCapacity(timestampBytes, TIMESTAMP_LENGTH, 0);
-		data = Bytes.concat(data, timestampBytes);
-				
-		//WRITE RECIPIENT
-		data = Bytes.concat(data, Base58.decode(recipient.getAddress()));
-				
-		//WRITE AMOUNT
-		byte[] amountBytes = amount.unscaledValue().toByteArray();
-		byte[] fill = new byte[AMOUNT_LENGTH - amountBytes.length];
-		amountBytes = Bytes.concat(fill, amountBytes);
-		data = Bytes.concat(data, amountBytes);
+		ByteBuffer buffer = ByteBuffer.allocate(TYPE_LENGTH + BASE_LENGTH);
+		write(buffer, recipient, amount, timestamp);
 		
 		//DIGEST
-		byte[] digest = Crypto.getInstance().digest(data);
+		byte[] digest = Crypto.getInstance().digest(Codec.toArray(buffer));
 		digest = Bytes.concat(digest, digest);
-				
+		
 		return digest;
 	}
 	
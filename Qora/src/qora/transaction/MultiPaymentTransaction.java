@@ -1,7 +1,7 @@
 package qora.transaction;
 
 import java.math.BigDecimal;
-import java.math.BigInteger;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -15,15 +15,14 @@ import qora.account.Account;
 import qora.account.PrivateKeyAccount;
 import qora.account.PublicKeyAccount;
 import qora.crypto.Crypto;
+import qora.crypto.SignatureCache;
 import qora.payment.Payment;
 
-import com.google.common.primitives.Bytes;
-import com.google.common.primitives.Ints;
-import com.google.common.primitives.Longs;
-
 import database.BalanceMap;
 import database.DBSet;
 
+import utils.Codec;
+
 public class MultiPaymentTransaction extends Transaction {
 
 	private static final int REFERENCE_LENGTH = 64;
@@ -58,34 +57,27 @@ public class MultiPaymentTransaction extends Transaction {
 	
 	//PARSE/CONVERT
 	
-	public static Transaction Parse(byte[] data) throws Exception{
-		
+	public static Transaction Parse(byte[] data) throws Exception
+	{
 		//CHECK IF WE MATCH BLOCK LENGTH
 		if(data.length < BASE_LENGTH)
 		{
 			throw new Exception("Data does not match block length");
 		}
 		
-		int position = 0;
+		ByteBuffer buffer = ByteBuffer.wrap(data);
 		
 		//READ TIMESTAMP
-		byte[] timestampBytes = Arrays.copyOfRange(data, position, position + TIMESTAMP_LENGTH);
-		long timestamp = Longs.fromByteArray(timestampBytes);	
-		position += TIMESTAMP_LENGTH;
+		long timestamp = buffer.getLong();
 		
 		//READ REFERENCE
-		byte[] reference = Arrays.copyOfRange(data, position, position + REFERENCE_LENGTH);
-		position += REFERENCE_LENGTH;
+		byte[] reference = Codec.getBytes(buffer, REFERENCE_LENGTH);
 		
 		//READ SENDER
-		byte[] senderBytes = Arrays.copyOfRange(data, position, position + SENDER_LENGTH);
-		PublicKeyAccount sender = new PublicKeyAccount(senderBytes);
-		position += SENDER_LENGTH;
+		PublicKeyAccount sender = new PublicKeyAccount(Codec.getBytes(buffer, SENDER_LENGTH));
 		
 		//READ PAYMENTS SIZE
-		byte[] paymentsLengthBytes = Arrays.copyOfRange(data, position, position + PAYMENTS_SIZE_LENGTH);
-		int paymentsLength = Ints.fromByteArray(paymentsLengthBytes);
-		position += PAYMENTS_SIZE_LENGTH;
+		int paymentsLength = buffer.getInt();
 		
 		if(paymentsLength < 1 || paymentsLength > 400)
 		{
@@ -96,21 +88,16 @@ public class MultiPaymentTransaction extends Transaction {
 		List<Payment> payments = new ArrayList<Payment>();
 		for(int i=0; i<paymentsLength; i++)
 		{
-			Payment payment = Payment.parse(Arrays.copyOfRange(data, position, position + Payment.BASE_LENGTH));
-			payments.add(payment);
-			
-			position += Payment.BASE_LENGTH;
+			payments.add(Payment.parse(buffer));
 		}
 		
 		//READ FEE
-		byte[] feeBytes = Arrays.copyOfRange(data, position, position + FEE_LENGTH);
-		BigDecimal fee = new BigDecimal(new BigInteger(feeBytes), 8);
-		position += FEE_LENGTH;		
+		BigDecimal fee = Codec.getAmount(buffer, FEE_LENGTH);
 		
 		//READ SIGNATURE
-		byte[] signatureBytes = Arrays.copyOfRange(data, position, position + SIGNATURE_LENGTH);
+		byte[] signatureBytes = Codec.getBytes(buffer, SIGNATURE_LENGTH);
 		
-		return new MultiPaymentTransaction(sender, payments, fee, timestamp, reference, signatureBytes);	
+		return new MultiPaymentTransaction(sender, payments, fee, timestamp, reference, signatureBytes);
 	}	
 	
 	@SuppressWarnings("unchecked")
@@ -134,49 +121,55 @@ public class MultiPaymentTransaction extends Transaction {
 	}
 	
 	@Override
-	public byte[] toBytes() 
+	protected void toBytes(ByteBuffer buffer, boolean includeSignature) 
 	{
-		byte[] data = new byte[0];
-		
 		//WRITE TYPE
-		byte[] typeBytes = Ints.toByteArray(MULTI_PAYMENT_TRANSACTION);
-		typeBytes = Bytes.ensureCapacity(typeBytes, TYPE_LENGTH, 0);
-		data = Bytes.concat(data, typeBytes);
+		buffer.putInt(MULTI_PAYMENT_TRANSACTION);
 		
 		//WRITE TIMESTAMP
-		byte[] timestampBytes = Longs.toByteArray(this.timestamp);
-		timestampBytes = Bytes.ensureCapacity(timestampBytes, TIMESTAMP_LENGTH, 0);
-		data = Bytes.concat(data, timestampBytes);
+		buffer.putLong(this.timestamp);
 		
 		//WRITE REFERENCE
-		data = Bytes.concat(data, this.reference);
+		buffer.put(this.reference);
 		
 		//WRITE SENDER
-		data = Bytes.concat(data , this.sender.getPublicKey());
-	
+		buffer.put(this.sender.getPublicKey());
+		
 		//WRITE PAYMENTS SIZE
-		int paymentsLength = this.payments.size();
-		byte[] paymentsLengthBytes = Ints.toByteArray(paymentsLength);
-		data = Bytes.concat(data, paymentsLengthBytes);
+		buffer.putInt(this.payments.size());
 		
 		//WRITE PAYMENTS
 		for(Payment payment: this.payments)
 		{
-			data = Bytes.concat(data, payment.toBytes());
+			payment.toBytes(buffer);
 		}
 		
 		//WRITE FEE
-		byte[] feeBytes = this.fee.unscaledValue().toByteArray();
-		byte[] fill = new byte[FEE_LENGTH - feeBytes.length];
-		feeBytes = Bytes.concat(fill, feeBytes);
-		data = Bytes.concat(data, feeBytes);
-
-		//SIGNATURE
-		data = Bytes.concat(data, this.signature);
+		Codec.putAmount(buffer, this.fee, FEE_LENGTH);
 		
-		return data;
+		//SIGNATURE
+		if(includeSignature)
+		{
+			buffer.put(this.signature);
+		}
 	}
 
+	//THE SIGNED DATA HAS ALWAYS BEEN THE LAST PAYMENT FOLLOWED BY THE FEE
+	@Override
+	protected byte[] getSignatureData()
+	{
+		if(this.payments.isEmpty())
+		{
+			return super.getSignatureData();
+		}
+		
+		Payment payment = this.payments.get(this.payments.size() - 1);
+		ByteBuffer buffer = ByteBuffer.allocate(payment.getDataLength() + FEE_LENGTH);
+		payment.toBytes(buffer);
+		Codec.putAmount(buffer, this.fee, FEE_LENGTH);
+		return buffer.array();
+	}
+	
 	@Override
 	public int getDataLength() 
 	{
@@ -193,42 +186,7 @@ public class MultiPaymentTransaction extends Transaction {
 	
 	public boolean isSignatureValid()
 	{
-		byte[] data = new byte[0];
-		
-		//WRITE TYPE
-		byte[] typeBytes = Ints.toByteArray(MULTI_PAYMENT_TRANSACTION);
-		typeBytes = Bytes.ensureCapacity(typeBytes, TYPE_LENGTH, 0);
-		data = Bytes.concat(data, typeBytes);
-		
-		//WRITE TIMESTAMP
-		byte[] timestampBytes = Longs.toByteArray(this.timestamp);
-		timestampBytes = Bytes.ensureCapacity(timestampBytes, TIMESTAMP_LENGTH, 0);
-		data = Bytes.concat(data, timestampBytes);
-		
-		//WRITE REFERENCE
-		data = Bytes.concat(data, this.reference);
-		
-		//WRITE SENDER
-		data = Bytes.concat(data , this.sender.getPublicKey());
-	
-		//WRITE PAYMENTS SIZE
-		int paymentsLength = this.payments.size();
-		byte[] paymentsLengthBytes = Ints.toByteArray(paymentsLength);
-		data = Bytes.concat(data, paymentsLengthBytes);
-		
-		//WRITE PAYMENTS
-		for(Payment payment: this.payments)
-		{
-			data = Bytes.concat(payment.toBytes());
-		}
-		
-		//WRITE FEE
-		byte[] feeBytes = this.fee.unscaledValue().toByteArray();
-		byte[] fill = new byte[FEE_LENGTH - feeBytes.length];
-		feeBytes = Bytes.concat(fill, feeBytes);
-		data = Bytes.concat(data, feeBytes);
-				
-		return Crypto.getInstance().verify(this.sender.getPublicKey(), this.signature, data);
+		return SignatureCache.getInstance().verify(this.sender.getPublicKey(), this.signature, this.getSignatureData());
 	}
 	
 	@Override
@@ -422,42 +380,8 @@ public class MultiPaymentTransaction extends Transaction {
 	
 	public static byte[] generateSignature(DBSet db, PrivateKeyAccount sender, List<Payment> payments, BigDecimal fee, long timestamp) 
 	{
-		byte[] data = new byte[0];
-		
-		//WRITE TYPE
-		byte[] typeBytes = Ints.toByteArray(MULTI_PAYMENT_TRANSACTION);
-		typeBytes = Bytes.ensureCapacity(typeBytes, TYPE_LENGTH, 0);
-		data = Bytes.concat(data, typeBytes);
-		
-		//WRITE TIMESTAMP
-		byte[] timestampBytes = Longs.toByteArray(timestamp);
-		timestampBytes = Bytes.ensureCapacity(timestampBytes, TIMESTAMP_LENGTH, 0);
-		data = Bytes.concat(data, timestampBytes);
-		
-		//WRITE REFERENCE
-		data = Bytes.concat(data, sender.getLastReference(db));
-		
-		//WRITE SENDER
-		data = Bytes.concat(data , sender.getPublicKey());
-		
-		//WRITE PAYMENTS SIZE
-		int paymentsLength = payments.size();
-		byte[] paymentsLengthBytes = Ints.toByteArray(paymentsLength);
-		data = Bytes.concat(data, paymentsLengthBytes);
-		
-		//WRITE PAYMENTS
-		for(Payment payment: payments)
-		{
-			data = Bytes.concat(payment.toBytes());
-		}
-		
-		//WRITE FEE
-		byte[] feeBytes = fee.unscaledValue().toByteArray();
-		byte[] fill = new byte[FEE_LENGTH - feeBytes.length];
-		feeBytes = Bytes.concat(fill, feeBytes);
-		data = Bytes.concat(data, feeBytes);
+		MultiPaymentTransaction transaction = new MultiPaymentTransaction(sender, payments, fee, timestamp, sender.getLastReference(db), null);
 		
-		//SIGN
-		return Crypto.getInstance().sign(sender, data);
+		return Crypto.getInstance().sign(sender, transaction.getSignatureData());
 	}
 }
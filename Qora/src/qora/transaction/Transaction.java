@@ -2,6 +2,7 @@ package qora.transaction;
 
 import java.math.BigDecimal;
 import java.math.MathContext;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.List;
 
@@ -11,6 +12,7 @@ import database.DBSet;
 import qora.account.Account;
 import qora.crypto.Base58;
 import settings.Settings;
+import utils.Codec;
 
 public abstract class Transaction {
 	
@@ -92,6 +94,7 @@ public abstract class Transaction {
 	protected static final int TYPE_LENGTH = 4;
 	public static final int TIMESTAMP_LENGTH = 8;
 	protected static final int REFERENCE_LENGTH = 64;
+	protected static final int SIGNATURE_LENGTH = 64;
 		
 	protected byte[] reference;
 	protected BigDecimal fee;
@@ -177,7 +180,27 @@ public abstract class Transaction {
 	
 	public abstract JSONObject toJson();
 	
-	public abstract byte[] toBytes();
+	public byte[] toBytes()
+	{
+		ByteBuffer buffer = ByteBuffer.allocate(this.getDataLength());
+		this.toBytes(buffer, true);
+		return Codec.toArray(buffer);
+	}
+	
+	public void toBytes(ByteBuffer buffer)
+	{
+		this.toBytes(buffer, true);
+	}
+	
+	protected abstract void toBytes(ByteBuffer buffer, boolean includeSignature);
+	
+	//DATA COVERED BY THE SIGNATURE IS EVERYTHING EXCEPT THE SIGNATURE ITSELF
+	protected byte[] getSignatureData()
+	{
+		ByteBuffer buffer = ByteBuffer.allocate(this.getDataLength() - SIGNATURE_LENGTH);
+		this.toBytes(buffer, false);
+		return Codec.toArray(buffer);
+	}
 	
 	public abstract int getDataLength();
 	
@@ -1,7 +1,7 @@
 package qora.transaction;
 
 import java.math.BigDecimal;
-import java.math.BigInteger;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -11,18 +11,17 @@ import ntp.NTP;
 
 import org.json.simple.JSONObject;
 
-import com.google.common.primitives.Bytes;
-import com.google.common.primitives.Ints;
-import com.google.common.primitives.Longs;
-
 import database.DBSet;
 import qora.account.Account;
 import qora.account.PrivateKeyAccount;
 import qora.account.PublicKeyAccount;
 import qora.crypto.Crypto;
+import qora.crypto.SignatureCache;
 import qora.voting.Poll;
 import qora.voting.PollOption;
 
+import utils.Codec;
+
 public class VoteOnPollTransaction extends Transaction 
 {
 	private static final int CREATOR_LENGTH = 32;
@@ -61,56 +60,43 @@ public class VoteOnPollTransaction extends Transaction
 	//PARSE CONVERT
 	
 	public static Transaction Parse(byte[] data) throws Exception
-	{	
+	{
 		//CHECK IF WE MATCH BLOCK LENGTH
 		if(data.length < BASE_LENGTH)
 		{
 			throw new Exception("Data does not match block length");
 		}
 		
-		int position = 0;
+		ByteBuffer buffer = ByteBuffer.wrap(data);
 		
 		//READ TIMESTAMP
-		byte[] timestampBytes = Arrays.copyOfRange(data, position, position + TIMESTAMP_LENGTH);
-		long timestamp = Longs.fromByteArray(timestampBytes);	
-		position += TIMESTAMP_LENGTH;
+		long timestamp = buffer.getLong();
 		
 		//READ REFERENCE
-		byte[] reference = Arrays.copyOfRange(data, position, position + REFERENCE_LENGTH);
-		position += REFERENCE_LENGTH;
+		byte[] reference = Codec.getBytes(buffer, REFERENCE_LENGTH);
 		
 		//READ CREATOR
-		byte[] creatorBytes = Arrays.copyOfRange(data, position, position + CREATOR_LENGTH);
-		PublicKeyAccount creator = new PublicKeyAccount(creatorBytes);
-		position += CREATOR_LENGTH;
+		PublicKeyAccount creator = new PublicKeyAccount(Codec.getBytes(buffer, CREATOR_LENGTH));
 		
 		//READ POLL SIZE
-		byte[] pollLengthBytes = Arrays.copyOfRange(data, position, position + POLL_SIZE_LENGTH);
-		int pollLength = Ints.fromByteArray(pollLengthBytes);
-		position += POLL_SIZE_LENGTH;
-				
+		int pollLength = buffer.getInt();
+		
 		if(pollLength < 1 || pollLength > 400)
 		{
 			throw new Exception("Invalid poll length");
 		}
 		
 		//READ POLL
-		byte[] pollBytes = Arrays.copyOfRange(data, position, position + pollLength);
-		String poll = new String(pollBytes, StandardCharsets.UTF_8);
-		position += pollLength;
+		String poll = Codec.getString(buffer, pollLength);
 		
 		//READ OPTION
-		byte[] optionBytes = Arrays.copyOfRange(data, position, position + OPTION_SIZE_LENGTH);
-		int option = Ints.fromByteArray(optionBytes);
-		position += OPTION_SIZE_LENGTH;
+		int option = buffer.getInt();
 		
 		//READ FEE
-		byte[] feeBytes = Arrays.copyOfRange(data, position, position + FEE_LENGTH);
-		BigDecimal fee = new BigDecimal(new BigInteger(feeBytes), 8);
-		position += FEE_LENGTH;		
+		BigDecimal fee = Codec.getAmount(buffer, FEE_LENGTH);
 		
 		//READ SIGNATURE
-		byte[] signatureBytes = Arrays.copyOfRange(data, position, position + SIGNATURE_LENGTH);
+		byte[] signatureBytes = Codec.getBytes(buffer, SIGNATURE_LENGTH);
 		
 		return new VoteOnPollTransaction(creator, poll, option, fee, timestamp, reference, signatureBytes);
 	}	
@@ -131,50 +117,34 @@ public class VoteOnPollTransaction extends Transaction
 	}
 	
 	@Override
-	public byte[] toBytes() 
+	protected void toBytes(ByteBuffer buffer, boolean includeSignature) 
 	{
-		byte[] data = new byte[0];
-		
 		//WRITE TYPE
-		byte[] typeBytes = Ints.toByteArray(VOTE_ON_POLL_TRANSACTION);
-		typeBytes = Bytes.ensureCapacity(typeBytes, TYPE_LENGTH, 0);
-		data = Bytes.concat(data, typeBytes);
+		buffer.putInt(VOTE_ON_POLL_TRANSACTION);
 		
 		//WRITE TIMESTAMP
-		byte[] timestampBytes = Longs.toByteArray(this.timestamp);
-		timestampBytes = Bytes.ensureCapacity(timestampBytes, TIMESTAMP_LENGTH, 0);
-		data = Bytes.concat(data, timestampBytes);
+		buffer.putLong(this.timestamp);
 		
 		//WRITE REFERENCE
-		data = Bytes.concat(data, this.reference);
+		buffer.put(this.reference);
 		
 		//WRITE CREATOR
-		data = Bytes.concat(data, this.creator.getPublicKey());
+		buffer.put(this.creator.getPublicKey());
 		
-		//WRITE POLL SIZE
-		byte[] pollBytes = this.poll.getBytes(StandardCharsets.UTF_8);
-		int pollLength = pollBytes.length;
-		byte[] pollLengthBytes = Ints.toByteArray(pollLength);
-		data = Bytes.concat(data, pollLengthBytes);
-				
-		//WRITE NAME
-		data = Bytes.concat(data, pollBytes);
+		//WRITE POLL
+		Codec.putString(buffer, this.poll);
 		
 		//WRITE OPTION
-		byte[] optionBytes = Ints.toByteArray(this.option);
-		optionBytes = Bytes.ensureCapacity(optionBytes, OPTION_SIZE_LENGTH, 0);
-		data = Bytes.concat(data, optionBytes);
+		buffer.putInt(this.option);
 		
 		//WRITE FEE
-		byte[] feeBytes = this.fee.unscaledValue().toByteArray();
-		byte[] fill = new byte[FEE_LENGTH - feeBytes.length];
-		feeBytes = Bytes.concat(fill, feeBytes);
-		data = Bytes.concat(data, feeBytes);
-
-		//SIGNATURE
-		data = Bytes.concat(data, this.signature);
+		Codec.putAmount(buffer, this.fee, FEE_LENGTH);
 		
-		return data;
+		//SIGNATURE
+		if(includeSignature)
+		{
+			buffer.put(this.signature);
+		}
 	}
 	
 	@Override
@@ -187,45 +157,7 @@ public class VoteOnPollTransaction extends Transaction
 	
 	public boolean isSignatureValid()
 	{
-		byte[] data = new byte[0];
-		
-		//WRITE TYPE
-		byte[] typeBytes = Ints.toByteArray(VOTE_ON_POLL_TRANSACTION);
-		typeBytes = Bytes.ensureCapacity(typeBytes, TYPE_LENGTH, 0);
-		data = Bytes.concat(data, typeBytes);
-		
-		//WRITE TIMESTAMP
-		byte[] timestampBytes = Longs.toByteArray(this.timestamp);
-		timestampBytes = Bytes.ensureCapacity(timestampBytes, TIMESTAMP_LENGTH, 0);
-		data = Bytes.concat(data, timestampBytes);
-		
-		//WRITE REFERENCE
-		data = Bytes.concat(data, this.reference);
-		
-		//WRITE CREATOR
-		data = Bytes.concat(data, this.creator.getPublicKey());
-		
-		//WRITE POLL SIZE
-		byte[] pollBytes = this.poll.getBytes(StandardCharsets.UTF_8);
-		int pollLength = pollBytes.length;
-		byte[] pollLengthBytes = Ints.toByteArray(pollLength);
-		data = Bytes.concat(data, pollLengthBytes);
-				
-		//WRITE NAME
-		data = Bytes.concat(data, pollBytes);
-		
-		//WRITE OPTION
-		byte[] optionBytes = Ints.toByteArray(this.option);
-		optionBytes = Bytes.ensureCapacity(optionBytes, OPTION_SIZE_LENGTH, 0);
-		data = Bytes.concat(data, optionBytes);
-		
-		//WRITE FEE
-		byte[] feeBytes = this.fee.unscaledValue().toByteArray();
-		byte[] fill = new byte[FEE_LENGTH - feeBytes.length];
-		feeBytes = Bytes.concat(fill, feeBytes);
-		data = Bytes.concat(data, feeBytes);
-				
-		return Crypto.getInstance().verify(this.creator.getPublicKey(), this.signature, data);
+		return SignatureCache.getInstance().verify(this.creator.getPublicKey(), this.signature, this.getSignatureData());
 	}
 	
 	@Override
@@ -382,44 +314,8 @@ public class VoteOnPollTransaction extends Transaction
 
 	public static byte[] generateSignature(DBSet db, PrivateKeyAccount creator, String poll, int option, BigDecimal fee, long timestamp) 
 	{
-		byte[] data = new byte[0];
-		
-		//WRITE TYPE
-		byte[] typeBytes = Ints.toByteArray(VOTE_ON_POLL_TRANSACTION);
-		typeBytes = Bytes.ensureCapacity(typeBytes, TYPE_LENGTH, 0);
-		data = Bytes.concat(data, typeBytes);
-		
-		//WRITE TIMESTAMP
-		byte[] timestampBytes = Longs.toByteArray(timestamp);
-		timestampBytes = Bytes.ensureCapacity(timestampBytes, TIMESTAMP_LENGTH, 0);
-		data = Bytes.concat(data, timestampBytes);
-		
-		//WRITE REFERENCE
-		data = Bytes.concat(data, creator.getLastReference(db));
-		
-		//WRITE CREATOR
-		data = Bytes.concat(data, creator.getPublicKey());
-		
-		//WRITE POLL SIZE
-		byte[] pollBytes = poll.getBytes(StandardCharsets.UTF_8);
-		int pollLength = pollBytes.length;
-		byte[] pollLengthBytes = Ints.toByteArray(pollLength);
-		data = Bytes.concat(data, pollLengthBytes);
-				
-		//WRITE NAME
-		data = Bytes.concat(data, pollBytes);
-		
-		//WRITE OPTION
-		byte[] optionBytes = Ints.toByteArray(option);
-		optionBytes = Bytes.ensureCapacity(optionBytes, OPTION_SIZE_LENGTH, 0);
-		data = Bytes.concat(data, optionBytes);
-		
-		//WRITE FEE
-		byte[] feeBytes = fee.unscaledValue().toByteArray();
-		byte[] fill = new byte[FEE_LENGTH - feeBytes.length];
-		feeBytes = Bytes.concat(fill, feeBytes);
-		data = Bytes.concat(data, feeBytes);
+		VoteOnPollTransaction transaction = new VoteOnPollTransaction(creator, poll, option, fee, timestamp, creator.getLastReference(db), null);
 		
-		return Crypto.getInstance().sign(creator, data);
+		return Crypto.getInstance().sign(creator, transaction.getSignatureData());
 	}
 }
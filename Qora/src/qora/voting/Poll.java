@@ -1,21 +1,18 @@
 package qora.voting;
 
 import java.math.BigDecimal;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 
 import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
 
-import com.google.common.primitives.Bytes;
-import com.google.common.primitives.Ints;
-
 import database.DBSet;
 import qora.account.Account;
-import qora.crypto.Base58;
 import utils.Pair;
+import utils.Codec;
 
 public class Poll 
 {
@@ -137,46 +134,37 @@ public class Poll
 	
 	public static Poll parse(byte[] data) throws Exception
 	{
-		int position = 0;
-		
+		return parse(ByteBuffer.wrap(data));
+	}
+	
+	public static Poll parse(ByteBuffer buffer) throws Exception
+	{
 		//READ CREATOR
-		byte[] creatorBytes = Arrays.copyOfRange(data, position, position + CREATOR_LENGTH);
-		Account creator = new Account(Base58.encode(creatorBytes));
-		position += CREATOR_LENGTH;
+		Account creator = new Account(Codec.getAddress(buffer));
 		
 		//READ NAME SIZE
-		byte[] nameLengthBytes = Arrays.copyOfRange(data, position, position + NAME_SIZE_LENGTH);
-		int nameLength = Ints.fromByteArray(nameLengthBytes);
-		position += NAME_SIZE_LENGTH;
-				
+		int nameLength = buffer.getInt();
+		
 		if(nameLength < 1 || nameLength > 400)
 		{
 			throw new Exception("Invalid name length");
 		}
 		
 		//READ NAME
-		byte[] nameBytes = Arrays.copyOfRange(data, position, position + nameLength);
-		String name = new String(nameBytes, StandardCharsets.UTF_8);
-		position += nameLength;
+		String name = Codec.getString(buffer, nameLength);
 		
 		//READ DESCRIPTION
-		byte[] descriptionLengthBytes = Arrays.copyOfRange(data, position, position + DESCRIPTION_SIZE_LENGTH);
-		int descriptionLength = Ints.fromByteArray(descriptionLengthBytes);
-		position += DESCRIPTION_SIZE_LENGTH;
-				
+		int descriptionLength = buffer.getInt();
+		
 		if(descriptionLength < 1 || descriptionLength > 4000)
 		{
 			throw new Exception("Invalid description length");
 		}
-				
-		byte[] descriptionBytes = Arrays.copyOfRange(data, position, position + descriptionLength);
-		String description = new String(descriptionBytes, StandardCharsets.UTF_8);
-		position += descriptionLength;
+		
+		String description = Codec.getString(buffer, descriptionLength);
 		
 		//READ OPTIONS SIZE
-		byte[] optionsLengthBytes = Arrays.copyOfRange(data, position, position + OPTIONS_SIZE_LENGTH);
-		int optionsLength = Ints.fromByteArray(optionsLengthBytes);
-		position += OPTIONS_SIZE_LENGTH;
+		int optionsLength = buffer.getInt();
 		
 		if(optionsLength < 1 || optionsLength > 100)
 		{
@@ -187,9 +175,7 @@ public class Poll
 		List<PollOption> options = new ArrayList<PollOption>();
 		for(int i=0; i<optionsLength; i++)
 		{
-			PollOption option = PollOption.parse(Arrays.copyOfRange(data, position, data.length));
-			position += option.getDataLength();
-			options.add(option);
+			options.add(PollOption.parse(buffer));
 		}
 		
 		return new Poll(creator, name, description, options);
@@ -219,47 +205,30 @@ public class Poll
 	
 	public byte[] toBytes()
 	{
-		byte[] data = new byte[0];
-		
+		ByteBuffer buffer = ByteBuffer.allocate(this.getDataLength());
+		this.toBytes(buffer);
+		return Codec.toArray(buffer);
+	}
+	
+	public void toBytes(ByteBuffer buffer)
+	{
 		//WRITE CREATOR
-		try
-		{
-			data = Bytes.concat(data , Base58.decode(this.creator.getAddress()));
-		}
-		catch(Exception e)
-		{
-			//DECODE EXCEPTION
-		}
-		
-		//WRITE NAME SIZE
-		byte[] nameBytes = this.name.getBytes(StandardCharsets.UTF_8);
-		int nameLength = nameBytes.length;
-		byte[] nameLengthBytes = Ints.toByteArray(nameLength);
-		data = Bytes.concat(data, nameLengthBytes);
+		Codec.putAddress(buffer, this.creator.getAddress());
 		
-		//WRITE NAME
-		data = Bytes.concat(data, nameBytes);
+		//WRITE NAME SIZE + NAME
+		Codec.putString(buffer, this.name);
 		
-		//WRITE DESCRIPTION SIZE
-		byte[] valueBytes = this.description.getBytes(StandardCharsets.UTF_8);
-		int valueLength = valueBytes.length;
-		byte[] valueLengthBytes = Ints.toByteArray(valueLength);
-		data = Bytes.concat(data, valueLengthBytes);
-				
-		//WRITE DESCRIPTION
-		data = Bytes.concat(data, valueBytes);
+		//WRITE DESCRIPTION SIZE + DESCRIPTION
+		Codec.putString(buffer, this.description);
 		
 		//WRITE OPTIONS SIZE
-		byte[] optionsLengthBytes = Ints.toByteArray(this.options.size());
-		data = Bytes.concat(data, optionsLengthBytes);
-				
+		buffer.putInt(this.options.size());
+		
 		//WRITE OPTIONS
 		for(PollOption option: this.options)
 		{
-			data = Bytes.concat(data, option.toBytes());
+			option.toBytes(buffer);
 		}
-		
-		return data;
 	}
 	
 	public int getDataLength() 
@@ -1,19 +1,17 @@
 package qora.voting;
 
 import java.math.BigDecimal;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 
 import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
 
 import qora.account.Account;
-import qora.crypto.Base58;
 
-import com.google.common.primitives.Bytes;
-import com.google.common.primitives.Ints;
+import utils.Codec;
 
 public class PollOption {
 	
@@ -99,36 +97,30 @@ public class PollOption {
 	
 	public static PollOption parse(byte[] data) throws Exception
 	{
-		int position = 0;
-		
+		return parse(ByteBuffer.wrap(data));
+	}
+	
+	public static PollOption parse(ByteBuffer buffer) throws Exception
+	{
 		//READ NAME SIZE
-		byte[] nameLengthBytes = Arrays.copyOfRange(data, position, position + NAME_SIZE_LENGTH);
-		int nameLength = Ints.fromByteArray(nameLengthBytes);
-		position += NAME_SIZE_LENGTH;
-				
+		int nameLength = buffer.getInt();
+		
 		if(nameLength < 1 || nameLength > 400)
 		{
 			throw new Exception("Invalid name length");
 		}
 		
 		//READ NAME
-		byte[] nameBytes = Arrays.copyOfRange(data, position, position + nameLength);
-		String name = new String(nameBytes, StandardCharsets.UTF_8);
-		position += nameLength;
+		String name = Codec.getString(buffer, nameLength);
 		
 		//READ VOTERS SIZE
-		byte[] votersLengthBytes = Arrays.copyOfRange(data, position, position + VOTERS_SIZE_LENGTH);
-		int votersLength = Ints.fromByteArray(votersLengthBytes);
-		position += VOTERS_SIZE_LENGTH;
+		int votersLength = buffer.getInt();
 		
 		//READ VOTERS
 		List<Account> voters = new ArrayList<Account>();
 		for(int i=0; i<votersLength; i++)
 		{
-			byte[] rawAddress = Arrays.copyOfRange(data, position, position + VOTER_LENGTH);
-			String address = Base58.encode(rawAddress);
-			voters.add(new Account(address));
-			position += VOTER_LENGTH;
+			voters.add(new Account(Codec.getAddress(buffer)));
 		}
 		
 		return new PollOption(name, voters);
@@ -156,29 +148,24 @@ public class PollOption {
 	
 	public byte[] toBytes()
 	{
-		byte[] data = new byte[0];
-		
-		//WRITE NAME SIZE
-		byte[] nameBytes = this.name.getBytes(StandardCharsets.UTF_8);
-		int nameLength = nameBytes.length;
-		byte[] nameLengthBytes = Ints.toByteArray(nameLength);
-		data = Bytes.concat(data, nameLengthBytes);
-				
-		//WRITE NAME
-		data = Bytes.concat(data, nameBytes);
+		ByteBuffer buffer = ByteBuffer.allocate(this.getDataLength());
+		this.toBytes(buffer);
+		return Codec.toArray(buffer);
+	}
+	
+	public void toBytes(ByteBuffer buffer)
+	{
+		//WRITE NAME SIZE + NAME
+		Codec.putString(buffer, this.name);
 		
 		//WRITE VOTERS SIZE
-		int votersLength = this.voters.size();
-		byte[] votersLengthBytes = Ints.toByteArray(votersLength);
-		data = Bytes.concat(data, votersLengthBytes);
-			
+		buffer.putInt(this.voters.size());
+		
 		//WRITE VOTERS
 		for(Account voter: this.voters)
 		{
-			data = Bytes.concat(data, Base58.decode(voter.getAddress()));
+			Codec.putAddress(buffer, voter.getAddress());
 		}
-		
-		return data;
 	}
 	
 	public int getDataLength() 
@@ -60,6 +60,15 @@ public class Wallet extends Observable implements Observer
 			//OPEN WALLET
 			this.database = new WalletDatabase();
 			
+			//CHECK IF WALLET MATCHES THE LAST COMMITTED BLOCK
+			byte[] lastBlockSignature = this.database.getLastBlockSignature();
+			if(lastBlockSignature == null || !Arrays.equals(lastBlockSignature, DBSet.getInstance().getBlockMap().getLastBlockSignature()))
+			{
+				Logger.getGlobal().info("Wallet not synchronized with current blockchain: synchronizing wallet.");
+				this.synchronize();
+				this.database.commit();
+			}
+			
 			//ADD OBSERVER
 		    Controller.getInstance().addObserver(this);
 		    DBSet.getInstance().getCompletedOrderMap().addObserver(this);
@@ -20,6 +20,12 @@ public class Settings {
 	private static final int DEFAULT_MAX_CONNECTIONS = 20;
 	private static final int DEFAULT_CONNECTION_TIMEOUT = 60000;
 	private static final int DEFAULT_PING_INTERVAL = 30000;
+	private static final int DEFAULT_SERVING_THREADS = 4;
+	private static final int DEFAULT_MAX_QUEUED_MESSAGES = 1000;
+	private static final int DEFAULT_NETWORK_THREADS = 2;
+	private static final boolean DEFAULT_DIRECT_BUFFERS = true;
+	private static final boolean DEFAULT_INVENTORY_RELAY = true;
+	private static final int DEFAULT_MAX_OUTBOUND_BYTES = 8 * 1024 * 1024;
 	
 	//RPC
 	private static final int DEFAULT_RPC_PORT = 9085;
@@ -33,6 +39,18 @@ public class Settings {
 	
 	private static final int DEFAULT_MAX_BYTE_PER_FEE = 512;
 	
+	//CRYPTO
+	private static final String DEFAULT_ED25519_ENGINE = "native";
+	private static final int DEFAULT_VERIFICATION_THREADS = Runtime.getRuntime().availableProcessors();
+	private static final int DEFAULT_SIGNATURE_CACHE_SIZE = 100000;
+	
+	//DATABASE
+	//THE WALLET IS COMMITTED RIGHT AFTER THE DATABASE, A CRASH LOSES AT MOST THE BLOCKS SINCE THE LAST COMMIT
+	//KEEP THIS SMALL, THE WALLET RESYNCHRONIZES ON STARTUP IF IT DOES NOT MATCH THE LAST BLOCK
+	private static final int DEFAULT_BLOCKS_PER_COMMIT = 1;
+	private static final int DEFAULT_MAX_UNCONFIRMED_TRANSACTIONS = 50000;
+	private static final int DEFAULT_EXPIRY_INTERVAL = 60;
+	
 	private static Settings instance;
 	
 	private JSONObject settingsJSON;
@@ -153,6 +171,67 @@ public class Settings {
 		return DEFAULT_CONNECTION_TIMEOUT;
 	}
 	
+	public int getServingThreads()
+	{
+		if(this.settingsJSON.containsKey("servingthreads"))
+		{
+			return ((Long) this.settingsJSON.get("servingthreads")).intValue();
+		}
+		
+		return DEFAULT_SERVING_THREADS;
+	}
+	
+	//MESSAGES THAT CAN WAIT FOR EVERY EXECUTOR, A PEER HOLDING MORE THAN ITS SHARE OF A FULL QUEUE IS DISCONNECTED
+	public int getMaxQueuedMessages()
+	{
+		if(this.settingsJSON.containsKey("maxqueuedmessages"))
+		{
+			return ((Long) this.settingsJSON.get("maxqueuedmessages")).intValue();
+		}
+		
+		return DEFAULT_MAX_QUEUED_MESSAGES;
+	}
+	
+	public int getNetworkThreads()
+	{
+		if(this.settingsJSON.containsKey("networkthreads"))
+		{
+			return ((Long) this.settingsJSON.get("networkthreads")).intValue();
+		}
+		
+		return DEFAULT_NETWORK_THREADS;
+	}
+	
+	public boolean isDirectBuffersEnabled()
+	{
+		if(this.settingsJSON.containsKey("directbuffers"))
+		{
+			return ((Boolean) this.settingsJSON.get("directbuffers")).booleanValue();
+		}
+		
+		return DEFAULT_DIRECT_BUFFERS;
+	}
+	
+	public boolean isInventoryRelayEnabled()
+	{
+		if(this.settingsJSON.containsKey("inventoryrelay"))
+		{
+			return ((Boolean) this.settingsJSON.get("inventoryrelay")).booleanValue();
+		}
+		
+		return DEFAULT_INVENTORY_RELAY;
+	}
+	
+	public int getMaxOutboundBytes()
+	{
+		if(this.settingsJSON.containsKey("maxoutboundbytes"))
+		{
+			return ((Long) this.settingsJSON.get("maxoutboundbytes")).intValue();
+		}
+		
+		return DEFAULT_MAX_OUTBOUND_BYTES;
+	}
+	
 	public int getRpcPort()
 	{
 		if(this.settingsJSON.containsKey("rpcport"))
@@ -242,4 +321,64 @@ public class Settings {
 		
 		return DEFAULT_MAX_BYTE_PER_FEE;
 	}
+	
+	public String getEd25519Engine()
+	{
+		if(this.settingsJSON.containsKey("ed25519engine"))
+		{
+			return (String) this.settingsJSON.get("ed25519engine");
+		}
+		
+		return DEFAULT_ED25519_ENGINE;
+	}
+	
+	public int getVerificationThreads()
+	{
+		if(this.settingsJSON.containsKey("verificationthreads"))
+		{
+			return ((Long) this.settingsJSON.get("verificationthreads")).intValue();
+		}
+		
+		return DEFAULT_VERIFICATION_THREADS;
+	}
+	
+	public int getSignatureCacheSize()
+	{
+		if(this.settingsJSON.containsKey("signaturecachesize"))
+		{
+			return ((Long) this.settingsJSON.get("signaturecachesize")).intValue();
+		}
+		
+		return DEFAULT_SIGNATURE_CACHE_SIZE;
+	}
+	
+	public int getBlocksPerCommit()
+	{
+		if(this.settingsJSON.containsKey("blockspercommit"))
+		{
+			return ((Long) this.settingsJSON.get("blockspercommit")).intValue();
+		}
+		
+		return DEFAULT_BLOCKS_PER_COMMIT;
+	}
+	
+	public int getMaxUnconfirmedTransactions()
+	{
+		if(this.settingsJSON.containsKey("maxunconfirmedtransactions"))
+		{
+			return ((Long) this.settingsJSON.get("maxunconfirmedtransactions")).intValue();
+		}
+		
+		return DEFAULT_MAX_UNCONFIRMED_TRANSACTIONS;
+	}
+	
+	public int getExpiryInterval()
+	{
+		if(this.settingsJSON.containsKey("expiryinterval"))
+		{
+			return ((Long) this.settingsJSON.get("expiryinterval")).intValue();
+		}
+		
+		return DEFAULT_EXPIRY_INTERVAL;
+	}
 }
@@ -2,14 +2,29 @@ package test;
 
 import static org.junit.Assert.*;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
 
 import ntp.NTP;
 
 import org.junit.Test;
+import org.mapdb.Fun.Tuple2;
 
+import com.google.common.collect.Iterators;
+
+import database.BalanceMap;
 import database.DBSet;
+import database.TransactionIndexMap;
+import database.serializer.BlockHeaderSerializer;
 import qora.BlockGenerator;
 import qora.account.Account;
 import qora.account.PrivateKeyAccount;
@@ -367,6 +382,386 @@ public class BlockTests
 		}			
 	}
 	
+	@Test
+	public void lazyTransactions()
+	{
+		//CREATE EMPTY MEMORY DATABASE
+		DBSet databaseSet = DBSet.createEmptyDatabaseSet();
+		
+		//PROCESS GENESISBLOCK
+		GenesisBlock genesisBlock = new GenesisBlock();
+		genesisBlock.process(databaseSet);
+		
+		//CREATE KNOWN ACCOUNT
+		byte[] seed = Crypto.getInstance().digest("test".getBytes());
+		byte[] privateKey = Crypto.getInstance().createKeyPair(seed).getA();
+		PrivateKeyAccount generator = new PrivateKeyAccount(privateKey);
+		
+		//PROCESS GENESIS TRANSACTION TO MAKE SURE GENERATOR HAS FUNDS
+		Transaction transaction = new GenesisTransaction(generator, BigDecimal.valueOf(1000).setScale(8), NTP.getTime());
+		transaction.process(databaseSet);
+		
+		//GENERATE NEXT BLOCK WITH PAYMENTS
+		BlockGenerator blockGenerator = new BlockGenerator();
+		Block block = blockGenerator.generateNextBlock(databaseSet, generator, genesisBlock);
+		DBSet fork = databaseSet.fork();
+		Account recipient = new Account("XUi2oga2pnGNcZ9es6pBqxydtRZKWdkL2g");
+		for(int i=0; i<5; i++)
+		{
+			byte[] signature = PaymentTransaction.generateSignature(fork, generator, recipient, BigDecimal.valueOf(10 + i).setScale(8), BigDecimal.valueOf(1).setScale(8), block.getTimestamp());
+			Transaction payment = new PaymentTransaction(generator, recipient, BigDecimal.valueOf(10 + i).setScale(8), BigDecimal.valueOf(1).setScale(8), block.getTimestamp(), generator.getLastReference(fork), signature);
+			payment.process(fork);
+			block.addTransaction(payment);
+		}
+		block.setTransactionsSignature(Crypto.getInstance().sign(generator, block.getGeneratorSignature()));
+		
+		try 
+		{	
+			//PARSE FROM BYTES
+			byte[] rawBlock = block.toBytes();
+			Block parsedBlock = BlockFactory.getInstance().parse(rawBlock);
+			
+			//CHECK ACCESS BY INDEX
+			assertEquals(5, parsedBlock.getTransactionCount());
+			assertEquals(true, Arrays.equals(block.getTransactions().get(3).toBytes(), parsedBlock.getTransaction(3).toBytes()));
+			
+			//CHECK ACCESS BY SIGNATURE
+			Transaction payment = block.getTransactions().get(4);
+			assertEquals(true, Arrays.equals(payment.toBytes(), parsedBlock.getTransaction(payment.getSignature()).toBytes()));
+			assertEquals(null, parsedBlock.getTransaction(new byte[64]));
+			
+			//CHECK BYTES ARE WRITTEN WITHOUT CHANGES
+			assertEquals(rawBlock.length, parsedBlock.getDataLength());
+			assertEquals(true, Arrays.equals(rawBlock, parsedBlock.toBytes()));
+			
+			//CHECK LIST
+			assertEquals(5, parsedBlock.getTransactions().size());
+			assertEquals(block.getTotalFee(), parsedBlock.getTotalFee());
+			
+			//CHECK ADDING TO PARSED BLOCK DOES NOT CHANGE A VIEW THAT IS IN USE
+			List<Transaction> view = parsedBlock.getTransactions();
+			parsedBlock.addTransaction(payment);
+			assertEquals(6, parsedBlock.getTransactionCount());
+			assertEquals(6, parsedBlock.getTransactions().size());
+			assertEquals(5, view.size());
+			assertEquals(true, Arrays.equals(block.getTransactions().get(2).toBytes(), view.get(2).toBytes()));
+		}
+		catch (Exception e) 
+		{
+			fail("Exception while parsing block.");
+		}
+		
+		//CHECK INVALID TRANSACTION DATA
+		Block invalidBlock = new Block(1, genesisBlock.getSignature(), block.getTimestamp(), block.getGeneratingBalance(), generator, block.getGeneratorSignature());
+		invalidBlock.setTransactionData(1000, new byte[8]);
+		invalidBlock.setTransactionsSignature(block.getSignature());
+		assertEquals(false, invalidBlock.isSignatureValid());
+		assertEquals(false, invalidBlock.isValid(databaseSet));
+		
+		//CHECK TRANSACTION THAT CANNOT BE PARSED
+		invalidBlock.setTransactionData(1, new byte[]{0, 0, 0, 4, 0, 0, 0, 99});
+		assertEquals(false, invalidBlock.isSignatureValid());
+		assertEquals(false, invalidBlock.isValid(databaseSet));
+		
+		//CHECK BLOCK WITH INVALID TRANSACTION DATA IS NOT PARSED
+		invalidBlock.setTransactionData(1000, new byte[8]);
+		try
+		{
+			ByteBuffer buffer = ByteBuffer.allocate(Block.BASE_LENGTH + 8);
+			invalidBlock.toHeaderBytes(buffer);
+			BlockFactory.getInstance().parse(buffer.array());
+			fail("Block with invalid transaction data was parsed.");
+		}
+		catch(Exception e)
+		{
+			//INVALID BLOCK
+		}
+	}
+	
+	@Test
+	public void storeHeadersAndTransactions()
+	{
+		//CREATE EMPTY MEMORY DATABASE
+		DBSet databaseSet = DBSet.createEmptyDatabaseSet();
+		
+		//PROCESS GENESISBLOCK
+		GenesisBlock genesisBlock = new GenesisBlock();
+		genesisBlock.process(databaseSet);
+		
+		//CREATE KNOWN ACCOUNT
+		byte[] seed = Crypto.getInstance().digest("test".getBytes());
+		byte[] privateKey = Crypto.getInstance().createKeyPair(seed).getA();
+		PrivateKeyAccount generator = new PrivateKeyAccount(privateKey);
+		
+		//PROCESS GENESIS TRANSACTION TO MAKE SURE GENERATOR HAS FUNDS
+		Transaction transaction = new GenesisTransaction(generator, BigDecimal.valueOf(1000).setScale(8), NTP.getTime());
+		transaction.process(databaseSet);
+		
+		//GENERATE NEXT BLOCK WITH PAYMENTS
+		BlockGenerator blockGenerator = new BlockGenerator();
+		Block block = blockGenerator.generateNextBlock(databaseSet, generator, genesisBlock);
+		DBSet fork = databaseSet.fork();
+		Account recipient = new Account("XUi2oga2pnGNcZ9es6pBqxydtRZKWdkL2g");
+		List<Transaction> payments = new ArrayList<Transaction>();
+		for(int i=0; i<3; i++)
+		{
+			byte[] signature = PaymentTransaction.generateSignature(fork, generator, recipient, BigDecimal.valueOf(10 + i).setScale(8), BigDecimal.valueOf(1).setScale(8), block.getTimestamp());
+			Transaction payment = new PaymentTransaction(generator, recipient, BigDecimal.valueOf(10 + i).setScale(8), BigDecimal.valueOf(1).setScale(8), block.getTimestamp(), generator.getLastReference(fork), signature);
+			payment.process(fork);
+			block.addTransaction(payment);
+			payments.add(payment);
+		}
+		block.setTransactionsSignature(Crypto.getInstance().sign(generator, block.getGeneratorSignature()));
+		
+		//STORE BLOCK
+		databaseSet.getBlockMap().add(block);
+		
+		//CHECK STORED BLOCK
+		Block storedBlock = databaseSet.getBlockMap().get(block.getSignature());
+		assertEquals(block.getTimestamp(), storedBlock.getTimestamp());
+		assertEquals(true, Arrays.equals(block.getReference(), storedBlock.getReference()));
+		assertEquals(3, storedBlock.getTransactionCount());
+		
+		//CHECK TRANSACTIONS ARE LOADED FROM TRANSACTION STORE
+		assertEquals(3, storedBlock.getTransactions().size());
+		assertEquals(true, Arrays.equals(block.toBytes(), storedBlock.toBytes()));
+		
+		//CHECK READING THE BLOCK AGAIN KEEPS THE TRANSACTIONS OF EARLIER READERS
+		List<Transaction> storedTransactions = storedBlock.getTransactions();
+		Block rereadBlock = databaseSet.getBlockMap().get(block.getSignature());
+		assertEquals(3, storedTransactions.size());
+		assertEquals(true, Arrays.equals(payments.get(2).getSignature(), storedTransactions.get(2).getSignature()));
+		assertEquals(true, Arrays.equals(block.toBytes(), rereadBlock.toBytes()));
+		
+		//CHECK HEADER READ FROM DISK LOADS ITS TRANSACTIONS FROM THE STORE
+		try
+		{
+			BlockHeaderSerializer serializer = new BlockHeaderSerializer();
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			serializer.serialize(new DataOutputStream(bytes), block);
+			Block header = serializer.deserialize(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())), bytes.size());
+			assertEquals(3, header.getTransactionCount());
+			header.setTransactionStore(databaseSet.getBlockMap());
+			assertEquals(true, Arrays.equals(block.toBytes(), header.toBytes()));
+		}
+		catch(IOException e)
+		{
+			fail("Exception while serializing header");
+		}
+		
+		//CHECK STORED GENESIS BLOCK
+		Block storedGenesisBlock = databaseSet.getBlockMap().get(genesisBlock.getSignature());
+		assertEquals(true, storedGenesisBlock instanceof GenesisBlock);
+		assertEquals(genesisBlock.getTransactionCount(), storedGenesisBlock.getTransactions().size());
+		
+		//DELETE BLOCK
+		databaseSet.getBlockMap().delete(block);
+		assertEquals(false, databaseSet.getBlockMap().contains(block.getSignature()));
+		assertEquals(0, databaseSet.getBlockMap().getTransactionData(block.getSignature()).length);
+	}
+	
+	@Test
+	public void indexBlockHeights()
+	{
+		//CREATE EMPTY MEMORY DATABASE
+		DBSet databaseSet = DBSet.createEmptyDatabaseSet();
+		
+		//PROCESS GENESISBLOCK
+		GenesisBlock genesisBlock = new GenesisBlock();
+		genesisBlock.process(databaseSet);
+		assertEquals(true, Arrays.equals(genesisBlock.getSignature(), databaseSet.getHeightSignatureMap().get(1)));
+		
+		//CREATE KNOWN ACCOUNT
+		byte[] seed = Crypto.getInstance().digest("test".getBytes());
+		byte[] privateKey = Crypto.getInstance().createKeyPair(seed).getA();
+		PrivateKeyAccount generator = new PrivateKeyAccount(privateKey);
+		
+		//PROCESS GENESIS TRANSACTION TO MAKE SURE GENERATOR HAS FUNDS
+		Transaction transaction = new GenesisTransaction(generator, BigDecimal.valueOf(1000).setScale(8), NTP.getTime());
+		transaction.process(databaseSet);
+		
+		//GENERATE NEXT BLOCK
+		BlockGenerator blockGenerator = new BlockGenerator();
+		Block block = blockGenerator.generateNextBlock(databaseSet, generator, genesisBlock);
+		block.setTransactionsSignature(Crypto.getInstance().sign(generator, block.getGeneratorSignature()));
+		
+		//PROCESS BLOCK IN FORK
+		DBSet fork = databaseSet.fork();
+		block.process(fork);
+		assertEquals(true, Arrays.equals(block.getSignature(), fork.getHeightSignatureMap().get(2)));
+		assertEquals(null, databaseSet.getHeightSignatureMap().get(2));
+		
+		//CHECK SIGNATURE RANGE
+		List<byte[]> signatures = fork.getHeightSignatureMap().getSignatures(1, 500);
+		assertEquals(2, signatures.size());
+		assertEquals(true, Arrays.equals(genesisBlock.getSignature(), signatures.get(0)));
+		assertEquals(true, Arrays.equals(block.getSignature(), signatures.get(1)));
+		
+		//ORPHAN BLOCK
+		block.orphan(fork);
+		assertEquals(null, fork.getHeightSignatureMap().get(2));
+		assertEquals(1, fork.getHeightSignatureMap().getSignatures(1, 500).size());
+	}
+	
+	@Test
+	public void trackGeneratingBalance()
+	{
+		//CREATE EMPTY MEMORY DATABASE
+		DBSet databaseSet = DBSet.createEmptyDatabaseSet();
+		
+		//PROCESS GENESISBLOCK
+		GenesisBlock genesisBlock = new GenesisBlock();
+		genesisBlock.process(databaseSet);
+		
+		//CREATE KNOWN ACCOUNT
+		byte[] seed = Crypto.getInstance().digest("test".getBytes());
+		byte[] privateKey = Crypto.getInstance().createKeyPair(seed).getA();
+		PrivateKeyAccount generator = new PrivateKeyAccount(privateKey);
+		
+		//PROCESS GENESIS TRANSACTION TO MAKE SURE GENERATOR HAS FUNDS
+		Transaction transaction = new GenesisTransaction(generator, BigDecimal.valueOf(1000).setScale(8), NTP.getTime());
+		transaction.process(databaseSet);
+		
+		//GENERATE NEXT BLOCK WITH PAYMENT
+		BlockGenerator blockGenerator = new BlockGenerator();
+		Block block = blockGenerator.generateNextBlock(databaseSet, generator, genesisBlock);
+		Account recipient = new Account("XUi2oga2pnGNcZ9es6pBqxydtRZKWdkL2g");
+		byte[] signature = PaymentTransaction.generateSignature(databaseSet, generator, recipient, BigDecimal.valueOf(100).setScale(8), BigDecimal.valueOf(1).setScale(8), block.getTimestamp());
+		block.addTransaction(new PaymentTransaction(generator, recipient, BigDecimal.valueOf(100).setScale(8), BigDecimal.valueOf(1).setScale(8), block.getTimestamp(), generator.getLastReference(databaseSet), signature));
+		block.setTransactionsSignature(Crypto.getInstance().sign(generator, block.getGeneratorSignature()));
+		
+		//PROCESS BLOCK
+		DBSet fork = databaseSet.fork();
+		block.process(fork);
+		
+		//CHECK INCOMING AMOUNT IS NOT PART OF GENERATING BALANCE
+		assertEquals(BigDecimal.valueOf(100).setScale(8), recipient.getConfirmedBalance(fork));
+		assertEquals(BigDecimal.ZERO.setScale(8), recipient.getGeneratingBalance(fork));
+		assertEquals(BigDecimal.valueOf(900).setScale(8), generator.getGeneratingBalance(fork));
+		
+		//PROCESS BLOCKS UNTIL PAYMENT LEAVES THE WINDOW
+		Block lastBlock = block;
+		for(int i=1; i<BlockGenerator.RETARGET; i++)
+		{
+			assertEquals(BigDecimal.ZERO.setScale(8), recipient.getGeneratingBalance(fork));
+			
+			lastBlock = blockGenerator.generateNextBlock(fork, generator, lastBlock);
+			lastBlock.setTransactionsSignature(Crypto.getInstance().sign(generator, lastBlock.getGeneratorSignature()));
+			lastBlock.process(fork);
+		}
+		assertEquals(BigDecimal.valueOf(100).setScale(8), recipient.getGeneratingBalance(fork));
+		assertEquals(BigDecimal.ZERO.setScale(8), fork.getRecentIncomingMap().get(2, recipient.getAddress()));
+		
+		//ORPHAN LAST BLOCK
+		lastBlock.orphan(fork);
+		assertEquals(BigDecimal.ZERO.setScale(8), recipient.getGeneratingBalance(fork));
+		assertEquals(BigDecimal.valueOf(100).setScale(8), fork.getRecentIncomingMap().get(2, recipient.getAddress()));
+	}
+	
+	@Test
+	public void balanceHistory()
+	{
+		//CREATE EMPTY MEMORY DATABASE
+		DBSet databaseSet = DBSet.createEmptyDatabaseSet();
+		
+		//PROCESS GENESISBLOCK
+		GenesisBlock genesisBlock = new GenesisBlock();
+		genesisBlock.process(databaseSet);
+		
+		//CREATE KNOWN ACCOUNT
+		byte[] seed = Crypto.getInstance().digest("test".getBytes());
+		byte[] privateKey = Crypto.getInstance().createKeyPair(seed).getA();
+		PrivateKeyAccount generator = new PrivateKeyAccount(privateKey);
+		
+		//PROCESS GENESIS TRANSACTION TO MAKE SURE GENERATOR HAS FUNDS
+		Transaction transaction = new GenesisTransaction(generator, BigDecimal.valueOf(1000).setScale(8), NTP.getTime());
+		transaction.process(databaseSet);
+		
+		//PROCESS TWO BLOCKS WITH A PAYMENT EACH
+		DBSet fork = databaseSet.fork();
+		BlockGenerator blockGenerator = new BlockGenerator();
+		Account recipient = new Account("XUi2oga2pnGNcZ9es6pBqxydtRZKWdkL2g");
+		Block lastBlock = genesisBlock;
+		for(int i=1; i<=2; i++)
+		{
+			Block block = blockGenerator.generateNextBlock(fork, generator, lastBlock);
+			byte[] signature = PaymentTransaction.generateSignature(fork, generator, recipient, BigDecimal.valueOf(100 * i).setScale(8), BigDecimal.valueOf(1).setScale(8), block.getTimestamp());
+			block.addTransaction(new PaymentTransaction(generator, recipient, BigDecimal.valueOf(100 * i).setScale(8), BigDecimal.valueOf(1).setScale(8), block.getTimestamp(), generator.getLastReference(fork), signature));
+			block.setTransactionsSignature(Crypto.getInstance().sign(generator, block.getGeneratorSignature()));
+			block.process(fork);
+			
+			lastBlock = block;
+		}
+		
+		//CHECK BALANCES AT EVERY HEIGHT
+		assertEquals(BigDecimal.valueOf(300).setScale(8), recipient.getBalance(1, fork));
+		assertEquals(BigDecimal.valueOf(100).setScale(8), recipient.getBalance(2, fork));
+		assertEquals(BigDecimal.ZERO.setScale(8), recipient.getBalance(3, fork));
+		assertEquals(BigDecimal.valueOf(1000).setScale(8), generator.getBalance(3, fork));
+		assertEquals(BigDecimal.valueOf(900).setScale(8), generator.getBalance(2, fork));
+		
+		//CHECK ASSET BALANCES
+		assertEquals(BigDecimal.valueOf(100).setScale(8), recipient.getBalance(BalanceMap.QORA_KEY, 2, fork));
+		assertEquals(BigDecimal.ZERO.setScale(8), recipient.getBalance(1l, 2, fork));
+		
+		//ORPHAN LAST BLOCK
+		lastBlock.orphan(fork);
+		assertEquals(BigDecimal.valueOf(100).setScale(8), recipient.getBalance(1, fork));
+		assertEquals(BigDecimal.ZERO.setScale(8), recipient.getBalance(2, fork));
+		assertEquals(null, fork.getBalanceHistoryMap().get(recipient.getAddress(), BalanceMap.QORA_KEY, 2));
+	}
+	
+	@Test
+	public void indexTransactions()
+	{
+		//CREATE EMPTY MEMORY DATABASE
+		DBSet databaseSet = DBSet.createEmptyDatabaseSet();
+		
+		//PROCESS GENESISBLOCK
+		GenesisBlock genesisBlock = new GenesisBlock();
+		genesisBlock.process(databaseSet);
+		
+		//CHECK GENESIS TRANSACTIONS ARE INDEXED
+		TransactionIndexMap index = databaseSet.getTransactionIndexMap();
+		Iterator<Tuple2<Integer, Integer>> positions = index.getPositions(TransactionIndexMap.getAddressTerm("QVafvKkE5bZTkq8PcXvdaxwuLNN2DGCwYk"), 1, 1);
+		assertEquals(true, positions.hasNext());
+		assertEquals(new Tuple2<Integer, Integer>(1, 1), positions.next());
+		assertEquals(false, positions.hasNext());
+		assertEquals(genesisBlock.getTransactionCount(), Iterators.size(index.getPositions(TransactionIndexMap.getTypeTerm(Transaction.GENESIS_TRANSACTION), 1, 1)));
+		
+		//CREATE KNOWN ACCOUNT
+		byte[] seed = Crypto.getInstance().digest("test".getBytes());
+		byte[] privateKey = Crypto.getInstance().createKeyPair(seed).getA();
+		PrivateKeyAccount generator = new PrivateKeyAccount(privateKey);
+		
+		//PROCESS GENESIS TRANSACTION TO MAKE SURE GENERATOR HAS FUNDS
+		Transaction transaction = new GenesisTransaction(generator, BigDecimal.valueOf(1000).setScale(8), NTP.getTime());
+		transaction.process(databaseSet);
+		
+		//PROCESS BLOCK WITH PAYMENT
+		DBSet fork = databaseSet.fork();
+		BlockGenerator blockGenerator = new BlockGenerator();
+		Block block = blockGenerator.generateNextBlock(fork, generator, genesisBlock);
+		Account recipient = new Account("XUi2oga2pnGNcZ9es6pBqxydtRZKWdkL2g");
+		byte[] signature = PaymentTransaction.generateSignature(fork, generator, recipient, BigDecimal.valueOf(100).setScale(8), BigDecimal.valueOf(1).setScale(8), block.getTimestamp());
+		block.addTransaction(new PaymentTransaction(generator, recipient, BigDecimal.valueOf(100).setScale(8), BigDecimal.valueOf(1).setScale(8), block.getTimestamp(), generator.getLastReference(fork), signature));
+		block.setTransactionsSignature(Crypto.getInstance().sign(generator, block.getGeneratorSignature()));
+		block.process(fork);
+		
+		//CHECK PAYMENT IS INDEXED FOR BOTH ACCOUNTS AND TYPE
+		index = fork.getTransactionIndexMap();
+		assertEquals(1, Iterators.size(index.getPositions(TransactionIndexMap.getAddressTerm(recipient.getAddress()), 1, 2)));
+		assertEquals(1, Iterators.size(index.getPositions(TransactionIndexMap.getAddressTerm(generator.getAddress()), 1, 2)));
+		assertEquals(1, Iterators.size(index.getPositions(TransactionIndexMap.getTypeTerm(Transaction.PAYMENT_TRANSACTION), 1, 2)));
+		assertEquals(0, Iterators.size(index.getPositions(TransactionIndexMap.getTypeTerm(Transaction.PAYMENT_TRANSACTION), 1, 1)));
+		assertEquals(0, Iterators.size(databaseSet.getTransactionIndexMap().getPositions(TransactionIndexMap.getAddressTerm(recipient.getAddress()), 1, 2)));
+		
+		//ORPHAN BLOCK
+		block.orphan(fork);
+		assertEquals(0, Iterators.size(index.getPositions(TransactionIndexMap.getAddressTerm(recipient.getAddress()), 1, 2)));
+		assertEquals(genesisBlock.getTransactionCount(), Iterators.size(index.getPositions(TransactionIndexMap.getTypeTerm(Transaction.GENESIS_TRANSACTION), 1, 2)));
+	}
+	
 	@Test
 	public void processBlock()
 	{
@@ -0,0 +1,134 @@
+package test;
+
+import static org.junit.Assert.*;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import qora.account.Account;
+import qora.account.PrivateKeyAccount;
+import qora.crypto.Crypto;
+import qora.crypto.Ed25519;
+import qora.transaction.PaymentTransaction;
+import qora.transaction.Transaction;
+import qora.transaction.TransactionFactory;
+import utils.Codec;
+
+public class CodecTests {
+	
+	@Test
+	public void writeAndReadValues()
+	{
+		ByteBuffer buffer = Codec.allocate(8 + 12 + 64 + 25 + 9);
+		
+		//WRITE
+		Codec.putAmount(buffer, BigDecimal.valueOf(1).setScale(8), 8);
+		Codec.putAmount(buffer, BigDecimal.valueOf(123456789).setScale(8), 12);
+		Codec.putInteger(buffer, BigInteger.valueOf(5), 64);
+		Codec.putAddress(buffer, "XUi2oga2pnGNcZ9es6pBqxydtRZKWdkL2g");
+		Codec.putString(buffer, "tést");
+		
+		//CHECK EXACT SIZE
+		assertEquals(0, buffer.remaining());
+		assertEquals(true, Codec.toArray(buffer) == buffer.array());
+		
+		//READ
+		buffer.flip();
+		assertEquals(BigDecimal.valueOf(1).setScale(8), Codec.getAmount(buffer, 8));
+		assertEquals(BigDecimal.valueOf(123456789).setScale(8), Codec.getAmount(buffer, 12));
+		assertEquals(BigInteger.valueOf(5), Codec.getInteger(buffer, 64));
+		
+		assertEquals("XUi2oga2pnGNcZ9es6pBqxydtRZKWdkL2g", Codec.getAddress(buffer));
+		assertEquals("tést", Codec.getString(buffer, buffer.getInt()));
+	}
+	
+	@Test
+	public void rejectInvalidLengths()
+	{
+		ByteBuffer buffer = Codec.allocate(8);
+		
+		//VALUE TOO LARGE
+		try
+		{
+			Codec.putAmount(buffer, new BigDecimal("100000000000").setScale(8), 4);
+			fail("Value should not fit");
+		}
+		catch(IllegalArgumentException e)
+		{
+			assertEquals(0, buffer.position());
+		}
+		
+		//NOT ENOUGH DATA
+		try
+		{
+			Codec.getBytes(ByteBuffer.wrap(new byte[4]), 8);
+			fail("Data should be too short");
+		}
+		catch(BufferUnderflowException e)
+		{
+			//EXPECTED
+		}
+		
+		//INVALID ADDRESSES KEEP THE LAYOUT
+		for(String address: new String[]{"", "0OIl", "XUi2oga2pnGN", "XUi2oga2pnGNcZ9es6pBqxydtRZKWdkL2gXUi2oga2pnGNcZ9es6pBqxydtRZKWdkL2g"})
+		{
+			buffer = Codec.allocate(Codec.ADDRESS_LENGTH);
+			assertEquals(false, Codec.putAddress(buffer, address));
+			assertEquals(0, buffer.remaining());
+			assertEquals(true, Arrays.equals(new byte[Codec.ADDRESS_LENGTH], buffer.array()));
+		}
+	}
+	
+	@Test
+	public void reuseBorrowedBuffers()
+	{
+		ByteBuffer buffer = Codec.borrow(100);
+		assertEquals(100, buffer.limit());
+		buffer.putInt(1);
+		
+		//SAME THREAD GETS THE SAME CLEARED BUFFER
+		ByteBuffer other = Codec.borrow(50);
+		assertEquals(true, buffer == other);
+		assertEquals(0, other.position());
+		assertEquals(50, other.limit());
+		
+		//LARGER REQUESTS GROW THE BUFFER
+		ByteBuffer large = Codec.borrow(100000);
+		assertEquals(true, large.capacity() >= 100000);
+		assertEquals(true, large == Codec.borrow(10));
+	}
+	
+	@Test
+	public void transactionIntoSharedBuffer() throws Exception
+	{
+		Ed25519.load();
+		
+		//CREATE KNOWN ACCOUNT
+		byte[] seed = Crypto.getInstance().digest("test".getBytes());
+		PrivateKeyAccount sender = new PrivateKeyAccount(Crypto.getInstance().createKeyPair(seed).getA());
+		Account recipient = new Account("XUi2oga2pnGNcZ9es6pBqxydtRZKWdkL2g");
+		
+		Transaction payment = new PaymentTransaction(sender, recipient, BigDecimal.valueOf(100).setScale(8), BigDecimal.valueOf(1).setScale(8), 1000L, new byte[64], new byte[64]);
+		
+		//WRITE TWICE INTO ONE BUFFER
+		ByteBuffer buffer = Codec.allocate(payment.getDataLength() * 2);
+		payment.toBytes(buffer);
+		payment.toBytes(buffer);
+		assertEquals(0, buffer.remaining());
+		
+		//CHECK BOTH COPIES MATCH TOBYTES
+		byte[] bytes = payment.toBytes();
+		assertEquals(payment.getDataLength(), bytes.length);
+		assertEquals(true, Arrays.equals(bytes, Arrays.copyOfRange(buffer.array(), 0, bytes.length)));
+		assertEquals(true, Arrays.equals(bytes, Arrays.copyOfRange(buffer.array(), bytes.length, bytes.length * 2)));
+		
+		//CHECK PARSE
+		Transaction parsed = TransactionFactory.getInstance().parse(bytes);
+		assertEquals(true, Arrays.equals(bytes, parsed.toBytes()));
+	}
+}
@@ -1,14 +1,24 @@
 package test;
 
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.List;
+
 import org.junit.Assert;
 import org.junit.Test;
 import org.mapdb.DB;
 import org.mapdb.DBMaker;
 
+import database.DBSet;
 import database.NameMap;
 import database.SortableList;
+import database.TransactionMap;
 import qora.account.Account;
+import qora.account.PublicKeyAccount;
+import qora.assets.Order;
 import qora.naming.Name;
+import qora.transaction.PaymentTransaction;
+import qora.transaction.Transaction;
 
 public class DatabaseIndexTests {
 
@@ -47,4 +57,81 @@ public class DatabaseIndexTests {
 		Assert.assertEquals(list.get(1).getA(), "a");
 		Assert.assertEquals(list.get(0).getA(), "b");
 	}	
+	
+	@Test
+	public void forkIndex() 
+	{
+		//CREATE DATABASE
+		DBSet databaseSet = DBSet.createEmptyDatabaseSet();
+		Account account = new Account("XUi2oga2pnGNcZ9es6pBqxydtRZKWdkL2g");
+		
+		//ADD ORDERS TO DB
+		databaseSet.getOrderMap().add(new Order(BigInteger.valueOf(1), account, 1l, 2l, BigDecimal.ONE.setScale(8), BigDecimal.valueOf(3).setScale(8), 0l));
+		databaseSet.getOrderMap().add(new Order(BigInteger.valueOf(2), account, 1l, 2l, BigDecimal.ONE.setScale(8), BigDecimal.valueOf(1).setScale(8), 0l));
+		databaseSet.getOrderMap().add(new Order(BigInteger.valueOf(3), account, 2l, 1l, BigDecimal.ONE.setScale(8), BigDecimal.valueOf(2).setScale(8), 0l));
+		
+		//CHECK UNCHANGED FORK SEES DB ORDERS
+		DBSet fork = databaseSet.fork();
+		List<Order> orders = fork.getOrderMap().getOrders(1l, 2l);
+		Assert.assertEquals(2, orders.size());
+		Assert.assertEquals(BigInteger.valueOf(2), orders.get(0).getId());
+		Assert.assertEquals(BigInteger.valueOf(1), orders.get(1).getId());
+		
+		//ADD, CHANGE AND DELETE ORDERS IN FORK
+		fork.getOrderMap().add(new Order(BigInteger.valueOf(4), account, 1l, 2l, BigDecimal.ONE.setScale(8), BigDecimal.valueOf(2).setScale(8), 0l));
+		fork.getOrderMap().add(new Order(BigInteger.valueOf(1), account, 1l, 2l, BigDecimal.ONE.setScale(8), BigDecimal.valueOf(5).setScale(8), 0l));
+		fork.getOrderMap().delete(BigInteger.valueOf(2));
+		
+		//CHECK FORK ORDERS ARE MERGED BY PRICE
+		orders = fork.getOrderMap().getOrders(1l, 2l);
+		Assert.assertEquals(2, orders.size());
+		Assert.assertEquals(BigInteger.valueOf(4), orders.get(0).getId());
+		Assert.assertEquals(BigInteger.valueOf(1), orders.get(1).getId());
+		
+		//CHECK NESTED FORK
+		DBSet fork2 = fork.fork();
+		fork2.getOrderMap().add(new Order(BigInteger.valueOf(5), account, 1l, 2l, BigDecimal.ONE.setScale(8), BigDecimal.valueOf(4).setScale(8), 0l));
+		orders = fork2.getOrderMap().getOrders(1l, 2l);
+		Assert.assertEquals(3, orders.size());
+		Assert.assertEquals(BigInteger.valueOf(4), orders.get(0).getId());
+		Assert.assertEquals(BigInteger.valueOf(5), orders.get(1).getId());
+		Assert.assertEquals(BigInteger.valueOf(1), orders.get(2).getId());
+		
+		//CHECK DB UNCHANGED
+		orders = databaseSet.getOrderMap().getOrders(1l, 2l);
+		Assert.assertEquals(2, orders.size());
+		Assert.assertEquals(BigInteger.valueOf(2), orders.get(0).getId());
+		Assert.assertEquals(BigInteger.valueOf(1), orders.get(1).getId());
+	}
+	
+	@Test
+	public void expireTransactions() 
+	{
+		//CREATE DATABASE
+		DBSet databaseSet = DBSet.createEmptyDatabaseSet();
+		TransactionMap transactionMap = databaseSet.getTransactionMap();
+		PublicKeyAccount sender = new PublicKeyAccount(new byte[32]);
+		Account recipient = new Account("QUD9y7NZqTtNwvSAUfewd7zKUGoVivVnTW");
+		
+		//ADD TRANSACTIONS WITH DIFFERENT DEADLINES
+		Transaction[] transactions = new Transaction[3];
+		for(int i=0; i<3; i++)
+		{
+			byte[] signature = new byte[64];
+			signature[0] = (byte) (3 - i);
+			transactions[i] = new PaymentTransaction(sender, recipient, BigDecimal.ONE.setScale(8), BigDecimal.ONE.setScale(8), (i + 1) * 1000l, new byte[64], signature);
+			transactionMap.add(transactions[i]);
+		}
+		
+		//CHECK NOTHING EXPIRES BEFORE THE FIRST DEADLINE
+		Assert.assertEquals(0, transactionMap.deleteExpired(transactions[0].getDeadline()));
+		Assert.assertEquals(3, transactionMap.size());
+		
+		//CHECK ONLY THE TRANSACTIONS THAT ARE DUE EXPIRE
+		Assert.assertEquals(2, transactionMap.deleteExpired(transactions[1].getDeadline() + 1));
+		Assert.assertEquals(false, transactionMap.contains(transactions[0]));
+		Assert.assertEquals(false, transactionMap.contains(transactions[1]));
+		Assert.assertEquals(true, transactionMap.contains(transactions[2]));
+		Assert.assertEquals(2, transactionMap.getExpiredCount());
+	}
 }
@@ -53,4 +53,124 @@ public class DatabaseTests {
 		//CHECK VALUE IN FORK
 		assertEquals(BigDecimal.ZERO, fork2.getBalanceMap().get("test"));
 	}	
+	
+	@Test
+	public void forkDeleteByteArrayKeys() 
+	{
+		//CREATE DATABASE
+		DBSet databaseSet = DBSet.createEmptyDatabaseSet();
+		databaseSet.getIssueAssetMap().set(new byte[]{1, 2, 3}, 5l);
+		
+		//CREATE FORK
+		DBSet fork = databaseSet.fork();
+		
+		//DELETE IN FORK WITH AN EQUAL BUT DIFFERENT ARRAY
+		fork.getIssueAssetMap().delete(new byte[]{1, 2, 3});
+		
+		//CHECK DELETED IN FORK
+		assertEquals(-1l, fork.getIssueAssetMap().get(new byte[]{1, 2, 3}).longValue());
+		assertEquals(false, fork.getIssueAssetMap().contains(new byte[]{1, 2, 3}));
+		
+		//CHECK NOT DELETED IN DB
+		assertEquals(5l, databaseSet.getIssueAssetMap().get(new byte[]{1, 2, 3}).longValue());
+		
+		//CHECK NESTED FORK SEES DELETE
+		DBSet fork2 = fork.fork();
+		assertEquals(false, fork2.getIssueAssetMap().contains(new byte[]{1, 2, 3}));
+		
+		//SET AGAIN IN NESTED FORK
+		fork2.getIssueAssetMap().set(new byte[]{1, 2, 3}, 6l);
+		assertEquals(6l, fork2.getIssueAssetMap().get(new byte[]{1, 2, 3}).longValue());
+		assertEquals(false, fork.getIssueAssetMap().contains(new byte[]{1, 2, 3}));
+	}
+	
+	@Test
+	public void forkWriteToParent() 
+	{
+		//CREATE DATABASE
+		DBSet databaseSet = DBSet.createEmptyDatabaseSet();
+		databaseSet.getBalanceMap().set("test", BigDecimal.ONE);
+		databaseSet.getIssueAssetMap().set(new byte[]{1}, 1l);
+		
+		//CHANGE VALUES IN FORK
+		DBSet fork = databaseSet.fork();
+		fork.getBalanceMap().set("test", BigDecimal.TEN);
+		fork.getIssueAssetMap().delete(new byte[]{1});
+		fork.getIssueAssetMap().set(new byte[]{2}, 2l);
+		
+		//CHECK DB UNCHANGED
+		assertEquals(BigDecimal.ONE, databaseSet.getBalanceMap().get("test"));
+		assertEquals(true, databaseSet.getIssueAssetMap().contains(new byte[]{1}));
+		
+		//WRITE FORK TO DB
+		fork.writeToParent();
+		
+		//CHECK DB CHANGED
+		assertEquals(BigDecimal.TEN, databaseSet.getBalanceMap().get("test"));
+		assertEquals(false, databaseSet.getIssueAssetMap().contains(new byte[]{1}));
+		assertEquals(2l, databaseSet.getIssueAssetMap().get(new byte[]{2}).longValue());
+	}
+	
+	@Test
+	public void nestedForkWriteToParent() 
+	{
+		//CREATE DATABASE
+		DBSet databaseSet = DBSet.createEmptyDatabaseSet();
+		databaseSet.getBalanceMap().set("test", BigDecimal.ONE);
+		databaseSet.getIssueAssetMap().set(new byte[]{1}, 1l);
+		
+		//CHANGE VALUES IN FORK
+		DBSet fork = databaseSet.fork();
+		fork.getBalanceMap().set("test", BigDecimal.TEN);
+		fork.getIssueAssetMap().delete(new byte[]{1});
+		
+		//CHANGE OTHER VALUES IN NESTED FORK
+		DBSet fork2 = fork.fork();
+		fork2.getBalanceMap().set("test2", BigDecimal.ONE);
+		fork2.getIssueAssetMap().set(new byte[]{2}, 2l);
+		
+		//CHECK NESTED FORK SEES ALL CHANGES
+		assertEquals(BigDecimal.TEN, fork2.getBalanceMap().get("test"));
+		assertEquals(false, fork2.getIssueAssetMap().contains(new byte[]{1}));
+		assertEquals(false, fork.getIssueAssetMap().contains(new byte[]{2}));
+		
+		//WRITE NESTED FORK TO FORK
+		fork2.writeToParent();
+		assertEquals(BigDecimal.TEN, fork.getBalanceMap().get("test"));
+		assertEquals(BigDecimal.ONE, fork.getBalanceMap().get("test2"));
+		assertEquals(false, fork.getIssueAssetMap().contains(new byte[]{1}));
+		assertEquals(2l, fork.getIssueAssetMap().get(new byte[]{2}).longValue());
+		assertEquals(BigDecimal.ONE, databaseSet.getBalanceMap().get("test"));
+		
+		//WRITE FORK TO DB
+		fork.writeToParent();
+		assertEquals(BigDecimal.TEN, databaseSet.getBalanceMap().get("test"));
+		assertEquals(BigDecimal.ONE, databaseSet.getBalanceMap().get("test2"));
+		assertEquals(false, databaseSet.getIssueAssetMap().contains(new byte[]{1}));
+		assertEquals(2l, databaseSet.getIssueAssetMap().get(new byte[]{2}).longValue());
+	}
+	
+	@Test
+	public void writeBatch() 
+	{
+		//CREATE DATABASE
+		DBSet databaseSet = DBSet.createEmptyDatabaseSet();
+		databaseSet.getBalanceMap().set("test", BigDecimal.ONE);
+		
+		//CHANGE VALUES IN BATCH
+		DBSet batch = databaseSet.createBatch();
+		batch.getBalanceMap().set("test", BigDecimal.TEN);
+		batch.getBalanceMap().set("test2", BigDecimal.ONE);
+		
+		//CHECK DB UNCHANGED UNTIL COMMIT
+		assertEquals(BigDecimal.ONE, databaseSet.getBalanceMap().get("test"));
+		assertEquals(BigDecimal.ZERO.setScale(8), databaseSet.getBalanceMap().get("test2"));
+		
+		//COMMIT BATCH
+		databaseSet.commitBatch(batch);
+		
+		//CHECK DB CHANGED
+		assertEquals(BigDecimal.TEN, databaseSet.getBalanceMap().get("test"));
+		assertEquals(BigDecimal.ONE, databaseSet.getBalanceMap().get("test2"));
+	}
 }
@@ -0,0 +1,144 @@
+package test;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import qora.crypto.Ed25519;
+import qora.crypto.Ed25519Engine;
+import qora.crypto.JavaEd25519Engine;
+import qora.crypto.NativeEd25519Engine;
+import utils.Pair;
+import utils.Triplet;
+
+public class Ed25519Tests {
+	
+	@Test
+	public void javaKeyPairMatchesNative()
+	{
+		Ed25519.load();
+		
+		Ed25519Engine nativeEngine = new NativeEd25519Engine();
+		Ed25519Engine javaEngine = new JavaEd25519Engine();
+		
+		Random random = new Random(1);
+		for(int i=0; i<100; i++)
+		{
+			byte[] seed = new byte[32];
+			random.nextBytes(seed);
+			
+			Pair<byte[], byte[]> nativeKeyPair = nativeEngine.createKeyPair(seed);
+			Pair<byte[], byte[]> javaKeyPair = javaEngine.createKeyPair(seed);
+			
+			//CHECK PRIVATE KEY
+			assertEquals(true, Arrays.equals(nativeKeyPair.getA(), javaKeyPair.getA()));
+			
+			//CHECK PUBLIC KEY
+			assertEquals(true, Arrays.equals(nativeKeyPair.getB(), javaKeyPair.getB()));
+		}
+	}
+	
+	@Test
+	public void javaSignatureMatchesNative()
+	{
+		Ed25519.load();
+		
+		Ed25519Engine nativeEngine = new NativeEd25519Engine();
+		Ed25519Engine javaEngine = new JavaEd25519Engine();
+		
+		Random random = new Random(2);
+		for(int i=0; i<100; i++)
+		{
+			byte[] seed = new byte[32];
+			random.nextBytes(seed);
+			Pair<byte[], byte[]> keyPair = nativeEngine.createKeyPair(seed);
+			
+			byte[] message = new byte[random.nextInt(500)];
+			random.nextBytes(message);
+			
+			//CHECK SAME SIGNATURE
+			byte[] signature = nativeEngine.sign(keyPair, message);
+			assertEquals(true, Arrays.equals(signature, javaEngine.sign(keyPair, message)));
+			
+			//CHECK VALID
+			assertEquals(true, javaEngine.verify(signature, message, keyPair.getB()));
+			
+			//CHECK TAMPERED SIGNATURE GIVES SAME RESULT
+			byte[] invalidSignature = signature.clone();
+			invalidSignature[random.nextInt(64)] ^= 1 << random.nextInt(8);
+			assertEquals(nativeEngine.verify(invalidSignature, message, keyPair.getB()), javaEngine.verify(invalidSignature, message, keyPair.getB()));
+			
+			//CHECK TAMPERED PUBLIC KEY GIVES SAME RESULT
+			byte[] invalidPublicKey = keyPair.getB().clone();
+			invalidPublicKey[random.nextInt(32)] ^= 1 << random.nextInt(8);
+			assertEquals(nativeEngine.verify(signature, message, invalidPublicKey), javaEngine.verify(signature, message, invalidPublicKey));
+		}
+	}
+	
+	@Test
+	public void benchmark()
+	{
+		Ed25519.load();
+		
+		Ed25519Engine nativeEngine = new NativeEd25519Engine();
+		Ed25519Engine javaEngine = new JavaEd25519Engine();
+		List<Triplet<byte[], byte[], byte[]>> signatures = createSignatures(nativeEngine, 1000);
+		
+		//WARM UP
+		for(int i=0; i<3; i++)
+		{
+			verifyEach(nativeEngine, signatures);
+			verifyEach(javaEngine, signatures);
+		}
+		
+		long start = System.nanoTime();
+		assertEquals(true, verifyEach(nativeEngine, signatures));
+		long nativeTime = System.nanoTime() - start;
+		
+		start = System.nanoTime();
+		assertEquals(true, verifyEach(javaEngine, signatures));
+		long javaTime = System.nanoTime() - start;
+		
+		System.out.println("Verifying " + signatures.size() + " signatures");
+		System.out.println("native : " + nativeTime / 1000000 + " ms");
+		System.out.println("java   : " + javaTime / 1000000 + " ms");
+	}
+	
+	private static List<Triplet<byte[], byte[], byte[]>> createSignatures(Ed25519Engine engine, int amount)
+	{
+		Random random = new Random(3);
+		List<Triplet<byte[], byte[], byte[]>> signatures = new ArrayList<Triplet<byte[], byte[], byte[]>>();
+		
+		for(int i=0; i<amount; i++)
+		{
+			byte[] seed = new byte[32];
+			random.nextBytes(seed);
+			Pair<byte[], byte[]> keyPair = engine.createKeyPair(seed);
+			
+			byte[] message = new byte[100 + random.nextInt(200)];
+			random.nextBytes(message);
+			
+			signatures.add(new Triplet<byte[], byte[], byte[]>(engine.sign(keyPair, message), message, keyPair.getB()));
+		}
+		
+		return signatures;
+	}
+	
+	private static boolean verifyEach(Ed25519Engine engine, List<Triplet<byte[], byte[], byte[]>> signatures)
+	{
+		for(Triplet<byte[], byte[], byte[]> signature: signatures)
+		{
+			if(!engine.verify(signature.getA(), signature.getB(), signature.getC()))
+			{
+				return false;
+			}
+		}
+		
+		return true;
+	}
+}
@@ -3,12 +3,17 @@ package test;
 import static org.junit.Assert.*;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
 
 import ntp.NTP;
 
 import org.junit.Test;
 
 import qora.BlockGenerator;
+import qora.BlockTemplate;
 import qora.account.Account;
 import qora.account.PrivateKeyAccount;
 import qora.block.Block;
@@ -165,5 +170,189 @@ public class GeneratorTests {
 		assertEquals(true, newBlock.isValid(databaseSet));
 	}
 	
+	@Test
+	public void addTransactionsByFee()
+	{
+		//CREATE EMPTY MEMORY DATABASE
+		DBSet databaseSet = DBSet.createEmptyDatabaseSet();
+				
+		//PROCESS GENESISBLOCK
+		GenesisBlock genesisBlock = new GenesisBlock();
+		genesisBlock.process(databaseSet);
+				
+		//CREATE KNOWN ACCOUNT
+		byte[] seed = Crypto.getInstance().digest("test".getBytes());
+		byte[] privateKey = Crypto.getInstance().createKeyPair(seed).getA();
+		PrivateKeyAccount generator = new PrivateKeyAccount(privateKey);
+						
+		//PROCESS GENESIS TRANSACTION TO MAKE SURE GENERATOR HAS FUNDS
+		Transaction transaction = new GenesisTransaction(generator, BigDecimal.valueOf(100000).setScale(8), NTP.getTime());
+		transaction.process(databaseSet);
+				
+		//GENERATE NEXT BLOCK
+		BlockGenerator blockGenerator = new BlockGenerator();
+		Block newBlock = blockGenerator.generateNextBlock(databaseSet, generator, genesisBlock);
+		
+		//ADD CHAIN OF PAYMENTS WHERE LATER PAYMENTS PAY A HIGHER FEE
+		Account recipient = new Account("QUD9y7NZqTtNwvSAUfewd7zKUGoVivVnTW");
+		DBSet snapshot = databaseSet.fork();
+		List<Transaction> payments = new ArrayList<Transaction>();
+		int[] fees = new int[]{1, 5, 2};
+		for(int fee: fees)
+		{
+			long timestamp = newBlock.getTimestamp();
+			byte[] signature = PaymentTransaction.generateSignature(snapshot, generator, recipient, BigDecimal.valueOf(1).setScale(8), BigDecimal.valueOf(fee).setScale(8), timestamp);
+			Transaction payment = new PaymentTransaction(generator, recipient, BigDecimal.valueOf(1).setScale(8), BigDecimal.valueOf(fee).setScale(8), timestamp, generator.getLastReference(snapshot), signature);
+			payment.process(snapshot);
+			payments.add(payment);
+			
+			blockGenerator.addUnconfirmedTransaction(databaseSet, payment, false);
+		}
+		
+		//CHECK PRIORITY ORDER
+		Iterator<Transaction> ordered = databaseSet.getTransactionMap().getTransactionsByFee();
+		assertEquals(true, Arrays.equals(payments.get(1).getSignature(), ordered.next().getSignature()));
+		assertEquals(true, Arrays.equals(payments.get(2).getSignature(), ordered.next().getSignature()));
+		assertEquals(true, Arrays.equals(payments.get(0).getSignature(), ordered.next().getSignature()));
+		assertEquals(false, ordered.hasNext());
+		
+		//CHECK REFERENCE CHAIN
+		assertEquals(1, databaseSet.getTransactionMap().getByReference(payments.get(0).getSignature()).size());
+		
+		//ADD UNCONFIRMED TRANSACTIONS TO BLOCK
+		blockGenerator.addUnconfirmedTransactions(databaseSet, newBlock);
+		
+		//CHECK ALL PAYMENTS ARE ADDED IN REFERENCE ORDER
+		assertEquals(3, newBlock.getTransactionCount());
+		for(int i=0; i<3; i++)
+		{
+			assertEquals(true, Arrays.equals(payments.get(i).getSignature(), newBlock.getTransactions().get(i).getSignature()));
+		}
+		
+		//CHECK IF BLOCK IS VALID
+		assertEquals(true, newBlock.isValid(databaseSet));
+	}
+	
+	@Test
+	public void updateBlockTemplate()
+	{
+		//CREATE EMPTY MEMORY DATABASE
+		DBSet databaseSet = DBSet.createEmptyDatabaseSet();
+				
+		//PROCESS GENESISBLOCK
+		GenesisBlock genesisBlock = new GenesisBlock();
+		genesisBlock.process(databaseSet);
+				
+		//CREATE KNOWN ACCOUNT
+		byte[] seed = Crypto.getInstance().digest("test".getBytes());
+		byte[] privateKey = Crypto.getInstance().createKeyPair(seed).getA();
+		PrivateKeyAccount generator = new PrivateKeyAccount(privateKey);
+						
+		//PROCESS GENESIS TRANSACTION TO MAKE SURE GENERATOR HAS FUNDS
+		Transaction transaction = new GenesisTransaction(generator, BigDecimal.valueOf(100000).setScale(8), NTP.getTime());
+		transaction.process(databaseSet);
+				
+		//GENERATE NEXT BLOCK
+		BlockGenerator blockGenerator = new BlockGenerator();
+		Block newBlock = blockGenerator.generateNextBlock(databaseSet, generator, genesisBlock);
+		
+		//CREATE EMPTY TEMPLATE
+		BlockTemplate template = new BlockTemplate(databaseSet, newBlock.getTimestamp());
+		assertEquals(0, template.getTransactions(newBlock).size());
+		assertEquals(true, template.getBuildTime() >= 0);
+		
+		//CREATE CHAIN OF TWO PAYMENTS
+		Account recipient = new Account("QUD9y7NZqTtNwvSAUfewd7zKUGoVivVnTW");
+		DBSet snapshot = databaseSet.fork();
+		List<Transaction> payments = new ArrayList<Transaction>();
+		for(int i=0; i<2; i++)
+		{
+			long timestamp = newBlock.getTimestamp();
+			byte[] signature = PaymentTransaction.generateSignature(snapshot, generator, recipient, BigDecimal.valueOf(1).setScale(8), BigDecimal.valueOf(1).setScale(8), timestamp);
+			Transaction payment = new PaymentTransaction(generator, recipient, BigDecimal.valueOf(1).setScale(8), BigDecimal.valueOf(1).setScale(8), timestamp, generator.getLastReference(snapshot), signature);
+			payment.process(snapshot);
+			payments.add(payment);
+		}
+		
+		//SECOND PAYMENT ARRIVES FIRST AND WAITS
+		databaseSet.getTransactionMap().add(payments.get(1));
+		template.add(payments.get(1));
+		assertEquals(0, template.getTransactions(newBlock).size());
+		
+		//FIRST PAYMENT ALSO ADDS THE SECOND
+		databaseSet.getTransactionMap().add(payments.get(0));
+		template.add(payments.get(0));
+		List<Transaction> transactions = template.getTransactions(newBlock);
+		assertEquals(2, transactions.size());
+		assertEquals(true, Arrays.equals(payments.get(0).getSignature(), transactions.get(0).getSignature()));
+		assertEquals(true, Arrays.equals(payments.get(1).getSignature(), transactions.get(1).getSignature()));
+		
+		//TEMPLATE DOES NOT FIT BLOCK ON OTHER PARENT
+		Block otherBlock = new Block(1, new byte[128], newBlock.getTimestamp(), newBlock.getGeneratingBalance(), generator, newBlock.getGeneratorSignature());
+		assertEquals(null, template.getTransactions(otherBlock));
+	}
+	
+	@Test
+	public void addTransactionsOfOtherSenders()
+	{
+		//CREATE EMPTY MEMORY DATABASE
+		DBSet databaseSet = DBSet.createEmptyDatabaseSet();
+				
+		//PROCESS GENESISBLOCK
+		GenesisBlock genesisBlock = new GenesisBlock();
+		genesisBlock.process(databaseSet);
+				
+		//CREATE KNOWN ACCOUNTS
+		byte[] seed = Crypto.getInstance().digest("test".getBytes());
+		byte[] privateKey = Crypto.getInstance().createKeyPair(seed).getA();
+		PrivateKeyAccount generator = new PrivateKeyAccount(privateKey);
+		byte[] receiverSeed = Crypto.getInstance().digest("receiver".getBytes());
+		byte[] receiverPrivateKey = Crypto.getInstance().createKeyPair(receiverSeed).getA();
+		PrivateKeyAccount receiver = new PrivateKeyAccount(receiverPrivateKey);
+						
+		//PROCESS GENESIS TRANSACTIONS, RECEIVER CAN NOT PAY WITHOUT THE FUNDS OF GENERATOR
+		Transaction transaction = new GenesisTransaction(generator, BigDecimal.valueOf(100000).setScale(8), NTP.getTime());
+		transaction.process(databaseSet);
+		transaction = new GenesisTransaction(receiver, BigDecimal.valueOf(1).setScale(8), NTP.getTime());
+		transaction.process(databaseSet);
+				
+		//GENERATE NEXT BLOCK
+		BlockGenerator blockGenerator = new BlockGenerator();
+		Block newBlock = blockGenerator.generateNextBlock(databaseSet, generator, genesisBlock);
+		long timestamp = newBlock.getTimestamp();
+		
+		//GENERATOR PAYS RECEIVER
+		DBSet snapshot = databaseSet.fork();
+		byte[] signature = PaymentTransaction.generateSignature(snapshot, generator, receiver, BigDecimal.valueOf(1000).setScale(8), BigDecimal.valueOf(1).setScale(8), timestamp);
+		Transaction payment = new PaymentTransaction(generator, receiver, BigDecimal.valueOf(1000).setScale(8), BigDecimal.valueOf(1).setScale(8), timestamp, generator.getLastReference(snapshot), signature);
+		payment.process(snapshot);
+		
+		//RECEIVER SPENDS THOSE FUNDS WITH A HIGHER FEE SO IT IS CHECKED FIRST
+		Account recipient = new Account("QUD9y7NZqTtNwvSAUfewd7zKUGoVivVnTW");
+		signature = PaymentTransaction.generateSignature(snapshot, receiver, recipient, BigDecimal.valueOf(500).setScale(8), BigDecimal.valueOf(10).setScale(8), timestamp);
+		Transaction spend = new PaymentTransaction(receiver, recipient, BigDecimal.valueOf(500).setScale(8), BigDecimal.valueOf(10).setScale(8), timestamp, receiver.getLastReference(snapshot), signature);
+		assertEquals(Transaction.NO_BALANCE, spend.isValid(databaseSet));
+		
+		//SPEND ARRIVES FIRST AND WAITS
+		BlockTemplate template = new BlockTemplate(databaseSet, timestamp);
+		databaseSet.getTransactionMap().add(spend);
+		template.add(spend);
+		assertEquals(0, template.getTransactions(newBlock).size());
+		
+		//PAYMENT ALSO ADDS THE SPEND
+		databaseSet.getTransactionMap().add(payment);
+		template.add(payment);
+		List<Transaction> transactions = template.getTransactions(newBlock);
+		assertEquals(2, transactions.size());
+		assertEquals(true, Arrays.equals(payment.getSignature(), transactions.get(0).getSignature()));
+		assertEquals(true, Arrays.equals(spend.getSignature(), transactions.get(1).getSignature()));
+		
+		//CHECK NEW TEMPLATE ADDS BOTH ALTHOUGH THE SPEND HAS THE HIGHER FEE
+		transactions = new BlockTemplate(databaseSet, timestamp).getTransactions(newBlock);
+		assertEquals(2, transactions.size());
+		assertEquals(true, Arrays.equals(payment.getSignature(), transactions.get(0).getSignature()));
+		assertEquals(true, Arrays.equals(spend.getSignature(), transactions.get(1).getSignature()));
+	}
+	
 	//TODO CALCULATETRANSACTIONSIGNATURE
 }
@@ -0,0 +1,159 @@
+package test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import network.Peer;
+import network.message.Message;
+import network.message.MessageFactory;
+
+import org.junit.Test;
+
+import controller.MessageDispatcher;
+import controller.MessageHandler;
+
+public class MessageDispatcherTests {
+	
+	@Test
+	public void serveWhileIngesting() throws Exception
+	{
+		final CountDownLatch ingesting = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		final CountDownLatch served = new CountDownLatch(1);
+		
+		//HANDLER THAT BLOCKS ON VERSION MESSAGES
+		MessageDispatcher dispatcher = new MessageDispatcher(new MessageHandler() {
+			@Override
+			public void handleMessage(Message message) {
+				try
+				{
+					if(message.getType() == Message.VERSION_TYPE)
+					{
+						ingesting.countDown();
+						release.await();
+					}
+					else
+					{
+						served.countDown();
+					}
+				}
+				catch(InterruptedException e)
+				{
+					
+				}
+			}
+			
+			@Override
+			public void onQueueFull(Message message) {
+				
+			}
+		}, 2, 100);
+		
+		//BLOCK THE INGESTION THREAD
+		dispatcher.dispatch(MessageFactory.getInstance().createVersionMessage(1));
+		assertTrue(ingesting.await(5, TimeUnit.SECONDS));
+		
+		//CHECK STATE CHANGING MESSAGES WAIT
+		dispatcher.dispatch(MessageFactory.getInstance().createVersionMessage(2));
+		assertEquals(1, dispatcher.getQueueDepth(Message.VERSION_TYPE));
+		
+		//CHECK READ ONLY REQUESTS ARE STILL SERVED
+		dispatcher.dispatch(MessageFactory.getInstance().createPingMessage());
+		assertTrue(served.await(5, TimeUnit.SECONDS));
+		
+		//RELEASE INGESTION
+		release.countDown();
+		long start = System.currentTimeMillis();
+		while((dispatcher.getHandledCount(Message.VERSION_TYPE) < 2 || dispatcher.getHandledCount(Message.PING_TYPE) < 1) && System.currentTimeMillis() - start < 5000)
+		{
+			Thread.sleep(10);
+		}
+		
+		//CHECK STATISTICS
+		assertEquals(0, dispatcher.getQueueDepth(Message.VERSION_TYPE));
+		assertEquals(2, dispatcher.getHandledCount(Message.VERSION_TYPE));
+		assertEquals(1, dispatcher.getHandledCount(Message.PING_TYPE));
+		assertTrue(dispatcher.getHandlingLatency(Message.VERSION_TYPE) > 0);
+		
+		dispatcher.stop();
+	}
+	
+	@Test
+	public void dropWhenQueueFull() throws Exception
+	{
+		final CountDownLatch ingesting = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		final List<Message> dropped = new ArrayList<Message>();
+		
+		//HANDLER THAT BLOCKS ON THE FIRST MESSAGE
+		MessageDispatcher dispatcher = new MessageDispatcher(new MessageHandler() {
+			@Override
+			public void handleMessage(Message message) {
+				try
+				{
+					ingesting.countDown();
+					release.await();
+				}
+				catch(InterruptedException e)
+				{
+					
+				}
+			}
+			
+			@Override
+			public void onQueueFull(Message message) {
+				dropped.add(message);
+			}
+		}, 2, 2);
+		
+		Peer flooding = new Peer(InetAddress.getByName("127.0.0.1"));
+		Peer honest = new Peer(InetAddress.getByName("127.0.0.2"));
+		
+		//BLOCK THE INGESTION THREAD
+		dispatcher.dispatch(createVersionMessage(flooding, 1));
+		assertTrue(ingesting.await(5, TimeUnit.SECONDS));
+		
+		//FILL THE QUEUE
+		dispatcher.dispatch(createVersionMessage(flooding, 2));
+		dispatcher.dispatch(createVersionMessage(flooding, 3));
+		assertEquals(0, dropped.size());
+		
+		//CHECK MESSAGE OF PEER WITHIN ITS SHARE IS ONLY DROPPED
+		dispatcher.dispatch(createVersionMessage(honest, 4));
+		assertEquals(0, dropped.size());
+		
+		//CHECK PEER OVER ITS SHARE IS REPORTED
+		Message overflow = createVersionMessage(flooding, 5);
+		dispatcher.dispatch(overflow);
+		assertEquals(1, dropped.size());
+		assertEquals(overflow, dropped.get(0));
+		assertEquals(2, dispatcher.getQueueDepth(Message.VERSION_TYPE));
+		
+		//RELEASE INGESTION
+		release.countDown();
+		long start = System.currentTimeMillis();
+		while(dispatcher.getHandledCount(Message.VERSION_TYPE) < 3 && System.currentTimeMillis() - start < 5000)
+		{
+			Thread.sleep(10);
+		}
+		
+		//CHECK ONLY THE QUEUED MESSAGES WERE HANDLED
+		assertEquals(0, dispatcher.getQueueDepth(Message.VERSION_TYPE));
+		assertEquals(3, dispatcher.getHandledCount(Message.VERSION_TYPE));
+		
+		dispatcher.stop();
+	}
+	
+	private static Message createVersionMessage(Peer sender, int height)
+	{
+		Message message = MessageFactory.getInstance().createVersionMessage(height);
+		message.setSender(sender);
+		return message;
+	}
+}
@@ -0,0 +1,56 @@
+package test;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import qora.account.PrivateKeyAccount;
+import qora.crypto.Crypto;
+import qora.crypto.Ed25519;
+import qora.crypto.SignatureCache;
+
+public class SignatureCacheTests {
+	
+	@Test
+	public void cacheVerifiedSignatures()
+	{
+		Ed25519.load();
+		
+		SignatureCache cache = new SignatureCache(2);
+		
+		//CREATE SIGNATURE
+		byte[] seed = Crypto.getInstance().digest("test".getBytes());
+		PrivateKeyAccount account = new PrivateKeyAccount(Crypto.getInstance().createKeyPair(seed).getA());
+		byte[] message = "message".getBytes();
+		byte[] signature = Crypto.getInstance().sign(account, message);
+		
+		//FIRST CHECK IS A MISS
+		assertEquals(true, cache.verify(account.getPublicKey(), signature, message));
+		assertEquals(0, cache.getHits());
+		assertEquals(1, cache.getMisses());
+		
+		//SECOND CHECK IS A HIT
+		assertEquals(true, cache.verify(account.getPublicKey(), signature, message));
+		assertEquals(1, cache.getHits());
+		assertEquals(1, cache.getMisses());
+		
+		//SAME SIGNATURE FOR OTHER DATA IS NOT A HIT
+		assertEquals(false, cache.verify(account.getPublicKey(), signature, "other".getBytes()));
+		assertEquals(1, cache.getHits());
+		assertEquals(2, cache.getMisses());
+		
+		//INVALID SIGNATURES ARE NOT CACHED
+		assertEquals(false, cache.verify(account.getPublicKey(), signature, "other".getBytes()));
+		assertEquals(1, cache.getHits());
+		assertEquals(3, cache.getMisses());
+		assertEquals(1, cache.size());
+		
+		//CHECK CACHE IS BOUNDED
+		for(int i=0; i<10; i++)
+		{
+			byte[] otherMessage = ("message" + i).getBytes();
+			cache.verify(account.getPublicKey(), Crypto.getInstance().sign(account, otherMessage), otherMessage);
+		}
+		assertEquals(true, cache.size() <= 2);
+	}
+}
@@ -0,0 +1,82 @@
+package test;
+
+import static org.junit.Assert.*;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import ntp.NTP;
+
+import org.junit.Test;
+
+import database.DBSet;
+import qora.SignatureVerifier;
+import qora.account.Account;
+import qora.account.PrivateKeyAccount;
+import qora.account.PublicKeyAccount;
+import qora.crypto.Crypto;
+import qora.crypto.Ed25519;
+import qora.transaction.GenesisTransaction;
+import qora.transaction.PaymentTransaction;
+import qora.transaction.Transaction;
+
+public class SignatureVerifierTests {
+	
+	@Test
+	public void verifyTransactions()
+	{
+		Ed25519.load();
+		
+		SignatureVerifier verifier = new SignatureVerifier(4);
+		List<Transaction> transactions = createPayments(100);
+		
+		//CHECK VALID TRANSACTIONS
+		assertEquals(true, verifier.verify(transactions));
+		
+		//CHECK EMPTY LIST
+		assertEquals(true, verifier.verify(new ArrayList<Transaction>()));
+		
+		//CHECK SMALL LIST
+		assertEquals(true, verifier.verify(transactions.subList(0, 3)));
+		
+		//REPLACE ONE PAYMENT WITH AN INVALID SIGNATURE
+		PaymentTransaction payment = (PaymentTransaction) transactions.get(77);
+		transactions.set(77, new PaymentTransaction((PublicKeyAccount) payment.getSender(), payment.getRecipient(), payment.getAmount(), payment.getFee(), payment.getTimestamp(), payment.getReference(), new byte[64]));
+		
+		//CHECK INVALID TRANSACTIONS
+		assertEquals(false, verifier.verify(transactions));
+		
+		verifier.shutdown();
+	}
+	
+	private static List<Transaction> createPayments(int amount)
+	{
+		//CREATE EMPTY MEMORY DATABASE
+		DBSet databaseSet = DBSet.createEmptyDatabaseSet();
+		
+		//CREATE KNOWN ACCOUNT
+		byte[] seed = Crypto.getInstance().digest("test".getBytes());
+		byte[] privateKey = Crypto.getInstance().createKeyPair(seed).getA();
+		PrivateKeyAccount sender = new PrivateKeyAccount(privateKey);
+		
+		//PROCESS GENESIS TRANSACTION TO MAKE SURE SENDER HAS FUNDS
+		Transaction transaction = new GenesisTransaction(sender, BigDecimal.valueOf(1000000).setScale(8), NTP.getTime());
+		transaction.process(databaseSet);
+		
+		List<Transaction> transactions = new ArrayList<Transaction>();
+		Account recipient = new Account("XUi2oga2pnGNcZ9es6pBqxydtRZKWdkL2g");
+		long timestamp = NTP.getTime();
+		for(int i=0; i<amount; i++)
+		{
+			//CREATE AND PROCESS PAYMENT SO THE NEXT ONE HAS A NEW REFERENCE
+			byte[] signature = PaymentTransaction.generateSignature(databaseSet, sender, recipient, BigDecimal.valueOf(1).setScale(8), BigDecimal.valueOf(1).setScale(8), timestamp + i);
+			Transaction payment = new PaymentTransaction(sender, recipient, BigDecimal.valueOf(1).setScale(8), BigDecimal.valueOf(1).setScale(8), timestamp + i, sender.getLastReference(databaseSet), signature);
+			payment.process(databaseSet);
+			
+			transactions.add(payment);
+		}
+		
+		return transactions;
+	}
+}
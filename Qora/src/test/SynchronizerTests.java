@@ -2,16 +2,34 @@ package test;
 
 import static org.junit.Assert.*;
 
+import java.io.DataInputStream;
+import java.io.OutputStream;
 import java.math.BigDecimal;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import ntp.NTP;
 
 import org.junit.Test;
 
+import network.ConnectionCallback;
+import network.Peer;
+import network.message.BlocksMessage;
+import network.message.GetBlockMessage;
+import network.message.GetBlocksMessage;
+import network.message.Message;
+import network.message.MessageFactory;
+import network.message.VersionMessage;
+import qora.BlockBuffer;
 import qora.BlockGenerator;
+import qora.BlockPipeline;
+import qora.SynchronizationException;
 import qora.Synchronizer;
 import qora.account.PrivateKeyAccount;
 import qora.block.Block;
@@ -240,4 +258,376 @@ public class SynchronizerTests {
 			fail("Exception during synchronize");
 		}	
 	}	
+	
+	//ANSWERS THE BLOCK REQUESTS OF ONE CONNECTION, OR ONLY COUNTS THE REQUESTED BLOCKS IF STALLED
+	private static Thread serveBlocks(final ServerSocket server, final List<Block> blocks, final boolean stalled, final AtomicInteger requested)
+	{
+		Thread thread = new Thread() {
+			@Override
+			public void run() {
+				try
+				{
+					Socket socket = server.accept();
+					DataInputStream in = new DataInputStream(socket.getInputStream());
+					OutputStream out = socket.getOutputStream();
+					
+					while(true)
+					{
+						in.readFully(new byte[Message.MAGIC_LENGTH]);
+						Message request = MessageFactory.getInstance().parse(null, in);
+						
+						if(request.getType() == Message.GET_BLOCKS_TYPE)
+						{
+							GetBlocksMessage getBlocksMessage = (GetBlocksMessage) request;
+							requested.addAndGet(getBlocksMessage.getAmount());
+							
+							for(int i=0; i<blocks.size() && !stalled; i++)
+							{
+								if(Arrays.equals(blocks.get(i).getSignature(), getBlocksMessage.getSignature()))
+								{
+									Message response = MessageFactory.getInstance().createBlocksMessage(blocks.subList(i, Math.min(blocks.size(), i + getBlocksMessage.getAmount())));
+									response.setId(request.getId());
+									out.write(response.toBytes());
+									out.flush();
+								}
+							}
+							
+							continue;
+						}
+						
+						requested.incrementAndGet();
+						
+						if(stalled)
+						{
+							continue;
+						}
+						
+						for(final Block block: blocks)
+						{
+							if(Arrays.equals(block.getSignature(), ((GetBlockMessage) request).getSignature()))
+							{
+								//WRITE BLOCK WITHOUT LOOKING UP ITS HEIGHT
+								Message response = new Message(Message.BLOCK_TYPE) {
+									@Override
+									protected void writeData(ByteBuffer buffer) {
+										buffer.putInt(1);
+										block.toBytes(buffer);
+									}
+									
+									@Override
+									protected int getDataLength() {
+										return 4 + block.getDataLength();
+									}
+								};
+								response.setId(request.getId());
+								out.write(response.toBytes());
+								out.flush();
+							}
+						}
+					}
+				}
+				catch(Exception e)
+				{
+					//CONNECTION CLOSED
+				}
+			}
+		};
+		thread.start();
+		
+		return thread;
+	}
+	
+	@Test
+	public void downloadFromPeers() throws Exception
+	{
+		Ed25519.load();
+		
+		DBSet databaseSet = DBSet.createEmptyDatabaseSet();
+		
+		//PROCESS GENESISBLOCK
+		GenesisBlock genesisBlock = new GenesisBlock();
+		genesisBlock.process(databaseSet);
+		
+		//CREATE KNOWN ACCOUNT
+		byte[] seed = Crypto.getInstance().digest("test".getBytes());
+		byte[] privateKey = Crypto.getInstance().createKeyPair(seed).getA();
+		PrivateKeyAccount generator = new PrivateKeyAccount(privateKey);
+		
+		//PROCESS GENESIS TRANSACTION TO MAKE SURE GENERATOR HAS FUNDS
+		Transaction transaction = new GenesisTransaction(generator, BigDecimal.valueOf(1000).setScale(8), NTP.getTime());
+		transaction.process(databaseSet);
+		
+		//GENERATE 30 BLOCKS
+		Block lastBlock = genesisBlock;
+		BlockGenerator blockGenerator = new BlockGenerator();
+		List<Block> blocks = new ArrayList<Block>();
+		List<byte[]> signatures = new ArrayList<byte[]>();
+		for(int i=0; i<30; i++)
+		{
+			Block newBlock = blockGenerator.generateNextBlock(databaseSet, generator, lastBlock);
+			newBlock.setTransactionsSignature(Crypto.getInstance().sign(generator, newBlock.getGeneratorSignature()));
+			newBlock.process(databaseSet);
+			
+			blocks.add(newBlock);
+			signatures.add(newBlock.getSignature());
+			lastBlock = newBlock;
+		}
+		
+		ConnectionCallback callback = new ConnectionCallback() {
+			@Override
+			public void onConnect(Peer peer) {}
+			
+			@Override
+			public void onDisconnect(Peer peer) {}
+			
+			@Override
+			public void onError(Peer peer) {}
+			
+			@Override
+			public boolean isConnectedTo(InetAddress address) {
+				return false;
+			}
+			
+			@Override
+			public boolean isConnectedTo(Peer peer) {
+				return false;
+			}
+			
+			@Override
+			public List<Peer> getActiveConnections() {
+				return new ArrayList<Peer>();
+			}
+			
+			@Override
+			public void onMessage(Message message) {}
+		};
+		
+		//CONNECT TO A STALLED PEER AND TWO PEERS THAT ANSWER, THE LAST ONE WITH BLOCK RANGES
+		List<ServerSocket> servers = new ArrayList<ServerSocket>();
+		List<Peer> peers = new ArrayList<Peer>();
+		List<AtomicInteger> requests = new ArrayList<AtomicInteger>();
+		for(int i=0; i<3; i++)
+		{
+			ServerSocket server = new ServerSocket(0);
+			AtomicInteger count = new AtomicInteger();
+			serveBlocks(server, blocks, i == 0, count);
+			
+			Peer peer = new Peer(InetAddress.getLoopbackAddress());
+			peer.setBlocksSupported(i == 2);
+			peer.connect(callback, server.getLocalPort());
+			
+			servers.add(server);
+			peers.add(peer);
+			requests.add(count);
+		}
+		
+		//CHECK BLOCKS ARE DELIVERED IN ORDER
+		BlockBuffer blockBuffer = new BlockBuffer(signatures, peers, 2000, null);
+		for(byte[] signature: signatures)
+		{
+			Block block = blockBuffer.getBlock(signature);
+			assertNotNull(block);
+			assertTrue(Arrays.equals(signature, block.getSignature()));
+			
+			//CHECK SENDER IS ONE OF THE PEERS THAT ANSWER
+			assertTrue(blockBuffer.getSender(signature) == peers.get(1) || blockBuffer.getSender(signature) == peers.get(2));
+		}
+		blockBuffer.stop();
+		
+		//CHECK REQUESTS WERE SPREAD AND THE BLOCKS OF THE STALLED PEER WERE ASKED FROM THE OTHERS ONCE
+		assertTrue(requests.get(0).get() > 0);
+		assertTrue(requests.get(1).get() > 0);
+		assertTrue(requests.get(2).get() > 0);
+		assertEquals(signatures.size(), requests.get(1).get() + requests.get(2).get());
+		
+		//CHECK TIMEOUT NAMES THE STALLED PEER WITHOUT CALLING IT DISHONEST
+		blockBuffer = new BlockBuffer(signatures, peers.subList(0, 1), 500, null);
+		try
+		{
+			blockBuffer.getBlock(signatures.get(0));
+			fail("Stalled peer delivered a block");
+		}
+		catch(SynchronizationException e)
+		{
+			assertTrue(e.getPeer() == peers.get(0));
+			assertEquals(false, e.isDishonest());
+		}
+		blockBuffer.stop();
+		
+		for(int i=0; i<3; i++)
+		{
+			peers.get(i).close();
+			servers.get(i).close();
+		}
+	}
+	
+	@Test
+	public void pipelineBlocks() throws Exception
+	{
+		Ed25519.load();
+		
+		DBSet databaseSet = DBSet.createEmptyDatabaseSet();
+		
+		//PROCESS GENESISBLOCK
+		GenesisBlock genesisBlock = new GenesisBlock();
+		genesisBlock.process(databaseSet);
+		
+		//CREATE KNOWN ACCOUNT
+		byte[] seed = Crypto.getInstance().digest("test".getBytes());
+		byte[] privateKey = Crypto.getInstance().createKeyPair(seed).getA();
+		PrivateKeyAccount generator = new PrivateKeyAccount(privateKey);
+		
+		//PROCESS GENESIS TRANSACTION TO MAKE SURE GENERATOR HAS FUNDS
+		Transaction transaction = new GenesisTransaction(generator, BigDecimal.valueOf(1000).setScale(8), NTP.getTime());
+		transaction.process(databaseSet);
+		
+		//GENERATE 30 BLOCKS
+		Block lastBlock = genesisBlock;
+		BlockGenerator blockGenerator = new BlockGenerator();
+		List<Block> blocks = new ArrayList<Block>();
+		List<byte[]> signatures = new ArrayList<byte[]>();
+		for(int i=0; i<30; i++)
+		{
+			Block newBlock = blockGenerator.generateNextBlock(databaseSet, generator, lastBlock);
+			newBlock.setTransactionsSignature(Crypto.getInstance().sign(generator, newBlock.getGeneratorSignature()));
+			newBlock.process(databaseSet);
+			
+			blocks.add(newBlock);
+			signatures.add(newBlock.getSignature());
+			lastBlock = newBlock;
+		}
+		
+		ConnectionCallback callback = new ConnectionCallback() {
+			@Override
+			public void onConnect(Peer peer) {}
+			
+			@Override
+			public void onDisconnect(Peer peer) {}
+			
+			@Override
+			public void onError(Peer peer) {}
+			
+			@Override
+			public boolean isConnectedTo(InetAddress address) {
+				return false;
+			}
+			
+			@Override
+			public boolean isConnectedTo(Peer peer) {
+				return false;
+			}
+			
+			@Override
+			public List<Peer> getActiveConnections() {
+				return new ArrayList<Peer>();
+			}
+			
+			@Override
+			public void onMessage(Message message) {}
+		};
+		
+		//CONNECT TO A PEER THAT ANSWERS SINGLE BLOCKS AND ONE WITH BLOCK RANGES
+		List<ServerSocket> servers = new ArrayList<ServerSocket>();
+		List<Peer> peers = new ArrayList<Peer>();
+		for(int i=0; i<2; i++)
+		{
+			ServerSocket server = new ServerSocket(0);
+			serveBlocks(server, blocks, false, new AtomicInteger());
+			
+			Peer peer = new Peer(InetAddress.getLoopbackAddress());
+			peer.setBlocksSupported(i == 1);
+			peer.connect(callback, server.getLocalPort());
+			
+			servers.add(server);
+			peers.add(peer);
+		}
+		
+		//CHECK BLOCKS COME OUT OF THE PIPELINE IN ORDER
+		BlockPipeline pipeline = new BlockPipeline(signatures, peers, 2000, 2);
+		for(byte[] signature: signatures)
+		{
+			long start = System.nanoTime();
+			
+			Block block = pipeline.take();
+			assertNotNull(block);
+			assertTrue(Arrays.equals(signature, block.getSignature()));
+			
+			pipeline.onApplied(System.nanoTime() - start);
+		}
+		assertNull(pipeline.take());
+		pipeline.stop();
+		
+		//CHECK EVERY BLOCK PASSED EVERY STAGE AND THROUGHPUT IS REPORTED
+		assertEquals(signatures.size(), pipeline.getCount(BlockPipeline.FETCH_STAGE));
+		assertEquals(signatures.size(), pipeline.getCount(BlockPipeline.CHECK_STAGE));
+		assertEquals(signatures.size(), pipeline.getCount(BlockPipeline.APPLY_STAGE));
+		assertTrue(pipeline.getThroughput(BlockPipeline.FETCH_STAGE) > 0);
+		assertTrue(pipeline.getThroughput(BlockPipeline.CHECK_STAGE) > 0);
+		assertTrue(pipeline.getThroughput(BlockPipeline.APPLY_STAGE) > 0);
+		
+		for(int i=0; i<2; i++)
+		{
+			peers.get(i).close();
+			servers.get(i).close();
+		}
+	}
+	
+	@Test
+	public void parseBlockRanges() throws Exception
+	{
+		Ed25519.load();
+		
+		DBSet databaseSet = DBSet.createEmptyDatabaseSet();
+		
+		//PROCESS GENESISBLOCK
+		GenesisBlock genesisBlock = new GenesisBlock();
+		genesisBlock.process(databaseSet);
+		
+		//CREATE KNOWN ACCOUNT
+		byte[] seed = Crypto.getInstance().digest("test".getBytes());
+		byte[] privateKey = Crypto.getInstance().createKeyPair(seed).getA();
+		PrivateKeyAccount generator = new PrivateKeyAccount(privateKey);
+		
+		//PROCESS GENESIS TRANSACTION TO MAKE SURE GENERATOR HAS FUNDS
+		Transaction transaction = new GenesisTransaction(generator, BigDecimal.valueOf(1000).setScale(8), NTP.getTime());
+		transaction.process(databaseSet);
+		
+		//GENERATE 3 BLOCKS
+		Block lastBlock = genesisBlock;
+		BlockGenerator blockGenerator = new BlockGenerator();
+		List<Block> blocks = new ArrayList<Block>();
+		for(int i=0; i<3; i++)
+		{
+			Block newBlock = blockGenerator.generateNextBlock(databaseSet, generator, lastBlock);
+			newBlock.setTransactionsSignature(Crypto.getInstance().sign(generator, newBlock.getGeneratorSignature()));
+			newBlock.process(databaseSet);
+			
+			blocks.add(newBlock);
+			lastBlock = newBlock;
+		}
+		
+		//CHECK REQUEST
+		Message message = MessageFactory.getInstance().createGetBlocksMessage(blocks.get(0).getSignature(), 3);
+		ByteBuffer buffer = message.getBuffer();
+		buffer.position(Message.MAGIC_LENGTH);
+		GetBlocksMessage request = (GetBlocksMessage) MessageFactory.getInstance().parse(null, buffer);
+		assertTrue(Arrays.equals(blocks.get(0).getSignature(), request.getSignature()));
+		assertEquals(3, request.getAmount());
+		
+		//CHECK BLOCKS ARE PARSED BACK TO BACK
+		message = MessageFactory.getInstance().createBlocksMessage(blocks);
+		buffer = message.getBuffer();
+		buffer.position(Message.MAGIC_LENGTH);
+		BlocksMessage response = (BlocksMessage) MessageFactory.getInstance().parse(null, buffer);
+		assertEquals(3, response.getBlocks().size());
+		for(int i=0; i<3; i++)
+		{
+			assertTrue(Arrays.equals(blocks.get(i).getSignature(), response.getBlocks().get(i).getSignature()));
+			assertEquals(true, response.getBlocks().get(i).isSignatureValid());
+		}
+		
+		//CHECK PEERS THAT SEND BLOCK RANGES ARE RECOGNIZED
+		VersionMessage version = (VersionMessage) MessageFactory.getInstance().createVersionMessage(1);
+		assertTrue(version.hasCapability(VersionMessage.BLOCKS_CAPABILITY));
+	}
 }
@@ -0,0 +1,361 @@
+package test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.DataInputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import network.ConnectionCallback;
+import network.DuplicateFilter;
+import network.Inventory;
+import network.OutboundQueue;
+import network.Peer;
+import network.message.InventoryMessage;
+import network.message.Message;
+import network.message.MessageFactory;
+import network.message.SignaturesMessage;
+import network.message.VersionMessage;
+
+import org.junit.Test;
+
+import qora.BlockChain;
+
+public class TransportTests {
+	
+	@Test
+	public void exchangeMessages() throws Exception
+	{
+		final CountDownLatch connected = new CountDownLatch(1);
+		final CountDownLatch disconnected = new CountDownLatch(1);
+		final BlockingQueue<Message> received = new LinkedBlockingQueue<Message>();
+		
+		ConnectionCallback callback = new ConnectionCallback() {
+			@Override
+			public void onConnect(Peer peer) {
+				connected.countDown();
+			}
+			
+			@Override
+			public void onDisconnect(Peer peer) {
+				disconnected.countDown();
+			}
+			
+			@Override
+			public void onError(Peer peer) {
+				disconnected.countDown();
+			}
+			
+			@Override
+			public boolean isConnectedTo(InetAddress address) {
+				return false;
+			}
+			
+			@Override
+			public boolean isConnectedTo(Peer peer) {
+				return false;
+			}
+			
+			@Override
+			public List<Peer> getActiveConnections() {
+				return new ArrayList<Peer>();
+			}
+			
+			@Override
+			public void onMessage(Message message) {
+				received.add(message);
+			}
+		};
+		
+		//CONNECT TO PLAIN SOCKET
+		ServerSocket server = new ServerSocket(0);
+		Peer peer = new Peer(InetAddress.getLoopbackAddress());
+		peer.connect(callback, server.getLocalPort());
+		Socket socket = server.accept();
+		assertTrue(connected.await(5, TimeUnit.SECONDS));
+		
+		DataInputStream in = new DataInputStream(socket.getInputStream());
+		OutputStream out = socket.getOutputStream();
+		
+		//SEND REQUEST
+		Message ping = MessageFactory.getInstance().createPingMessage();
+		BlockingQueue<Message> response = peer.sendRequest(ping);
+		
+		//CHECK REQUEST IS RECEIVED IN THE SAME FORMAT
+		byte[] magic = new byte[Message.MAGIC_LENGTH];
+		in.readFully(magic);
+		Message request = MessageFactory.getInstance().parse(null, in);
+		assertEquals(Message.PING_TYPE, request.getType());
+		assertEquals(ping.getId(), request.getId());
+		
+		//ANSWER IN TWO PARTS
+		byte[] answer = request.toBytes();
+		out.write(answer, 0, 7);
+		out.flush();
+		Thread.sleep(100);
+		out.write(answer, 7, answer.length - 7);
+		out.flush();
+		
+		//CHECK RESPONSE
+		Message pong = response.poll(5, TimeUnit.SECONDS);
+		assertNotNull(pong);
+		assertEquals(ping.getId(), pong.getId());
+		
+		//SEND MESSAGE LARGER THAN THE READ BUFFER
+		Message largeMessage = new Message(Message.BLOCK_TYPE) {
+			@Override
+			protected void writeData(ByteBuffer buffer) {
+				buffer.put(new byte[this.getDataLength()]);
+			}
+			
+			@Override
+			protected int getDataLength() {
+				return 200000;
+			}
+		};
+		out.write(largeMessage.toBytes());
+		out.flush();
+		
+		//CHECK IT IS PASSED TO THE CALLBACK
+		Message message = received.poll(5, TimeUnit.SECONDS);
+		assertNotNull(message);
+		assertEquals(Message.BLOCK_TYPE, message.getType());
+		
+		//SEND MESSAGE LONGER THAN ALLOWED FOR ITS TYPE
+		List<byte[]> signatures = new ArrayList<byte[]>();
+		for(int i=0; i<=BlockChain.MAX_SIGNATURES; i++)
+		{
+			signatures.add(new byte[128]);
+		}
+		out.write(MessageFactory.getInstance().createHeadersMessage(signatures).toBytes());
+		out.flush();
+		
+		//CHECK DISCONNECT
+		assertTrue(disconnected.await(5, TimeUnit.SECONDS));
+		assertEquals(0, received.size());
+		
+		socket.close();
+		
+		server.close();
+	}
+	
+	@Test
+	public void serializeOnce() throws Exception
+	{
+		List<byte[]> signatures = new ArrayList<byte[]>();
+		for(int i=0; i<BlockChain.MAX_SIGNATURES; i++)
+		{
+			signatures.add(new byte[128]);
+		}
+		Message message = MessageFactory.getInstance().createHeadersMessage(signatures);
+		
+		//CHECK BUFFER HOLDS THE WIRE FORMAT
+		ByteBuffer buffer = message.getBuffer();
+		byte[] bytes = new byte[buffer.remaining()];
+		buffer.get(bytes);
+		assertTrue(Arrays.equals(message.toBytes(), bytes));
+		
+		//CHECK EVERY PEER GETS ITS OWN POSITION IN THE SAME BUFFER
+		assertEquals(bytes.length, message.getBuffer().remaining());
+		
+		//CHECK NEW ID IS SERIALIZED
+		message.setId(5);
+		assertEquals(bytes.length + Message.ID_LENGTH, message.getBuffer().remaining());
+		
+		//CHECK PARSING FROM BUFFER
+		buffer = message.getBuffer();
+		buffer.position(Message.MAGIC_LENGTH);
+		Message parsed = MessageFactory.getInstance().parse(null, buffer);
+		assertEquals(5, parsed.getId());
+		assertEquals(BlockChain.MAX_SIGNATURES, ((SignaturesMessage) parsed).getSignatures().size());
+	}
+	
+	@Test
+	public void filterDuplicates() throws Exception
+	{
+		DuplicateFilter filter = new DuplicateFilter(3);
+		
+		//CHECK HASH OF PARSED MESSAGE MATCHES HASH OF SENT MESSAGE
+		Message message = MessageFactory.getInstance().createGetBlockMessage(new byte[128]);
+		ByteBuffer buffer = message.getBuffer();
+		buffer.position(Message.MAGIC_LENGTH);
+		Message parsed = MessageFactory.getInstance().parse(null, buffer);
+		assertTrue(Arrays.equals(message.getHash(), parsed.getHash()));
+		
+		//CHECK DUPLICATES ARE FILTERED
+		assertEquals(true, filter.add(message.getHash()));
+		assertEquals(false, filter.add(parsed.getHash()));
+		
+		//CHECK OLDEST IS REMOVED FIRST
+		for(int i=1; i<=3; i++)
+		{
+			byte[] hash = new byte[32];
+			hash[0] = (byte) i;
+			assertEquals(true, filter.add(hash));
+		}
+		assertEquals(3, filter.size());
+		assertEquals(false, filter.contains(message.getHash()));
+		assertEquals(true, filter.add(message.getHash()));
+		
+		//CHECK DUPLICATE RATE
+		assertEquals(6, filter.getCheckedCount());
+		assertEquals(1, filter.getDuplicateCount());
+		assertEquals(1.0 / 6, filter.getDuplicateRate(), 0.0001);
+	}
+	
+	@Test
+	public void relayInventory() throws Exception
+	{
+		//CHECK VERSION MESSAGE CARRIES THE CAPABILITIES IN ITS DATA AND KEEPS THE ID BYTE AT 0
+		Message version = MessageFactory.getInstance().createVersionMessage(1);
+		ByteBuffer buffer = version.getBuffer();
+		assertEquals(0, buffer.get(Message.MAGIC_LENGTH + Message.TYPE_LENGTH));
+		buffer.position(Message.MAGIC_LENGTH);
+		Message parsed = MessageFactory.getInstance().parse(null, buffer);
+		assertEquals(VersionMessage.INVENTORY_CAPABILITY | VersionMessage.BLOCKS_CAPABILITY, ((VersionMessage) parsed).getCapabilities());
+		assertEquals(false, parsed.hasId());
+		
+		//CHECK VERSION OF OLDER PEER WITHOUT CAPABILITIES AND OF LATER PEER WITH MORE FIELDS
+		ByteBuffer data = ByteBuffer.allocate(4);
+		data.putInt(5);
+		data.flip();
+		parsed = VersionMessage.parse(data);
+		assertEquals(5, ((VersionMessage) parsed).getHeight());
+		assertEquals(0, ((VersionMessage) parsed).getCapabilities());
+		data = ByteBuffer.allocate(12);
+		data.putInt(5);
+		data.putInt(VersionMessage.BLOCKS_CAPABILITY);
+		data.putInt(7);
+		data.flip();
+		parsed = VersionMessage.parse(data);
+		assertEquals(5, ((VersionMessage) parsed).getHeight());
+		assertEquals(true, ((VersionMessage) parsed).hasCapability(VersionMessage.BLOCKS_CAPABILITY));
+		assertEquals(false, ((VersionMessage) parsed).hasCapability(VersionMessage.INVENTORY_CAPABILITY));
+		
+		//CHECK INV AND GETDATA ROUND TRIP
+		Message block = MessageFactory.getInstance().createGetBlockMessage(new byte[128]);
+		for(Message message: new Message[]{MessageFactory.getInstance().createInvMessage(Arrays.asList(block.getHash())), MessageFactory.getInstance().createGetDataMessage(Arrays.asList(block.getHash()))})
+		{
+			buffer = message.getBuffer();
+			buffer.position(Message.MAGIC_LENGTH);
+			parsed = MessageFactory.getInstance().parse(null, buffer);
+			assertEquals(message.getType(), parsed.getType());
+			assertEquals(1, ((InventoryMessage) parsed).getHashes().size());
+			assertTrue(Arrays.equals(block.getHash(), ((InventoryMessage) parsed).getHashes().get(0)));
+		}
+		
+		//CHECK MESSAGES ARE KEPT UNTIL THE INVENTORY IS FULL
+		int length = block.getBuffer().remaining();
+		Inventory inventory = new Inventory(length * 2, 2, 200);
+		inventory.add(block);
+		assertEquals(block, inventory.get(block.getHash()));
+		inventory.add(block);
+		assertEquals(length, inventory.getBytes());
+		
+		byte[] otherSignature = new byte[128];
+		otherSignature[0] = 1;
+		Message other = MessageFactory.getInstance().createGetBlockMessage(otherSignature);
+		byte[] lastSignature = new byte[128];
+		lastSignature[0] = 2;
+		Message last = MessageFactory.getInstance().createGetBlockMessage(lastSignature);
+		inventory.add(other);
+		inventory.add(last);
+		assertEquals(null, inventory.get(block.getHash()));
+		assertEquals(2, inventory.size());
+		
+		//CHECK HASHES ARE ONLY REQUESTED AGAIN AFTER THE TIMEOUT
+		byte[] first = new byte[32];
+		byte[] second = new byte[32];
+		second[0] = 1;
+		byte[] third = new byte[32];
+		third[0] = 2;
+		assertEquals(true, inventory.request(first));
+		assertEquals(false, inventory.request(first));
+		assertEquals(true, inventory.request(second));
+		assertEquals(false, inventory.request(third));
+		Thread.sleep(300);
+		assertEquals(true, inventory.request(third));
+		assertEquals(true, inventory.request(first));
+	}
+	
+	private static Message createMessage(int type, final int dataLength)
+	{
+		return new Message(type) {
+			@Override
+			protected void writeData(ByteBuffer buffer) {
+				buffer.put(new byte[dataLength]);
+			}
+			
+			@Override
+			protected int getDataLength() {
+				return dataLength;
+			}
+		};
+	}
+	
+	@Test
+	public void prioritizeOutbound() throws Exception
+	{
+		Message peers = createMessage(Message.PEERS_TYPE, 100);
+		Message transaction = createMessage(Message.TRANSACTION_TYPE, 100);
+		Message block = createMessage(Message.BLOCK_TYPE, 100);
+		Message ping = MessageFactory.getInstance().createPingMessage();
+		int length = block.getLength();
+		
+		OutboundQueue queue = new OutboundQueue(length * 3);
+		assertEquals(OutboundQueue.QUEUED, queue.offer(peers));
+		assertEquals(OutboundQueue.QUEUED, queue.offer(transaction));
+		assertEquals(OutboundQueue.QUEUED, queue.offer(block));
+		
+		//CHECK LOWEST LANE IS DROPPED TO MAKE ROOM
+		assertEquals(OutboundQueue.QUEUED, queue.offer(ping));
+		assertEquals(1, queue.getDroppedCount());
+		assertEquals(length * 2 + ping.getLength(), queue.getBytes());
+		
+		//CHECK HIGHER LANES ARE WRITTEN FIRST
+		assertEquals(Message.PING_TYPE, queue.peek().getInt(Message.MAGIC_LENGTH));
+		queue.remove();
+		
+		//CHECK PARTLY WRITTEN BUFFER IS FINISHED FIRST
+		ByteBuffer buffer = queue.peek();
+		assertEquals(Message.BLOCK_TYPE, buffer.getInt(Message.MAGIC_LENGTH));
+		buffer.position(10);
+		assertEquals(OutboundQueue.QUEUED, queue.offer(ping));
+		assertTrue(buffer == queue.peek());
+		queue.remove();
+		assertEquals(Message.PING_TYPE, queue.peek().getInt(Message.MAGIC_LENGTH));
+		queue.remove();
+		assertEquals(Message.TRANSACTION_TYPE, queue.peek().getInt(Message.MAGIC_LENGTH));
+		
+		//CHECK TRANSACTIONS ARE DROPPED AND BLOCKS OVERFLOW WHEN FULL
+		assertEquals(OutboundQueue.QUEUED, queue.offer(block));
+		assertEquals(OutboundQueue.QUEUED, queue.offer(block));
+		assertEquals(OutboundQueue.DROPPED, queue.offer(transaction));
+		assertEquals(OutboundQueue.OVERFLOW, queue.offer(block));
+		assertEquals(OutboundQueue.DROPPED, queue.offer(ping));
+		assertEquals(3, queue.getDroppedCount());
+		
+		//CHECK QUEUE EMPTIES
+		for(int i=0; i<3; i++)
+		{
+			assertNotNull(queue.peek());
+			queue.remove();
+		}
+		assertEquals(true, queue.isEmpty());
+		
+		//CHECK BLOCK RANGES SHARE THE LANE OF BLOCKS
+		assertEquals(OutboundQueue.BLOCK_LANE, OutboundQueue.getLane(Message.BLOCKS_TYPE));
+	}
+}
@@ -0,0 +1,38 @@
+package utils;
+
+import java.io.Serializable;
+import java.util.Comparator;
+
+import org.mapdb.Fun;
+
+//ALLOWS NULL AS LOWEST AND FUN.HI AS HIGHEST VALUE SO RANGES CAN BE QUERIED WITH ANY COMPARATOR
+public class BoundedComparator<T> implements Comparator<T>, Serializable
+{
+	private static final long serialVersionUID = -4526185377925462035L;
+	private Comparator<T> delegate;
+	
+	public BoundedComparator(Comparator<T> delegate)
+	{
+		this.delegate = delegate;
+	}
+
+	public int compare(T a, T b) 
+	{
+		if(a == b)
+		{
+			return 0;
+		}
+		
+		if(a == null || b == Fun.HI)
+		{
+			return -1;
+		}
+		
+		if(b == null || a == Fun.HI)
+		{
+			return 1;
+		}
+		
+		return this.delegate.compare(a, b);
+	}
+}
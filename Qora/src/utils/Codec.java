@@ -0,0 +1,174 @@
+package utils;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import qora.crypto.Base58;
+
+public class Codec {
+	
+	public static final int ADDRESS_LENGTH = 25;
+	
+	//LARGEST BUFFER KEPT PER THREAD, BIGGER REQUESTS GET A NEW BUFFER
+	private static final int MAX_POOLED_LENGTH = 2 * 1048576;
+	
+	private static final ThreadLocal<ByteBuffer> POOL = new ThreadLocal<ByteBuffer>()
+	{
+		@Override
+		protected ByteBuffer initialValue()
+		{
+			return ByteBuffer.allocate(1024);
+		}
+	};
+	
+	//BUFFERS
+	
+	public static ByteBuffer allocate(int length)
+	{
+		return ByteBuffer.allocate(length);
+	}
+	
+	//RETURNS A CLEARED BUFFER OWNED BY THE CURRENT THREAD, ONLY VALID UNTIL THE NEXT CALL ON THIS THREAD
+	public static ByteBuffer borrow(int length)
+	{
+		if(length > MAX_POOLED_LENGTH)
+		{
+			return ByteBuffer.allocate(length);
+		}
+		
+		ByteBuffer buffer = POOL.get();
+		
+		if(buffer.capacity() < length)
+		{
+			buffer = ByteBuffer.allocate(Math.max(length, buffer.capacity() * 2));
+			POOL.set(buffer);
+		}
+		
+		buffer.clear();
+		buffer.limit(length);
+		return buffer;
+	}
+	
+	//RETURNS THE WRITTEN BYTES, WITHOUT COPYING WHEN THE BUFFER IS EXACTLY FULL
+	public static byte[] toArray(ByteBuffer buffer)
+	{
+		if(buffer.arrayOffset() == 0 && buffer.position() == buffer.array().length)
+		{
+			return buffer.array();
+		}
+		
+		return Arrays.copyOfRange(buffer.array(), buffer.arrayOffset(), buffer.arrayOffset() + buffer.position());
+	}
+	
+	//WRITE
+	
+	//WRITES BYTES FOLLOWED BY ZEROS UP TO LENGTH
+	public static void putPadded(ByteBuffer buffer, byte[] bytes, int length)
+	{
+		buffer.put(bytes);
+		
+		for(int i=bytes.length; i<length; i++)
+		{
+			buffer.put((byte) 0);
+		}
+	}
+	
+	//WRITES THE UNSCALED VALUE LEFT PADDED WITH ZEROS
+	public static void putAmount(ByteBuffer buffer, BigDecimal amount, int length)
+	{
+		putInteger(buffer, amount.unscaledValue(), length);
+	}
+	
+	//WRITES THE TWO'S COMPLEMENT BYTES LEFT PADDED WITH ZEROS
+	public static void putInteger(ByteBuffer buffer, BigInteger integer, int length)
+	{
+		byte[] integerBytes = integer.toByteArray();
+		
+		if(integerBytes.length > length)
+		{
+			throw new IllegalArgumentException("Value does not fit in " + length + " bytes");
+		}
+		
+		for(int i=integerBytes.length; i<length; i++)
+		{
+			buffer.put((byte) 0);
+		}
+		
+		buffer.put(integerBytes);
+	}
+	
+	//WRITES THE DECODED ADDRESS, RETURNS FALSE AND WRITES ZEROS IF IT IS NOT ADDRESS_LENGTH BYTES
+	//ZEROS KEEP THE LAYOUT OF THE DATA AND ARE NEVER A VALID ADDRESS
+	public static boolean putAddress(ByteBuffer buffer, String address)
+	{
+		byte[] addressBytes = null;
+		try
+		{
+			addressBytes = Base58.decode(address);
+		}
+		catch(Exception e)
+		{
+			//DECODE EXCEPTION
+		}
+		
+		if(addressBytes == null || addressBytes.length != ADDRESS_LENGTH)
+		{
+			buffer.put(new byte[ADDRESS_LENGTH]);
+			return false;
+		}
+		
+		buffer.put(addressBytes);
+		return true;
+	}
+	
+	//WRITES SIZE + UTF-8 BYTES
+	public static void putString(ByteBuffer buffer, String string)
+	{
+		byte[] stringBytes = string.getBytes(StandardCharsets.UTF_8);
+		buffer.putInt(stringBytes.length);
+		buffer.put(stringBytes);
+	}
+	
+	public static int getStringLength(String string)
+	{
+		return 4 + string.getBytes(StandardCharsets.UTF_8).length;
+	}
+	
+	//READ
+	
+	public static byte[] getBytes(ByteBuffer buffer, int length)
+	{
+		if(length < 0 || length > buffer.remaining())
+		{
+			throw new BufferUnderflowException();
+		}
+		
+		byte[] bytes = new byte[length];
+		buffer.get(bytes);
+		return bytes;
+	}
+	
+	public static BigDecimal getAmount(ByteBuffer buffer, int length)
+	{
+		return new BigDecimal(getInteger(buffer, length), 8);
+	}
+	
+	public static BigInteger getInteger(ByteBuffer buffer, int length)
+	{
+		return new BigInteger(getBytes(buffer, length));
+	}
+	
+	public static String getAddress(ByteBuffer buffer)
+	{
+		return Base58.encode(getBytes(buffer, ADDRESS_LENGTH));
+	}
+	
+	public static String getString(ByteBuffer buffer, int length)
+	{
+		return new String(getBytes(buffer, length), StandardCharsets.UTF_8);
+	}
+}